@@ -0,0 +1,159 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.response.GameStats;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Number of games on every node. Other nodes are polled for their stats every refresh
+ * interval, and rooms placed on a node count towards its load until the next poll, so a
+ * burst of new rooms doesn't pile up on the node that looked the least loaded.
+ * The members file is rechecked on the same schedule.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class ClusterLoads {
+
+	private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+	private final ClusterMembership membership;
+
+	private final GameRepository gameRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final String statsPath;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(POLL_TIMEOUT)
+			.build();
+
+	/*
+	 * Games on the other nodes, nodes that didn't answer the last poll are missing
+	 */
+	private final Map<Integer, AtomicLong> loads = new ConcurrentHashMap<>();
+
+	/*
+	 * Games processing questions on the other nodes, from the last poll
+	 */
+	private final Map<Integer, Long> active = new ConcurrentHashMap<>();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(command -> {
+		var thread = new Thread(command, "cluster-loads");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ClusterLoads(ClusterMembership membership, GameRepository gameRepository, ObjectMapper objectMapper,
+						ClusterProperties properties, @Value("${server.servlet.context-path:}") String contextPath) {
+		this.membership = membership;
+		this.gameRepository = gameRepository;
+		this.objectMapper = objectMapper;
+		this.statsPath = contextPath + "/games/stats";
+		long interval = properties.refreshInterval().toMillis();
+		this.scheduler.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+
+	/*
+	 * @return number of games on the node, Long.MAX_VALUE if the node doesn't answer
+	 */
+	public long loadOf(ClusterNode node) {
+		if (node.id() == this.membership.self()) {
+			return this.gameRepository.countGames();
+		}
+		var load = this.loads.get(node.id());
+		return load == null ? Long.MAX_VALUE : load.get();
+	}
+
+	/*
+	 * @return number of games processing questions on the node, Long.MAX_VALUE if the node doesn't answer
+	 */
+	public long activeOf(ClusterNode node) {
+		if (node.id() == this.membership.self()) {
+			return this.gameRepository.countGames(ProcessingQuestion.class);
+		}
+		return this.active.getOrDefault(node.id(), Long.MAX_VALUE);
+	}
+
+	/*
+	 * Counts a room placed on the node until the node is polled again
+	 */
+	public void placed(ClusterNode node) {
+		var load = this.loads.get(node.id());
+		if (load != null) {
+			load.incrementAndGet();
+		}
+	}
+
+	private void refresh() {
+		this.membership.refresh();
+		for (var node : this.membership.members()) {
+			if (node.id() != this.membership.self()) {
+				this.poll(node);
+			}
+		}
+		this.loads.keySet().removeIf(id -> this.membership.node(id).isEmpty());
+		this.active.keySet().removeIf(id -> this.membership.node(id).isEmpty());
+	}
+
+	private void poll(ClusterNode node) {
+		var request = HttpRequest.newBuilder(URI.create(node.uri() + this.statsPath))
+				.timeout(POLL_TIMEOUT)
+				.GET()
+				.build();
+		this.client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+				.thenAccept(response -> {
+					try {
+						// draining nodes answer 503 and take no new rooms
+						if (response.statusCode() != HttpStatus.OK.value()) {
+							throw new IOException("Node " + node.id() + " answered " + response.statusCode());
+						}
+						var stats = this.objectMapper.readValue(response.body(), GameStats.class);
+						this.loads.put(node.id(), new AtomicLong(stats.getGames()));
+						this.active.put(node.id(), stats.getProcessingQuestion());
+					} catch (Exception e) {
+						this.loads.remove(node.id());
+						this.active.remove(node.id());
+					}
+				})
+				.exceptionally(e -> {
+					this.active.remove(node.id());
+					if (this.loads.remove(node.id()) != null) {
+						log.warn("Cluster node {} at {} doesn't answer", node.id(), node.uri());
+					}
+					return null;
+				});
+	}
+
+}
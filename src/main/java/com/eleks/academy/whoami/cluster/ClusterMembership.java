@@ -0,0 +1,102 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Nodes of the cluster as this node sees them: the nodes from the configuration, or
+ * from the members file once it exists. Several instances on one machine can share the
+ * file, nodes are added or removed by editing it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class ClusterMembership {
+
+	private final int self;
+
+	private final Path membersFile;
+
+	private volatile View view;
+
+	private long membersFileModified = Long.MIN_VALUE;
+
+	public ClusterMembership(ClusterProperties properties) {
+		this.self = properties.nodeId();
+		this.membersFile = properties.membersFile();
+		this.view = View.of(properties.nodes());
+		this.refresh();
+	}
+
+	public int self() {
+		return this.self;
+	}
+
+	public Collection<ClusterNode> members() {
+		return this.view.nodes().values();
+	}
+
+	public Optional<ClusterNode> node(int id) {
+		return Optional.ofNullable(this.view.nodes().get(id));
+	}
+
+	/*
+	 * @return node owning the key on the consistent-hash ring, empty if there are no nodes
+	 */
+	public Optional<ClusterNode> ownerOf(long key) {
+		return this.view.ring().ownerOf(key);
+	}
+
+	/*
+	 * Rereads the members file if it changed since the last read,
+	 * keeps the current members if the file can't be read
+	 */
+	public synchronized void refresh() {
+		if (this.membersFile == null || !Files.isRegularFile(this.membersFile)) {
+			return;
+		}
+		try {
+			long modified = Files.getLastModifiedTime(this.membersFile).toMillis();
+			if (modified == this.membersFileModified) {
+				return;
+			}
+			var members = new Properties();
+			try (Reader reader = Files.newBufferedReader(this.membersFile)) {
+				members.load(reader);
+			}
+			var nodes = new TreeMap<Integer, URI>();
+			members.forEach((id, uri) -> nodes.put(Integer.parseInt(id.toString().trim()), URI.create(uri.toString().trim())));
+			this.view = View.of(nodes);
+			this.membersFileModified = modified;
+			log.info("Cluster members of node {}: {}", this.self, nodes);
+		} catch (IOException | IllegalArgumentException e) {
+			log.warn("Cluster members file {} can't be read", this.membersFile, e);
+		}
+	}
+
+	private record View(Map<Integer, ClusterNode> nodes, HashRing ring) {
+
+		static View of(Map<Integer, URI> uris) {
+			var nodes = new TreeMap<Integer, ClusterNode>();
+			uris.forEach((id, uri) -> nodes.put(id, new ClusterNode(id, uri)));
+			return new View(nodes, new HashRing(nodes.values()));
+		}
+
+	}
+
+}
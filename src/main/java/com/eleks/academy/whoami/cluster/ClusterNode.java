@@ -0,0 +1,11 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.net.URI;
+
+/*
+ * @param id  node id, the same as in the ids of games the node creates
+ * @param uri base URL of the node: scheme, host and port
+ */
+public record ClusterNode(int id, URI uri) {
+
+}
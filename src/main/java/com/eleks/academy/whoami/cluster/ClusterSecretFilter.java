@@ -0,0 +1,53 @@
+package com.eleks.academy.whoami.cluster;
+
+import static com.eleks.academy.whoami.utils.StringUtils.Headers.CLUSTER_SECRET;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+
+/**
+ * Lets only cluster members and operators that know the shared secret of the cluster reach
+ * the /cluster endpoints, the rest get 403.
+ */
+@Component
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class ClusterSecretFilter extends OncePerRequestFilter {
+
+	private static final String CLUSTER = "/cluster/";
+
+	private final byte[] secret;
+
+	public ClusterSecretFilter(ClusterProperties properties) {
+		this.secret = properties.secret().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !request.getRequestURI().startsWith(request.getContextPath() + CLUSTER);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		var provided = request.getHeader(CLUSTER_SECRET);
+		if (provided == null || !MessageDigest.isEqual(this.secret, provided.getBytes(StandardCharsets.UTF_8))) {
+			response.sendError(HttpStatus.FORBIDDEN.value());
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+
+}
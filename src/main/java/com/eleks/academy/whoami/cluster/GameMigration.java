@@ -0,0 +1,388 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.utils.Base62;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.eleks.academy.whoami.utils.StringUtils.Headers.CLUSTER_SECRET;
+
+/**
+ * Moves running games between nodes.
+ * <p>
+ * The game is suspended right after its snapshot is taken: later commands queue up in the
+ * game mailbox and wait, while reads keep seeing the game as of the snapshot. The snapshot is
+ * restored on the target node, then this node routes the game to the target, drops it and
+ * fails the waiting commands with {@code GameMovedException}, so their retries reach the new
+ * owner. A transfer is sent again safely, the target answers a repeated one without restoring
+ * the game twice. When the target doesn't answer, or answers with an error, it is asked to
+ * confirm whether it took the game: once it says no it refuses late transfers of the snapshot
+ * and the game is resumed here, while no answer keeps the game suspended until it comes, so
+ * the game is never served by both nodes.
+ * <p>
+ * Games are moved on request, all at once when the node is drained, and a few at a time when
+ * this node processes noticeably more questions than the rest of the cluster.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class GameMigration {
+
+	private static final Duration TRANSFER_TIMEOUT = Duration.ofSeconds(5);
+
+	/*
+	 * How often a node that didn't confirm a transfer is asked again
+	 */
+	private static final Duration SETTLE_INTERVAL = Duration.ofSeconds(1);
+
+	/*
+	 * Share of games processing questions above the cluster average this node tolerates
+	 */
+	private static final double REBALANCE_TOLERANCE = 0.25;
+
+	private static final int MAX_MOVES_PER_REBALANCE = 8;
+
+	private final ClusterMembership membership;
+
+	private final ClusterLoads loads;
+
+	private final GameRouter router;
+
+	private final GameRepository gameRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final PlayerPresence presence;
+
+	private final String clusterPath;
+
+	private final String secret;
+
+	/*
+	 * Game id -> the latest snapshot version this node answered it didn't take
+	 */
+	private final Map<Long, Long> givenUp = new ConcurrentHashMap<>();
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(TRANSFER_TIMEOUT)
+			.build();
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(command -> {
+		var thread = new Thread(command, "cluster-rebalance");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public GameMigration(ClusterMembership membership, ClusterLoads loads, GameRouter router,
+						 GameRepository gameRepository, ObjectMapper objectMapper, PlayerPresence presence,
+						 ClusterProperties properties,
+						 @Value("${server.servlet.context-path:}") String contextPath) {
+		this.membership = membership;
+		this.loads = loads;
+		this.router = router;
+		this.gameRepository = gameRepository;
+		this.objectMapper = objectMapper;
+		this.presence = presence;
+		this.clusterPath = contextPath + "/cluster/games";
+		this.secret = properties.secret();
+		long interval = properties.rebalanceInterval().toMillis();
+		if (interval > 0) {
+			this.scheduler.scheduleWithFixedDelay(this::rebalance, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	private enum Transfer {
+
+		TAKEN, REFUSED, UNKNOWN
+
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+
+	/*
+	 * Moves the game to the node
+	 *
+	 * @return node the game moved to
+	 * @throw GameNotFoundException if the game is not served by this node
+	 * @throw GameException if the node is unknown, refuses the game or doesn't confirm taking it,
+	 * 		  in the last case the game stays suspended until the node answers
+	 */
+	public ClusterNode migrate(String id, int nodeId) {
+		var node = this.membership.node(nodeId)
+				.filter(member -> member.id() != this.membership.self())
+				.orElseThrow(() -> new GameException("MIGRATE-GAME: Node [" + nodeId + "] is not other cluster member."));
+		var game = this.gameRepository.findGameById(id)
+				.orElseThrow(() -> new GameNotFoundException("MIGRATE-GAME: Game with id[" + id + "] not found."));
+
+		var snapshot = GameMailbox.await(game.suspend());
+		switch (this.transfer(node, snapshot)) {
+			case TAKEN -> this.moved(game, node, snapshot);
+			case REFUSED -> {
+				game.resume();
+				throw new GameException("MIGRATE-GAME: Node [" + nodeId + "] refused game [" + id + "].");
+			}
+			case UNKNOWN -> {
+				this.scheduler.schedule(() -> this.settle(game, node, snapshot),
+						SETTLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+				throw new GameException("MIGRATE-GAME: Node [" + nodeId + "] didn't confirm taking game [" + id
+						+ "], the game stays suspended until it does.");
+			}
+		}
+		return node;
+	}
+
+	/*
+	 * Takes a game moved from other node. A repeated transfer of a game this node already
+	 * took is answered without restoring it again
+	 *
+	 * @return true if the game is restored, false if this node already took it
+	 * @throw GameException if the transfer of the snapshot was given up by confirm,
+	 * 		  or this node has other game with the same id
+	 */
+	public boolean restore(GameSnapshot snapshot) {
+		var restored = new AtomicBoolean();
+		this.givenUp.compute(snapshot.id(), (id, version) -> {
+			if (version != null && version >= snapshot.version()) {
+				throw new GameException("RESTORE-GAME: Transfer of game [" + Base62.encode(id) + "] at version ["
+						+ snapshot.version() + "] was given up.");
+			}
+			if (this.owns(id, snapshot.version())) {
+				return version;
+			}
+			var game = this.gameRepository.save(PersistentGame.restore(snapshot));
+			this.router.moved(game.getNumericId(), this.membership.self());
+			snapshot.players().forEach(player -> this.presence.track(player.id()));
+			restored.set(true);
+			return version;
+		});
+		return restored.get();
+	}
+
+	/*
+	 * Tells the node that moves the game whether this node took it. Once the answer is no,
+	 * late transfers of the snapshot are refused, so the game can be resumed on that node
+	 *
+	 * @return true if this node serves the game restored from the version or a later one
+	 */
+	public boolean confirm(long id, long version) {
+		var owned = new AtomicBoolean();
+		this.givenUp.compute(id, (key, given) -> {
+			if (this.owns(key, version)) {
+				owned.set(true);
+				return given;
+			}
+			return given == null ? version : Math.max(given, version);
+		});
+		return owned.get();
+	}
+
+	/*
+	 * Stops taking new rooms and moves every game to the other nodes, the least loaded first
+	 *
+	 * @return ids of the moved games
+	 */
+	public List<String> drain() {
+		this.router.drain();
+		var moved = new ArrayList<String>();
+		for (var game : this.gameRepository.findAllGames(null).toList()) {
+			var target = this.router.leastLoadedRemote();
+			if (target.isEmpty()) {
+				log.warn("Node {} can't be drained, no other node answers", this.membership.self());
+				break;
+			}
+			try {
+				this.migrate(game.getId(), target.get().id());
+				this.loads.placed(target.get());
+				moved.add(game.getId());
+			} catch (RuntimeException e) {
+				log.warn("Game {} stays on draining node {}", game.getId(), this.membership.self(), e);
+			}
+		}
+		return moved;
+	}
+
+	/*
+	 * Moves up to half of the difference in games processing questions to the least busy
+	 * node, once this node has more of them than the cluster average allows
+	 */
+	void rebalance() {
+		if (this.router.isDraining()) {
+			return;
+		}
+		try {
+			var self = this.membership.node(this.membership.self());
+			if (self.isEmpty()) {
+				return;
+			}
+			long local = this.loads.activeOf(self.get());
+			long total = 0;
+			int known = 0;
+			ClusterNode target = null;
+			for (var node : this.membership.members()) {
+				long active = this.loads.activeOf(node);
+				if (active == Long.MAX_VALUE) {
+					continue;
+				}
+				total += active;
+				known++;
+				if (node.id() != self.get().id() && (target == null || active < this.loads.activeOf(target))) {
+					target = node;
+				}
+			}
+			if (target == null || local <= (double) total / known * (1 + REBALANCE_TOLERANCE) + 1) {
+				return;
+			}
+			long moves = Math.min(MAX_MOVES_PER_REBALANCE, (local - this.loads.activeOf(target)) / 2);
+			var games = this.gameRepository.findAllGames(null)
+					.filter(game -> game.getState() instanceof ProcessingQuestion)
+					.limit(moves)
+					.toList();
+			for (var game : games) {
+				this.migrate(game.getId(), target.id());
+			}
+			log.info("Moved {} games from node {} to node {}", games.size(), self.get().id(), target.id());
+		} catch (RuntimeException e) {
+			log.warn("Rebalancing node {} failed", this.membership.self(), e);
+		}
+	}
+
+	private boolean owns(long id, long version) {
+		return this.gameRepository.findGameById(Base62.encode(id))
+				.filter(game -> game.getVersion() > version)
+				.isPresent();
+	}
+
+	private void moved(SynchronousGame game, ClusterNode node, GameSnapshot snapshot) {
+		this.router.moved(game.getNumericId(), node.id());
+		this.gameRepository.disbandGame(game.getId());
+		game.moved(node.id());
+		this.announce(game.getId(), node);
+		log.info("Game {} moved to node {} at version {}", game.getId(), node.id(), snapshot.version());
+	}
+
+	/*
+	 * Asks the node that didn't confirm the transfer again, until it answers
+	 */
+	private void settle(SynchronousGame game, ClusterNode node, GameSnapshot snapshot) {
+		switch (this.confirm(node, snapshot)) {
+			case TAKEN -> this.moved(game, node, snapshot);
+			case REFUSED -> {
+				game.resume();
+				log.info("Game {} stays on node {}, node {} didn't take it", game.getId(), this.membership.self(), node.id());
+			}
+			case UNKNOWN -> this.scheduler.schedule(() -> this.settle(game, node, snapshot),
+					SETTLE_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/*
+	 * Sends the snapshot to the node. When the node doesn't answer, or answers with an error,
+	 * it is asked whether it took the game
+	 */
+	private Transfer transfer(ClusterNode node, GameSnapshot snapshot) {
+		try {
+			var request = this.request(node, "")
+					.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+					.POST(HttpRequest.BodyPublishers.ofByteArray(this.objectMapper.writeValueAsBytes(snapshot)))
+					.build();
+			var response = this.client.send(request, HttpResponse.BodyHandlers.ofString());
+			if (response.statusCode() == HttpStatus.CREATED.value() || response.statusCode() == HttpStatus.OK.value()) {
+				return Transfer.TAKEN;
+			}
+			log.warn("Node {} answered {} {} to the transfer of game {}", node.id(), response.statusCode(),
+					response.body(), snapshot.id());
+		} catch (IOException e) {
+			log.warn("Transfer of game {} to node {} failed", snapshot.id(), node.id(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Transfer.UNKNOWN;
+		}
+		return this.confirm(node, snapshot);
+	}
+
+	private Transfer confirm(ClusterNode node, GameSnapshot snapshot) {
+		var request = this.request(node, "/" + Base62.encode(snapshot.id()) + "/confirm?version=" + snapshot.version())
+				.POST(HttpRequest.BodyPublishers.noBody())
+				.build();
+		try {
+			var response = this.client.send(request, HttpResponse.BodyHandlers.discarding());
+			if (response.statusCode() == HttpStatus.NO_CONTENT.value()) {
+				return Transfer.TAKEN;
+			}
+			if (response.statusCode() == HttpStatus.CONFLICT.value()) {
+				return Transfer.REFUSED;
+			}
+			log.warn("Node {} answered {} to the confirmation of game {}", node.id(), response.statusCode(), snapshot.id());
+		} catch (IOException e) {
+			log.warn("Node {} didn't confirm the transfer of game {}", node.id(), snapshot.id(), e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return Transfer.UNKNOWN;
+	}
+
+	private HttpRequest.Builder request(ClusterNode node, String path) {
+		return HttpRequest.newBuilder(URI.create(node.uri() + this.clusterPath + path))
+				.timeout(TRANSFER_TIMEOUT)
+				.header(CLUSTER_SECRET, this.secret);
+	}
+
+	/*
+	 * Tells the rest of the cluster about the new owner, nodes that miss it
+	 * still reach the game through this node
+	 */
+	private void announce(String id, ClusterNode owner) {
+		for (var node : this.membership.members()) {
+			if (node.id() == this.membership.self() || node.id() == owner.id()) {
+				continue;
+			}
+			var request = this.request(node, "/" + id + "/owner?node=" + owner.id())
+					.PUT(HttpRequest.BodyPublishers.noBody())
+					.build();
+			this.client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+					.exceptionally(e -> {
+						log.warn("Node {} missed the move of game {}", node.id(), id);
+						return null;
+					});
+		}
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+import com.eleks.academy.whoami.utils.Base62;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Finds the node a game request belongs to.
+ * <p>
+ * A game lives on the node that created it, and that node is written in the node bits of the
+ * game id. Games of a node that left the cluster belong to the node the consistent-hash ring
+ * gives for their id, so removing a node moves only its own games. New rooms go to the less
+ * loaded of two randomly picked nodes, which keeps rooms spread evenly even with stale loads.
+ * <p>
+ * A game moved to other node is owned by that node from then on, the nodes that know
+ * about the move keep it until the game is moved again.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class GameRouter {
+
+	private final ClusterMembership membership;
+
+	private final ClusterLoads loads;
+
+	/*
+	 * Numeric id of a moved game -> node it was moved to
+	 */
+	private final Map<Long, Integer> movedGames = new ConcurrentHashMap<>();
+
+	/*
+	 * Set once this node is drained, it takes no new rooms then
+	 */
+	private volatile boolean draining;
+
+	/*
+	 * @return node owning the game, empty if this node owns it or the id is not a game id
+	 */
+	public Optional<ClusterNode> ownerOf(String gameId) {
+		long id = Base62.decode(gameId);
+		if (id < 0) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(this.movedGames.get(id))
+				.flatMap(this.membership::node)
+				.or(() -> this.membership.node(SnowflakeIdGenerator.nodeOf(id)))
+				.or(() -> this.membership.ownerOf(id))
+				.filter(this::isRemote);
+	}
+
+	/*
+	 * @return node to create a new room on, empty for this node
+	 */
+	public Optional<ClusterNode> placeNewGame() {
+		if (this.draining) {
+			return this.leastLoadedRemote().map(node -> {
+				this.loads.placed(node);
+				return node;
+			});
+		}
+		var members = new ArrayList<>(this.membership.members());
+		if (members.size() < 2) {
+			return Optional.empty();
+		}
+		var random = ThreadLocalRandom.current();
+		int firstIndex = random.nextInt(members.size());
+		int secondIndex = random.nextInt(members.size() - 1);
+		if (secondIndex >= firstIndex) {
+			secondIndex++;
+		}
+		var first = members.get(firstIndex);
+		var second = members.get(secondIndex);
+		long firstLoad = this.loads.loadOf(first);
+		long secondLoad = this.loads.loadOf(second);
+		var placed = firstLoad < secondLoad || firstLoad == secondLoad && !this.isRemote(first) ? first : second;
+		if (this.loads.loadOf(placed) == Long.MAX_VALUE || !this.isRemote(placed)) {
+			return Optional.empty();
+		}
+		this.loads.placed(placed);
+		return Optional.of(placed);
+	}
+
+	/*
+	 * @return the other node with the fewest games, empty if no other node answers
+	 */
+	public Optional<ClusterNode> leastLoadedRemote() {
+		return this.membership.members()
+				.stream()
+				.filter(this::isRemote)
+				.filter(node -> this.loads.loadOf(node) != Long.MAX_VALUE)
+				.min(Comparator.comparingLong(this.loads::loadOf));
+	}
+
+	/*
+	 * Records that the game is owned by the node from now on
+	 */
+	public void moved(long gameId, int node) {
+		this.movedGames.put(gameId, node);
+	}
+
+	/*
+	 * @return true if the game is known to have moved from the node it was created on
+	 */
+	public boolean isMoved(String gameId) {
+		return this.movedGames.containsKey(Base62.decode(gameId));
+	}
+
+	public void drain() {
+		this.draining = true;
+	}
+
+	public boolean isDraining() {
+		return this.draining;
+	}
+
+	private boolean isRemote(ClusterNode node) {
+		return node.id() != this.membership.self();
+	}
+
+}
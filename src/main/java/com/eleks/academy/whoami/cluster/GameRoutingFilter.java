@@ -0,0 +1,182 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static com.eleks.academy.whoami.utils.StringUtils.Headers.ROUTED_BY;
+
+/**
+ * Sends game requests to the node that owns the game and room creation to the node picked
+ * by load. Depending on the configuration the request is forwarded and the answer of the owner
+ * is sent back, or the client is redirected to the owner with 307. Event streams are always
+ * redirected, so an open stream never holds a servlet thread of a node in between, and a
+ * forwarded request gets 504 once the owner doesn't answer within the forward timeout.
+ * A request that was already forwarded is served by the node it lands on, unless that node
+ * moved the game away, and is never forwarded to a node it already passed, so nodes that
+ * disagree about members can't bounce it around. A draining node answers stats with 503,
+ * so no new rooms are placed on it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class GameRoutingFilter extends OncePerRequestFilter {
+
+	private static final String GAMES = "games";
+
+	/*
+	 * Paths under /games that are not game ids
+	 */
+	private static final Set<String> NOT_GAMES = Set.of("info", "batch", "current", "all-players-count", "stats");
+
+	private static final String STATS = "stats";
+
+	private static final String EVENTS = "events";
+
+	/*
+	 * Headers of a single connection, and headers the HTTP client sets itself
+	 */
+	private static final Set<String> HOP_BY_HOP = Set.of("connection", "keep-alive", "proxy-authenticate",
+			"proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "host", "content-length", "expect");
+
+	private final GameRouter router;
+
+	private final ClusterProperties properties;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.connectTimeout(Duration.ofSeconds(2))
+			.build();
+
+	public GameRoutingFilter(GameRouter router, ClusterProperties properties) {
+		this.router = router;
+		this.properties = properties;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		var path = request.getRequestURI().substring(request.getContextPath().length()).split("/");
+		if (this.router.isDraining() && path.length == 3 && GAMES.equals(path[1]) && STATS.equals(path[2])) {
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+			return;
+		}
+		var routedBy = request.getHeader(ROUTED_BY);
+		var target = this.route(request, path, routedBy != null)
+				.filter(node -> routedBy == null || !Set.of(routedBy.split(",")).contains(String.valueOf(node.id())));
+		if (target.isEmpty()) {
+			chain.doFilter(request, response);
+			return;
+		}
+		var uri = URI.create(target.get().uri() + request.getRequestURI()
+				+ (request.getQueryString() == null ? "" : "?" + request.getQueryString()));
+		if (this.properties.routing() == ClusterProperties.Routing.REDIRECT
+				|| path.length == 4 && EVENTS.equals(path[3])) {
+			response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+			response.setHeader(HttpHeaders.LOCATION, uri.toString());
+			return;
+		}
+		try {
+			this.forward(request, response, uri, routedBy);
+		} catch (TimeoutException e) {
+			log.warn("Node {} didn't answer {} {} within {}", target.get().id(), request.getMethod(), uri,
+					this.properties.forwardTimeout());
+			response.sendError(HttpStatus.GATEWAY_TIMEOUT.value());
+		} catch (ExecutionException e) {
+			log.warn("Request {} {} can't be forwarded to node {}", request.getMethod(), uri, target.get().id(), e.getCause());
+			response.sendError(HttpStatus.BAD_GATEWAY.value());
+		} catch (IOException e) {
+			if (response.isCommitted()) {
+				throw e;
+			}
+			log.warn("Request {} {} can't be forwarded to node {}", request.getMethod(), uri, target.get().id(), e);
+			response.sendError(HttpStatus.BAD_GATEWAY.value());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+		}
+	}
+
+	/*
+	 * @return node the request should be served by, empty for this node
+	 */
+	private Optional<ClusterNode> route(HttpServletRequest request, String[] path, boolean routed) {
+		if (path.length < 2 || !GAMES.equals(path[1])) {
+			return Optional.empty();
+		}
+		if (path.length == 2) {
+			return !routed && HttpMethod.POST.matches(request.getMethod()) ? this.router.placeNewGame() : Optional.empty();
+		}
+		if (NOT_GAMES.contains(path[2]) || routed && !this.router.isMoved(path[2])) {
+			return Optional.empty();
+		}
+		return this.router.ownerOf(path[2]);
+	}
+
+	/*
+	 * The whole answer is read before it is sent back, so the timeout bounds
+	 * the time a servlet thread waits for the owner
+	 */
+	private void forward(HttpServletRequest request, HttpServletResponse response, URI uri, String routedBy)
+			throws IOException, InterruptedException, ExecutionException, TimeoutException {
+		var body = request.getInputStream().readAllBytes();
+		var forwarded = HttpRequest.newBuilder(uri)
+				.timeout(this.properties.forwardTimeout())
+				.method(request.getMethod(), body.length == 0
+						? HttpRequest.BodyPublishers.noBody()
+						: HttpRequest.BodyPublishers.ofByteArray(body));
+		for (var name : Collections.list(request.getHeaderNames())) {
+			if (!HOP_BY_HOP.contains(name.toLowerCase()) && !ROUTED_BY.equalsIgnoreCase(name)) {
+				for (var value : Collections.list(request.getHeaders(name))) {
+					forwarded.header(name, value);
+				}
+			}
+		}
+		var self = String.valueOf(this.properties.nodeId());
+		forwarded.header(ROUTED_BY, routedBy == null ? self : routedBy + "," + self);
+
+		var pending = this.client.sendAsync(forwarded.build(), HttpResponse.BodyHandlers.ofByteArray());
+		HttpResponse<byte[]> answer;
+		try {
+			answer = pending.get(this.properties.forwardTimeout().toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | InterruptedException e) {
+			pending.cancel(true);
+			throw e;
+		}
+		response.setStatus(answer.statusCode());
+		answer.headers().map().forEach((name, values) -> {
+			if (!HOP_BY_HOP.contains(name.toLowerCase()) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+				values.forEach(value -> response.addHeader(name, value));
+			}
+		});
+		try (var out = response.getOutputStream()) {
+			out.write(answer.body());
+		}
+	}
+
+}
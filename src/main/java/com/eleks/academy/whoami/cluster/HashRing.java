@@ -0,0 +1,50 @@
+package com.eleks.academy.whoami.cluster;
+
+import java.util.Collection;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring of nodes. Every node takes {@value #VIRTUAL_NODES} points on the ring
+ * and owns the keys hashed up to each of its points, so adding or removing a node moves
+ * only the keys of that node and the rest of the keys keep their owners.
+ */
+final class HashRing {
+
+	private static final int VIRTUAL_NODES = 128;
+
+	private final NavigableMap<Long, ClusterNode> ring = new TreeMap<>();
+
+	HashRing(Collection<ClusterNode> nodes) {
+		for (var node : nodes) {
+			for (int point = 0; point < VIRTUAL_NODES; point++) {
+				this.ring.put(mix((long) node.id() * VIRTUAL_NODES + point), node);
+			}
+		}
+	}
+
+	/*
+	 * @return node owning the key, empty if the ring has no nodes
+	 */
+	Optional<ClusterNode> ownerOf(long key) {
+		if (this.ring.isEmpty()) {
+			return Optional.empty();
+		}
+		var owner = this.ring.ceilingEntry(mix(key));
+		return Optional.of(owner != null ? owner.getValue() : this.ring.firstEntry().getValue());
+	}
+
+	/*
+	 * Finalizer of MurmurHash3, spreads sequential keys over the whole ring
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+		return key;
+	}
+
+}
@@ -0,0 +1,67 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+
+/*
+ * @param nodeId          id of this instance, written into the ids of games it creates
+ * @param enabled         route game requests between the nodes
+ * @param nodes           node id -> base URL of the node (scheme, host and port)
+ * @param membersFile     properties file of "node id = base URL" lines, replaces the nodes once it exists
+ *                        and is reread when it changes
+ * @param secret          shared secret the nodes send to each other in X-Cluster-Secret, the /cluster
+ *                        endpoints answer 403 to requests without it, required once the cluster is enabled
+ * @param routing         forward requests to the owning node or redirect clients to it,
+ *                        event streams are always redirected
+ * @param forwardTimeout  how long a forwarded request waits for the whole answer of the owning node
+ * @param refreshInterval how often loads of the nodes and the members file are checked
+ * @param rebalanceInterval how often running games are moved from this node when it holds more of them
+ *                          than the others, zero to move games only on request
+ */
+@ConfigurationProperties(prefix = "game.cluster")
+public record ClusterProperties(int nodeId, boolean enabled, Map<Integer, URI> nodes, Path membersFile,
+								String secret, Routing routing, Duration forwardTimeout, Duration refreshInterval, Duration rebalanceInterval) {
+
+	public enum Routing {
+
+		FORWARD, REDIRECT
+
+	}
+
+	@ConstructorBinding
+	public ClusterProperties(@DefaultValue("0") int nodeId, @DefaultValue("false") boolean enabled,
+							 Map<Integer, URI> nodes, Path membersFile, String secret,
+							 @DefaultValue("forward") Routing routing, @DefaultValue("10s") Duration forwardTimeout,
+							 @DefaultValue("2s") Duration refreshInterval,
+							 @DefaultValue("30s") Duration rebalanceInterval) {
+		if (nodeId < 0 || nodeId > SnowflakeIdGenerator.MAX_NODE) {
+			throw new IllegalArgumentException(
+					String.format("Node id should be within [0, %d], but provided %d", SnowflakeIdGenerator.MAX_NODE, nodeId));
+		}
+		if (enabled && (secret == null || secret.isBlank())) {
+			throw new IllegalArgumentException("Secret should be set once the cluster is enabled, but provided none");
+		}
+		if (forwardTimeout.isNegative() || forwardTimeout.isZero()) {
+			throw new IllegalArgumentException(
+					String.format("Forward timeout should be positive, but provided %s", forwardTimeout));
+		}
+		this.nodeId = nodeId;
+		this.enabled = enabled;
+		this.nodes = nodes == null ? Map.of() : Map.copyOf(nodes);
+		this.membersFile = membersFile;
+		this.secret = secret;
+		this.routing = routing;
+		this.forwardTimeout = forwardTimeout;
+		this.refreshInterval = refreshInterval;
+		this.rebalanceInterval = rebalanceInterval;
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
+
+/*
+ * Turn deadlines of new games, zero waits for the players as long as it takes.
+ * Large rooms answer within game.large-room.answer-timeout instead
+ *
+ * @param suggesting time players have to suggest characters
+ * @param asking time the asking player has to ask a question or guess
+ * @param answering time the other players have to answer
+ */
+@ConfigurationProperties(prefix = "game.deadlines")
+public record DeadlineProperties(Duration suggesting, Duration asking, Duration answering) {
+
+	@ConstructorBinding
+	public DeadlineProperties(@DefaultValue("2m") Duration suggesting, @DefaultValue("60s") Duration asking,
+							  @DefaultValue("30s") Duration answering) {
+		this.suggesting = notNegative("Suggesting", suggesting);
+		this.asking = notNegative("Asking", asking);
+		this.answering = notNegative("Answering", answering);
+	}
+
+	public TurnDeadlines toDeadlines() {
+		return new TurnDeadlines(orNull(this.suggesting), orNull(this.asking), orNull(this.answering));
+	}
+
+	private static Duration notNegative(String phase, Duration deadline) {
+		if (deadline != null && deadline.isNegative()) {
+			throw new IllegalArgumentException(
+					String.format("%s deadline cannot be negative, but provided %s", phase, deadline));
+		}
+		return deadline;
+	}
+
+	private static Duration orNull(Duration deadline) {
+		return deadline == null || deadline.isZero() ? null : deadline;
+	}
+
+}
@@ -0,0 +1,22 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * @param enabled games are written to the file on shutdown and restored from it on start
+ * @param file    of the games kept over a restart
+ */
+@ConfigurationProperties(prefix = "game.dump")
+public record DumpProperties(boolean enabled, Path file) {
+
+	@ConstructorBinding
+	public DumpProperties(@DefaultValue("false") boolean enabled, @DefaultValue("games.dump") Path file) {
+		this.enabled = enabled;
+		this.file = file;
+	}
+
+}
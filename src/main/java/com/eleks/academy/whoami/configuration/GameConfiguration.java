@@ -0,0 +1,17 @@
+package com.eleks.academy.whoami.configuration;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.eleks.academy.whoami.core.GameIdGenerator;
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+
+@Configuration
+public class GameConfiguration {
+
+	@Bean
+	public GameIdGenerator gameIdGenerator(ClusterProperties properties) {
+		return SnowflakeIdGenerator.of(properties.nodeId());
+	}
+
+}
@@ -3,6 +3,8 @@ package com.eleks.academy.whoami.configuration;
 import static java.util.stream.Collectors.collectingAndThen;
 import static java.util.stream.Collectors.toList;
 
+import javax.validation.ConstraintViolationException;
+
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +18,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import com.eleks.academy.whoami.core.exception.ErrorResponse;
 import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.GameMovedException;
 import com.eleks.academy.whoami.core.exception.GameNotFoundException;
 import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
@@ -48,6 +51,37 @@ public class GameControllerAdvice extends ResponseEntityExceptionHandler {
 		return e::getMessage;
 	}
 	
+	/*
+	 * Requests that waited for a game while it moved are answered right after the move,
+	 * a retry is routed to the node the game moved to
+	 */
+	@ExceptionHandler(GameMovedException.class)
+	public ResponseEntity<ApiError> handleGameMovedException(GameMovedException e) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "0")
+				.body(e::getMessage);
+	}
+
+	/*
+	 * Status the exception is answered with, for callers that report errors
+	 * without throwing them, e.g. batched commands
+	 */
+	public static HttpStatus statusOf(RuntimeException e) {
+		if (e instanceof GameMovedException) {
+			return HttpStatus.SERVICE_UNAVAILABLE;
+		}
+		if (e instanceof PlayerAlreadyInGameException) {
+			return HttpStatus.FORBIDDEN;
+		}
+		if (e instanceof GameException || e instanceof GameNotFoundException || e instanceof PlayerNotFoundException) {
+			return HttpStatus.NOT_FOUND;
+		}
+		if (e instanceof ConstraintViolationException || e instanceof IllegalArgumentException) {
+			return HttpStatus.BAD_REQUEST;
+		}
+		return HttpStatus.INTERNAL_SERVER_ERROR;
+	}
+
 	@Override
 	protected ResponseEntity<Object> handleMethodArgumentNotValid(MethodArgumentNotValidException e,
 																  HttpHeaders headers, HttpStatus status,
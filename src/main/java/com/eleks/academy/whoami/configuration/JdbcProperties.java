@@ -0,0 +1,36 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * Database of the games, used with the jdbc repository type
+ *
+ * @param url           JDBC url of the database
+ * @param flushInterval pause between writes of the changed games
+ * @param batch         changed games written per transaction
+ */
+@ConfigurationProperties(prefix = "game.jdbc")
+public record JdbcProperties(String url, String username, String password, Duration flushInterval, int batch) {
+
+	@ConstructorBinding
+	public JdbcProperties(@DefaultValue("jdbc:h2:file:./data/games") String url, @DefaultValue("sa") String username,
+						  @DefaultValue("") String password, @DefaultValue("200ms") Duration flushInterval,
+						  @DefaultValue("512") int batch) {
+		if (flushInterval.isNegative() || flushInterval.isZero()) {
+			throw new IllegalArgumentException(String.format("Flush interval should be positive, but provided %s", flushInterval));
+		}
+		if (batch <= 0) {
+			throw new IllegalArgumentException(String.format("Batch should be positive, but provided %d", batch));
+		}
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.flushInterval = flushInterval;
+		this.batch = batch;
+	}
+
+}
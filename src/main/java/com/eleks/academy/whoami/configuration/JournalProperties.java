@@ -0,0 +1,35 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.nio.file.Path;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/*
+ * Journal of the games, used with the journal repository type
+ *
+ * @param directory     of the journal segments
+ * @param segmentSize   size a segment grows to, on top of the snapshots of all games, before the next one
+ *                      is started and older ones are compacted
+ * @param snapshotEvery commands of a game written before its next snapshot, the most commands replayed per game
+ */
+@ConfigurationProperties(prefix = "game.journal")
+public record JournalProperties(Path directory, DataSize segmentSize, int snapshotEvery) {
+
+	@ConstructorBinding
+	public JournalProperties(@DefaultValue("journal") Path directory, @DefaultValue("64MB") DataSize segmentSize,
+							 @DefaultValue("256") int snapshotEvery) {
+		if (segmentSize.toBytes() <= 0) {
+			throw new IllegalArgumentException(String.format("Segment size should be positive, but provided %s", segmentSize));
+		}
+		if (snapshotEvery <= 0) {
+			throw new IllegalArgumentException(String.format("Snapshot every should be positive, but provided %d", snapshotEvery));
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.snapshotEvery = snapshotEvery;
+	}
+
+}
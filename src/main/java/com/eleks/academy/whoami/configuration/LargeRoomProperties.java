@@ -0,0 +1,27 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * Rules of rooms larger than the classic 6 players
+ *
+ * @param quorum share of the other players whose answers resolve a question
+ * @param answerTimeout time a question waits for the quorum before it is resolved with the answers it has
+ */
+@ConfigurationProperties(prefix = "game.large-room")
+public record LargeRoomProperties(double quorum, Duration answerTimeout) {
+
+	@ConstructorBinding
+	public LargeRoomProperties(@DefaultValue("0.5") double quorum, @DefaultValue("30s") Duration answerTimeout) {
+		if (quorum <= 0 || quorum > 1) {
+			throw new IllegalArgumentException(String.format("Quorum should be within (0, 1], but provided %s", quorum));
+		}
+		this.quorum = quorum;
+		this.answerTimeout = answerTimeout;
+	}
+
+}
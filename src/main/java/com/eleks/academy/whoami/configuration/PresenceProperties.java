@@ -0,0 +1,22 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+ * @param timeout       time a seated player may send no requests before he leaves his game
+ * @param sweepInterval how often absent players are looked for, zero to keep them seated
+ */
+@ConfigurationProperties(prefix = "game.presence")
+public record PresenceProperties(Duration timeout, Duration sweepInterval) {
+
+	@ConstructorBinding
+	public PresenceProperties(@DefaultValue("60s") Duration timeout, @DefaultValue("5s") Duration sweepInterval) {
+		this.timeout = timeout;
+		this.sweepInterval = sweepInterval;
+	}
+
+}
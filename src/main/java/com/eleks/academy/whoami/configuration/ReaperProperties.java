@@ -0,0 +1,60 @@
+package com.eleks.academy.whoami.configuration;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.core.state.impl.GameFinished;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
+
+/*
+ * Reclaims games nobody plays any more. Every run checks one batch of games,
+ * a game is disbanded once it is idle for longer than the TTL of its state
+ *
+ * @param interval             pause between runs, zero to keep all games
+ * @param batch                games checked per run
+ * @param waitingForPlayers    TTL of rooms waiting for players
+ * @param suggestingCharacters TTL of games where characters are suggested
+ * @param processingQuestion   TTL of games where questions are asked
+ * @param gameFinished         TTL of finished games
+ */
+@ConfigurationProperties(prefix = "game.reaper")
+public record ReaperProperties(Duration interval, int batch, Duration waitingForPlayers, Duration suggestingCharacters,
+							   Duration processingQuestion, Duration gameFinished) {
+
+	@ConstructorBinding
+	public ReaperProperties(@DefaultValue("1s") Duration interval, @DefaultValue("512") int batch,
+							@DefaultValue("15m") Duration waitingForPlayers, @DefaultValue("15m") Duration suggestingCharacters,
+							@DefaultValue("30m") Duration processingQuestion, @DefaultValue("5m") Duration gameFinished) {
+		if (batch <= 0) {
+			throw new IllegalArgumentException(String.format("Batch should be positive, but provided %d", batch));
+		}
+		this.interval = interval;
+		this.batch = batch;
+		this.waitingForPlayers = waitingForPlayers;
+		this.suggestingCharacters = suggestingCharacters;
+		this.processingQuestion = processingQuestion;
+		this.gameFinished = gameFinished;
+	}
+
+	/*
+	 * @return time a game at the state may stay idle
+	 */
+	public Duration ttlOf(GameState state) {
+		if (state instanceof SuggestingCharacters) {
+			return this.suggestingCharacters;
+		}
+		if (state instanceof ProcessingQuestion) {
+			return this.processingQuestion;
+		}
+		if (state instanceof GameFinished) {
+			return this.gameFinished;
+		}
+		return this.waitingForPlayers;
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.eleks.academy.whoami.configuration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+@ConfigurationProperties(prefix = "game.repository")
+public record RepositoryProperties(String type, int shards) {
+
+	@ConstructorBinding
+	public RepositoryProperties(@DefaultValue("memory") String type, @DefaultValue("16") int shards) {
+		if (shards <= 0) {
+			throw new IllegalArgumentException(String.format("Shards value should be positive, but provided %d", shards));
+		}
+		this.type = type;
+		this.shards = shards;
+	}
+
+}
@@ -0,0 +1,62 @@
+package com.eleks.academy.whoami.controller;
+
+import com.eleks.academy.whoami.cluster.ClusterNode;
+import com.eleks.academy.whoami.cluster.GameMigration;
+import com.eleks.academy.whoami.cluster.GameRouter;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.utils.Base62;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Endpoints the nodes of a cluster call on each other to move games,
+ * and operators call to drain a node or move a single game.
+ * Only requests with the shared secret of the cluster get here, see ClusterSecretFilter
+ */
+@RestController
+@RequestMapping("/cluster")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "game.cluster", name = "enabled", havingValue = "true")
+public class ClusterController {
+
+    private final GameMigration gameMigration;
+
+    private final GameRouter gameRouter;
+
+    @PostMapping("/games")
+    public ResponseEntity<Void> restoreGame(@RequestBody GameSnapshot snapshot) {
+        return ResponseEntity.status(this.gameMigration.restore(snapshot) ? HttpStatus.CREATED : HttpStatus.OK).build();
+    }
+
+    @PostMapping("/games/{id}/confirm")
+    public ResponseEntity<Void> confirmGame(@PathVariable("id") String id, @RequestParam("version") long version) {
+        long gameId = Base62.decode(id);
+        return ResponseEntity.status(gameId >= 0 && this.gameMigration.confirm(gameId, version)
+                ? HttpStatus.NO_CONTENT : HttpStatus.CONFLICT).build();
+    }
+
+    @PutMapping("/games/{id}/owner")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void gameMoved(@PathVariable("id") String id, @RequestParam("node") int node) {
+        long gameId = Base62.decode(id);
+        if (gameId >= 0) {
+            this.gameRouter.moved(gameId, node);
+        }
+    }
+
+    @PostMapping("/games/{id}/migrate")
+    public ClusterNode migrateGame(@PathVariable("id") String id, @RequestParam("node") int node) {
+        return this.gameMigration.migrate(id, node);
+    }
+
+    @PostMapping("/drain")
+    public List<String> drain() {
+        return this.gameMigration.drain();
+    }
+
+}
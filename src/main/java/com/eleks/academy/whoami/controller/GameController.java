@@ -4,18 +4,29 @@ import com.eleks.academy.whoami.core.SynchronousPlayer;
 import com.eleks.academy.whoami.model.request.*;
 import com.eleks.academy.whoami.model.response.GameHistory;
 import com.eleks.academy.whoami.model.response.AllFields;
+import com.eleks.academy.whoami.model.response.CommandResult;
+import com.eleks.academy.whoami.model.response.GameDelta;
 import com.eleks.academy.whoami.model.response.GameDetails;
 import com.eleks.academy.whoami.model.response.GameShortInfo;
+import com.eleks.academy.whoami.model.response.GameStats;
+import com.eleks.academy.whoami.model.response.HistoryPage;
 import com.eleks.academy.whoami.model.response.LeaveDetails;
 import com.eleks.academy.whoami.model.response.TurnDetails;
+import com.eleks.academy.whoami.service.GameBatchService;
+import com.eleks.academy.whoami.service.GameEventService;
 import com.eleks.academy.whoami.service.GameService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.validation.Valid;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.eleks.academy.whoami.utils.StringUtils.Headers.PLAYER;
 
@@ -24,8 +35,19 @@ import static com.eleks.academy.whoami.utils.StringUtils.Headers.PLAYER;
 @RequiredArgsConstructor
 public class GameController {
 
+    /*
+     * Complete history pages never change, clients and proxies may keep them as long as they want
+     */
+    private static final String FINAL_HISTORY_PAGE = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .getHeaderValue() + ", immutable";
+
     private final GameService gameService;
 
+    private final GameEventService gameEventService;
+
+    private final GameBatchService gameBatchService;
+
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
     public List<GameShortInfo> findAvailableGames(@RequestHeader(PLAYER) String player) {
@@ -47,6 +69,20 @@ public class GameController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @PostMapping("/batch")
+    public List<CommandResult> executeBatch(@Valid @RequestBody GameCommandBatch batch) {
+        return this.gameBatchService.execute(batch.getCommands());
+    }
+
+    @GetMapping("/current")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<GameDetails> findCurrentGame(@RequestHeader(PLAYER) String player) {
+
+        return this.gameService.findByPlayer(player)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<GameDetails> findById(@PathVariable("id") String id,
@@ -57,6 +93,16 @@ public class GameController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}", params = "sinceVersion")
+    public ResponseEntity<GameDelta> findChangesById(@PathVariable("id") String id,
+                                                     @RequestHeader(PLAYER) String player,
+                                                     @RequestParam long sinceVersion) {
+
+        return this.gameService.findChangesByIdAndPlayer(id, player, sinceVersion)
+                .map(delta -> deltaResponse(delta, sinceVersion))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/{id}/players")
     public SynchronousPlayer enrollToGame(@PathVariable("id") String id,
                                           @RequestHeader(PLAYER) String player) {
@@ -81,6 +127,16 @@ public class GameController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}/turn", params = "sinceVersion")
+    public ResponseEntity<GameDelta> findTurnChanges(@PathVariable("id") String id,
+                                                     @RequestHeader(PLAYER) String player,
+                                                     @RequestParam long sinceVersion) {
+
+        return this.gameService.findTurnChanges(id, player, sinceVersion)
+                .map(delta -> deltaResponse(delta, sinceVersion))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/{id}/question")
     public void askQuestion(@PathVariable("id") String id,
                             @RequestHeader(PLAYER) String player,
@@ -115,6 +171,14 @@ public class GameController {
 
     }
 
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> subscribeToEvents(@PathVariable("id") String id,
+                                                        @RequestHeader(value = PLAYER, required = false) String player) {
+        return this.gameEventService.subscribe(id, player)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{id}/history")
     public ResponseEntity<GameHistory> getGameHistory(@PathVariable("id") String id) {
         return this.gameService.findGameHistory(id)
@@ -122,6 +186,26 @@ public class GameController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    @GetMapping(value = "/{id}/history", params = "sinceVersion")
+    public ResponseEntity<GameDelta> getGameHistoryChanges(@PathVariable("id") String id,
+                                                           @RequestParam long sinceVersion) {
+        return this.gameService.findGameHistoryChanges(id, sinceVersion)
+                .map(delta -> deltaResponse(delta, sinceVersion))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}/history", params = "from")
+    public ResponseEntity<HistoryPage> getGameHistoryPage(@PathVariable("id") String id,
+                                                          @RequestParam int from,
+                                                          @RequestParam(defaultValue = "20") int limit) {
+        return this.gameService.findGameHistoryPage(id, from, limit)
+                .map(page -> ResponseEntity.ok()
+                        .header(HttpHeaders.CACHE_CONTROL, page.isComplete() ?
+                                FINAL_HISTORY_PAGE : CacheControl.noCache().getHeaderValue())
+                        .body(page))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}/leave")
     public ResponseEntity<LeaveDetails> leaveGame(@PathVariable("id") String id,
                                                   @RequestHeader(PLAYER) String player) {
@@ -131,11 +215,28 @@ public class GameController {
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
+    /*
+     * Keeps the player seated while he sends no other requests,
+     * the player is marked as seen by PresenceFilter before the request gets here.
+     * Answers 404 if the player is not seated in the game
+     */
+    @PutMapping("/{id}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable("id") String id, @RequestHeader(PLAYER) String player) {
+        return this.gameService.isSeated(id, player)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
     @GetMapping("/all-players-count")
     public Integer getAllPlayersCount(@RequestHeader(PLAYER) String player) {
         return this.gameService.getAllPlayersCount();
     }
 
+    @GetMapping("/stats")
+    public GameStats getGameStats() {
+        return this.gameService.getGameStats();
+    }
+
     @PostMapping("/{id}")
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<GameDetails> startGame(@PathVariable("id") String id,
@@ -145,4 +246,14 @@ public class GameController {
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
+
+    /*
+     * @return 304 if the client already has the current version, the delta otherwise
+     */
+    private static ResponseEntity<GameDelta> deltaResponse(GameDelta delta, long sinceVersion) {
+        if (delta.getVersion() == sinceVersion) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+        return ResponseEntity.ok(delta);
+    }
 }
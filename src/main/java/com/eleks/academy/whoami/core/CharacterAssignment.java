@@ -0,0 +1,20 @@
+package com.eleks.academy.whoami.core;
+
+import java.util.List;
+import java.util.Map;
+
+import com.eleks.academy.whoami.core.impl.GameCharacter;
+
+/**
+ * Decides which suggested character every player gets once all players suggested one
+ */
+public interface CharacterAssignment {
+
+	/*
+	 * @param characters one suggestion per player, the author is the player who suggested it
+	 * @return character for every author, nobody gets the character he suggested
+	 * @throw GameException if there are less than two suggestions
+	 */
+	Map<String, String> assign(List<GameCharacter> characters);
+
+}
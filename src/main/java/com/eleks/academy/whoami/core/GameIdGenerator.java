@@ -0,0 +1,14 @@
+package com.eleks.academy.whoami.core;
+
+/**
+ * Source of unique game ids. A game keeps its id as a long for hashing and sharding
+ * and shows it to clients as a base-62 string.
+ */
+public interface GameIdGenerator {
+
+	/*
+	 * @return id not returned before, non-negative
+	 */
+	long next();
+
+}
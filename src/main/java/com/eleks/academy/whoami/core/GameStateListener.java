@@ -0,0 +1,17 @@
+package com.eleks.academy.whoami.core;
+
+import com.eleks.academy.whoami.core.state.GameState;
+
+@FunctionalInterface
+public interface GameStateListener {
+
+	/*
+	 * Called right after the game switched its state
+	 *
+	 * @param game that switched the state
+	 * @param previous state of the game
+	 * @param next current state of the game
+	 */
+	void onStateChanged(SynchronousGame game, GameState previous, GameState next);
+
+}
@@ -1,8 +1,13 @@
 package com.eleks.academy.whoami.core;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
 import com.eleks.academy.whoami.model.request.GuessAnswer;
 import com.eleks.academy.whoami.model.request.QuestionAnswer;
 import com.eleks.academy.whoami.model.response.GameHistory;
@@ -13,10 +18,108 @@ import com.eleks.academy.whoami.model.response.TurnDetails;
 
 public interface SynchronousGame {
 
+	/*
+	 * @return game id shown to clients, base-62 encoded numeric id
+	 */
 	String getId();
 
+	/*
+	 * @return game id used for hashing and sharding
+	 */
+	long getNumericId();
+
 	GameState getState();
 
+	/*
+	 * @return version of the game, bumped on every change of the game
+	 */
+	long getVersion();
+
+	/*
+	 * @return {@code true} if the game switched to its current state after the version
+	 */
+	boolean isStateChangedSince(long version);
+
+	/*
+	 * @return players joined or changed after the version
+	 */
+	List<PlayerWithState> getPlayersChangedSince(long version);
+
+	/*
+	 * @return ids of players left after the version
+	 */
+	List<String> getPlayersLeftSince(long version);
+
+	int getMaxPlayers();
+
+	/*
+	 * @return time passed since players last changed the game
+	 */
+	Duration getIdleTime();
+
+	void addStateListener(GameStateListener listener);
+
+	void addEventListener(GameEventListener listener);
+
+	void removeEventListener(GameEventListener listener);
+
+	/*
+	 * Queues the command to the game mailbox, commands of one game
+	 * run one at a time in submission order
+	 *
+	 * @return result of the command
+	 */
+	<T> CompletableFuture<T> submit(Supplier<T> command);
+
+	default CompletableFuture<Void> submit(Runnable command) {
+		return this.submit(() -> {
+			command.run();
+			return null;
+		});
+	}
+
+	/*
+	 * Takes a snapshot of the game and holds all commands queued after it,
+	 * until the game is resumed or moved
+	 *
+	 * @return snapshot of the game
+	 */
+	CompletableFuture<GameSnapshot> suspend();
+
+	/*
+	 * Takes a snapshot of the game, called from the game mailbox
+	 *
+	 * @return state, players, turn and history of the game
+	 */
+	GameSnapshot snapshot();
+
+	/*
+	 * Runs the commands held since the game was suspended
+	 */
+	void resume();
+
+	/*
+	 * Marks the suspended game as moved to other node, the held commands and all
+	 * later ones fail with GameMovedException
+	 */
+	void moved(int node);
+
+	/*
+	 * Called once the game is removed from the repository, queues disbandNow to the game mailbox
+	 *
+	 * @return players seated in the game when it was disbanded
+	 */
+	CompletableFuture<List<PlayerWithState>> disband();
+
+	/*
+	 * Disbands the game, called from the game mailbox. Subscribers get the disband event,
+	 * the deadline of the game is cancelled, no events are published after that
+	 * and commands queued later fail with GameNotFoundException
+	 *
+	 * @return players seated in the game when it was disbanded, the same ones on every call
+	 */
+	List<PlayerWithState> disbandNow();
+
 	List<PlayerWithState> getPlayersList();
 
 	GameHistory getGameHistory();
@@ -0,0 +1,13 @@
+package com.eleks.academy.whoami.core.event;
+
+/**
+ * Something that happened in a game
+ *
+ * @param gameId  game the event belongs to
+ * @param version version of the game right after the event
+ * @param type    what happened
+ * @param player  player the event is about, if any
+ * @param payload question, answer, guess or new state name, depending on the type
+ */
+public record GameEvent(String gameId, long version, GameEventType type, String player, String payload) {
+}
@@ -0,0 +1,12 @@
+package com.eleks.academy.whoami.core.event;
+
+@FunctionalInterface
+public interface GameEventListener {
+
+	/*
+	 * Called from the game mailbox right after the event happened,
+	 * must not block
+	 */
+	void onEvent(GameEvent event);
+
+}
@@ -0,0 +1,15 @@
+package com.eleks.academy.whoami.core.event;
+
+public enum GameEventType {
+
+	PLAYER_JOINED, PLAYER_LEFT, CHARACTER_SUGGESTED, STATE_CHANGED, TURN_CHANGED,
+	QUESTION_ASKED, QUESTION_ANSWERED, GUESS_SUBMITTED, GUESS_ANSWERED, GAME_MOVED, GAME_DISBANDED;
+
+	/*
+	 * @return true if no event of the game follows this one on this node
+	 */
+	public boolean isFinal() {
+		return this == GAME_MOVED || this == GAME_DISBANDED;
+	}
+
+}
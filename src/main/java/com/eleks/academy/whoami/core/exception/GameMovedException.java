@@ -0,0 +1,13 @@
+package com.eleks.academy.whoami.core.exception;
+
+/**
+ * The game was moved to other node while the request waited for it,
+ * the request should be repeated and is routed to the new owner then
+ */
+public class GameMovedException extends RuntimeException {
+
+	public GameMovedException(String message) {
+		super(message);
+	}
+
+}
@@ -0,0 +1,68 @@
+package com.eleks.academy.whoami.core.impl;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+
+import com.eleks.academy.whoami.core.CharacterAssignment;
+import com.eleks.academy.whoami.core.exception.GameException;
+
+/**
+ * Shuffles the authors and gives every author the character of the next one in the
+ * shuffled order, the last author gets the character of the first one. The authors
+ * form a single random cycle, so nobody gets his own character and every character
+ * is taken exactly once, in O(n) for any number of players.
+ */
+public final class DerangementAssignment implements CharacterAssignment {
+
+	private static final DerangementAssignment RANDOM = new DerangementAssignment(ThreadLocalRandom::current);
+
+	private final Supplier<RandomGenerator> random;
+
+	private DerangementAssignment(Supplier<RandomGenerator> random) {
+		this.random = random;
+	}
+
+	/*
+	 * @return assignment backed by ThreadLocalRandom, shared by all games
+	 */
+	public static DerangementAssignment random() {
+		return RANDOM;
+	}
+
+	/*
+	 * Assigns the same characters for the same seed and suggestions, for tests.
+	 * Not thread safe, use one instance per game.
+	 */
+	public static DerangementAssignment seeded(long seed) {
+		var random = new SplittableRandom(seed);
+		return new DerangementAssignment(() -> random);
+	}
+
+	@Override
+	public Map<String, String> assign(List<GameCharacter> characters) {
+		int size = characters.size();
+		if (size < 2) {
+			throw new GameException("At least two suggested characters are required, got " + size + ".");
+		}
+		var order = characters.toArray(new GameCharacter[0]);
+		var random = this.random.get();
+		for (int i = size - 1; i > 0; i--) {
+			int j = random.nextInt(i + 1);
+			var swapped = order[i];
+			order[i] = order[j];
+			order[j] = swapped;
+		}
+
+		var assignments = new HashMap<String, String>(size * 4 / 3 + 1);
+		for (int i = 0; i < size; i++) {
+			assignments.put(order[i].getAuthor(), order[(i + 1) % size].getCharacter());
+		}
+		return assignments;
+	}
+
+}
@@ -11,10 +11,4 @@ public class GameCharacter {
 
 	private final String author;
 
-	private boolean taken;
-
-	public void markTaken() {
-		this.taken = Boolean.TRUE;
-	}
-
 }
@@ -0,0 +1,110 @@
+package com.eleks.academy.whoami.core.impl;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Mailbox of a single game: commands submitted to it run one at a time,
+ * in submission order, on a shared executor. Mailboxes of different games
+ * do not block each other, so commands of different games run in parallel
+ * while the commands of one game never overlap.
+ */
+public class GameMailbox {
+
+	/*
+	 * Commands drained in one go before the mailbox gives the thread back to the executor
+	 */
+	private static final int MAX_BATCH = 64;
+
+	private final Executor executor;
+
+	private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+
+	/*
+	 * Commands are queued but not run while the mailbox is suspended
+	 */
+	private volatile boolean suspended;
+
+	public GameMailbox(Executor executor) {
+		this.executor = executor;
+	}
+
+	/*
+	 * Queues the command to the mailbox
+	 *
+	 * @return result of the command, completed exceptionally if the command throws
+	 */
+	public <T> CompletableFuture<T> submit(Supplier<T> command) {
+		var result = new CompletableFuture<T>();
+		this.commands.offer(() -> {
+			try {
+				result.complete(command.get());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		this.schedule();
+		return result;
+	}
+
+	/*
+	 * Waits for the command result and rethrows the exception the command failed with
+	 */
+	public static <T> T await(CompletableFuture<T> result) {
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/*
+	 * Holds the commands queued after the one currently running until the mailbox is resumed,
+	 * called from a command of the mailbox. A suspended mailbox holds no thread
+	 */
+	public void suspend() {
+		this.suspended = true;
+	}
+
+	/*
+	 * Runs the commands queued while the mailbox was suspended
+	 */
+	public void resume() {
+		this.suspended = false;
+		if (!this.commands.isEmpty()) {
+			this.schedule();
+		}
+	}
+
+	private void schedule() {
+		if (this.suspended) {
+			return;
+		}
+		if (this.scheduled.compareAndSet(false, true)) {
+			this.executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		Runnable command;
+		int drained = 0;
+		while (drained++ < MAX_BATCH && !this.suspended && (command = this.commands.poll()) != null) {
+			command.run();
+		}
+		this.scheduled.set(false);
+		if (!this.commands.isEmpty()) {
+			this.schedule();
+		}
+	}
+
+}
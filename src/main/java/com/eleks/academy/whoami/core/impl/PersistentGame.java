@@ -1,38 +1,100 @@
 package com.eleks.academy.whoami.core.impl;
 
+import com.eleks.academy.whoami.core.CharacterAssignment;
+import com.eleks.academy.whoami.core.GameStateListener;
 import com.eleks.academy.whoami.core.SynchronousGame;
 import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.event.GameEventType;
+import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.GameMovedException;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
 import com.eleks.academy.whoami.model.request.GuessAnswer;
 import com.eleks.academy.whoami.model.request.QuestionAnswer;
 import com.eleks.academy.whoami.model.response.GameHistory;
 import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.state.GameRules;
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
 import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.core.state.impl.GameFinished;
 import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
 import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
 import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
 import com.eleks.academy.whoami.model.request.CharacterSuggestion;
 import com.eleks.academy.whoami.model.response.PlayerWithState;
 import com.eleks.academy.whoami.model.response.TurnDetails;
+import com.eleks.academy.whoami.utils.Base62;
+import com.eleks.academy.whoami.utils.TimingWheel;
 
-import java.time.Instant;
+import java.time.Duration;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.function.Function;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class PersistentGame implements SynchronousGame {
 
+    private static final Executor COMMANDS = ForkJoinPool.commonPool();
+
+    /*
+     * Fires turn deadlines of all games, the deadline itself is handled in the game mailbox
+     */
+    private static final TimingWheel DEADLINES = new TimingWheel("game-deadlines", Duration.ofMillis(100), 512);
+
+    private static final String DEFAULT_NAME = "Player ";
+
+    private final long numericId;
+
     private final String id;
 
-    private final Queue<GameState> gameState = new LinkedBlockingQueue<>();
+    private final GameMailbox mailbox = new GameMailbox(COMMANDS);
+
+    private final int maxPlayers;
+
+    private final List<GameStateListener> stateListeners = new CopyOnWriteArrayList<>();
+
+    private final List<GameEventListener> eventListeners = new CopyOnWriteArrayList<>();
+
+    private final PlayerVersions playerVersions = new PlayerVersions();
+
+    /*
+     * Version the game switched to the current state at
+     */
+    private volatile long stateVersion;
+
+    /*
+     * Current state together with the game version, swapped atomically as a whole
+     */
+    private final AtomicReference<VersionedState> gameState;
 
-    private final List<String> listOfDefaultNames = List.of("Player 1", "Player 2", "Player 3", "Player 4");
+    /*
+     * Node the game was moved to, -1 while the game is served here
+     */
+    private volatile int movedTo = -1;
 
-    private final Queue<String> queue = new LinkedBlockingQueue<>(listOfDefaultNames);
+    /*
+     * Set once the game is removed from the repository. Touched from the mailbox only
+     */
+    private boolean disbanded;
+
+    /*
+     * System.nanoTime() of the last change made by players
+     */
+    private volatile long lastActivity = System.nanoTime();
+
+    /*
+     * Deadline of the current phase, null if the phase has none. Touched from the mailbox only
+     */
+    private Deadline deadline;
 
     /*
      * Creates a new game (game room)
@@ -40,9 +102,95 @@ public class PersistentGame implements SynchronousGame {
      * @param maxPlayers to initiate a new game
      */
     public PersistentGame(Integer maxPlayers) {
-        this.id = String.format("%d-%d", Instant.now().toEpochMilli(),
-                Double.valueOf(Math.random() * 999).intValue());
-        this.gameState.add(new WaitingForPlayers(maxPlayers));
+        this(maxPlayers, GameRules.classic());
+    }
+
+    /*
+     * Creates a new game (game room) that assigns characters with the given assignment
+     *
+     * @param maxPlayers to initiate a new game
+     * @param assignment to pick characters for players once all of them suggested one
+     */
+    public PersistentGame(Integer maxPlayers, CharacterAssignment assignment) {
+        this(maxPlayers, GameRules.classic().withAssignment(assignment));
+    }
+
+    /*
+     * Creates a new game (game room) played by the given rules
+     *
+     * @param maxPlayers to initiate a new game
+     * @param rules to assign characters and resolve questions with
+     */
+    public PersistentGame(Integer maxPlayers, GameRules rules) {
+        this(SnowflakeIdGenerator.local().next(), maxPlayers, rules);
+    }
+
+    /*
+     * Creates a new game (game room) with the id given by a GameIdGenerator
+     *
+     * @param id unique numeric id of the game
+     * @param maxPlayers to initiate a new game
+     * @param rules to assign characters and resolve questions with
+     */
+    public PersistentGame(long id, Integer maxPlayers, GameRules rules) {
+        this(id, maxPlayers, new WaitingForPlayers(maxPlayers, rules), 0);
+    }
+
+    private PersistentGame(long id, int maxPlayers, GameState state, long version) {
+        this.numericId = id;
+        this.id = Base62.encode(id);
+        this.maxPlayers = maxPlayers;
+        this.gameState = new AtomicReference<>(new VersionedState(state, version));
+    }
+
+    /*
+     * Rebuilds a game moved from other node. The restored game is one version ahead of the
+     * snapshot and every player and question is stamped with that version, so clients that
+     * ask for changes get the whole game once
+     *
+     * @return game at the same state, turn and history as the snapshot
+     * @throw GameException if the snapshot state is unknown
+     */
+    public static PersistentGame restore(GameSnapshot snapshot) {
+        var rules = new GameRules(DerangementAssignment.random(), snapshot.quorum(), snapshot.deadlines());
+        var players = new ConcurrentHashMap<String, PlayerWithState>();
+        for (var player : snapshot.players()) {
+            var restored = new PersistentPlayer(player.id(), player.name());
+            restored.setCharacter(player.character());
+            players.put(restored.getId(), new PlayerWithState(restored, player.answer(), player.state()));
+        }
+
+        var game = new PersistentGame(snapshot.id(), snapshot.maxPlayers(),
+                restoreState(snapshot, players, rules), snapshot.version() + 1);
+        game.stateVersion = snapshot.version() + 1;
+        game.stamp(game.gameState.get().state(), snapshot.version() + 1);
+        // games without deadlines skip the mailbox turn, it adds up when a whole node is restored
+        if (!TurnDeadlines.NONE.equals(snapshot.deadlines())) {
+            game.submit(() -> {
+                game.updateDeadline();
+                return null;
+            });
+        }
+        return game;
+    }
+
+    private static GameState restoreState(GameSnapshot snapshot, Map<String, PlayerWithState> players, GameRules rules) {
+        var state = snapshot.state();
+        if (WaitingForPlayers.class.getSimpleName().equals(state)) {
+            var waitingForPlayers = new WaitingForPlayers(snapshot.maxPlayers(), rules);
+            players.values().forEach(player -> waitingForPlayers.add(player.getPlayer()));
+            return waitingForPlayers;
+        }
+        if (SuggestingCharacters.class.getSimpleName().equals(state)) {
+            return new SuggestingCharacters(players, rules, snapshot.suggestions());
+        }
+        if (ProcessingQuestion.class.getSimpleName().equals(state)) {
+            return ProcessingQuestion.restore(players, rules, snapshot.turn());
+        }
+        if (GameFinished.class.getSimpleName().equals(state)) {
+            return new GameFinished(0, snapshot.maxPlayers());
+        }
+        throw new GameException("Game [" + Base62.encode(snapshot.id()) + "] can't be restored at " + state + " state.");
     }
 
     /*
@@ -53,63 +201,186 @@ public class PersistentGame implements SynchronousGame {
         return this.id;
     }
 
+    @Override
+    public long getNumericId() {
+        return this.numericId;
+    }
+
     @Override
     public GameState getState() {
-        return this.applyIfPresent(this.gameState.peek(), GameState::getCurrentState);
+        return this.gameState.get().state().getCurrentState();
+    }
+
+    @Override
+    public long getVersion() {
+        return this.gameState.get().version();
+    }
+
+    @Override
+    public boolean isStateChangedSince(long version) {
+        return this.stateVersion > version;
+    }
+
+    @Override
+    public List<PlayerWithState> getPlayersChangedSince(long version) {
+        return this.playerVersions.changedSince(this.gameState.get().state().getPlayersList(), version);
+    }
+
+    @Override
+    public List<String> getPlayersLeftSince(long version) {
+        return this.playerVersions.leftSince(version);
+    }
+
+    @Override
+    public int getMaxPlayers() {
+        return this.maxPlayers;
+    }
+
+    @Override
+    public Duration getIdleTime() {
+        return Duration.ofNanos(System.nanoTime() - this.lastActivity);
+    }
+
+    @Override
+    public void addStateListener(GameStateListener listener) {
+        this.stateListeners.add(listener);
+    }
+
+    @Override
+    public void addEventListener(GameEventListener listener) {
+        this.eventListeners.add(listener);
+    }
+
+    @Override
+    public void removeEventListener(GameEventListener listener) {
+        this.eventListeners.remove(listener);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> submit(Supplier<T> command) {
+        return this.mailbox.submit(command);
+    }
+
+    @Override
+    public CompletableFuture<GameSnapshot> suspend() {
+        return this.mailbox.submit(() -> {
+            this.ensureServedHere();
+            var snapshot = this.snapshot();
+            this.mailbox.suspend();
+            return snapshot;
+        });
+    }
+
+    @Override
+    public void resume() {
+        this.mailbox.resume();
+    }
+
+    /*
+     * Called while the mailbox is suspended, so nothing else runs in the game meanwhile
+     */
+    @Override
+    public void moved(int node) {
+        this.movedTo = node;
+        this.updateDeadline();
+        this.publish(GameEventType.GAME_MOVED, null, String.valueOf(node));
+        this.mailbox.resume();
+    }
+
+    @Override
+    public CompletableFuture<List<PlayerWithState>> disband() {
+        return this.mailbox.submit(this::disbandNow);
+    }
+
+    /*
+     * A game moved to other node already told its subscribers
+     */
+    @Override
+    public List<PlayerWithState> disbandNow() {
+        if (!this.disbanded) {
+            this.disbanded = true;
+            this.updateDeadline();
+            if (this.movedTo < 0) {
+                this.publish(GameEventType.GAME_DISBANDED, null, null);
+                this.eventListeners.clear();
+            }
+        }
+        return this.getPlayersList();
     }
 
     @Override
     public List<PlayerWithState> getPlayersList() {
-        return this.applyIfPresent(this.gameState.peek(), GameState::getPlayersList)
+        return this.gameState.get().state().getPlayersList()
                 .collect(Collectors.toList());
     }
 
     @Override
     public GameHistory getGameHistory() {
-        return this.gameState.peek() instanceof ProcessingQuestion ?
-                ((ProcessingQuestion) this.gameState.peek()).getGameHistory() : null;
+        return this.gameState.get().state() instanceof ProcessingQuestion processingQuestion ?
+                processingQuestion.getGameHistory() : null;
     }
 
     @Override
     public SynchronousPlayer enrollToGame(String player) {
-        if (this.getState() instanceof WaitingForPlayers) {
+        var waitingForPlayers = this.stateAs(WaitingForPlayers.class);
 
-            var newPlayer = new PersistentPlayer(player, getDefaultName());
+        var newPlayer = new PersistentPlayer(player, getDefaultName(waitingForPlayers));
+        waitingForPlayers.add(newPlayer);
+        this.touch(player);
+        this.publish(GameEventType.PLAYER_JOINED, player, newPlayer.getName());
 
-            assert gameState.peek() != null;
-            ((WaitingForPlayers) gameState.peek()).add(newPlayer);
-
-            assert gameState.peek() != null;
-            if (String.valueOf(this.getPlayersList().size()).equals("4")) {
-                this.gameState.add(Objects.requireNonNull(this.gameState.poll()).next());
-            }
-            return newPlayer;
-        } else
-            throw new GameNotFoundException("Game [" + this.getId() + "] already at "
-                    + this.getState().getClass().getSimpleName() + " state.");
+        if (waitingForPlayers.isReadyToNextState()) {
+            this.moveToNextState(waitingForPlayers);
+        }
+        return newPlayer;
     }
 
-    private String getDefaultName() {
-        String defaultName = this.queue.poll();
-        this.queue.add(defaultName);
-        return defaultName;
+    /*
+     * @return "Player N" of the lowest seat no waiting player took, so names stay unique
+     * however many players the room has and however many of them left
+     */
+    private static String getDefaultName(WaitingForPlayers waitingForPlayers) {
+        var taken = waitingForPlayers.getPlayersList()
+                .map(seated -> seated.getPlayer().getName())
+                .collect(Collectors.toSet());
+        int seat = 1;
+        while (taken.contains(DEFAULT_NAME + seat)) {
+            seat++;
+        }
+        return DEFAULT_NAME + seat;
     }
 
     @Override
     public Optional<SynchronousPlayer> leaveGame(String player) {
-        return this.applyIfPresent(this.gameState.peek(), gameState -> gameState.leave(player));
+        this.ensureServedHere();
+        var turn = this.currentTurn();
+        var state = this.gameState.get().state();
+        var leftPlayer = state.leave(player);
+        this.touch();
+        this.publish(GameEventType.PLAYER_LEFT, player, null);
+        if (turn != null && !turn.equals(this.currentTurn())) {
+            this.publish(GameEventType.TURN_CHANGED, this.currentTurn(), null);
+        }
+        if (state instanceof SuggestingCharacters suggestingCharacters) {
+            this.waitForPlayersIfAlone(suggestingCharacters);
+        }
+        return leftPlayer;
     }
 
     @Override
     public void suggestCharacter(String player, CharacterSuggestion suggestion) {
         if (findPlayer(player).isPresent()) {
 
-            assert gameState.peek() != null;
-            ((SuggestingCharacters) gameState.peek()).suggestCharacter(player, suggestion);
+            var suggestingCharacters = this.stateAs(SuggestingCharacters.class);
+            if (this.waitForPlayersIfAlone(suggestingCharacters)) {
+                throw new GameNotFoundException("Game [" + this.getId() + "] waits for players again.");
+            }
+            suggestingCharacters.suggestCharacter(player, suggestion);
+            this.touch(player);
+            this.publish(GameEventType.CHARACTER_SUGGESTED, player, suggestion.getName());
 
-            assert gameState.peek() != null;
-            if (gameState.peek().isReadyToNextState()) {
-                this.gameState.add(Objects.requireNonNull(this.gameState.poll()).next());
+            if (suggestingCharacters.isReadyToNextState()) {
+                this.moveToNextState(suggestingCharacters);
             }
         }
     }
@@ -117,60 +388,330 @@ public class PersistentGame implements SynchronousGame {
     @Override
     public void askQuestion(String player, String message) {
         if (findPlayer(player).isPresent()) {
-            assert this.gameState.peek() != null;
-            ((ProcessingQuestion) this.gameState.peek()).askQuestion(player, message);
+            var processingQuestion = this.stateAs(ProcessingQuestion.class);
+            processingQuestion.askQuestion(player, message);
+            this.touch(player);
+            this.publish(GameEventType.QUESTION_ASKED, player, message);
         } else throw new PlayerNotFoundException("Game [" + this.getId() + "] not found [" + player + "].");
     }
 
     @Override
     public void answerQuestion(String player, QuestionAnswer answer) {
         if (findPlayer(player).isPresent()) {
-            assert this.gameState.peek() != null;
-            ((ProcessingQuestion) this.gameState.peek()).answerQuestion(player, answer);
+            var processingQuestion = this.stateAs(ProcessingQuestion.class);
+            boolean resolved = processingQuestion.answerQuestion(player, answer);
+            this.touch(resolved ? null : player);
+            this.publish(GameEventType.QUESTION_ANSWERED, player, answer.toString());
+            this.publishTurnIfResolved(processingQuestion);
         } else throw new PlayerNotFoundException("Game [" + this.getId() + "] not found [" + player + "].");
     }
 
     @Override
     public void submitGuess(String player, String guess) {
         if (findPlayer(player).isPresent()) {
-            assert this.gameState.peek() != null;
-            ((ProcessingQuestion) this.gameState.peek()).submitGuess(player, guess);
+            var processingQuestion = this.stateAs(ProcessingQuestion.class);
+            processingQuestion.submitGuess(player, guess);
+            this.touch(player);
+            this.publish(GameEventType.GUESS_SUBMITTED, player, guess);
         } else throw new PlayerNotFoundException("Game [" + this.getId() + "] not found [" + player + "].");
     }
 
     @Override
     public void answerGuess(String player, GuessAnswer answer) {
         if (findPlayer(player).isPresent()) {
-            assert this.gameState.peek() != null;
-            ((ProcessingQuestion) this.gameState.peek()).answerGuess(player, answer);
+            var processingQuestion = this.stateAs(ProcessingQuestion.class);
+            boolean resolved = processingQuestion.answerGuess(player, answer);
+            this.touch(resolved ? null : player);
+            this.publish(GameEventType.GUESS_ANSWERED, player, answer.toString());
+            this.publishTurnIfResolved(processingQuestion);
         } else throw new PlayerNotFoundException("Game [" + this.getId() + "] not found [" + player + "].");
     }
 
     @Override
     public Optional<SynchronousPlayer> findPlayer(String player) {
-        return this.applyIfPresent(this.gameState.peek(), gameState -> gameState.findPlayer(player));
+        return this.gameState.get().state().findPlayer(player);
     }
 
     @Override
     public TurnDetails findTurnInfo(String player) {
         if (findPlayer(player).isPresent()) {
-            assert this.gameState.peek() != null;
-            return ((ProcessingQuestion) this.gameState.peek()).getTurnInfo();
+            return this.stateAs(ProcessingQuestion.class).getTurnInfo();
         } else throw new PlayerNotFoundException("Game [" + this.getId() + "] not found [" + player + "].");
     }
 
     @Override
     public SynchronousGame start() {
-        this.gameState.add(Objects.requireNonNull(this.gameState.poll()).next());
+        this.ensureServedHere();
+        this.moveToNextState(this.gameState.get().state());
         return this;
     }
 
-    private <T, R> R applyIfPresent(T source, Function<T, R> mapper) {
-        return this.applyIfPresent(source, mapper, null);
+    private void moveToNextState(GameState current) {
+        this.moveToState(current, current::next);
+    }
+
+    /*
+     * Characters are assigned to two players at least, a player left alone
+     * keeps his seat and the game waits for players again
+     *
+     * @return {@code true} if the game went back to WaitingForPlayers
+     */
+    private boolean waitForPlayersIfAlone(SuggestingCharacters suggestingCharacters) {
+        if (suggestingCharacters.getPlayersList().count() > 1) {
+            return false;
+        }
+        this.moveToState(suggestingCharacters, () -> {
+            var waitingForPlayers = new WaitingForPlayers(this.maxPlayers, suggestingCharacters.getRules());
+            suggestingCharacters.getPlayersList().forEach(player -> waitingForPlayers.add(player.getPlayer()));
+            return waitingForPlayers;
+        });
+        return true;
+    }
+
+    /*
+     * Switches the game to the next state with a single compare-and-set, so readers
+     * see either the previous or the next state, and notifies state listeners.
+     * Nothing happens if other request already moved the game away from the current state.
+     *
+     * @param current state the transition is made from
+     * @param nextState makes the next state, once the game is known to be at the current one
+     */
+    private void moveToState(GameState current, Supplier<GameState> nextState) {
+        var versioned = this.gameState.get();
+        if (versioned.state() != current) {
+            return;
+        }
+        var next = nextState.get();
+        long nextVersion = versioned.version() + 1;
+        this.stateVersion = nextVersion;
+        this.stamp(next, nextVersion);
+        if (this.gameState.compareAndSet(versioned, new VersionedState(next, nextVersion))) {
+            this.lastActivity = System.nanoTime();
+            this.updateDeadline();
+            this.stateListeners.forEach(listener -> listener.onStateChanged(this, current, next));
+            this.publish(GameEventType.STATE_CHANGED, null, next.getClass().getSimpleName());
+            if (next instanceof ProcessingQuestion processingQuestion) {
+                this.publish(GameEventType.TURN_CHANGED, processingQuestion.getCurrentPlayer(), null);
+            }
+        }
+    }
+
+    /*
+     * Once all answers are collected the question is resolved and
+     * the next turn starts, either for the same or for the next player
+     */
+    private void publishTurnIfResolved(ProcessingQuestion processingQuestion) {
+        if (!processingQuestion.getGameHistory().hasCurrentQuestion()) {
+            this.publish(GameEventType.TURN_CHANGED, processingQuestion.getCurrentPlayer(), null);
+        }
+    }
+
+    /*
+     * Keeps a single deadline per game, for the phase the game is at: suggesting characters,
+     * asking or answering a question. A deadline is scheduled when the game enters a phase
+     * and cancelled once it leaves it, so a phase that keeps going, like answers coming in,
+     * doesn't move its deadline. Called from the mailbox after every change
+     */
+    private void updateDeadline() {
+        var phase = this.movedTo < 0 && !this.disbanded ? Phase.of(this.gameState.get().state()) : null;
+        var current = this.deadline;
+        if (current != null && current.phase().equals(phase)) {
+            return;
+        }
+        if (current != null) {
+            current.timeout().cancel();
+            this.deadline = null;
+        }
+        var delay = phase == null ? null : phase.delay();
+        if (delay != null) {
+            this.deadline = new Deadline(phase, DEADLINES.schedule(() -> this.submit(() -> {
+                this.onDeadline(phase);
+                return null;
+            }), delay));
+        }
+    }
+
+    /*
+     * Moves the game on without the players it waited for.
+     * Ignored if the game left the phase the deadline was scheduled for
+     */
+    private void onDeadline(Phase expired) {
+        if (this.deadline == null || this.deadline.phase() != expired || this.movedTo >= 0 || this.disbanded) {
+            return;
+        }
+        this.deadline = null;
+        // moving on without the players is no activity of theirs, so idle games can still be reaped
+        long activity = this.lastActivity;
+        var state = this.gameState.get().state();
+        switch (expired.type()) {
+            case SUGGESTING -> {
+                var suggestingCharacters = (SuggestingCharacters) state;
+                if (this.waitForPlayersIfAlone(suggestingCharacters)) {
+                    break;
+                }
+                var suggested = suggestingCharacters.suggestMissing();
+                this.touch();
+                suggested.forEach(player -> this.publish(GameEventType.CHARACTER_SUGGESTED, player, null));
+                if (suggestingCharacters.isReadyToNextState()) {
+                    this.moveToNextState(suggestingCharacters);
+                }
+            }
+            case ASKING -> {
+                var processingQuestion = (ProcessingQuestion) state;
+                processingQuestion.skipTurn();
+                this.touch();
+                this.publish(GameEventType.TURN_CHANGED, processingQuestion.getCurrentPlayer(), null);
+            }
+            case ANSWERING -> {
+                var processingQuestion = (ProcessingQuestion) state;
+                processingQuestion.answerMissing();
+                this.touch();
+                this.publishTurnIfResolved(processingQuestion);
+            }
+        }
+        this.lastActivity = activity;
+    }
+
+    private String currentTurn() {
+        return this.gameState.get().state() instanceof ProcessingQuestion processingQuestion ?
+                processingQuestion.getCurrentPlayer() : null;
+    }
+
+    private void publish(GameEventType type, String player, String payload) {
+        if (this.eventListeners.isEmpty()) {
+            return;
+        }
+        var event = new GameEvent(this.id, this.getVersion(), type, player, payload);
+        this.eventListeners.forEach(listener -> listener.onEvent(event));
+    }
+
+    /*
+     * Bumps the game version after a change that may touch any player within the current state
+     */
+    private void touch() {
+        this.touch(null);
+    }
+
+    /*
+     * Bumps the game version after a change of a single player within the current state,
+     * only that player is stamped (all of them if null). Commands and deadlines run one
+     * at a time in the mailbox, so nothing moves the version between the stamp and the swap
+     */
+    private void touch(String player) {
+        var versioned = this.gameState.get();
+        long version = versioned.version() + 1;
+        if (player == null) {
+            this.stamp(versioned.state(), version);
+        } else {
+            versioned.state().findPlayerWithState(player)
+                    .ifPresent(changed -> this.playerVersions.stamp(changed, version));
+            this.stampHistory(versioned.state(), version);
+        }
+        this.gameState.set(new VersionedState(versioned.state(), version));
+        this.lastActivity = System.nanoTime();
+        this.updateDeadline();
+    }
+
+    /*
+     * Records which players and history questions the change touched, for delta requests.
+     * Runs before the new version is published, so a reader that sees the version
+     * also sees all stamps up to it
+     */
+    private void stamp(GameState state, long version) {
+        this.playerVersions.stamp(state.getPlayersList().toList(), version);
+        this.stampHistory(state, version);
+    }
+
+    private void stampHistory(GameState state, long version) {
+        if (state instanceof ProcessingQuestion processingQuestion) {
+            processingQuestion.getGameHistory().stamp(version);
+        }
+    }
+
+    /*
+     * @return current state if the game is at the expected state
+     * @throw GameNotFoundException if the game is at other state
+     */
+    private <S extends GameState> S stateAs(Class<S> state) {
+        this.ensureServedHere();
+        var current = this.gameState.get().state();
+        if (state.isInstance(current)) {
+            return state.cast(current);
+        }
+        throw new GameNotFoundException("Game [" + this.getId() + "] already at "
+                + current.getClass().getSimpleName() + " state.");
+    }
+
+    /*
+     * @throw GameMovedException if the game was moved to other node
+     * @throw GameNotFoundException if the game was disbanded
+     */
+    private void ensureServedHere() {
+        if (this.movedTo >= 0) {
+            throw new GameMovedException("Game [" + this.getId() + "] moved to node [" + this.movedTo + "].");
+        }
+        if (this.disbanded) {
+            throw new GameNotFoundException("Game [" + this.getId() + "] is disbanded.");
+        }
+    }
+
+    @Override
+    public GameSnapshot snapshot() {
+        var versioned = this.gameState.get();
+        var state = versioned.state();
+        var players = state.getPlayersList()
+                .map(player -> new GameSnapshot.Player(player.getPlayer().getId(), player.getPlayer().getName(),
+                        player.getPlayer().getCharacter(), player.getState(), player.getAnswer()))
+                .toList();
+        GameRules rules = GameRules.classic();
+        Map<String, String> suggestions = Map.of();
+        GameSnapshot.Turn turn = null;
+        if (state instanceof WaitingForPlayers waitingForPlayers) {
+            rules = waitingForPlayers.getRules();
+        } else if (state instanceof SuggestingCharacters suggestingCharacters) {
+            rules = suggestingCharacters.getRules();
+            suggestions = suggestingCharacters.getSuggestions();
+        } else if (state instanceof ProcessingQuestion processingQuestion) {
+            rules = processingQuestion.getRules();
+            turn = processingQuestion.snapshot();
+        }
+        return new GameSnapshot(this.numericId, this.maxPlayers, versioned.version(), state.getClass().getSimpleName(),
+                rules.quorum(), rules.deadlines(), players, suggestions, turn);
+    }
+
+    private record VersionedState(GameState state, long version) {
+    }
+
+    private enum PhaseType {
+        SUGGESTING, ASKING, ANSWERING
+    }
+
+    /*
+     * Phase of a game with a deadline. Asking and answering phases are told apart
+     * by the number of questions and the asking player, so every turn gets its own deadline
+     */
+    private record Phase(PhaseType type, int questions, String player, Duration delay) {
+
+        /*
+         * @return phase of the state, null if the state has no deadlines
+         */
+        private static Phase of(GameState state) {
+            if (state instanceof SuggestingCharacters suggestingCharacters) {
+                return new Phase(PhaseType.SUGGESTING, 0, null, suggestingCharacters.getRules().deadlines().suggesting());
+            }
+            if (state instanceof ProcessingQuestion processingQuestion && !processingQuestion.isOver()) {
+                var deadlines = processingQuestion.getRules().deadlines();
+                var history = processingQuestion.getGameHistory();
+                return history.hasCurrentQuestion() ?
+                        new Phase(PhaseType.ANSWERING, history.size(), processingQuestion.getCurrentPlayer(), deadlines.answering()) :
+                        new Phase(PhaseType.ASKING, history.size(), processingQuestion.getCurrentPlayer(), deadlines.asking());
+            }
+            return null;
+        }
+
     }
 
-    private <T, R> R applyIfPresent(T source, Function<T, R> mapper, R fallback) {
-        return Optional.ofNullable(source).map(mapper).orElse(fallback);
+    private record Deadline(Phase phase, TimingWheel.Timeout timeout) {
     }
 
 }
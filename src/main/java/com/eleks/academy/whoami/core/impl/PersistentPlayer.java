@@ -1,6 +1,7 @@
 package com.eleks.academy.whoami.core.impl;
 
 import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.utils.SymbolTable;
 
 import java.util.Objects;
 
@@ -13,18 +14,18 @@ public class PersistentPlayer implements SynchronousPlayer {
 	private final String id;
 
 	public PersistentPlayer(String id, String name) {
-		this.id = Objects.requireNonNull(id);
+		this.id = SymbolTable.SHARED.intern(Objects.requireNonNull(id));
 		this.name = Objects.requireNonNull(name);
 	}
 
 	@Override
 	public void setName(String name) {
-		this.name = name;
+		this.name = SymbolTable.SHARED.intern(name);
 	}
 
 	@Override
 	public void setCharacter(String character) {
-		this.character = character;
+		this.character = SymbolTable.SHARED.intern(character);
 	}
 
 	@Override
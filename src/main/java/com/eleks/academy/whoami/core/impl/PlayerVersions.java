@@ -0,0 +1,91 @@
+package com.eleks.academy.whoami.core.impl;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+
+/**
+ * Game version every player was last changed or left at.
+ * Updated from the game mailbox only, read by any thread.
+ */
+class PlayerVersions {
+
+	private final Map<String, Stamp> players = new ConcurrentHashMap<>();
+
+	private final Map<String, Long> leftPlayers = new ConcurrentHashMap<>();
+
+	/*
+	 * Compares players with their last stamps and stamps the changed, joined and left ones.
+	 * Walks all players, so it is kept for changes that may touch any of them
+	 */
+	void stamp(List<PlayerWithState> current, long version) {
+		for (var player : current) {
+			var id = player.getPlayer().getId();
+			var stamp = this.players.get(id);
+			if (stamp == null || !stamp.sameAs(player)) {
+				this.players.put(id, Stamp.of(player, version));
+				this.leftPlayers.remove(id);
+			}
+		}
+		if (this.players.size() > current.size()) {
+			var present = current.stream()
+					.map(player -> player.getPlayer().getId())
+					.collect(Collectors.toSet());
+			this.players.keySet().removeIf(id -> {
+				if (present.contains(id)) {
+					return false;
+				}
+				this.leftPlayers.put(id, version);
+				return true;
+			});
+		}
+	}
+
+	/*
+	 * Stamps a single player changed by a command, the other players keep their stamps
+	 */
+	void stamp(PlayerWithState player, long version) {
+		var id = player.getPlayer().getId();
+		this.players.put(id, Stamp.of(player, version));
+		this.leftPlayers.remove(id);
+	}
+
+	List<PlayerWithState> changedSince(Stream<PlayerWithState> current, long version) {
+		return current
+				.filter(player -> {
+					var stamp = this.players.get(player.getPlayer().getId());
+					return stamp == null || stamp.version() > version;
+				})
+				.toList();
+	}
+
+	List<String> leftSince(long version) {
+		return this.leftPlayers.entrySet()
+				.stream()
+				.filter(left -> left.getValue() > version)
+				.map(Map.Entry::getKey)
+				.toList();
+	}
+
+	private record Stamp(String name, PlayerState state, QuestionAnswer answer, long version) {
+
+		static Stamp of(PlayerWithState player, long version) {
+			return new Stamp(player.getPlayer().getName(), player.getState(), player.getAnswer(), version);
+		}
+
+		boolean sameAs(PlayerWithState player) {
+			return Objects.equals(this.name, player.getPlayer().getName())
+					&& this.state == player.getState()
+					&& this.answer == player.getAnswer();
+		}
+
+	}
+
+}
@@ -0,0 +1,89 @@
+package com.eleks.academy.whoami.core.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.eleks.academy.whoami.core.GameIdGenerator;
+
+/**
+ * Snowflake-style ids: 41 bits of milliseconds since 2022-01-01, 10 bits of node id
+ * and 12 bits of sequence within the millisecond. Ids of one node only grow, ids of
+ * different nodes never collide, and the node that created a game can be read back
+ * from its id. More than 4096 ids in a millisecond borrow the next millisecond,
+ * so do ids generated while the clock steps back.
+ */
+public final class SnowflakeIdGenerator implements GameIdGenerator {
+
+	public static final int MAX_NODE = (1 << 10) - 1;
+
+	/*
+	 * 2022-01-01T00:00:00Z
+	 */
+	private static final long EPOCH = 1_640_995_200_000L;
+
+	private static final int NODE_BITS = 10;
+
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+	/*
+	 * One generator per node, two generators of the same node could hand out the same id
+	 */
+	private static final Map<Integer, SnowflakeIdGenerator> NODES = new ConcurrentHashMap<>();
+
+	private final long node;
+
+	private final LongSupplier clock;
+
+	/*
+	 * Milliseconds since the epoch shifted left by the sequence bits, plus the sequence
+	 */
+	private final AtomicLong last = new AtomicLong();
+
+	SnowflakeIdGenerator(int node, LongSupplier clock) {
+		if (node < 0 || node > MAX_NODE) {
+			throw new IllegalArgumentException(String.format("Node id should be within [0, %d], but provided %d", MAX_NODE, node));
+		}
+		this.node = node;
+		this.clock = clock;
+	}
+
+	/*
+	 * @return generator of the node
+	 * @throw IllegalArgumentException if the node id doesn't fit into 10 bits
+	 */
+	public static SnowflakeIdGenerator of(int node) {
+		return NODES.computeIfAbsent(node, id -> new SnowflakeIdGenerator(id, System::currentTimeMillis));
+	}
+
+	/*
+	 * @return generator of a single node deployment, used for games created without an explicit id
+	 */
+	public static SnowflakeIdGenerator local() {
+		return of(0);
+	}
+
+	@Override
+	public long next() {
+		while (true) {
+			long previous = this.last.get();
+			long now = (this.clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+			long next = now > previous ? now : previous + 1;
+			if (this.last.compareAndSet(previous, next)) {
+				long millis = next >>> SEQUENCE_BITS;
+				return millis << (NODE_BITS + SEQUENCE_BITS) | this.node << SEQUENCE_BITS | next & SEQUENCE_MASK;
+			}
+		}
+	}
+
+	/*
+	 * @return id of the node the id was generated on
+	 */
+	public static int nodeOf(long id) {
+		return (int) (id >>> SEQUENCE_BITS & MAX_NODE);
+	}
+
+}
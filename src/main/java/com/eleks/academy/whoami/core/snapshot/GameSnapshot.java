@@ -0,0 +1,43 @@
+package com.eleks.academy.whoami.core.snapshot;
+
+import java.util.List;
+import java.util.Map;
+
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+
+/**
+ * Everything needed to rebuild a running game on another node: the state, players with
+ * their characters, turn order, votes of the current question and the whole history.
+ * Plain values only, so it is written as JSON as is.
+ *
+ * @param id            numeric id of the game
+ * @param version       version of the game when the snapshot was taken
+ * @param state         simple name of the state class
+ * @param quorum        quorum of the game rules
+ * @param deadlines     turn deadlines of the game rules
+ * @param suggestions   author id -> suggested character, while characters are suggested
+ * @param turn          turn of the game, while questions are processed
+ */
+public record GameSnapshot(long id, int maxPlayers, long version, String state, double quorum, TurnDeadlines deadlines,
+						   List<Player> players, Map<String, String> suggestions, Turn turn) {
+
+	public record Player(String id, String name, String character, PlayerState state, QuestionAnswer answer) {
+	}
+
+	/*
+	 * @param askOrder     players still asking, starting with the one the next turn goes to
+	 * @param questionOpen the last question of the history still gets answers
+	 */
+	public record Turn(String currentPlayer, List<String> askOrder, int answered, int yes, int no, int notSure,
+					   List<Question> history, boolean questionOpen) {
+	}
+
+	public record Question(String player, String type, String text, List<Answer> answers) {
+	}
+
+	public record Answer(String player, QuestionAnswer answer) {
+	}
+
+}
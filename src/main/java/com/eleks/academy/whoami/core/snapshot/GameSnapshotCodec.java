@@ -0,0 +1,179 @@
+package com.eleks.academy.whoami.core.snapshot;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+
+/**
+ * Compact binary form of a {@link GameSnapshot}, several times smaller and faster
+ * to read and write than its JSON. Strings are UTF-8 with an int length, enums are
+ * their ordinal in a byte and durations are nanos; -1 stands for null in all of them.
+ */
+public final class GameSnapshotCodec {
+
+	private static final PlayerState[] PLAYER_STATES = PlayerState.values();
+
+	private static final QuestionAnswer[] ANSWERS = QuestionAnswer.values();
+
+	private GameSnapshotCodec() {
+	}
+
+	/*
+	 * Writes the snapshot at the position of the buffer
+	 *
+	 * @throw BufferOverflowException if the snapshot doesn't fit the buffer
+	 */
+	public static void write(GameSnapshot snapshot, ByteBuffer buffer) {
+		buffer.putLong(snapshot.id())
+				.putInt(snapshot.maxPlayers())
+				.putLong(snapshot.version())
+				.putDouble(snapshot.quorum());
+		putString(buffer, snapshot.state());
+		putDuration(buffer, snapshot.deadlines().suggesting());
+		putDuration(buffer, snapshot.deadlines().asking());
+		putDuration(buffer, snapshot.deadlines().answering());
+
+		buffer.putInt(snapshot.players().size());
+		for (var player : snapshot.players()) {
+			putString(buffer, player.id());
+			putString(buffer, player.name());
+			putString(buffer, player.character());
+			putEnum(buffer, player.state());
+			putEnum(buffer, player.answer());
+		}
+
+		buffer.putInt(snapshot.suggestions().size());
+		snapshot.suggestions().forEach((author, character) -> {
+			putString(buffer, author);
+			putString(buffer, character);
+		});
+
+		var turn = snapshot.turn();
+		buffer.put((byte) (turn == null ? 0 : 1));
+		if (turn == null) {
+			return;
+		}
+		putString(buffer, turn.currentPlayer());
+		buffer.putInt(turn.askOrder().size());
+		turn.askOrder().forEach(player -> putString(buffer, player));
+		buffer.putInt(turn.answered())
+				.putInt(turn.yes())
+				.putInt(turn.no())
+				.putInt(turn.notSure())
+				.put((byte) (turn.questionOpen() ? 1 : 0));
+		buffer.putInt(turn.history().size());
+		for (var question : turn.history()) {
+			putString(buffer, question.player());
+			putString(buffer, question.type());
+			putString(buffer, question.text());
+			buffer.putInt(question.answers().size());
+			for (var answer : question.answers()) {
+				putString(buffer, answer.player());
+				putEnum(buffer, answer.answer());
+			}
+		}
+	}
+
+	/*
+	 * Reads the snapshot at the position of the buffer and moves the position past it
+	 *
+	 * @throw BufferUnderflowException if the buffer ends within the snapshot
+	 */
+	public static GameSnapshot read(ByteBuffer buffer) {
+		long id = buffer.getLong();
+		int maxPlayers = buffer.getInt();
+		long version = buffer.getLong();
+		double quorum = buffer.getDouble();
+		var state = getString(buffer);
+		var deadlines = new TurnDeadlines(getDuration(buffer), getDuration(buffer), getDuration(buffer));
+
+		int playerCount = buffer.getInt();
+		var players = new ArrayList<GameSnapshot.Player>(playerCount);
+		for (int i = 0; i < playerCount; i++) {
+			players.add(new GameSnapshot.Player(getString(buffer), getString(buffer), getString(buffer),
+					getEnum(buffer, PLAYER_STATES), getEnum(buffer, ANSWERS)));
+		}
+
+		int suggestionCount = buffer.getInt();
+		Map<String, String> suggestions = new HashMap<>(suggestionCount * 2);
+		for (int i = 0; i < suggestionCount; i++) {
+			suggestions.put(getString(buffer), getString(buffer));
+		}
+
+		GameSnapshot.Turn turn = null;
+		if (buffer.get() != 0) {
+			var currentPlayer = getString(buffer);
+			int askCount = buffer.getInt();
+			var askOrder = new ArrayList<String>(askCount);
+			for (int i = 0; i < askCount; i++) {
+				askOrder.add(getString(buffer));
+			}
+			int answered = buffer.getInt();
+			int yes = buffer.getInt();
+			int no = buffer.getInt();
+			int notSure = buffer.getInt();
+			boolean questionOpen = buffer.get() != 0;
+			int questionCount = buffer.getInt();
+			var history = new ArrayList<GameSnapshot.Question>(questionCount);
+			for (int i = 0; i < questionCount; i++) {
+				var player = getString(buffer);
+				var type = getString(buffer);
+				var text = getString(buffer);
+				int answerCount = buffer.getInt();
+				List<GameSnapshot.Answer> answers = new ArrayList<>(answerCount);
+				for (int j = 0; j < answerCount; j++) {
+					answers.add(new GameSnapshot.Answer(getString(buffer), getEnum(buffer, ANSWERS)));
+				}
+				history.add(new GameSnapshot.Question(player, type, text, answers));
+			}
+			turn = new GameSnapshot.Turn(currentPlayer, askOrder, answered, yes, no, notSure, history, questionOpen);
+		}
+		return new GameSnapshot(id, maxPlayers, version, state, quorum, deadlines, players, suggestions, turn);
+	}
+
+	private static void putString(ByteBuffer buffer, String value) {
+		if (value == null) {
+			buffer.putInt(-1);
+			return;
+		}
+		var bytes = value.getBytes(StandardCharsets.UTF_8);
+		buffer.putInt(bytes.length).put(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		var bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static void putDuration(ByteBuffer buffer, Duration duration) {
+		buffer.putLong(duration == null ? -1 : duration.toNanos());
+	}
+
+	private static Duration getDuration(ByteBuffer buffer) {
+		long nanos = buffer.getLong();
+		return nanos < 0 ? null : Duration.ofNanos(nanos);
+	}
+
+	private static void putEnum(ByteBuffer buffer, Enum<?> value) {
+		buffer.put((byte) (value == null ? -1 : value.ordinal()));
+	}
+
+	private static <E extends Enum<E>> E getEnum(ByteBuffer buffer, E[] values) {
+		int ordinal = buffer.get();
+		return ordinal < 0 ? null : values[ordinal];
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.eleks.academy.whoami.core.state;
+
+import java.time.Duration;
+
+import com.eleks.academy.whoami.core.CharacterAssignment;
+import com.eleks.academy.whoami.core.impl.DerangementAssignment;
+
+/**
+ * How a game assigns characters, when a question is resolved and how long it waits for players.
+ * <p>
+ * Classic rooms wait for every other player to answer. Large rooms resolve a question once
+ * the quorum share of the other players answered, or when the answer deadline passes,
+ * so a slow player can't stall the room.
+ *
+ * @param quorum    share of the other players whose answers resolve a question, 0 to 1
+ * @param deadlines time every phase of a turn waits for the players
+ */
+public record GameRules(CharacterAssignment assignment, double quorum, TurnDeadlines deadlines) {
+
+	public static final int CLASSIC_MAX_PLAYERS = 6;
+
+	public static final int LARGE_ROOM_MAX_PLAYERS = 500;
+
+	private static final GameRules CLASSIC = new GameRules(DerangementAssignment.random(), 1.0, TurnDeadlines.NONE);
+
+	public GameRules {
+		if (quorum <= 0 || quorum > 1) {
+			throw new IllegalArgumentException(String.format("Quorum should be within (0, 1], but provided %s", quorum));
+		}
+		if (deadlines == null) {
+			deadlines = TurnDeadlines.NONE;
+		}
+	}
+
+	public static GameRules classic() {
+		return CLASSIC;
+	}
+
+	/*
+	 * @param answerTimeout time a question waits for answers, null to wait for the quorum
+	 */
+	public static GameRules largeRoom(double quorum, Duration answerTimeout) {
+		return new GameRules(DerangementAssignment.random(), quorum, TurnDeadlines.NONE.withAnswering(answerTimeout));
+	}
+
+	public GameRules withAssignment(CharacterAssignment assignment) {
+		return new GameRules(assignment, this.quorum, this.deadlines);
+	}
+
+	public GameRules withDeadlines(TurnDeadlines deadlines) {
+		return new GameRules(this.assignment, this.quorum, deadlines);
+	}
+
+	/*
+	 * @return number of answers that resolve a question asked to the voters
+	 */
+	public int required(int voters) {
+		return Math.max(1, (int) Math.ceil(this.quorum * voters));
+	}
+
+}
@@ -45,6 +45,14 @@ public interface GameState {
 	 */
 	Optional<SynchronousPlayer> findPlayer(String player);
 
+	/* @return player together with his state and answer, empty if there is no such player
+	 */
+	default Optional<PlayerWithState> findPlayerWithState(String player) {
+		return this.getPlayersList()
+				.filter(candidate -> candidate.getPlayer().getId().equals(player))
+				.findFirst();
+	}
+
 	/* @return player that was removed from game
 	 * @throw ResponseStatusException(404) -> PlayerNotFoundException
 	 */	
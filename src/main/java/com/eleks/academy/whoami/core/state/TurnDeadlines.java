@@ -0,0 +1,35 @@
+package com.eleks.academy.whoami.core.state;
+
+import java.time.Duration;
+
+/**
+ * How long a game waits for its players before it moves on without them.
+ * Once a deadline passes, players that haven't suggested a character get one of the
+ * spare characters, an asker that hasn't asked loses the turn, and players that haven't
+ * answered are counted as not sure.
+ *
+ * @param suggesting time players have to suggest characters, null to wait for all of them
+ * @param asking     time the asking player has to ask a question or guess, null to wait
+ * @param answering  time the other players have to answer, null to wait for the quorum
+ */
+public record TurnDeadlines(Duration suggesting, Duration asking, Duration answering) {
+
+	public static final TurnDeadlines NONE = new TurnDeadlines(null, null, null);
+
+	public TurnDeadlines {
+		requirePositive("Suggesting", suggesting);
+		requirePositive("Asking", asking);
+		requirePositive("Answering", answering);
+	}
+
+	public TurnDeadlines withAnswering(Duration answering) {
+		return new TurnDeadlines(this.suggesting, this.asking, answering);
+	}
+
+	private static void requirePositive(String deadline, Duration duration) {
+		if (duration != null && (duration.isNegative() || duration.isZero())) {
+			throw new IllegalArgumentException(String.format("%s deadline should be positive, but provided %s", deadline, duration));
+		}
+	}
+
+}
@@ -0,0 +1,93 @@
+package com.eleks.academy.whoami.core.state.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Players in the order they ask questions: a ring of player ids indexed by id,
+ * so taking the next player and removing any player are O(1) at any room size.
+ * Used from the game mailbox only.
+ */
+final class AskOrder {
+
+	private final Map<String, String> next = new HashMap<>();
+
+	private final Map<String, String> previous = new HashMap<>();
+
+	private String head;
+
+	AskOrder(Collection<String> players) {
+		String first = null;
+		String last = null;
+		for (var player : players) {
+			if (first == null) {
+				first = player;
+			} else {
+				this.link(last, player);
+			}
+			last = player;
+		}
+		if (first != null) {
+			this.link(last, first);
+		}
+		this.head = first;
+	}
+
+	int size() {
+		return this.next.size();
+	}
+
+	/*
+	 * @return player the next turn goes to
+	 */
+	String peek() {
+		return this.head;
+	}
+
+	/*
+	 * @return player the next turn goes to, the turn after it goes to the following player
+	 */
+	String poll() {
+		var current = this.head;
+		this.head = this.next.get(current);
+		return current;
+	}
+
+	/*
+	 * @return players in asking order, starting with the one the next turn goes to
+	 */
+	List<String> toList() {
+		var players = new ArrayList<String>(this.size());
+		var player = this.head;
+		for (int i = 0; i < this.size(); i++) {
+			players.add(player);
+			player = this.next.get(player);
+		}
+		return players;
+	}
+
+	void remove(String player) {
+		var after = this.next.remove(player);
+		if (after == null) {
+			return;
+		}
+		var before = this.previous.remove(player);
+		if (after.equals(player)) {
+			this.head = null;
+			return;
+		}
+		this.link(before, after);
+		if (player.equals(this.head)) {
+			this.head = after;
+		}
+	}
+
+	private void link(String before, String after) {
+		this.next.put(before, after);
+		this.previous.put(after, before);
+	}
+
+}
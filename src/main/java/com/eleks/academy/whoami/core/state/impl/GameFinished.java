@@ -30,8 +30,7 @@ public final class GameFinished implements GameState {
 
 	@Override
 	public GameState getCurrentState() {
-		// TODO Auto-generated method stub
-		return null;
+		return this;
 	}
 
 	@Override
@@ -42,14 +41,12 @@ public final class GameFinished implements GameState {
 
 	@Override
 	public Optional<SynchronousPlayer> leave(String player) {
-		// TODO Auto-generated method stub
-		return null;
+		return Optional.empty();
 	}
 
 	@Override
 	public Stream<PlayerWithState> getPlayersList() {
-		// TODO Auto-generated method stub
-		return null;
+		return Stream.empty();
 	}
 
 }
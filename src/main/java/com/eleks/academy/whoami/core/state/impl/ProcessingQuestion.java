@@ -3,38 +3,84 @@ package com.eleks.academy.whoami.core.state.impl;
 import com.eleks.academy.whoami.core.SynchronousPlayer;
 import com.eleks.academy.whoami.core.exception.GameException;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
 import com.eleks.academy.whoami.model.request.GuessAnswer;
 import com.eleks.academy.whoami.model.response.GameHistory;
+import com.eleks.academy.whoami.core.state.GameRules;
 import com.eleks.academy.whoami.core.state.GameState;
 import com.eleks.academy.whoami.model.request.QuestionAnswer;
 import com.eleks.academy.whoami.model.response.PlayerState;
 import com.eleks.academy.whoami.model.response.PlayerWithState;
 import com.eleks.academy.whoami.model.response.TurnDetails;
 
-import java.util.*;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 public final class ProcessingQuestion implements GameState {
 
-    private static final String QUESTION = "question";
-
-    private static final String GUESS = "guess";
-
-    private final GameHistory history = new GameHistory();
+    private final GameHistory history;
 
     private final Map<String, PlayerWithState> players;
 
-    private final Queue<PlayerWithState> playerAskOrder;
+    private final AskOrder playerAskOrder;
+
+    private final GameRules rules;
 
     private String currentPlayer;
 
+    /*
+     * Votes for the current question, counted as answers arrive and reset with every new question
+     */
+    private int answered;
+
+    private int yes;
+
+    private int no;
+
+    private int notSure;
+
     public ProcessingQuestion(Map<String, PlayerWithState> players) {
-        this.players = players;
-        this.playerAskOrder = new LinkedBlockingQueue<>(this.players.values());
+        this(players, GameRules.classic());
+    }
+
+    public ProcessingQuestion(Map<String, PlayerWithState> players, GameRules rules) {
+        this(players, rules, new AskOrder(players.keySet()), new GameHistory());
         startNewTurn();
     }
 
+    private ProcessingQuestion(Map<String, PlayerWithState> players, GameRules rules,
+                               AskOrder playerAskOrder, GameHistory history) {
+        this.players = players;
+        this.playerAskOrder = playerAskOrder;
+        this.rules = rules;
+        this.history = history;
+    }
+
+    /*
+     * Restores the state of a migrated game at the same turn, with the votes collected so far
+     */
+    public static ProcessingQuestion restore(Map<String, PlayerWithState> players, GameRules rules,
+                                             GameSnapshot.Turn turn) {
+        var state = new ProcessingQuestion(players, rules, new AskOrder(turn.askOrder()),
+                GameHistory.restore(turn.history(), turn.questionOpen()));
+        state.currentPlayer = turn.currentPlayer();
+        state.answered = turn.answered();
+        state.yes = turn.yes();
+        state.no = turn.no();
+        state.notSure = turn.notSure();
+        return state;
+    }
+
+    /*
+     * @return turn of the game, taken from the game mailbox
+     */
+    public GameSnapshot.Turn snapshot() {
+        return new GameSnapshot.Turn(this.currentPlayer, this.playerAskOrder.toList(), this.answered,
+                this.yes, this.no, this.notSure, this.history.snapshot(), this.history.hasCurrentQuestion());
+    }
+
     @Override
     public GameState getCurrentState() {
         return this;
@@ -45,10 +91,18 @@ public final class ProcessingQuestion implements GameState {
         return this.players.values().stream();
     }
 
+    public String getCurrentPlayer() {
+        return this.currentPlayer;
+    }
+
     public GameHistory getGameHistory() {
         return this.history;
     }
 
+    public GameRules getRules() {
+        return this.rules;
+    }
+
     public TurnDetails getTurnInfo() {
         return new TurnDetails(this.players.get(currentPlayer).getPlayer(),
                 new ArrayList<>(this.players.values()));
@@ -59,91 +113,133 @@ public final class ProcessingQuestion implements GameState {
             throw new PlayerNotFoundException("PROCESSING-QUESTION: [" + player + "] state [" +
                     this.players.get(player).getState().toString() + "] != Asking");
         }
-        this.history.addQuestion(player, QUESTION, message);
+        this.history.addQuestion(player, GameHistory.QUESTION, message);
         this.players.get(player).setState(PlayerState.ASKED);
     }
 
-    public void answerQuestion(String player, QuestionAnswer answer) {
-        if (this.history.getCurrentQuestion() == null) {
+    /*
+     * @return true if the answer resolved the question, which may change every player
+     */
+    public boolean answerQuestion(String player, QuestionAnswer answer) {
+        if (!this.history.hasCurrentQuestion()) {
             throw new GameException("Player not provide a question yet.");
         }
-        if (this.history.getCurrentQuestion().getType().equals(GUESS)) {
-            throw new GameException("Current question type = " +
-                    this.history.getCurrentQuestion().getType());
+        if (this.history.isCurrentQuestion(GameHistory.GUESS)) {
+            throw new GameException("Current question type = " + GameHistory.GUESS);
         }
         if (!this.players.get(player).getState().equals(PlayerState.ANSWERING)) {
             throw new PlayerNotFoundException("PROCESSING-QUESTION: [" + player + "] state [" +
                     this.players.get(player).getState().toString() + "] != ANSWERING.");
         }
 
-        this.history.addAnswer(player, answer.toString());
+        this.history.addAnswer(player, answer);
         this.players.get(player).setAnswer(answer);
         this.players.get(player).setState(PlayerState.ANSWERED);
+        this.countVote(answer);
 
         if (isTimeToCalcAnswers()) {
+            resolveQuestion();
+            return true;
+        }
+        return false;
+    }
 
-            if (isTimeToChangeTurn()) {
-                startNewTurn();
-            } else reset();
+    /*
+     * Counts players that haven't answered the current question or guess as not sure
+     * and resolves it, once the answer deadline passes
+     *
+     * @return number of players counted as not sure
+     */
+    public int answerMissing() {
+        if (!this.history.hasCurrentQuestion()) {
+            return 0;
+        }
+        int missing = 0;
+        for (var player : this.players.values()) {
+            if (player.getState() == PlayerState.ANSWERING) {
+                this.history.addAnswer(player.getPlayer().getId(), QuestionAnswer.NOT_SURE);
+                player.setAnswer(QuestionAnswer.NOT_SURE);
+                player.setState(PlayerState.ANSWERED);
+                this.countVote(QuestionAnswer.NOT_SURE);
+                missing++;
+            }
+        }
+        if (this.history.isCurrentQuestion(GameHistory.GUESS)) {
+            resolveGuess();
+        } else {
+            resolveQuestion();
+        }
+        return missing;
+    }
 
+    /*
+     * @return true once a single player is left to guess, no turns start after that
+     */
+    public boolean isOver() {
+        return this.playerAskOrder.size() <= 1;
+    }
+
+    /*
+     * Passes the turn to the next player, once the asking player
+     * lets the asking deadline pass without a question or a guess
+     */
+    public void skipTurn() {
+        if (!this.history.hasCurrentQuestion()) {
+            startNewTurn();
         }
+    }
 
+    private void resolveQuestion() {
+        if (isTimeToChangeTurn()) {
+            startNewTurn();
+        } else reset();
+    }
+
+    private void countVote(QuestionAnswer answer) {
+        this.answered++;
+        switch (answer) {
+            case YES -> this.yes++;
+            case NO -> this.no++;
+            case NOT_SURE -> this.notSure++;
+        }
     }
 
+    /*
+     * Enough players except the asking one have answered, all of them in classic rooms
+     */
     private boolean isTimeToCalcAnswers() {
-        return this.playerAskOrder.size() ==
-                this.playerAskOrder
-                        .stream()
-                        .filter(player -> player.getState().equals(PlayerState.ANSWERED))
-                        .count() + 1;
+        return this.answered >= this.rules.required(this.playerAskOrder.size() - 1);
     }
 
     private boolean isTimeToChangeTurn() {
-        long yes = this.playerAskOrder
-                .stream()
-                .filter(player -> !player.getPlayer().getId().equals(this.currentPlayer))
-                .filter(player -> player.getAnswer().equals(QuestionAnswer.YES) ||
-                        player.getAnswer().equals(QuestionAnswer.NOT_SURE)
-                )
-                .count();
-
-        long no = this.playerAskOrder
-                .stream()
-                .filter(player -> !player.getPlayer().getId().equals(this.currentPlayer))
-                .filter(player -> player.getAnswer().equals(QuestionAnswer.NO))
-                .count();
-
-        System.out.println("[YES] = " + yes + " [NO] = " + no);
-        return no > yes;
+        return this.no > this.yes + this.notSure;
     }
 
     private void startNewTurn() {
         if (this.playerAskOrder.size() == 1) {
-            var loser = this.playerAskOrder.peek().getPlayer().getId();
+            var loser = this.playerAskOrder.peek();
             this.players.get(loser).setState(PlayerState.LOST);
             this.players.get(loser).setAnswer(null);
             return;
         }
-        this.currentPlayer = Objects.requireNonNull(this.playerAskOrder.poll()).getPlayer().getId();
-        this.playerAskOrder.add(this.players.get(this.currentPlayer));
-        this.history.setCurrentQuestion(null);
+        this.currentPlayer = this.playerAskOrder.poll();
+        this.history.resolveCurrentQuestion();
         reset();
     }
 
     private void reset() {
-        this.history.setCurrentQuestion(null);
-        this.players.values()
-                .stream()
-                .filter(player -> !player.getState().equals(PlayerState.FINISHED))
-                .forEach(player -> {
-                    if (player.getPlayer().getId().equals(currentPlayer)) {
-                        player.setState(PlayerState.ASKING);
-                        player.setAnswer(null);
-                    } else {
-                        player.setState(PlayerState.ANSWERING);
-                        player.setAnswer(null);
-                    }
-                });
+        this.history.resolveCurrentQuestion();
+        this.answered = 0;
+        this.yes = 0;
+        this.no = 0;
+        this.notSure = 0;
+        for (var player : this.players.values()) {
+            if (player.getState() != PlayerState.FINISHED) {
+                player.setState(player.getPlayer().getId().equals(this.currentPlayer) ?
+                        PlayerState.ASKING : PlayerState.ANSWERING);
+                player.setAnswer(null);
+            }
+        }
     }
 
     public void submitGuess(String player, String guess) {
@@ -151,52 +247,53 @@ public final class ProcessingQuestion implements GameState {
             throw new PlayerNotFoundException("PROCESSING-QUESTION: [" + player + "] state [" +
                     this.players.get(player).getState().toString() + "] != Asking");
         }
-        this.history.addQuestion(player, GUESS, guess);
+        this.history.addQuestion(player, GameHistory.GUESS, guess);
         this.players.get(player).setState(PlayerState.ASKED);
     }
 
-    public void answerGuess(String player, GuessAnswer answer) {
-        if (this.history.getCurrentQuestion() == null) {
+    /*
+     * @return true if the answer resolved the guess, which may change every player
+     */
+    public boolean answerGuess(String player, GuessAnswer answer) {
+        if (!this.history.hasCurrentQuestion()) {
             throw new GameException("Player not provide a question yet.");
         }
-        if (this.history.getCurrentQuestion().getType().equals(QUESTION)) {
-            throw new GameException("Current question type = " +
-                    this.history.getCurrentQuestion().getType());
+        if (this.history.isCurrentQuestion(GameHistory.QUESTION)) {
+            throw new GameException("Current question type = " + GameHistory.QUESTION);
         }
         if (!this.players.get(player).getState().equals(PlayerState.ANSWERING)) {
             throw new PlayerNotFoundException("PROCESSING-QUESTION: [" + player + "] state [" +
                     this.players.get(player).getState().toString() + "] != ANSWERING.");
         }
 
-        this.history.addAnswer(player, answer.toString());
-        this.players.get(player).setAnswer(QuestionAnswer.valueOf(answer.toString()));
+        var vote = answer == GuessAnswer.YES ? QuestionAnswer.YES : QuestionAnswer.NO;
+        this.history.addAnswer(player, vote);
+        this.players.get(player).setAnswer(vote);
         this.players.get(player).setState(PlayerState.ANSWERED);
+        this.countVote(vote);
 
         if (isTimeToCalcAnswers()) {
+            resolveGuess();
+            return true;
+        }
+        return false;
+    }
 
-            if (isPlayerGuessed()) {
-                this.players.get(this.currentPlayer).setState(PlayerState.FINISHED);
-                this.playerAskOrder.remove(this.players.get(this.currentPlayer));
-                startNewTurn();
-            } else startNewTurn();
-
+    private void resolveGuess() {
+        if (isPlayerGuessed()) {
+            this.players.get(this.currentPlayer).setState(PlayerState.FINISHED);
+            this.playerAskOrder.remove(this.currentPlayer);
         }
+        startNewTurn();
     }
 
     private boolean isPlayerGuessed() {
-        long yes = this.playerAskOrder
-                .stream()
-                .filter(player -> !player.getPlayer().getId().equals(this.currentPlayer))
-                .filter(player -> player.getAnswer().equals(QuestionAnswer.YES))
-                .count();
-
-        long no = this.playerAskOrder
-                .stream()
-                .filter(player -> !player.getPlayer().getId().equals(this.currentPlayer))
-                .filter(player -> player.getAnswer().equals(QuestionAnswer.NO))
-                .count();
+        return this.yes > this.no;
+    }
 
-        return yes > no;
+    @Override
+    public Optional<PlayerWithState> findPlayerWithState(String player) {
+        return Optional.ofNullable(this.players.get(player));
     }
 
     @Override
@@ -222,7 +319,7 @@ public final class ProcessingQuestion implements GameState {
     public Optional<SynchronousPlayer> leave(String player) {
         if (findPlayer(player).isPresent()) {
             var leavePlayer = this.players.remove(player);
-            this.playerAskOrder.remove(leavePlayer);
+            this.playerAskOrder.remove(player);
             if (player.equals(this.currentPlayer)) {
                 startNewTurn();
             } else reset();
@@ -4,40 +4,70 @@ import com.eleks.academy.whoami.core.SynchronousPlayer;
 import com.eleks.academy.whoami.core.exception.GameException;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
 import com.eleks.academy.whoami.core.impl.GameCharacter;
+import com.eleks.academy.whoami.core.state.GameRules;
 import com.eleks.academy.whoami.core.state.GameState;
 import com.eleks.academy.whoami.model.request.CharacterSuggestion;
 import com.eleks.academy.whoami.model.response.PlayerState;
 import com.eleks.academy.whoami.model.response.PlayerWithState;
-
-import java.util.*;
+import com.eleks.academy.whoami.utils.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
-import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Stream;
 
-import static java.util.stream.Collectors.toList;
-
 public final class SuggestingCharacters implements GameState {
 
-    private final Map<String, PlayerWithState> players;
+    /*
+     * Given to players that let the suggesting deadline pass
+     */
+    private static final List<String> SPARE_CHARACTERS = List.of("Sherlock Holmes", "Harry Potter",
+            "Mickey Mouse", "Darth Vader", "Mona Lisa", "Albert Einstein", "Cleopatra", "Robin Hood",
+            "Frankenstein", "Pinocchio", "Napoleon", "Cinderella");
 
-    private final Map<String, List<GameCharacter>> suggestedCharacters;
+    private final Map<String, PlayerWithState> players;
 
     private final Map<String, GameCharacter> suggestions;
 
-    private final Map<String, String> playerCharacterMap;
+    private final GameRules rules;
+
+    /*
+     * Players that already suggested a character
+     */
+    private int ready;
 
     public SuggestingCharacters(Map<String, PlayerWithState> players) {
+        this(players, GameRules.classic());
+    }
+
+    public SuggestingCharacters(Map<String, PlayerWithState> players, GameRules rules) {
+        this(players, rules, Map.of());
+    }
+
+    /*
+     * Restores the state of a migrated game
+     *
+     * @param suggestions author id -> character suggested so far
+     */
+    public SuggestingCharacters(Map<String, PlayerWithState> players, GameRules rules, Map<String, String> suggestions) {
         this.players = new ConcurrentHashMap<>(players);
         this.suggestions = new HashMap<>(this.players.size());
-        this.suggestedCharacters = new HashMap<>(this.players.size());
-        this.playerCharacterMap = new ConcurrentHashMap<>(this.players.size());
+        this.rules = rules;
+        suggestions.forEach((author, character) ->
+                this.suggestions.put(author, GameCharacter.of(SymbolTable.SHARED.intern(character), author)));
+        this.ready = (int) this.players.values().stream()
+                .filter(player -> player.getState() == PlayerState.READY)
+                .count();
     }
 
     /**
-     * Randomly assigns characters to players and returns a next stage
-     * or throws {@link GameException} in case returns {@code false}
+     * Assigns characters to players so nobody gets his own suggestion and returns a next stage
+     * or throws {@link GameException} if characters can't be assigned
      *
      * @return next {@link ProcessingQuestion} stage
      */
@@ -45,7 +75,7 @@ public final class SuggestingCharacters implements GameState {
     public GameState next() {
         return Optional.of(this)
                 .map(SuggestingCharacters::assign)
-                .map(then -> new ProcessingQuestion(this.players))
+                .map(then -> new ProcessingQuestion(this.players, this.rules))
                 .orElseThrow(() -> new GameException("Failed in next()-> PQ."));
     }
 
@@ -59,14 +89,27 @@ public final class SuggestingCharacters implements GameState {
         return this.players.values().stream();
     }
 
+    public GameRules getRules() {
+        return this.rules;
+    }
+
+    /*
+     * @return author id -> suggested character
+     */
+    public Map<String, String> getSuggestions() {
+        var characters = new HashMap<String, String>(this.suggestions.size());
+        this.suggestions.forEach((author, character) -> characters.put(author, character.getCharacter()));
+        return characters;
+    }
+
     @Override
     public boolean isReadyToNextState() {
-        return this.players
-                .values()
-                .stream()
-                .map(PlayerWithState::getState)
-                .filter(state -> state.equals(PlayerState.READY))
-                .count() == this.players.size();
+        return this.ready == this.players.size();
+    }
+
+    @Override
+    public Optional<PlayerWithState> findPlayerWithState(String player) {
+        return Optional.ofNullable(this.players.get(player));
     }
 
     @Override
@@ -81,7 +124,11 @@ public final class SuggestingCharacters implements GameState {
     @Override
     public Optional<SynchronousPlayer> leave(String player) {
         if (findPlayer(player).isPresent()) {
-            return Optional.of(this.players.remove(player).getPlayer());
+            var leftPlayer = this.players.remove(player);
+            if (leftPlayer.getState() == PlayerState.READY) {
+                this.ready--;
+            }
+            return Optional.of(leftPlayer.getPlayer());
         } else throw new PlayerNotFoundException("[" + player + "] not found.");
     }
 
@@ -89,134 +136,60 @@ public final class SuggestingCharacters implements GameState {
         if (this.players.get(player).getState().equals(PlayerState.NOT_READY)) {
             var currentPlayer = this.players.get(player);
 
-            this.suggestions.put(player, GameCharacter.of(suggestion.getCharacter(), player));
+            var author = currentPlayer.getPlayer().getId();
+            this.suggestions.put(author, GameCharacter.of(SymbolTable.SHARED.intern(suggestion.getCharacter()), author));
 
             currentPlayer.getPlayer().setName(suggestion.getName());
             currentPlayer.setState(PlayerState.READY);
+            this.ready++;
         } else {
             throw new GameException("[" + player + "] already submit his suggestion.");
         }
 
     }
 
-    private GameState assign() {
-
-        for (PlayerWithState player : this.players.values()) {
-            var character = findNonTakenCharacter(player.getPlayer());
-            player.getPlayer().setCharacter(character.getCharacter());
-        }
-
-        if (!isAllPlayersAssigned()) {
-            throw new GameException("isAllPlayersAssigned = FALSE");
+    /*
+     * Suggests a spare character for every player that hasn't suggested one,
+     * once the suggesting deadline passes. Spare characters repeat only when all are taken
+     *
+     * @return ids of the players a character was suggested for
+     */
+    public List<String> suggestMissing() {
+        var taken = new HashSet<String>();
+        this.suggestions.values().forEach(character -> taken.add(character.getCharacter()));
+        var missing = new ArrayList<String>();
+        int next = ThreadLocalRandom.current().nextInt(SPARE_CHARACTERS.size());
+        for (var player : this.players.values()) {
+            if (player.getState() != PlayerState.NOT_READY) {
+                continue;
+            }
+            var author = player.getPlayer().getId();
+            var character = SPARE_CHARACTERS.get(next++ % SPARE_CHARACTERS.size());
+            for (int i = 0; i < SPARE_CHARACTERS.size() && taken.contains(character); i++) {
+                character = SPARE_CHARACTERS.get(next++ % SPARE_CHARACTERS.size());
+            }
+            taken.add(character);
+            this.suggestions.put(author, GameCharacter.of(SymbolTable.SHARED.intern(character), author));
+            player.setState(PlayerState.READY);
+            this.ready++;
+            missing.add(author);
         }
-        return this;
-    }
-
-    private GameCharacter findNonTakenCharacter(SynchronousPlayer player) {
-        var character = this.suggestions.values()
-                .stream()
-                .filter(c -> !c.isTaken() && !c.getAuthor().equals(player.getId()))
-                .findAny();
-        character.ifPresent(gameCharacter -> this.suggestions.get(gameCharacter.getAuthor()).markTaken());
-        return character.orElse(null);
+        return missing;
     }
 
-    private boolean isAllPlayersAssigned() {
-        return this.players
-                .values()
-                .stream()
-                .map(PlayerWithState::getPlayer)
-                .map(player -> player.getCharacter() != null)
-                .count() == this.players.size();
-    }
-
-    private void suggestCharacter(SynchronousPlayer player) {
-        List<GameCharacter> characters = this.suggestedCharacters.get(player.getId());
-
-        if (Objects.isNull(characters)) {
-            final var newCharacters = new ArrayList<GameCharacter>();
-
-            this.suggestedCharacters.put(player.getId(), newCharacters);
-
-            characters = newCharacters;
+    private GameState assign() {
+        var characters = new ArrayList<GameCharacter>(this.players.size());
+        for (var player : this.players.keySet()) {
+            var character = this.suggestions.get(player);
+            if (character == null) {
+                throw new GameException("[" + player + "] has not suggested a character.");
+            }
+            characters.add(character);
         }
 
-        characters.add(GameCharacter.of(player.getCharacter(), player.getId()));
-
-    }
-
-    /**
-     * The term author is referred to a player who suggested at least one character
-     * <p>
-     * Basic algorithm description:
-     * 1) Collect all randomly-ordered authors into a form of cyclic oriented graph.
-     * 2) Assign to each author a random character suggested by the next author (next graph node)
-     * 3) Randomly assign all the suggested characters that are left disregarding the author to
-     * all the non-author players
-     */
-    private GameState assignCharacters() {
-        Function<String, Integer> randomAuthorOrderComparator = value ->
-                Double.valueOf(Math.random() * 1000).intValue();
-
-        final var authors =
-                this.suggestedCharacters.keySet()
-                        .stream()
-                        .sorted(Comparator.comparing(randomAuthorOrderComparator))
-                        .collect(Collectors.toList());
-
-        authors.forEach(author -> {
-            final var character = this.getRandomCharacter()
-                    .apply(this.suggestedCharacters.get(this.<String>cyclicNext().apply(authors, author)));
-
-            character.markTaken();
-
-            this.playerCharacterMap.put(author, character.getCharacter());
-        });
-
-        final var authorsSet = new HashSet<>(authors);
-
-        final var nonTakenCharacters = this.suggestedCharacters.values()
-                .stream()
-                .flatMap(Collection::stream)
-                .filter(character -> !character.isTaken())
-                .collect(toList());
-
-        this.players.keySet()
-                .stream()
-                .filter(player -> !authorsSet.contains(player))
-                .forEach(player -> {
-                    final var character = this.getRandomCharacter().apply(nonTakenCharacters);
-
-                    character.markTaken();
-
-                    this.players.get(player).getPlayer().setCharacter(character.getCharacter());
-
-                    this.playerCharacterMap.put(player, character.getCharacter());
-
-                    nonTakenCharacters.remove(character);
-                });
-
-
+        this.rules.assignment().assign(characters)
+                .forEach((player, character) -> this.players.get(player).getPlayer().setCharacter(character));
         return this;
     }
 
-    private Function<List<GameCharacter>, GameCharacter> getRandomCharacter() {
-        return gameCharacters -> {
-            int randomPos = (int) (Math.random() * gameCharacters.size());
-
-            return gameCharacters.get(randomPos);
-        };
-    }
-
-    private <T> BiFunction<List<T>, T, T> cyclicNext() {
-        return (list, item) -> {
-            final var index = list.indexOf(item);
-
-            return Optional.of(index)
-                    .filter(i -> i + 1 < list.size())
-                    .map(i -> list.get(i + 1))
-                    .orElseGet(() -> list.get(0));
-        };
-    }
-
 }
@@ -2,32 +2,39 @@ package com.eleks.academy.whoami.core.state.impl;
 
 import com.eleks.academy.whoami.core.SynchronousPlayer;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
+import com.eleks.academy.whoami.core.state.GameRules;
 import com.eleks.academy.whoami.core.state.GameState;
 import com.eleks.academy.whoami.model.response.PlayerState;
 import com.eleks.academy.whoami.model.response.PlayerWithState;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 
 public final class WaitingForPlayers implements GameState {
 
 	private final int maxPlayers;
 	private final Map<String, PlayerWithState> players;
+	private final GameRules rules;
 
 	public WaitingForPlayers(int maxPlayers) {
+		this(maxPlayers, GameRules.classic());
+	}
+
+	public WaitingForPlayers(int maxPlayers, GameRules rules) {
 		this.maxPlayers = maxPlayers;
-		this.players = new HashMap<>(maxPlayers);
+		this.players = new ConcurrentHashMap<>(maxPlayers);
+		this.rules = rules;
 	}
 
 	@Override
 	public GameState next() {
 		return Optional.of(this)
 				.filter(WaitingForPlayers::isReadyToNextState)
-				.map(then -> new SuggestingCharacters(this.players))
+				.map(then -> new SuggestingCharacters(this.players, this.rules))
 				.orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST));
 	}
 
@@ -41,6 +48,11 @@ public final class WaitingForPlayers implements GameState {
 		return this;
 	}
 
+	@Override
+	public Optional<PlayerWithState> findPlayerWithState(String player) {
+		return Optional.ofNullable(this.players.get(player));
+	}
+
 	@Override
 	public Optional<SynchronousPlayer> findPlayer(String player) {
 		var result = Optional.ofNullable(this.players.get(player));
@@ -63,6 +75,10 @@ public final class WaitingForPlayers implements GameState {
 		return player;
 	}
 
+	public GameRules getRules() {
+		return this.rules;
+	}
+
 	@Override
 	public boolean isReadyToNextState() {
 		return players.size() == maxPlayers;
@@ -0,0 +1,45 @@
+package com.eleks.academy.whoami.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Single command of a batch, fields used depend on the type:
+ * SUGGEST - name and character, ASK and GUESS - message,
+ * ANSWER - answer of {@link QuestionAnswer}, ANSWER_GUESS - answer of {@link GuessAnswer}
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameCommand {
+
+	public enum Type {
+
+		SUGGEST, ASK, ANSWER, GUESS, ANSWER_GUESS
+
+	}
+
+	@NotNull(message = "Command type must not be null")
+	private Type type;
+
+	@NotBlank(message = "Game id may not be blank")
+	private String gameId;
+
+	@NotBlank(message = "Player may not be blank")
+	private String player;
+
+	private String message;
+
+	private String answer;
+
+	private String name;
+
+	private String character;
+
+}
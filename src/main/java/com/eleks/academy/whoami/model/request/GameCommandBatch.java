@@ -0,0 +1,22 @@
+package com.eleks.academy.whoami.model.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameCommandBatch {
+
+	@Valid
+	@NotEmpty(message = "Commands may not be empty")
+	@Size(max = 1000, message = "Batch may contain up to 1000 commands")
+	private List<GameCommand> commands;
+
+}
@@ -1,5 +1,6 @@
 package com.eleks.academy.whoami.model.request;
 
+import com.eleks.academy.whoami.core.state.GameRules;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,8 +14,11 @@ import javax.validation.constraints.NotNull;
 @AllArgsConstructor
 public class NewGameSize {
 
+	/*
+	 * Rooms of more than GameRules.CLASSIC_MAX_PLAYERS players are played by the large-room rules
+	 */
 	@Min(2)
-	@Max(6)
+	@Max(GameRules.LARGE_ROOM_MAX_PLAYERS)
 	@NotNull(message = "maxPlayers must not be null")
 	private Integer maxPlayers;
 
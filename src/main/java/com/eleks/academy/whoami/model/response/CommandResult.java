@@ -0,0 +1,31 @@
+package com.eleks.academy.whoami.model.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Value;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Result of a batched command, status is the one the single command endpoint answers with.
+ * Immutable, so the shared OK result can't be changed by whoever gets it
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CommandResult {
+
+	private static final CommandResult OK = new CommandResult(HttpStatus.OK.value(), null);
+
+	private final int status;
+
+	private final String error;
+
+	public static CommandResult ok() {
+		return OK;
+	}
+
+	public static CommandResult failed(HttpStatus status, String error) {
+		return new CommandResult(status.value(), error);
+	}
+
+}
@@ -0,0 +1,118 @@
+package com.eleks.academy.whoami.model.response;
+
+import java.util.List;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.chat.QuestionsHistory;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Changes of a game since the version a polling client already has.
+ * Only the changed parts are filled in, the client keeps the rest.
+ * A version newer than the game one (e.g. -1 or a version of a recreated game)
+ * is treated as "nothing known yet".
+ * <p>
+ * The delta is built while the game may still change, so it can include changes
+ * newer than its version, the next delta repeats them.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class GameDelta {
+
+	private String id;
+
+	/*
+	 * Version to poll with next time
+	 */
+	private long version;
+
+	/*
+	 * New state, if the game changed its state
+	 */
+	private String status;
+
+	private SynchronousPlayer currentPlayer;
+
+	/*
+	 * Joined or changed players
+	 */
+	private List<PlayerWithState> players;
+
+	/*
+	 * Ids of players left
+	 */
+	private List<String> leftPlayers;
+
+	/*
+	 * Index the new history questions start at, questions from this index on replace the known ones
+	 */
+	private Integer historyFrom;
+
+	private List<QuestionsHistory> questions;
+
+	public static GameDelta of(SynchronousGame game, long sinceVersion) {
+		long version = game.getVersion();
+		if (version == sinceVersion) {
+			return unchanged(game, version);
+		}
+		long since = known(sinceVersion, version);
+		return GameDelta.builder()
+				.id(game.getId())
+				.version(version)
+				.status(game.isStateChangedSince(since) ? game.getState().getClass().getName() : null)
+				.players(game.getPlayersChangedSince(since))
+				.leftPlayers(game.getPlayersLeftSince(since))
+				.build();
+	}
+
+	public static GameDelta ofTurn(SynchronousGame game, TurnDetails turn, long sinceVersion) {
+		long version = game.getVersion();
+		if (version == sinceVersion) {
+			return unchanged(game, version);
+		}
+		long since = known(sinceVersion, version);
+		return GameDelta.builder()
+				.id(game.getId())
+				.version(version)
+				.currentPlayer(turn.getCurrentPlayer())
+				.players(game.getPlayersChangedSince(since))
+				.leftPlayers(game.getPlayersLeftSince(since))
+				.build();
+	}
+
+	public static GameDelta ofHistory(SynchronousGame game, GameHistory history, long sinceVersion) {
+		long version = game.getVersion();
+		if (version == sinceVersion) {
+			return unchanged(game, version);
+		}
+		int from = history.changedSince(known(sinceVersion, version));
+		int to = history.size();
+		return GameDelta.builder()
+				.id(game.getId())
+				.version(version)
+				.historyFrom(from)
+				.questions(history.getQuestions(Math.min(from, to), to))
+				.build();
+	}
+
+	private static GameDelta unchanged(SynchronousGame game, long version) {
+		return GameDelta.builder()
+				.id(game.getId())
+				.version(version)
+				.build();
+	}
+
+	private static long known(long sinceVersion, long version) {
+		return sinceVersion > version ? -1 : sinceVersion;
+	}
+
+}
@@ -1,34 +1,330 @@
 package com.eleks.academy.whoami.model.response;
 
 import com.eleks.academy.whoami.core.chat.QuestionsHistory;
-import lombok.Getter;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.utils.SymbolTable;
 import lombok.NoArgsConstructor;
-import lombok.Setter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Questions of a game, stored as append-only segments of {@value #PAGE_SIZE} questions.
+ * <p>
+ * Questions are kept encoded: a player is a seat index, the question type is one bit,
+ * an answer is a seat index with the answer ordinal packed into a single {@code int},
+ * and every distinct question text is stored once. {@link QuestionsHistory} objects
+ * are decoded only when the history is read.
+ * <p>
+ * Written from the game mailbox only. Readers may run concurrently: a question becomes
+ * visible once the size is published, and only the current question may still get answers,
+ * so all questions before it never change again.
+ */
 @NoArgsConstructor
 public class GameHistory {
 
-    @Getter
-    private final List<QuestionsHistory> questions = new ArrayList<>();
+    public static final int PAGE_SIZE = 20;
 
-    @Setter
-    @Getter
-    private QuestionsHistory currentQuestion;
+    public static final String QUESTION = "question";
+
+    public static final String GUESS = "guess";
+
+    private static final QuestionAnswer[] ANSWERS = QuestionAnswer.values();
+
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+
+    private final Symbols seats = new Symbols();
+
+    private final Symbols texts = new Symbols();
+
+    private volatile int size;
+
+    /*
+     * Index of the question that still gets answers, -1 if there is none
+     */
+    private volatile int current = -1;
+
+    /*
+     * First question changed after the last stamp
+     */
+    private int unstamped;
+
+    /*
+     * @return number of questions
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /*
+     * @return all questions, prefer pages for long games
+     */
+    public List<QuestionsHistory> getQuestions() {
+        return this.getQuestions(0, this.size);
+    }
+
+    /*
+     * @return questions from the first index (inclusive) to the second one (exclusive)
+     */
+    public List<QuestionsHistory> getQuestions(int from, int to) {
+        var questions = new ArrayList<QuestionsHistory>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            questions.add(this.decode(i));
+        }
+        return questions;
+    }
+
+    /*
+     * @return question that still gets answers, null if the current question is resolved
+     */
+    public QuestionsHistory getCurrentQuestion() {
+        int index = this.current;
+        return index < 0 ? null : this.decode(index);
+    }
+
+    public boolean hasCurrentQuestion() {
+        return this.current >= 0;
+    }
+
+    /*
+     * @return true if there is a current question of the type
+     */
+    public boolean isCurrentQuestion(String type) {
+        int index = this.current;
+        return index >= 0 && this.segment(index).isGuess(index % PAGE_SIZE) == GUESS.equals(type);
+    }
+
+    /*
+     * Closes the current question, it gets no more answers
+     */
+    public void resolveCurrentQuestion() {
+        this.current = -1;
+    }
 
     public void addQuestion(String player, String type, String question) {
-        this.currentQuestion = new QuestionsHistory(player, type, question);
-        this.questions.add(this.currentQuestion);
+        int index = this.size;
+        if (index % PAGE_SIZE == 0) {
+            this.segments.add(new Segment());
+        }
+        this.segment(index).add(index % PAGE_SIZE, this.seats.indexOf(player),
+                GUESS.equals(type), this.texts.indexOf(question));
+        this.current = index;
+        this.size = index + 1;
     }
 
-    public void addAnswer(String player, String answer) {
-        this.questions
-                .stream()
-                .filter(question -> question.equals(this.currentQuestion))
-                .findAny()
-                .ifPresent(question -> question.addAnswer(player, answer));
+    public void addAnswer(String player, QuestionAnswer answer) {
+        int index = this.current;
+        if (index >= 0) {
+            this.segment(index).answer(this.seats.indexOf(player), answer);
+            this.unstamped = Math.min(this.unstamped, index);
+        }
     }
-}
 
+    /*
+     * Reads up to limit questions starting from the index. A page that starts at a multiple
+     * of PAGE_SIZE, spans PAGE_SIZE questions and can't change any more is built only once.
+     *
+     * @return page of questions, complete if none of them can change any more
+     */
+    public HistoryPage getPage(int from, int limit) {
+        int total = this.size;
+        int immutable = this.current < 0 ? total : total - 1;
+        int to = Math.min(total, from + limit);
+        boolean complete = to - from == limit && to <= immutable;
+
+        if (complete && limit == PAGE_SIZE && from % PAGE_SIZE == 0) {
+            var segment = this.segment(from);
+            var page = segment.page;
+            if (page == null) {
+                page = new HistoryPage(from, true, List.copyOf(this.getQuestions(from, to)));
+                segment.page = page;
+            }
+            return page;
+        }
+        return new HistoryPage(from, complete, List.copyOf(this.getQuestions(Math.min(from, to), to)));
+    }
+
+    /*
+     * Marks questions changed since the previous stamp with the game version
+     */
+    public void stamp(long version) {
+        for (int i = this.unstamped; i < this.size; i++) {
+            this.segment(i).versions[i % PAGE_SIZE] = version;
+        }
+        this.unstamped = this.size;
+    }
+
+    /*
+     * @return index of the first question changed after the version,
+     * number of questions if nothing changed
+     */
+    public int changedSince(long version) {
+        int from = this.size;
+        while (from > 0 && this.segment(from - 1).versions[(from - 1) % PAGE_SIZE] > version) {
+            from--;
+        }
+        return from;
+    }
+
+    /*
+     * Rebuilds the history of a migrated game, the last question stays open if it was
+     */
+    public static GameHistory restore(List<GameSnapshot.Question> questions, boolean questionOpen) {
+        var history = new GameHistory();
+        for (var question : questions) {
+            history.addQuestion(question.player(), question.type(), question.text());
+            question.answers().forEach(answer -> history.addAnswer(answer.player(), answer.answer()));
+        }
+        if (!questionOpen) {
+            history.resolveCurrentQuestion();
+        }
+        return history;
+    }
+
+    /*
+     * @return all questions with their answers, taken from the game mailbox
+     */
+    public List<GameSnapshot.Question> snapshot() {
+        int total = this.size;
+        var questions = new ArrayList<GameSnapshot.Question>(total);
+        for (int index = 0; index < total; index++) {
+            var segment = this.segment(index);
+            int offset = index % PAGE_SIZE;
+            int last = Math.min(total - (index - offset), PAGE_SIZE) - 1;
+            var answers = new ArrayList<GameSnapshot.Answer>();
+            for (int i = segment.answersFrom[offset], to = segment.answersTo(offset, last, segment.answerCount); i < to; i++) {
+                answers.add(new GameSnapshot.Answer(this.seats.get(segment.answers[i] >>> 2), ANSWERS[segment.answers[i] & 3]));
+            }
+            questions.add(new GameSnapshot.Question(this.seats.get(segment.heads[offset] >>> 1),
+                    segment.isGuess(offset) ? GUESS : QUESTION, this.texts.get(segment.texts[offset]), answers));
+        }
+        return questions;
+    }
+
+    private QuestionsHistory decode(int index) {
+        var segment = this.segment(index);
+        // answers are counted before the size is read, see Segment#answersTo
+        int answered = segment.answerCount;
+        int total = this.size;
+        int offset = index % PAGE_SIZE;
+        int last = Math.min(total - (index - offset), PAGE_SIZE) - 1;
+
+        var question = new QuestionsHistory(this.seats.get(segment.heads[offset] >>> 1),
+                segment.isGuess(offset) ? GUESS : QUESTION, this.texts.get(segment.texts[offset]));
+        int[] answers = segment.answers;
+        for (int i = segment.answersFrom[offset], to = segment.answersTo(offset, last, answered); i < to; i++) {
+            question.addAnswer(this.seats.get(answers[i] >>> 2), ANSWERS[answers[i] & 3].toString());
+        }
+        return question;
+    }
+
+    private Segment segment(int index) {
+        return this.segments.get(index / PAGE_SIZE);
+    }
+
+    private static final class Segment {
+
+        /*
+         * Index of the question text
+         */
+        private final int[] texts = new int[PAGE_SIZE];
+
+        /*
+         * Seat of the asking player shifted left by one, the lowest bit is set for guesses
+         */
+        private final int[] heads = new int[PAGE_SIZE];
+
+        /*
+         * Offset of the first answer of every question in the answers buffer
+         */
+        private final int[] answersFrom = new int[PAGE_SIZE];
+
+        /*
+         * Answers of all questions of the segment, one after another:
+         * seat of the answering player shifted left by two and the answer ordinal
+         */
+        private volatile int[] answers = new int[PAGE_SIZE];
+
+        private volatile int answerCount;
+
+        /*
+         * Game version every question was last changed at
+         */
+        private final long[] versions = new long[PAGE_SIZE];
+
+        /*
+         * Built once all questions of the segment are final
+         */
+        private volatile HistoryPage page;
+
+        private void add(int offset, int seat, boolean guess, int text) {
+            this.texts[offset] = text;
+            this.heads[offset] = seat << 1 | (guess ? 1 : 0);
+            this.answersFrom[offset] = this.answerCount;
+        }
+
+        private void answer(int seat, QuestionAnswer answer) {
+            int count = this.answerCount;
+            var buffer = this.answers;
+            if (count == buffer.length) {
+                buffer = Arrays.copyOf(buffer, count * 2);
+                this.answers = buffer;
+            }
+            buffer[count] = seat << 2 | answer.ordinal();
+            this.answerCount = count + 1;
+        }
+
+        private boolean isGuess(int offset) {
+            return (this.heads[offset] & 1) == 1;
+        }
+
+        /*
+         * Answers of a question end where the next question's answers start. The last visible
+         * question ends at the answer count read before the size, so the count can't include
+         * answers of a question added after that
+         */
+        private int answersTo(int offset, int last, int answered) {
+            return offset < last ? this.answersFrom[offset + 1] : Math.max(this.answersFrom[offset], answered);
+        }
+
+    }
+
+    /*
+     * Stores every distinct value once and refers to it by index,
+     * values are interned so games share the same player ids and texts
+     */
+    private static final class Symbols {
+
+        private final Map<String, Integer> indexes = new HashMap<>();
+
+        private volatile String[] values = new String[8];
+
+        private int indexOf(String value) {
+            var index = this.indexes.get(value);
+            if (index != null) {
+                return index;
+            }
+            int next = this.indexes.size();
+            var buffer = this.values;
+            if (next == buffer.length) {
+                buffer = Arrays.copyOf(buffer, next * 2);
+                this.values = buffer;
+            }
+            var canonical = SymbolTable.SHARED.intern(value);
+            buffer[next] = canonical;
+            this.indexes.put(canonical, next);
+            return next;
+        }
+
+        private String get(int index) {
+            return this.values[index];
+        }
+
+    }
+
+}
@@ -0,0 +1,33 @@
+package com.eleks.academy.whoami.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GameStats {
+
+	private long players;
+
+	private long games;
+
+	private long waitingForPlayers;
+
+	private long suggestingCharacters;
+
+	private long processingQuestion;
+
+	private long gameFinished;
+
+	/*
+	 * Idle games disbanded by the reaper since the start, and players that were still in them
+	 */
+	private long reclaimedGames;
+
+	private long reclaimedPlayers;
+
+}
@@ -0,0 +1,24 @@
+package com.eleks.academy.whoami.model.response;
+
+import com.eleks.academy.whoami.core.chat.QuestionsHistory;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPage {
+
+    private int from;
+
+    /*
+     * The page is full and none of its questions can change any more
+     */
+    private boolean complete;
+
+    private List<QuestionsHistory> questions;
+
+}
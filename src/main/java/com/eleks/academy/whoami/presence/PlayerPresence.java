@@ -0,0 +1,155 @@
+package com.eleks.academy.whoami.presence;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.utils.SymbolTable;
+
+/**
+ * When every player seated in a game was last seen.
+ * <p>
+ * A player gets a slot once he is seated, and the slot holds a single {@code long}:
+ * the {@link System#nanoTime()} of his last request. Slots live in fixed pages of
+ * primitive arrays, so marking a player as seen is one map lookup and one array write,
+ * without any allocation, however many players there are. Pages are only added,
+ * slots of players that left are reused. A player with an open stream of game events
+ * is never absent, however long he sends no requests.
+ */
+@Component
+public class PlayerPresence {
+
+	private static final int PAGE_BITS = 12;
+
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+
+	private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+	/*
+	 * Player id -> slot, the only structure read per request
+	 */
+	private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+
+	private volatile Page[] pages = new Page[0];
+
+	/*
+	 * Player id -> number of open event streams of the player
+	 */
+	private final Map<String, Integer> streams = new ConcurrentHashMap<>();
+
+	/*
+	 * Slots given back by players that left, guarded by this
+	 */
+	private int[] free = new int[16];
+
+	private int freeCount;
+
+	/*
+	 * Slots ever handed out, guarded by this
+	 */
+	private int used;
+
+	/*
+	 * Starts tracking the player, he is seen now
+	 */
+	public synchronized void track(String player) {
+		if (player == null || this.slots.containsKey(player)) {
+			return;
+		}
+		int slot = this.freeCount > 0 ? this.free[--this.freeCount] : this.used++;
+		if (slot >> PAGE_BITS == this.pages.length) {
+			var grown = Arrays.copyOf(this.pages, this.pages.length + 1);
+			grown[this.pages.length] = new Page();
+			this.pages = grown;
+		}
+		var canonical = SymbolTable.SHARED.intern(player);
+		var page = this.pages[slot >> PAGE_BITS];
+		page.lastSeen.set(slot & PAGE_MASK, System.nanoTime());
+		page.players.set(slot & PAGE_MASK, canonical);
+		this.slots.put(canonical, slot);
+	}
+
+	/*
+	 * Marks the player as seen now, players that are not tracked are ignored
+	 */
+	public void seen(String player) {
+		if (player == null) {
+			return;
+		}
+		Integer slot = this.slots.get(player);
+		if (slot != null) {
+			this.pages[slot >> PAGE_BITS].lastSeen.lazySet(slot & PAGE_MASK, System.nanoTime());
+		}
+	}
+
+	/*
+	 * Keeps the player seen until the stream of events he opened is closed
+	 */
+	public void streamOpened(String player) {
+		this.streams.merge(player, 1, Integer::sum);
+	}
+
+	/*
+	 * Closes a stream of events opened before, the player is seen now
+	 */
+	public void streamClosed(String player) {
+		this.streams.computeIfPresent(player, (key, open) -> open == 1 ? null : open - 1);
+		this.seen(player);
+	}
+
+	/*
+	 * Stops tracking the player and gives his slot to the next player
+	 */
+	public synchronized void forget(String player) {
+		var slot = player == null ? null : this.slots.remove(player);
+		if (slot == null) {
+			return;
+		}
+		this.pages[slot >> PAGE_BITS].players.set(slot & PAGE_MASK, null);
+		if (this.freeCount == this.free.length) {
+			this.free = Arrays.copyOf(this.free, this.freeCount * 2);
+		}
+		this.free[this.freeCount++] = slot;
+	}
+
+	/*
+	 * @return tracked players not seen for longer than the timeout and without open event streams
+	 */
+	public List<String> findAbsent(Duration timeout) {
+		long now = System.nanoTime();
+		long limit = timeout.toNanos();
+		var absent = new ArrayList<String>();
+		for (var page : this.pages) {
+			for (int i = 0; i < PAGE_SIZE; i++) {
+				var player = page.players.get(i);
+				if (player != null && now - page.lastSeen.get(i) > limit && !this.streams.containsKey(player)) {
+					absent.add(player);
+				}
+			}
+		}
+		return absent;
+	}
+
+	/*
+	 * @return number of tracked players
+	 */
+	public int size() {
+		return this.slots.size();
+	}
+
+	private static final class Page {
+
+		private final AtomicLongArray lastSeen = new AtomicLongArray(PAGE_SIZE);
+
+		private final AtomicReferenceArray<String> players = new AtomicReferenceArray<>(PAGE_SIZE);
+
+	}
+
+}
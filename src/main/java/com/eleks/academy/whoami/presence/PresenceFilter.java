@@ -0,0 +1,33 @@
+package com.eleks.academy.whoami.presence;
+
+import static com.eleks.academy.whoami.utils.StringUtils.Headers.PLAYER;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Marks the player of every request with the player header as seen.
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceFilter extends OncePerRequestFilter {
+
+	private final PlayerPresence presence;
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		this.presence.seen(request.getHeader(PLAYER));
+		chain.doFilter(request, response);
+	}
+
+}
@@ -0,0 +1,81 @@
+package com.eleks.academy.whoami.presence;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.PresenceProperties;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.service.GameService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Takes players that stopped sending requests out of their games, so they
+ * don't keep a seat in a waiting room or the turn in a running game.
+ */
+@Slf4j
+@Component
+public class PresenceSweeper {
+
+	private final PlayerPresence presence;
+
+	private final GameRepository gameRepository;
+
+	private final GameService gameService;
+
+	private final PresenceProperties properties;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(command -> {
+		var thread = new Thread(command, "presence-sweeper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public PresenceSweeper(PlayerPresence presence, GameRepository gameRepository, GameService gameService,
+						   PresenceProperties properties) {
+		this.presence = presence;
+		this.gameRepository = gameRepository;
+		this.gameService = gameService;
+		this.properties = properties;
+		long interval = properties.sweepInterval().toMillis();
+		if (interval > 0) {
+			this.scheduler.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+
+	/*
+	 * Makes every player not seen for longer than the timeout leave his game.
+	 * Players whose game is gone are just forgotten
+	 *
+	 * @return number of players that left their games
+	 */
+	int sweep() {
+		int left = 0;
+		for (var player : this.presence.findAbsent(this.properties.timeout())) {
+			try {
+				var game = this.gameRepository.findGameByPlayer(player);
+				if (game.isPresent() && this.gameService.leaveGame(game.get().getId(), player).isPresent()) {
+					left++;
+				}
+			} catch (RuntimeException e) {
+				log.debug("Absent player {} can't leave his game", player, e);
+			}
+			this.presence.forget(player);
+		}
+		if (left > 0) {
+			log.info("{} absent players left their games", left);
+		}
+		return left;
+	}
+
+}
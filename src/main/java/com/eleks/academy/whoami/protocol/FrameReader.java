@@ -0,0 +1,66 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads a single frame of the {@link GameProtocol}, the length prefix already stripped.
+ * Reading past the end of the frame throws {@link java.nio.BufferUnderflowException}.
+ */
+public class FrameReader {
+
+	private final ByteBuffer frame;
+
+	private final byte opcode;
+
+	private final int requestId;
+
+	public FrameReader(ByteBuffer frame) {
+		this.frame = frame;
+		this.opcode = frame.get();
+		this.requestId = frame.getInt();
+	}
+
+	public byte opcode() {
+		return this.opcode;
+	}
+
+	public int requestId() {
+		return this.requestId;
+	}
+
+	public int getByte() {
+		return Byte.toUnsignedInt(this.frame.get());
+	}
+
+	public int getShort() {
+		return Short.toUnsignedInt(this.frame.getShort());
+	}
+
+	public long getLong() {
+		return this.frame.getLong();
+	}
+
+	public <E extends Enum<E>> E getEnum(Class<E> type) {
+		int ordinal = this.getByte();
+		if (ordinal == GameProtocol.NO_VALUE) {
+			return null;
+		}
+		var values = type.getEnumConstants();
+		if (ordinal >= values.length) {
+			throw new IllegalArgumentException("Unknown " + type.getSimpleName() + " [" + ordinal + "]");
+		}
+		return values[ordinal];
+	}
+
+	public String getString() {
+		int length = this.getShort();
+		if (length == GameProtocol.NULL_STRING) {
+			return null;
+		}
+		var bytes = new byte[length];
+		this.frame.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
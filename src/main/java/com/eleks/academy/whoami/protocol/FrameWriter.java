@@ -0,0 +1,72 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Builds a single frame of the {@link GameProtocol}
+ */
+public class FrameWriter {
+
+	private ByteBuffer buffer = ByteBuffer.allocate(128);
+
+	public FrameWriter(byte opcode, int requestId) {
+		this.buffer.putInt(0)
+				.put(opcode)
+				.putInt(requestId);
+	}
+
+	public FrameWriter putByte(int value) {
+		this.ensure(Byte.BYTES).put((byte) value);
+		return this;
+	}
+
+	public FrameWriter putShort(int value) {
+		this.ensure(Short.BYTES).putShort((short) value);
+		return this;
+	}
+
+	public FrameWriter putLong(long value) {
+		this.ensure(Long.BYTES).putLong(value);
+		return this;
+	}
+
+	public FrameWriter putEnum(Enum<?> value) {
+		return this.putByte(value == null ? GameProtocol.NO_VALUE : value.ordinal());
+	}
+
+	public FrameWriter putString(String value) {
+		if (value == null) {
+			return this.putShort(GameProtocol.NULL_STRING);
+		}
+		var bytes = value.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length >= GameProtocol.NULL_STRING) {
+			throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for a frame");
+		}
+		this.ensure(Short.BYTES + bytes.length)
+				.putShort((short) bytes.length)
+				.put(bytes);
+		return this;
+	}
+
+	/*
+	 * @return frame ready to be written to a channel
+	 * @throw IllegalStateException if the frame exceeds GameProtocol.MAX_FRAME_LENGTH
+	 */
+	public ByteBuffer build() {
+		int length = this.buffer.position() - Integer.BYTES;
+		if (length > GameProtocol.MAX_FRAME_LENGTH) {
+			throw new IllegalStateException("Frame of " + length + " bytes exceeds the limit");
+		}
+		return this.buffer.putInt(0, length).flip();
+	}
+
+	private ByteBuffer ensure(int bytes) {
+		if (this.buffer.remaining() < bytes) {
+			var grown = ByteBuffer.allocate(Math.max(this.buffer.capacity() * 2, this.buffer.position() + bytes));
+			this.buffer = grown.put(this.buffer.flip());
+		}
+		return this.buffer;
+	}
+
+}
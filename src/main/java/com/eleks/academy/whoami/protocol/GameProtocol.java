@@ -0,0 +1,77 @@
+package com.eleks.academy.whoami.protocol;
+
+/**
+ * Binary game protocol served on {@code game.port}.
+ * <p>
+ * Every frame is {@code int length | byte opcode | int requestId | body}, where length
+ * counts everything after itself. Numbers are big-endian, a string is {@code u16 length | UTF-8 bytes}
+ * with length {@value #NULL_STRING} standing for null, enums are sent as a single byte ordinal
+ * ({@value #NO_VALUE} for null).
+ * <p>
+ * Requests and bodies of their {@link #OK} responses:
+ * <pre>
+ * CREATE       player, u16 maxPlayers            -> game
+ * ENROLL       player, gameId                    -> playerId, name
+ * SUGGEST      player, gameId, name, character   -> (empty)
+ * ASK          player, gameId, message           -> (empty)
+ * ANSWER       player, gameId, u8 QuestionAnswer -> (empty)
+ * GUESS        player, gameId, guess             -> (empty)
+ * ANSWER_GUESS player, gameId, u8 GuessAnswer    -> (empty)
+ * LEAVE        player, gameId                    -> gameId, name
+ * TURN         player, gameId                    -> playerId, name, players
+ * SUBSCRIBE    gameId, player                    -> u64 version
+ *
+ * game    = gameId, status, players
+ * players = u16 count, count * (playerId, name, u8 PlayerState, u8 QuestionAnswer)
+ * </pre>
+ * A failed request gets {@link #ERROR} with {@code u16 status, message}, statuses are the ones
+ * the REST API answers with. After {@link #SUBSCRIBE} the server pushes {@link #EVENT} frames with
+ * request id 0 and {@code gameId, u64 version, u8 GameEventType, player, payload} body. The player
+ * of {@link #SUBSCRIBE} may be null, a player seated in the game stays present while subscribed.
+ * Events of a game are pushed once per connection, a repeated {@link #SUBSCRIBE} only reads the version.
+ */
+public final class GameProtocol {
+
+	public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+	/*
+	 * Length prefix, opcode and request id
+	 */
+	public static final int HEADER_LENGTH = Integer.BYTES + Byte.BYTES + Integer.BYTES;
+
+	public static final int NULL_STRING = 0xFFFF;
+
+	public static final int NO_VALUE = 0xFF;
+
+	public static final byte CREATE = 0x01;
+
+	public static final byte ENROLL = 0x02;
+
+	public static final byte SUGGEST = 0x03;
+
+	public static final byte ASK = 0x04;
+
+	public static final byte ANSWER = 0x05;
+
+	public static final byte GUESS = 0x06;
+
+	public static final byte ANSWER_GUESS = 0x07;
+
+	public static final byte LEAVE = 0x08;
+
+	public static final byte TURN = 0x09;
+
+	public static final byte SUBSCRIBE = 0x0A;
+
+	public static final byte OK = 0x40;
+
+	public static final byte ERROR = 0x41;
+
+	public static final byte EVENT = 0x42;
+
+	public static final int PUSH_REQUEST_ID = 0;
+
+	private GameProtocol() {
+	}
+
+}
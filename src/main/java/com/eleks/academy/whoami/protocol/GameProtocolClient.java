@@ -0,0 +1,222 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.event.GameEventType;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentPlayer;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.GameDetails;
+import com.eleks.academy.whoami.model.response.LeaveDetails;
+import com.eleks.academy.whoami.model.response.PlayerState;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import com.eleks.academy.whoami.model.response.TurnDetails;
+
+/**
+ * Blocking client of the {@link GameProtocol}. Safe to share between threads:
+ * requests are pipelined over one connection and matched with responses by request id.
+ * Failed requests throw {@link GameProtocolException}.
+ */
+public class GameProtocolClient implements Closeable {
+
+	private final SocketChannel channel;
+
+	private final AtomicInteger requestIds = new AtomicInteger();
+
+	private final Map<Integer, CompletableFuture<FrameReader>> pending = new ConcurrentHashMap<>();
+
+	private final List<GameEventListener> eventListeners = new CopyOnWriteArrayList<>();
+
+	private volatile boolean closed;
+
+	private GameProtocolClient(SocketChannel channel) {
+		this.channel = channel;
+		var reader = new Thread(this::read, "game-protocol-client");
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	public static GameProtocolClient connect(String host, int port) {
+		try {
+			var channel = SocketChannel.open(new InetSocketAddress(host, port));
+			channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+			return new GameProtocolClient(channel);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Can't connect to " + host + ":" + port, e);
+		}
+	}
+
+	public GameDetails createGame(String player, int maxPlayers) {
+		var response = this.call(this.request(GameProtocol.CREATE).putString(player).putShort(maxPlayers));
+		return GameDetails.builder()
+				.id(response.getString())
+				.status(response.getString())
+				.players(readPlayers(response))
+				.build();
+	}
+
+	public SynchronousPlayer enrollToGame(String id, String player) {
+		var response = this.call(this.request(GameProtocol.ENROLL).putString(player).putString(id));
+		return readPlayer(response);
+	}
+
+	public void suggestCharacter(String id, String player, CharacterSuggestion suggestion) {
+		this.call(this.request(GameProtocol.SUGGEST).putString(player).putString(id)
+				.putString(suggestion.getName())
+				.putString(suggestion.getCharacter()));
+	}
+
+	public void askQuestion(String id, String player, String message) {
+		this.call(this.request(GameProtocol.ASK).putString(player).putString(id).putString(message));
+	}
+
+	public void answerQuestion(String id, String player, QuestionAnswer answer) {
+		this.call(this.request(GameProtocol.ANSWER).putString(player).putString(id).putEnum(answer));
+	}
+
+	public void submitGuess(String id, String player, String guess) {
+		this.call(this.request(GameProtocol.GUESS).putString(player).putString(id).putString(guess));
+	}
+
+	public void answerGuess(String id, String player, GuessAnswer answer) {
+		this.call(this.request(GameProtocol.ANSWER_GUESS).putString(player).putString(id).putEnum(answer));
+	}
+
+	public LeaveDetails leaveGame(String id, String player) {
+		var response = this.call(this.request(GameProtocol.LEAVE).putString(player).putString(id));
+		return new LeaveDetails(response.getString(), response.getString());
+	}
+
+	public TurnDetails findTurnInfo(String id, String player) {
+		var response = this.call(this.request(GameProtocol.TURN).putString(player).putString(id));
+		return new TurnDetails(readPlayer(response), readPlayers(response));
+	}
+
+	/*
+	 * Subscribes to events of the game, the listener is called from the client reader thread
+	 *
+	 * @param player seated in the game, kept present while subscribed, may be null
+	 * @return current version of the game
+	 */
+	public long subscribe(String id, String player, GameEventListener listener) {
+		this.eventListeners.add(listener);
+		return this.call(this.request(GameProtocol.SUBSCRIBE).putString(id).putString(player)).getLong();
+	}
+
+	@Override
+	public void close() {
+		try {
+			this.channel.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private FrameWriter request(byte opcode) {
+		int requestId;
+		do {
+			requestId = this.requestIds.incrementAndGet();
+		} while (requestId == GameProtocol.PUSH_REQUEST_ID);
+		return new FrameWriter(opcode, requestId);
+	}
+
+	private FrameReader call(FrameWriter request) {
+		var frame = request.build();
+		int requestId = frame.getInt(Integer.BYTES + Byte.BYTES);
+		var response = new CompletableFuture<FrameReader>();
+		this.pending.put(requestId, response);
+		if (this.closed) {
+			this.pending.remove(requestId);
+			throw new UncheckedIOException(new IOException("Connection closed"));
+		}
+		try {
+			synchronized (this.channel) {
+				while (frame.hasRemaining()) {
+					this.channel.write(frame);
+				}
+			}
+		} catch (IOException e) {
+			this.pending.remove(requestId);
+			throw new UncheckedIOException(e);
+		}
+		var reader = GameMailbox.await(response);
+		if (reader.opcode() == GameProtocol.ERROR) {
+			throw new GameProtocolException(reader.getShort(), reader.getString());
+		}
+		return reader;
+	}
+
+	private void read() {
+		var header = ByteBuffer.allocate(Integer.BYTES);
+		try {
+			while (true) {
+				readFully(header.clear());
+				var frame = ByteBuffer.allocate(header.flip().getInt());
+				readFully(frame);
+				var reader = new FrameReader(frame.flip());
+				if (reader.opcode() == GameProtocol.EVENT) {
+					var event = new GameEvent(reader.getString(), reader.getLong(),
+							reader.getEnum(GameEventType.class), reader.getString(), reader.getString());
+					this.eventListeners.forEach(listener -> listener.onEvent(event));
+				} else {
+					var response = this.pending.remove(reader.requestId());
+					if (response != null) {
+						response.complete(reader);
+					}
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			this.closed = true;
+			var failure = new UncheckedIOException("Connection closed", e instanceof IOException io ? io : new IOException(e));
+			this.pending.values().forEach(response -> response.completeExceptionally(failure));
+			this.pending.clear();
+		}
+	}
+
+	private void readFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (this.channel.read(buffer) < 0) {
+				throw new IOException("End of stream");
+			}
+		}
+	}
+
+	private static SynchronousPlayer readPlayer(FrameReader response) {
+		var id = response.getString();
+		var name = response.getString();
+		return id == null ? null : new PersistentPlayer(id, name);
+	}
+
+	private static List<PlayerWithState> readPlayers(FrameReader response) {
+		int count = response.getShort();
+		var players = new ArrayList<PlayerWithState>(count);
+		for (int i = 0; i < count; i++) {
+			var player = readPlayer(response);
+			players.add(PlayerWithState.builder()
+					.player(player)
+					.state(response.getEnum(PlayerState.class))
+					.answer(response.getEnum(QuestionAnswer.class))
+					.build());
+		}
+		return players;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.eleks.academy.whoami.protocol;
+
+import com.eleks.academy.whoami.core.exception.GameException;
+
+/**
+ * Error answered by the game protocol server
+ */
+public class GameProtocolException extends GameException {
+
+	private final int status;
+
+	public GameProtocolException(int status, String message) {
+		super(message);
+		this.status = status;
+	}
+
+	/*
+	 * @return HTTP status the REST API answers the same error with
+	 */
+	public int getStatus() {
+		return this.status;
+	}
+
+}
@@ -0,0 +1,254 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.GameControllerAdvice;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.Message;
+import com.eleks.academy.whoami.model.request.NewGameSize;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.GameDetails;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.service.GameService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Executes {@link GameProtocol} requests against the same {@link GameService} the REST API uses,
+ * with the same validation rules and error statuses as {@code GameController}.
+ */
+@Component
+@RequiredArgsConstructor
+public class GameProtocolHandler {
+
+	private final GameService gameService;
+
+	private final GameRepository gameRepository;
+
+	private final Validator validator;
+
+	private final PlayerPresence presence;
+
+	/*
+	 * Executes the request, blocks until the game mailbox completes it
+	 *
+	 * @return response frame, OK or ERROR, null if the OK frame was already sent to the session
+	 */
+	public ByteBuffer handle(ByteBuffer frame, ProtocolSession session) {
+		var request = new FrameReader(frame);
+		try {
+			return this.execute(request, session);
+		} catch (ConstraintViolationException e) {
+			return error(request, HttpStatus.BAD_REQUEST, e.getConstraintViolations().stream()
+					.map(ConstraintViolation::getMessage)
+					.sorted()
+					.collect(Collectors.joining(", ")));
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			return error(request, HttpStatus.BAD_REQUEST, "Malformed request: " + e.getMessage());
+		} catch (RuntimeException e) {
+			return error(request, GameControllerAdvice.statusOf(e), e.getMessage());
+		}
+	}
+
+	private ByteBuffer execute(FrameReader request, ProtocolSession session) {
+		var response = new FrameWriter(GameProtocol.OK, request.requestId());
+		switch (request.opcode()) {
+			case GameProtocol.CREATE -> {
+				var player = this.player(request);
+				var size = this.valid(new NewGameSize(request.getShort()));
+				var game = this.gameService.createGame(player, size)
+						.orElseThrow(() -> new GameNotFoundException("Game for [" + player + "] can't be created."));
+				writeGame(response, game);
+			}
+			case GameProtocol.ENROLL -> {
+				var player = this.player(request);
+				var enrolled = this.gameService.enrollToGame(request.getString(), player);
+				response.putString(enrolled.getId()).putString(enrolled.getName());
+			}
+			case GameProtocol.SUGGEST -> {
+				var player = this.player(request);
+				var id = request.getString();
+				var suggestion = this.valid(new CharacterSuggestion(request.getString(), request.getString()));
+				this.gameService.suggestCharacter(id, player, suggestion);
+			}
+			case GameProtocol.ASK -> {
+				var player = this.player(request);
+				var id = request.getString();
+				this.gameService.askQuestion(id, player, this.valid(new Message(request.getString())).getMessage());
+			}
+			case GameProtocol.ANSWER -> {
+				var player = this.player(request);
+				var id = request.getString();
+				this.gameService.answerQuestion(id, player, this.required(request.getEnum(QuestionAnswer.class)));
+			}
+			case GameProtocol.GUESS -> {
+				var player = this.player(request);
+				var id = request.getString();
+				this.gameService.submitGuess(id, player, this.valid(new Message(request.getString())).getMessage());
+			}
+			case GameProtocol.ANSWER_GUESS -> {
+				var player = this.player(request);
+				var id = request.getString();
+				this.gameService.answerGuess(id, player, this.required(request.getEnum(GuessAnswer.class)));
+			}
+			case GameProtocol.LEAVE -> {
+				var player = this.player(request);
+				var id = request.getString();
+				var left = this.gameService.leaveGame(id, player)
+						.orElseThrow(() -> new PlayerNotFoundException("[" + player + "] in game with id[" + id + "] not found."));
+				response.putString(left.getId()).putString(left.getName());
+			}
+			case GameProtocol.TURN -> {
+				var player = this.player(request);
+				var id = request.getString();
+				var turn = this.gameService.findTurnInfo(id, player)
+						.orElseThrow(() -> new GameNotFoundException("Game with id[" + id + "] not found."));
+				writePlayer(response, turn.getCurrentPlayer());
+				writePlayers(response, turn.getPlayers());
+			}
+			case GameProtocol.SUBSCRIBE -> {
+				var id = request.getString();
+				var player = request.getString();
+				var game = this.gameRepository.findGameById(id)
+						.orElseThrow(() -> new GameNotFoundException("Game with id[" + id + "] not found."));
+				// events are published from the mailbox, so they all follow the OK frame and its version
+				GameMailbox.await(game.submit(() -> this.subscribe(game, player, request.requestId(), session)));
+				return null;
+			}
+			default -> throw new IllegalArgumentException("unknown opcode " + request.opcode());
+		}
+		return response.build();
+	}
+
+	/*
+	 * Subscribes the session to the game and sends the OK frame, called from the game mailbox.
+	 * A session subscribed to the game already gets the OK frame only
+	 *
+	 * @throw GameNotFoundException if the game was disbanded or moved before the mailbox got to it
+	 */
+	private void subscribe(SynchronousGame game, String player, int requestId, ProtocolSession session) {
+		if (this.gameRepository.findGameById(game.getId()).filter(found -> found == game).isEmpty()) {
+			throw new GameNotFoundException("Game with id[" + game.getId() + "] not found.");
+		}
+		var ok = new FrameWriter(GameProtocol.OK, requestId)
+				.putLong(game.getVersion())
+				.build();
+		if (!session.subscribe(game.getId())) {
+			session.send(ok);
+			return;
+		}
+		// a seated player stays present until the subscription ends
+		var streaming = new AtomicBoolean(player != null && game.findPlayer(player).isPresent());
+		if (streaming.get()) {
+			this.presence.streamOpened(player);
+		}
+		Runnable unsubscribed = () -> {
+			if (streaming.compareAndSet(true, false)) {
+				this.presence.streamClosed(player);
+			}
+		};
+		var listener = new GameEventListener() {
+			@Override
+			public void onEvent(GameEvent event) {
+				session.send(event(event));
+				if (event.type().isFinal()) {
+					game.removeEventListener(this);
+					session.unsubscribe(game.getId());
+					unsubscribed.run();
+				}
+			}
+		};
+		session.send(ok);
+		game.addEventListener(listener);
+		session.onClose(() -> {
+			game.removeEventListener(listener);
+			unsubscribed.run();
+		});
+	}
+
+	/*
+	 * Reads the player of the request and marks him as seen
+	 */
+	private String player(FrameReader request) {
+		var player = request.getString();
+		this.presence.seen(player);
+		return player;
+	}
+
+	/*
+	 * @return EVENT frame pushed to subscribers
+	 */
+	public static ByteBuffer event(GameEvent event) {
+		return new FrameWriter(GameProtocol.EVENT, GameProtocol.PUSH_REQUEST_ID)
+				.putString(event.gameId())
+				.putLong(event.version())
+				.putEnum(event.type())
+				.putString(event.player())
+				.putString(event.payload())
+				.build();
+	}
+
+	private static ByteBuffer error(FrameReader request, HttpStatus status, String message) {
+		return new FrameWriter(GameProtocol.ERROR, request.requestId())
+				.putShort(status.value())
+				.putString(message)
+				.build();
+	}
+
+	private static void writeGame(FrameWriter response, GameDetails game) {
+		response.putString(game.getId())
+				.putString(game.getStatus());
+		writePlayers(response, game.getPlayers());
+	}
+
+	private static void writePlayer(FrameWriter response, SynchronousPlayer player) {
+		response.putString(player == null ? null : player.getId())
+				.putString(player == null ? null : player.getName());
+	}
+
+	private static void writePlayers(FrameWriter response, List<PlayerWithState> players) {
+		response.putShort(players.size());
+		for (var player : players) {
+			writePlayer(response, player.getPlayer());
+			response.putEnum(player.getState())
+					.putEnum(player.getAnswer());
+		}
+	}
+
+	private <T> T valid(T request) {
+		var violations = this.validator.validate(request);
+		if (!violations.isEmpty()) {
+			throw new ConstraintViolationException(violations);
+		}
+		return request;
+	}
+
+	private <T> T required(T value) {
+		if (value == null) {
+			throw new IllegalArgumentException("answer must not be null");
+		}
+		return value;
+	}
+
+}
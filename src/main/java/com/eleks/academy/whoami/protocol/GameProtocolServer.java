@@ -0,0 +1,399 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.ServerProperties;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non-blocking server of the {@link GameProtocol} listening on {@code game.port}.
+ * <p>
+ * A single selector thread accepts connections, reads frames and writes responses.
+ * Decoded requests run on a worker pool, because game commands wait for the game mailbox,
+ * and their responses are queued back to the selector thread. Pipelined requests of
+ * one connection may complete out of order, clients match responses by request id.
+ * A connection with {@value #MAX_IN_FLIGHT} requests waiting for their responses is not
+ * read until one of them completes, so a client pipelining faster than the game runs its
+ * commands is slowed down by TCP instead of filling the worker queue.
+ * A client that doesn't read its responses and events is disconnected once
+ * {@value #MAX_QUEUED_BYTES} bytes are waiting for it.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.protocol", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class GameProtocolServer implements SmartLifecycle {
+
+	private static final int MAX_QUEUED_BYTES = 1024 * 1024;
+
+	private static final int READ_BUFFER_SIZE = 8 * 1024;
+
+	private static final int MAX_IN_FLIGHT = 64;
+
+	private final int port;
+
+	private final GameProtocolHandler handler;
+
+	private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+	/*
+	 * Paused connections that got below the in-flight limit
+	 */
+	private final Queue<Connection> pendingReads = new ConcurrentLinkedQueue<>();
+
+	private ExecutorService workers;
+
+	private Selector selector;
+
+	private ServerSocketChannel serverChannel;
+
+	private Thread selectorThread;
+
+	private volatile boolean running;
+
+	@Autowired
+	public GameProtocolServer(ServerProperties properties, GameProtocolHandler handler) {
+		this(properties.port(), handler);
+	}
+
+	/*
+	 * @param port to listen on, 0 for any free port
+	 */
+	public GameProtocolServer(int port, GameProtocolHandler handler) {
+		this.port = port;
+		this.handler = handler;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (this.running) {
+			return;
+		}
+		try {
+			this.selector = Selector.open();
+			this.serverChannel = ServerSocketChannel.open();
+			this.serverChannel.bind(new InetSocketAddress(this.port));
+			this.serverChannel.configureBlocking(false);
+			this.serverChannel.register(this.selector, SelectionKey.OP_ACCEPT);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Game protocol server can't listen on port " + this.port, e);
+		}
+		var workerIds = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2, runnable -> {
+			var thread = new Thread(runnable, "game-protocol-worker-" + workerIds.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.running = true;
+		this.selectorThread = new Thread(this::select, "game-protocol-selector");
+		this.selectorThread.start();
+		log.info("Game protocol server listening on port {}", this.getPort());
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (!this.running) {
+			return;
+		}
+		this.running = false;
+		this.selector.wakeup();
+		try {
+			this.selectorThread.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		this.workers.shutdownNow();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return this.running;
+	}
+
+	/*
+	 * @return port the server listens on
+	 */
+	public int getPort() {
+		return this.serverChannel.socket().getLocalPort();
+	}
+
+	private void select() {
+		try {
+			while (this.running) {
+				this.selector.select();
+				Connection connection;
+				while ((connection = this.pendingWrites.poll()) != null) {
+					connection.requestWrite();
+				}
+				while ((connection = this.pendingReads.poll()) != null) {
+					connection.resume();
+				}
+				var selected = this.selector.selectedKeys().iterator();
+				while (selected.hasNext()) {
+					var key = selected.next();
+					selected.remove();
+					this.process(key);
+				}
+			}
+		} catch (IOException | ClosedSelectorException e) {
+			log.error("Game protocol selector failed", e);
+		} finally {
+			this.closeAll();
+		}
+	}
+
+	private void process(SelectionKey key) throws IOException {
+		if (!key.isValid()) {
+			return;
+		}
+		if (key.isAcceptable()) {
+			var channel = this.serverChannel.accept();
+			if (channel != null) {
+				channel.configureBlocking(false);
+				channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+				var connection = new Connection(channel);
+				connection.key = channel.register(this.selector, SelectionKey.OP_READ, connection);
+			}
+			return;
+		}
+		var connection = (Connection) key.attachment();
+		try {
+			if (key.isReadable()) {
+				connection.read();
+			}
+			if (key.isValid() && key.isWritable()) {
+				connection.write();
+			}
+		} catch (IOException e) {
+			connection.close();
+		}
+	}
+
+	private void closeAll() {
+		for (var key : this.selector.keys()) {
+			if (key.attachment() instanceof Connection connection) {
+				connection.close();
+			}
+		}
+		try {
+			this.serverChannel.close();
+			this.selector.close();
+		} catch (IOException e) {
+			log.warn("Game protocol server was not closed cleanly", e);
+		}
+	}
+
+	private class Connection implements ProtocolSession {
+
+		private final SocketChannel channel;
+
+		private SelectionKey key;
+
+		private ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+		private final Queue<ByteBuffer> out = new ConcurrentLinkedQueue<>();
+
+		private final AtomicLong queuedBytes = new AtomicLong();
+
+		private final Queue<Runnable> closeActions = new ConcurrentLinkedQueue<>();
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		/*
+		 * Ids of the games the client is subscribed to
+		 */
+		private final Set<String> subscriptions = ConcurrentHashMap.newKeySet();
+
+		/*
+		 * Requests dispatched to the workers and not answered yet
+		 */
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		/*
+		 * Selector thread only: the connection isn't read while paused
+		 */
+		private boolean paused;
+
+		private boolean writing;
+
+		private Connection(SocketChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public void send(ByteBuffer frame) {
+			if (this.closed.get()) {
+				return;
+			}
+			if (this.queuedBytes.addAndGet(frame.remaining()) > MAX_QUEUED_BYTES) {
+				this.close();
+				return;
+			}
+			this.out.offer(frame);
+			pendingWrites.offer(this);
+			selector.wakeup();
+		}
+
+		@Override
+		public void onClose(Runnable action) {
+			this.closeActions.offer(action);
+			if (this.closed.get()) {
+				this.runCloseActions();
+			}
+		}
+
+		@Override
+		public boolean subscribe(String gameId) {
+			return this.subscriptions.add(gameId);
+		}
+
+		@Override
+		public void unsubscribe(String gameId) {
+			this.subscriptions.remove(gameId);
+		}
+
+		/*
+		 * Reads what is available and dispatches the complete frames
+		 */
+		private void read() throws IOException {
+			if (this.channel.read(this.in) < 0) {
+				this.close();
+				return;
+			}
+			this.dispatchBuffered();
+		}
+
+		/*
+		 * Dispatches the complete frames read so far, the connection is paused once
+		 * too many requests are in flight, the rest of the frames wait in the buffer
+		 */
+		private void dispatchBuffered() {
+			this.in.flip();
+			while (this.inFlight.get() < MAX_IN_FLIGHT && this.in.remaining() >= Integer.BYTES) {
+				int length = this.in.getInt(this.in.position());
+				if (length < GameProtocol.HEADER_LENGTH - Integer.BYTES || length > GameProtocol.MAX_FRAME_LENGTH) {
+					this.close();
+					return;
+				}
+				if (this.in.remaining() < Integer.BYTES + length) {
+					break;
+				}
+				this.in.position(this.in.position() + Integer.BYTES);
+				var frame = ByteBuffer.allocate(length);
+				frame.put(this.in.slice(this.in.position(), length)).flip();
+				this.in.position(this.in.position() + length);
+				this.dispatch(frame);
+			}
+			this.in.compact();
+			if (!this.in.hasRemaining() && this.in.capacity() == READ_BUFFER_SIZE) {
+				this.in = ByteBuffer.allocate(Integer.BYTES + GameProtocol.MAX_FRAME_LENGTH).put(this.in.flip());
+			}
+			this.paused = this.inFlight.get() >= MAX_IN_FLIGHT;
+			this.updateInterest();
+		}
+
+		private void dispatch(ByteBuffer frame) {
+			this.inFlight.incrementAndGet();
+			try {
+				workers.execute(() -> {
+					try {
+						var response = handler.handle(frame, this);
+						if (response != null) {
+							this.send(response);
+						}
+					} finally {
+						if (this.inFlight.decrementAndGet() == MAX_IN_FLIGHT - 1) {
+							pendingReads.offer(this);
+							selector.wakeup();
+						}
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				this.inFlight.decrementAndGet();
+				this.close();
+			}
+		}
+
+		/*
+		 * Dispatches the frames that waited while the connection was paused and reads again
+		 */
+		private void resume() {
+			if (this.paused && !this.closed.get()) {
+				this.dispatchBuffered();
+			}
+		}
+
+		private void requestWrite() {
+			this.writing = true;
+			this.updateInterest();
+		}
+
+		private void updateInterest() {
+			if (this.key != null && this.key.isValid()) {
+				this.key.interestOps((this.paused ? 0 : SelectionKey.OP_READ) | (this.writing ? SelectionKey.OP_WRITE : 0));
+			}
+		}
+
+		private void write() throws IOException {
+			ByteBuffer frame;
+			while ((frame = this.out.peek()) != null) {
+				int written = this.channel.write(frame);
+				this.queuedBytes.addAndGet(-written);
+				if (frame.hasRemaining()) {
+					return;
+				}
+				this.out.poll();
+			}
+			this.writing = false;
+			this.updateInterest();
+		}
+
+		private void close() {
+			if (this.closed.compareAndSet(false, true)) {
+				if (this.key != null) {
+					this.key.cancel();
+				}
+				try {
+					this.channel.close();
+				} catch (IOException e) {
+					log.debug("Connection was not closed cleanly", e);
+				}
+				this.out.clear();
+				this.runCloseActions();
+			}
+		}
+
+		private void runCloseActions() {
+			Runnable action;
+			while ((action = this.closeActions.poll()) != null) {
+				action.run();
+			}
+		}
+
+	}
+
+}
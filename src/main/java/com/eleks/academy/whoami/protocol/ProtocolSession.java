@@ -0,0 +1,32 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Connection of a single protocol client
+ */
+public interface ProtocolSession {
+
+	/*
+	 * Queues the frame to the client, never blocks
+	 */
+	void send(ByteBuffer frame);
+
+	/*
+	 * Registers an action to run once the client disconnects
+	 */
+	void onClose(Runnable action);
+
+	/*
+	 * Marks the game as subscribed by the client
+	 *
+	 * @return {@code false} if the client is subscribed to the game already
+	 */
+	boolean subscribe(String gameId);
+
+	/*
+	 * Forgets the subscription once the game sent its final event
+	 */
+	void unsubscribe(String gameId);
+
+}
@@ -2,9 +2,11 @@ package com.eleks.academy.whoami.repository;
 
 import com.eleks.academy.whoami.core.SynchronousGame;
 import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.state.GameState;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 
 public interface GameRepository {
@@ -17,12 +19,71 @@ public interface GameRepository {
 
 	Map<String, SynchronousGame> findAvailableQuickGames();
 
+	/*
+	 * Claims a seat in an open quick game of the requested size
+	 * and enrolls player to it
+	 *
+	 * @return joined game or empty if there is no open game of such size
+	 * @throw PlayerAlreadyInGameException if player is seated in any game
+	 */
+	Optional<SynchronousGame> joinQuickGame(String player, int maxPlayers);
+
 	Optional<SynchronousPlayer> findPlayerById(String player);
 
+	/*
+	 * Resolves the game the player is currently seated in
+	 * through the player index, without scanning other games
+	 *
+	 * @return game of the player or empty if player is not in a game
+	 */
+	Optional<SynchronousGame> findGameByPlayer(String player);
+
 	Stream<SynchronousGame> findAllGames(String player);
 
+	/*
+	 * Seats player in the game and registers him in the player index
+	 *
+	 * @throw PlayerAlreadyInGameException if player is seated in any game
+	 */
+	SynchronousPlayer enrollToGame(String id, String player);
+
+	/*
+	 * Removes player from the game and from the player index
+	 *
+	 * @return player that left the game
+	 */
+	Optional<SynchronousPlayer> leaveGame(String id, String player);
+
     Integer getAllPlayers();
 
+	long countGames();
+
+	long countGames(Class<? extends GameState> state);
+
     void disbandGame(String id);
 
+	/*
+	 * Disbands games that are idle by the predicate, checking at most the batch of games.
+	 * Every call goes on from the game the previous one stopped at, so repeated calls
+	 * walk over all games without ever holding the repository for long
+	 *
+	 * @return games and players reclaimed by this call
+	 */
+	Reclaimed reapIdleGames(Predicate<SynchronousGame> idle, int batch);
+
+	/*
+	 * @return games and players reclaimed since the repository started
+	 */
+	Reclaimed countReclaimed();
+
+	record Reclaimed(long games, long players) {
+
+		public static final Reclaimed NONE = new Reclaimed(0, 0);
+
+		public Reclaimed plus(Reclaimed other) {
+			return new Reclaimed(this.games + other.games, this.players + other.players);
+		}
+
+	}
+
 }
@@ -0,0 +1,89 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.core.state.impl.GameFinished;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
+import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
+import com.eleks.academy.whoami.repository.GameRepository;
+
+/**
+ * Live counters of a repository, updated incrementally on every
+ * enroll, leave, transition and disband, so reads never touch the games.
+ */
+class GameCounters {
+
+	private final LongAdder players = new LongAdder();
+
+	private final LongAdder games = new LongAdder();
+
+	private final LongAdder reclaimedGames = new LongAdder();
+
+	private final LongAdder reclaimedPlayers = new LongAdder();
+
+	private final Map<Class<? extends GameState>, LongAdder> gamesByState = Map.of(
+			WaitingForPlayers.class, new LongAdder(),
+			SuggestingCharacters.class, new LongAdder(),
+			ProcessingQuestion.class, new LongAdder(),
+			GameFinished.class, new LongAdder()
+	);
+
+	void gameSaved(SynchronousGame game) {
+		this.games.increment();
+		this.players.add(game.getPlayersList().size());
+		this.stateOf(game.getState()).increment();
+	}
+
+	/*
+	 * Called from the mailbox run that disbanded the game, the game makes no transitions after it
+	 */
+	void gameDisbanded(GameState state, int players) {
+		this.games.decrement();
+		this.players.add(-players);
+		this.stateOf(state).decrement();
+	}
+
+	void gameReclaimed(int players) {
+		this.reclaimedGames.increment();
+		this.reclaimedPlayers.add(players);
+	}
+
+	void playerEnrolled() {
+		this.players.increment();
+	}
+
+	void playerLeft() {
+		this.players.decrement();
+	}
+
+	void stateChanged(GameState previous, GameState next) {
+		this.stateOf(previous).decrement();
+		this.stateOf(next).increment();
+	}
+
+	long players() {
+		return this.players.sum();
+	}
+
+	long games() {
+		return this.games.sum();
+	}
+
+	GameRepository.Reclaimed reclaimed() {
+		return new GameRepository.Reclaimed(this.reclaimedGames.sum(), this.reclaimedPlayers.sum());
+	}
+
+	long games(Class<? extends GameState> state) {
+		var counter = this.gamesByState.get(state);
+		return counter == null ? 0 : counter.sum();
+	}
+
+	private LongAdder stateOf(GameState state) {
+		return this.gamesByState.get(state.getClass());
+	}
+
+}
@@ -0,0 +1,243 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.zip.CRC32C;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.DumpProperties;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshotCodec;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.GameRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps games over a restart of the node. On shutdown every game is written to a single
+ * file, on start the games of the file are restored before the node takes requests.
+ * The file is deleted once read, so a node that crashes later doesn't bring stale games back.
+ * <p>
+ * The file holds a header with the number of games, every game as its length and
+ * {@link GameSnapshotCodec} bytes, and the CRC32C of all games at the end. It is written
+ * through one large buffer to a temporary file that replaces the old one once synced,
+ * and read through a memory map. A file that doesn't match its checksum is ignored.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "game.dump", name = "enabled", havingValue = "true")
+public class GameDump {
+
+	private static final int MAGIC = 0x57484F44;
+
+	private static final int FORMAT = 1;
+
+	/*
+	 * Magic, format and number of games
+	 */
+	private static final int HEADER = 3 * Integer.BYTES;
+
+	private static final int WRITE_BUFFER = 4 << 20;
+
+	/*
+	 * Time all games have to take their snapshots, games that miss it are not kept
+	 */
+	private static final Duration SNAPSHOT_TIMEOUT = Duration.ofSeconds(10);
+
+	private final GameRepository gameRepository;
+
+	private final PlayerPresence presence;
+
+	private final Path file;
+
+	public GameDump(GameRepository gameRepository, PlayerPresence presence, DumpProperties properties) {
+		this(gameRepository, presence, properties.file());
+	}
+
+	GameDump(GameRepository gameRepository, PlayerPresence presence, Path file) {
+		this.gameRepository = gameRepository;
+		this.presence = presence;
+		this.file = file;
+		this.load();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.save();
+	}
+
+	/*
+	 * Writes every game to the file
+	 *
+	 * @return number of written games
+	 */
+	int save() {
+		long started = System.nanoTime();
+		var snapshots = this.gameRepository.findAllGames(null)
+				.map(game -> game.submit(game::snapshot))
+				.toList();
+		var temporary = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+		int written = 0;
+		try {
+			try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				var buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+				var game = ByteBuffer.allocate(64 * 1024);
+				var checksum = new CRC32C();
+				buffer.putInt(MAGIC).putInt(FORMAT).putInt(0);
+				long deadline = started + SNAPSHOT_TIMEOUT.toNanos();
+				for (var snapshot : snapshots) {
+					var taken = this.await(snapshot, deadline);
+					if (taken == null) {
+						continue;
+					}
+					game = encode(taken, game);
+					checksum.update(game.duplicate());
+					write(channel, buffer, game);
+					written++;
+				}
+				write(channel, buffer, ByteBuffer.allocate(Integer.BYTES).putInt(0, (int) checksum.getValue()));
+				drain(channel, buffer);
+				channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, written), 2 * Integer.BYTES);
+				channel.force(true);
+			}
+			Files.move(temporary, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			log.error("Games can't be written to {}, they are lost on restart", this.file, e);
+			return 0;
+		}
+		log.info("Wrote {} games to {} in {} ms", written, this.file,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return written;
+	}
+
+	/*
+	 * Restores the games of the file, if any, and deletes the file
+	 *
+	 * @return number of restored games
+	 */
+	int load() {
+		if (!Files.exists(this.file)) {
+			return 0;
+		}
+		long started = System.nanoTime();
+		int restored = 0;
+		try (var channel = FileChannel.open(this.file, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER + Integer.BYTES || size > Integer.MAX_VALUE) {
+				log.warn("Games of {} are ignored, the file size {} is not valid", this.file, size);
+				return 0;
+			}
+			var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			int games = (int) size - HEADER - Integer.BYTES;
+			var checksum = new CRC32C();
+			checksum.update(buffer.slice(HEADER, games));
+			if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES) != FORMAT
+					|| (int) checksum.getValue() != buffer.getInt(HEADER + games)) {
+				log.warn("Games of {} are ignored, the file is damaged", this.file);
+				return 0;
+			}
+			int count = buffer.getInt(2 * Integer.BYTES);
+			buffer.position(HEADER);
+			for (int i = 0; i < count; i++) {
+				int length = buffer.getInt();
+				var game = buffer.slice(buffer.position(), length);
+				buffer.position(buffer.position() + length);
+				if (this.restore(GameSnapshotCodec.read(game))) {
+					restored++;
+				}
+			}
+		} catch (IOException | BufferUnderflowException | IndexOutOfBoundsException e) {
+			log.warn("Games of {} can't be read, {} of them restored", this.file, restored, e);
+		} finally {
+			this.delete();
+		}
+		log.info("Restored {} games from {} in {} ms", restored, this.file,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return restored;
+	}
+
+	private boolean restore(GameSnapshot snapshot) {
+		try {
+			this.gameRepository.save(PersistentGame.restore(snapshot));
+		} catch (RuntimeException e) {
+			log.warn("Game {} can't be restored", snapshot.id(), e);
+			return false;
+		}
+		snapshot.players().forEach(player -> this.presence.track(player.id()));
+		return true;
+	}
+
+	private GameSnapshot await(CompletableFuture<GameSnapshot> snapshot, long deadline) {
+		try {
+			return snapshot.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+		} catch (ExecutionException | TimeoutException e) {
+			log.warn("Game snapshot not taken in time, the game is not kept", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return null;
+	}
+
+	private void delete() {
+		try {
+			Files.deleteIfExists(this.file);
+		} catch (IOException e) {
+			log.warn("{} can't be deleted, its games will be restored again", this.file, e);
+		}
+	}
+
+	/*
+	 * @return length and snapshot bytes, in the given buffer or a larger one if they don't fit
+	 */
+	private static ByteBuffer encode(GameSnapshot snapshot, ByteBuffer buffer) {
+		while (true) {
+			try {
+				buffer.clear().position(Integer.BYTES);
+				GameSnapshotCodec.write(snapshot, buffer);
+				return buffer.putInt(0, buffer.position() - Integer.BYTES).flip();
+			} catch (BufferOverflowException e) {
+				buffer = ByteBuffer.allocate(buffer.capacity() * 2);
+			}
+		}
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer, ByteBuffer bytes) throws IOException {
+		if (bytes.remaining() > buffer.remaining()) {
+			drain(channel, buffer);
+		}
+		if (bytes.remaining() > buffer.remaining()) {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+			return;
+		}
+		buffer.put(bytes);
+	}
+
+	private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+}
@@ -1,24 +1,52 @@
 package com.eleks.academy.whoami.repository.impl;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.state.GameState;
 import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import com.eleks.academy.whoami.core.SynchronousGame;
 import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.utils.Base62;
+import com.eleks.academy.whoami.utils.SymbolTable;
 
 @Repository
+@ConditionalOnProperty(prefix = "game.repository", name = "type", havingValue = "memory", matchIfMissing = true)
 public class GameInMemoryRepository implements GameRepository {
 
-	private final Map<String, SynchronousGame> games = new ConcurrentHashMap<>();
+	/*
+	 * Games by their numeric id
+	 */
+	private final Map<Long, SynchronousGame> games = new ConcurrentHashMap<>();
+
+	/*
+	 * Secondary index: player id -> numeric id of the game the player is seated in
+	 */
+	private final Map<String, Long> playerGames = new ConcurrentHashMap<>();
+
+	private final QuickMatchLobby lobby = new QuickMatchLobby();
+
+	private final GameCounters counters = new GameCounters();
+
+	/*
+	 * Position of the reaper among the games, moved by the reaper thread only
+	 */
+	private Iterator<SynchronousGame> reaperCursor = this.games.values().iterator();
 
 	@Override
 	public Stream<SynchronousGame> findAllAvailable(String player) {
@@ -38,50 +66,222 @@ public class GameInMemoryRepository implements GameRepository {
 
 	@Override
 	public Integer getAllPlayers() {
-		return this.games
-				.values()
-				.stream()
-				.map(game -> game.getPlayersList().size())
-				.reduce(Integer::sum)
-				.orElse(0);
+		return (int) this.counters.players();
+	}
+
+	@Override
+	public long countGames() {
+		return this.counters.games();
+	}
+
+	@Override
+	public long countGames(Class<? extends GameState> state) {
+		return this.counters.games(state);
 	}
 
 	@Override
 	public void disbandGame(String id) {
-		this.games.remove(id);
+		this.findGameById(id).ifPresent(game -> this.disband(game, false));
+	}
+
+	/*
+	 * Removes the game and its players from the repository and disbands the game. The game
+	 * mailbox is not awaited, the game may be suspended for migration meanwhile: counters and
+	 * players enrolled before the disband runs are updated once it runs
+	 *
+	 * @return {@code true} if the game was removed by this call
+	 */
+	boolean disband(SynchronousGame game, boolean reclaimed) {
+		if (!this.games.remove(game.getNumericId(), game)) {
+			return false;
+		}
+		this.lobby.close(game.getId());
+		this.unindex(game, game.getPlayersList());
+		game.submit(() -> {
+			var players = game.disbandNow();
+			this.counters.gameDisbanded(game.getState(), players.size());
+			if (reclaimed) {
+				this.counters.gameReclaimed(players.size());
+			}
+			this.unindex(game, players);
+		});
+		return true;
+	}
+
+	private void unindex(SynchronousGame game, List<PlayerWithState> players) {
+		for (var player : players) {
+			this.playerGames.remove(player.getPlayer().getId(), game.getNumericId());
+		}
+	}
+
+	@Override
+	public Reclaimed reapIdleGames(Predicate<SynchronousGame> idle, int batch) {
+		var reclaimed = Reclaimed.NONE;
+		for (var game : this.nextIdleGames(idle, batch)) {
+			reclaimed = reclaimed.plus(this.reclaim(game));
+		}
+		return reclaimed;
+	}
+
+	@Override
+	public Reclaimed countReclaimed() {
+		return this.counters.reclaimed();
+	}
+
+	/*
+	 * Checks the next batch of games, a call that reaches the last game stops there
+	 * and the next call starts over from the first one. The cursor is weakly consistent:
+	 * games saved after it started are seen on the next pass at the latest
+	 *
+	 * @return idle games of the batch
+	 */
+	List<SynchronousGame> nextIdleGames(Predicate<SynchronousGame> idle, int batch) {
+		var idleGames = new ArrayList<SynchronousGame>();
+		for (int checked = 0; checked < batch; checked++) {
+			if (!this.reaperCursor.hasNext()) {
+				this.reaperCursor = this.games.values().iterator();
+				if (checked > 0 || !this.reaperCursor.hasNext()) {
+					break;
+				}
+			}
+			var game = this.reaperCursor.next();
+			if (idle.test(game)) {
+				idleGames.add(game);
+			}
+		}
+		return idleGames;
+	}
+
+	/*
+	 * Disbands the game and counts it as reclaimed, together with the players still in it
+	 *
+	 * @return reclaimed game and its players, none if the game is already gone
+	 */
+	Reclaimed reclaim(SynchronousGame game) {
+		int players = game.getPlayersList().size();
+		return this.disband(game, true) ? new Reclaimed(1, players) : Reclaimed.NONE;
 	}
 
 	@Override
 	public SynchronousGame save(SynchronousGame game) {
-		this.games.put(game.getId(), game);
+		var previous = this.games.putIfAbsent(game.getNumericId(), game);
+		if (previous == game) {
+			return game;
+		}
+		if (previous != null) {
+			throw new GameException("SAVE-GAME: Game with id[" + game.getId() + "] already exists.");
+		}
+		game.getPlayersList()
+				.forEach(player -> this.playerGames.put(player.getPlayer().getId(), game.getNumericId()));
+		this.counters.gameSaved(game);
+		game.addStateListener(this::onStateChanged);
+		if (game.getState() instanceof WaitingForPlayers) {
+			this.lobby.open(game);
+		}
 		return game;
 	}
 
+	@Override
+	public Optional<SynchronousGame> joinQuickGame(String player, int maxPlayers) {
+		if (this.playerGames.containsKey(player)) {
+			throw new PlayerAlreadyInGameException("ENROLL-TO-GAME: [" + player + "] already in other game.");
+		}
+		return this.lobby.claim(maxPlayers)
+				.map(game -> {
+					this.enrollClaimed(game, player);
+					return game;
+				});
+	}
+
+	@Override
+	public SynchronousPlayer enrollToGame(String id, String player) {
+		var game = this.findGameById(id)
+				.orElseThrow(() -> new GameNotFoundException("ENROLL-TO-GAME: Game with id[" + id + "] not found."));
+
+		if (!this.lobby.claim(id)) {
+			throw new GameNotFoundException("ENROLL-TO-GAME: Game [" + id + "] has no free seats.");
+		}
+		return this.enrollClaimed(game, player);
+	}
+
+	/*
+	 * Enrolls player to the game he already claimed a seat in,
+	 * the seat is given back if the player can't be enrolled
+	 */
+	private SynchronousPlayer enrollClaimed(SynchronousGame game, String player) {
+		if (this.playerGames.putIfAbsent(SymbolTable.SHARED.intern(player), game.getNumericId()) != null) {
+			this.lobby.release(game.getId());
+			throw new PlayerAlreadyInGameException("ENROLL-TO-GAME: [" + player + "] already in other game.");
+		}
+		try {
+			var enrolled = GameMailbox.await(game.submit(() -> game.enrollToGame(player)));
+			this.counters.playerEnrolled();
+			return enrolled;
+		} catch (RuntimeException e) {
+			this.playerGames.remove(player, game.getNumericId());
+			this.lobby.release(game.getId());
+			throw e;
+		}
+	}
+
+	/*
+	 * The last player to leave disbands the game in the same mailbox run, so enrolls
+	 * queued after the leave fail instead of seating players in a removed game
+	 */
+	@Override
+	public Optional<SynchronousPlayer> leaveGame(String id, String player) {
+		return this.findGameById(id)
+				.flatMap(game -> GameMailbox.await(game.submit(() -> {
+					var leftPlayer = game.leaveGame(player);
+					leftPlayer.ifPresent(left -> {
+						this.playerGames.remove(player, game.getNumericId());
+						this.lobby.release(id);
+						this.counters.playerLeft();
+						if (game.getPlayersList().isEmpty() && this.games.remove(game.getNumericId(), game)) {
+							this.lobby.close(id);
+							game.disbandNow();
+							this.counters.gameDisbanded(game.getState(), 0);
+						}
+					});
+					return leftPlayer;
+				})));
+	}
+
 	@Override
 	public Optional<SynchronousGame> findGameById(String id) {
+		return this.findGameById(Base62.decode(id));
+	}
+
+	private Optional<SynchronousGame> findGameById(long id) {
 		return Optional.ofNullable(this.games.get(id));
 	}
 	
 	@Override
 	public Optional<SynchronousPlayer> findPlayerById(String player) {
-		return this.games
-				.values()
-				.stream()
-				.map(game -> game.findPlayer(player))
-				.findFirst()
-				.orElse(Optional.empty());
+		return this.findGameByPlayer(player)
+				.flatMap(game -> game.findPlayer(player));
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameByPlayer(String player) {
+		return Optional.ofNullable(this.playerGames.get(player))
+				.flatMap(this::findGameById);
 	}
 
 	@Override
 	public Map<String, SynchronousGame> findAvailableQuickGames() {
-		return filterByValue(games, game -> game.getState() instanceof WaitingForPlayers);
+		return this.lobby.findOpenRooms();
 	}
-	
-	private <K, V> Map<K, V> filterByValue(Map<K, V> map, Predicate<V> predicate) {
-	    return map.entrySet()
-	            .stream()
-	            .filter(entry -> predicate.test(entry.getValue()))
-	            .collect(Collectors.toConcurrentMap(Entry::getKey, Entry::getValue));
+
+	private void onStateChanged(SynchronousGame game, GameState previous, GameState next) {
+		if (previous instanceof WaitingForPlayers) {
+			this.lobby.close(game.getId());
+		}
+		// a player left alone while suggesting characters waits for other players again
+		if (next instanceof WaitingForPlayers) {
+			this.lobby.open(game);
+		}
+		this.counters.stateChanged(previous, next);
 	}
 
 }
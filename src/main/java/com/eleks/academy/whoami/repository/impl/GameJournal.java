@@ -0,0 +1,344 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of games, split into numbered segment files.
+ * <p>
+ * Records are encoded by the threads that append them and queued to a single writer
+ * thread. The writer takes everything queued so far as one batch, writes it through
+ * one buffer and syncs the file once per batch, so the cost of a sync is shared by all
+ * records that arrived while the previous batch was synced (group commit). Appending
+ * doesn't wait for the sync: a crash loses at most the batch being written. The queue is
+ * bounded, once the writer falls behind appending waits for it instead of piling records
+ * up in memory. If the writer fails, appending stops and every pending flush fails.
+ * <p>
+ * Once a segment outgrows its size the writer starts the next one and reports it,
+ * the owner of the journal may delete older segments once it wrote everything they
+ * hold again, e.g. as snapshots. The bytes the owner writes again at the start of every
+ * segment are reserved on top of the segment size, so those rewrites alone never fill a
+ * segment. Every start opens a new segment, so a record torn by
+ * a crash can only be the last one of a segment.
+ */
+@Slf4j
+class GameJournal implements Closeable {
+
+	private static final String SEGMENT_PREFIX = "journal-";
+
+	private static final String SEGMENT_SUFFIX = ".log";
+
+	private static final int WRITE_BUFFER = 1 << 20;
+
+	/*
+	 * Records taken from the queue at once, the rest waits for the next batch
+	 */
+	private static final int MAX_BATCH = 16_384;
+
+	/*
+	 * Records queued before appending waits for the writer
+	 */
+	private static final int MAX_QUEUED = 4 * MAX_BATCH;
+
+	private static final Object CLOSE = new Object();
+
+	private final Path directory;
+
+	private final long segmentSize;
+
+	/*
+	 * Called on the writer thread with the number of every segment started after the first one
+	 */
+	private final LongConsumer rolled;
+
+	private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>(MAX_QUEUED);
+
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER);
+
+	private final Thread writer = new Thread(this::write, "game-journal");
+
+	private FileChannel channel;
+
+	private long segment;
+
+	private long written;
+
+	/*
+	 * Bytes a segment holds on top of the segment size before it rolls
+	 */
+	private volatile long reserved;
+
+	/*
+	 * Set once the writer fails, nothing is written after that
+	 */
+	private volatile Exception failure;
+
+	/*
+	 * @param directory   of the segment files, created if missing
+	 * @param segmentSize bytes a segment grows to before the next one is started
+	 * @param rolled      told the number of every segment started while the journal runs
+	 */
+	GameJournal(Path directory, long segmentSize, LongConsumer rolled) {
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		this.rolled = rolled;
+		this.writer.setDaemon(true);
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/*
+	 * Reads all records of all segments in order. The torn tail of a segment, if any, is cut off
+	 */
+	void replay(Consumer<JournalRecord> consumer) {
+		for (long segment : this.segments()) {
+			var path = this.segmentPath(segment);
+			try (var channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+				var buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+				while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+					// read the whole segment
+				}
+				buffer.flip();
+				JournalRecord record;
+				while ((record = JournalRecord.decode(buffer)) != null) {
+					consumer.accept(record);
+				}
+				if (buffer.hasRemaining()) {
+					log.warn("Cutting {} bytes of a torn record off {}", buffer.remaining(), path);
+					channel.truncate(buffer.position());
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/*
+	 * Opens a new segment after the existing ones and starts writing
+	 *
+	 * @return number of the new segment
+	 */
+	long start() {
+		var segments = this.segments();
+		try {
+			this.open(segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.writer.start();
+		return this.segment;
+	}
+
+	/*
+	 * Queues the record, it is written and synced with the next batch.
+	 * Waits while the queue is full
+	 */
+	void append(JournalRecord record) {
+		if (this.failure != null) {
+			return;
+		}
+		try {
+			this.queue.put(record.encode());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			log.warn("Appending to the game journal interrupted, record of game {} is lost", record.gameId());
+		}
+	}
+
+	/*
+	 * Reserves room for the bytes written again at the start of every segment,
+	 * e.g. the snapshots of all games
+	 */
+	void reserve(long bytes) {
+		this.reserved = bytes;
+	}
+
+	/*
+	 * @return completed once all records appended before are synced,
+	 * 		   or completed exceptionally once the writer failed
+	 */
+	CompletableFuture<Void> flush() {
+		var flushed = new CompletableFuture<Void>();
+		if (this.failure != null) {
+			flushed.completeExceptionally(this.failure);
+			return flushed;
+		}
+		try {
+			this.queue.put(flushed);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			flushed.completeExceptionally(e);
+		}
+		var failure = this.failure;
+		if (failure != null) {
+			flushed.completeExceptionally(failure);
+		}
+		return flushed;
+	}
+
+	/*
+	 * Deletes the segments before the given one
+	 */
+	void deleteBefore(long segment) {
+		for (long older : this.segments()) {
+			if (older < segment) {
+				try {
+					Files.deleteIfExists(this.segmentPath(older));
+				} catch (IOException e) {
+					log.warn("Segment {} of the journal can't be deleted", older, e);
+				}
+			}
+		}
+	}
+
+	/*
+	 * Writes and syncs the records queued so far and stops the writer
+	 */
+	@Override
+	public void close() {
+		if (!this.writer.isAlive()) {
+			return;
+		}
+		try {
+			while (this.writer.isAlive() && !this.queue.offer(CLOSE, 100, TimeUnit.MILLISECONDS)) {
+				// the writer is busy with a full queue
+			}
+			this.writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void write() {
+		var batch = new ArrayList<Object>();
+		var flushed = new ArrayList<CompletableFuture<Void>>();
+		try {
+			boolean closed = false;
+			while (!closed) {
+				batch.add(this.queue.take());
+				this.queue.drainTo(batch, MAX_BATCH);
+				for (var item : batch) {
+					if (item instanceof ByteBuffer record) {
+						this.write(record);
+					} else if (item == CLOSE) {
+						closed = true;
+					} else {
+						@SuppressWarnings("unchecked")
+						var flush = (CompletableFuture<Void>) item;
+						flushed.add(flush);
+					}
+				}
+				this.sync();
+				flushed.forEach(flush -> flush.complete(null));
+				flushed.clear();
+				batch.clear();
+				if (this.written >= this.segmentSize + this.reserved && !closed) {
+					this.channel.close();
+					this.open(this.segment + 1);
+					this.rolled.accept(this.segment);
+				}
+			}
+			this.channel.close();
+		} catch (IOException | RuntimeException e) {
+			this.fail(e, batch);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Stops journaling: fails the flushes of the batch and of the queue,
+	 * and empties the queue, so nothing waits for the writer anymore
+	 */
+	private void fail(Exception e, List<Object> batch) {
+		this.failure = e;
+		log.error("Game journal failed, games are no longer journaled", e);
+		var pending = new ArrayList<>(batch);
+		this.queue.drainTo(pending);
+		pending.forEach(item -> {
+			if (item instanceof CompletableFuture<?> flush) {
+				flush.completeExceptionally(e);
+			}
+		});
+		try {
+			this.channel.close();
+		} catch (IOException closing) {
+			e.addSuppressed(closing);
+		}
+	}
+
+	private void write(ByteBuffer record) throws IOException {
+		if (record.remaining() > this.buffer.remaining()) {
+			this.drain();
+		}
+		if (record.remaining() > this.buffer.remaining()) {
+			this.written += record.remaining();
+			while (record.hasRemaining()) {
+				this.channel.write(record);
+			}
+			return;
+		}
+		this.written += record.remaining();
+		this.buffer.put(record);
+	}
+
+	private void drain() throws IOException {
+		this.buffer.flip();
+		while (this.buffer.hasRemaining()) {
+			this.channel.write(this.buffer);
+		}
+		this.buffer.clear();
+	}
+
+	private void sync() throws IOException {
+		this.drain();
+		this.channel.force(false);
+	}
+
+	private void open(long segment) throws IOException {
+		this.channel = FileChannel.open(this.segmentPath(segment),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+		this.segment = segment;
+		this.written = 0;
+	}
+
+	private Path segmentPath(long segment) {
+		return this.directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+	}
+
+	/*
+	 * @return numbers of the segment files, in order
+	 */
+	private List<Long> segments() {
+		try (Stream<Path> files = Files.list(this.directory)) {
+			return files.map(path -> path.getFileName().toString())
+					.filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+					.map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+					.sorted()
+					.toList();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+}
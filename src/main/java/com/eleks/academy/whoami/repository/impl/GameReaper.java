@@ -0,0 +1,75 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.stereotype.Component;
+
+import com.eleks.academy.whoami.configuration.ReaperProperties;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.repository.GameRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disbands games nobody plays any more, so abandoned rooms and stalled games
+ * don't pile up in the repository.
+ * <p>
+ * A game is idle once players haven't changed it for longer than the TTL of its state.
+ * Every run checks a single batch of games and the next run goes on from there,
+ * so the reaper never walks over all games at once.
+ */
+@Slf4j
+@Component
+public class GameReaper {
+
+	private final GameRepository gameRepository;
+
+	private final ReaperProperties properties;
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(command -> {
+		var thread = new Thread(command, "game-reaper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public GameReaper(GameRepository gameRepository, ReaperProperties properties) {
+		this.gameRepository = gameRepository;
+		this.properties = properties;
+		long interval = properties.interval().toMillis();
+		if (interval > 0) {
+			this.scheduler.scheduleWithFixedDelay(this::reap, interval, interval, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.scheduler.shutdownNow();
+	}
+
+	/*
+	 * Checks the next batch of games
+	 *
+	 * @return games and players reclaimed by this run
+	 */
+	GameRepository.Reclaimed reap() {
+		try {
+			var reclaimed = this.gameRepository.reapIdleGames(this::isIdle, this.properties.batch());
+			if (reclaimed.games() > 0) {
+				log.info("Reclaimed {} idle games with {} players", reclaimed.games(), reclaimed.players());
+			}
+			return reclaimed;
+		} catch (RuntimeException e) {
+			log.warn("Reaping idle games failed", e);
+			return GameRepository.Reclaimed.NONE;
+		}
+	}
+
+	private boolean isIdle(SynchronousGame game) {
+		return game.getIdleTime().compareTo(this.properties.ttlOf(game.getState())) > 0;
+	}
+
+}
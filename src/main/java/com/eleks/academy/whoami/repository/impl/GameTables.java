@@ -0,0 +1,302 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+import java.util.function.LongConsumer;
+
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+
+/**
+ * Relational form of a {@link GameSnapshot}: a row per game, per player, per suggested
+ * character, per question and per answer. A game is written by deleting its rows and
+ * inserting them again, in JDBC batches, so the same plain SQL runs on H2 and SQLite.
+ */
+final class GameTables {
+
+	private static final String[] SCHEMA = {
+			"CREATE TABLE IF NOT EXISTS games (id BIGINT PRIMARY KEY, max_players INT NOT NULL, version BIGINT NOT NULL, "
+					+ "game_state VARCHAR(32) NOT NULL, quorum DOUBLE NOT NULL, suggesting_nanos BIGINT, asking_nanos BIGINT, "
+					+ "answering_nanos BIGINT, has_turn BOOLEAN NOT NULL, current_player VARCHAR(255), answered_votes INT, "
+					+ "yes_votes INT, no_votes INT, not_sure_votes INT, question_open BOOLEAN)",
+			"CREATE TABLE IF NOT EXISTS players (game_id BIGINT NOT NULL, player_id VARCHAR(255) NOT NULL, seat INT NOT NULL, "
+					+ "player_name VARCHAR(255), character_name VARCHAR(255), player_state VARCHAR(16), answer_value VARCHAR(16), "
+					+ "ask_seat INT, PRIMARY KEY (game_id, player_id))",
+			"CREATE TABLE IF NOT EXISTS suggestions (game_id BIGINT NOT NULL, author_id VARCHAR(255) NOT NULL, "
+					+ "character_name VARCHAR(255), PRIMARY KEY (game_id, author_id))",
+			"CREATE TABLE IF NOT EXISTS questions (game_id BIGINT NOT NULL, question_no INT NOT NULL, player_id VARCHAR(255), "
+					+ "question_type VARCHAR(16), question_text VARCHAR(4096), PRIMARY KEY (game_id, question_no))",
+			"CREATE TABLE IF NOT EXISTS answers (game_id BIGINT NOT NULL, question_no INT NOT NULL, answer_no INT NOT NULL, "
+					+ "player_id VARCHAR(255), answer_value VARCHAR(16), PRIMARY KEY (game_id, question_no, answer_no))"
+	};
+
+	private static final String[] TABLES = {"answers", "questions", "suggestions", "players", "games"};
+
+	private GameTables() {
+	}
+
+	static void create(Connection connection) throws SQLException {
+		try (var statement = connection.createStatement()) {
+			for (var table : SCHEMA) {
+				statement.execute(table);
+			}
+		}
+	}
+
+	/*
+	 * Replaces the rows of the games and deletes the rows of the deleted ones,
+	 * the caller commits
+	 */
+	static void write(Connection connection, Collection<GameSnapshot> snapshots, Collection<Long> deleted) throws SQLException {
+		var ids = new ArrayList<Long>(snapshots.size() + deleted.size());
+		snapshots.forEach(snapshot -> ids.add(snapshot.id()));
+		ids.addAll(deleted);
+		for (var table : TABLES) {
+			try (var delete = connection.prepareStatement("DELETE FROM " + table + " WHERE " + (table.equals("games") ? "id" : "game_id") + " = ?")) {
+				for (long id : ids) {
+					delete.setLong(1, id);
+					delete.addBatch();
+				}
+				delete.executeBatch();
+			}
+		}
+		if (snapshots.isEmpty()) {
+			return;
+		}
+
+		try (var games = connection.prepareStatement("INSERT INTO games VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+			 var players = connection.prepareStatement("INSERT INTO players VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+			 var suggestions = connection.prepareStatement("INSERT INTO suggestions VALUES (?, ?, ?)");
+			 var questions = connection.prepareStatement("INSERT INTO questions VALUES (?, ?, ?, ?, ?)");
+			 var answers = connection.prepareStatement("INSERT INTO answers VALUES (?, ?, ?, ?, ?)")) {
+			for (var snapshot : snapshots) {
+				addGame(games, snapshot);
+				addPlayers(players, snapshot);
+				for (var suggestion : snapshot.suggestions().entrySet()) {
+					suggestions.setLong(1, snapshot.id());
+					suggestions.setString(2, suggestion.getKey());
+					suggestions.setString(3, suggestion.getValue());
+					suggestions.addBatch();
+				}
+				addHistory(questions, answers, snapshot);
+			}
+			games.executeBatch();
+			players.executeBatch();
+			suggestions.executeBatch();
+			questions.executeBatch();
+			answers.executeBatch();
+		}
+	}
+
+	/*
+	 * @return snapshot of the game, empty if there is no such game
+	 */
+	static Optional<GameSnapshot> read(Connection connection, long id) throws SQLException {
+		try (var games = connection.prepareStatement("SELECT * FROM games WHERE id = ?")) {
+			games.setLong(1, id);
+			try (var game = games.executeQuery()) {
+				if (!game.next()) {
+					return Optional.empty();
+				}
+				var askOrder = new TreeMap<Integer, String>();
+				var players = readPlayers(connection, id, askOrder);
+				var suggestions = readSuggestions(connection, id);
+				GameSnapshot.Turn turn = null;
+				if (game.getBoolean("has_turn")) {
+					turn = new GameSnapshot.Turn(game.getString("current_player"), new ArrayList<>(askOrder.values()),
+							game.getInt("answered_votes"), game.getInt("yes_votes"), game.getInt("no_votes"),
+							game.getInt("not_sure_votes"), readHistory(connection, id), game.getBoolean("question_open"));
+				}
+				var deadlines = new TurnDeadlines(duration(game, "suggesting_nanos"), duration(game, "asking_nanos"),
+						duration(game, "answering_nanos"));
+				return Optional.of(new GameSnapshot(id, game.getInt("max_players"), game.getLong("version"),
+						game.getString("game_state"), game.getDouble("quorum"), deadlines, players, suggestions, turn));
+			}
+		}
+	}
+
+	/*
+	 * Reads the id of every game and every player seated in one
+	 *
+	 * @param games   told the id of every game
+	 * @param players told every player with the id of his game
+	 */
+	static void readIndex(Connection connection, LongConsumer games,
+						  BiConsumer<String, Long> players) throws SQLException {
+		try (var statement = connection.createStatement()) {
+			try (var rows = statement.executeQuery("SELECT id FROM games")) {
+				while (rows.next()) {
+					games.accept(rows.getLong(1));
+				}
+			}
+			try (var rows = statement.executeQuery("SELECT player_id, game_id FROM players")) {
+				while (rows.next()) {
+					players.accept(rows.getString(1), rows.getLong(2));
+				}
+			}
+		}
+	}
+
+	private static void addGame(PreparedStatement games, GameSnapshot snapshot) throws SQLException {
+		var turn = snapshot.turn();
+		games.setLong(1, snapshot.id());
+		games.setInt(2, snapshot.maxPlayers());
+		games.setLong(3, snapshot.version());
+		games.setString(4, snapshot.state());
+		games.setDouble(5, snapshot.quorum());
+		setDuration(games, 6, snapshot.deadlines().suggesting());
+		setDuration(games, 7, snapshot.deadlines().asking());
+		setDuration(games, 8, snapshot.deadlines().answering());
+		games.setBoolean(9, turn != null);
+		games.setString(10, turn == null ? null : turn.currentPlayer());
+		setInt(games, 11, turn == null ? null : turn.answered());
+		setInt(games, 12, turn == null ? null : turn.yes());
+		setInt(games, 13, turn == null ? null : turn.no());
+		setInt(games, 14, turn == null ? null : turn.notSure());
+		games.setBoolean(15, turn != null && turn.questionOpen());
+		games.addBatch();
+	}
+
+	private static void addPlayers(PreparedStatement players, GameSnapshot snapshot) throws SQLException {
+		var askSeats = new HashMap<String, Integer>();
+		if (snapshot.turn() != null) {
+			var askOrder = snapshot.turn().askOrder();
+			for (int seat = 0; seat < askOrder.size(); seat++) {
+				askSeats.put(askOrder.get(seat), seat);
+			}
+		}
+		int seat = 0;
+		for (var player : snapshot.players()) {
+			players.setLong(1, snapshot.id());
+			players.setString(2, player.id());
+			players.setInt(3, seat++);
+			players.setString(4, player.name());
+			players.setString(5, player.character());
+			players.setString(6, player.state() == null ? null : player.state().name());
+			players.setString(7, player.answer() == null ? null : player.answer().name());
+			setInt(players, 8, askSeats.get(player.id()));
+			players.addBatch();
+		}
+	}
+
+	private static void addHistory(PreparedStatement questions, PreparedStatement answers, GameSnapshot snapshot)
+			throws SQLException {
+		if (snapshot.turn() == null) {
+			return;
+		}
+		var history = snapshot.turn().history();
+		for (int number = 0; number < history.size(); number++) {
+			var question = history.get(number);
+			questions.setLong(1, snapshot.id());
+			questions.setInt(2, number);
+			questions.setString(3, question.player());
+			questions.setString(4, question.type());
+			questions.setString(5, question.text());
+			questions.addBatch();
+			for (int answer = 0; answer < question.answers().size(); answer++) {
+				answers.setLong(1, snapshot.id());
+				answers.setInt(2, number);
+				answers.setInt(3, answer);
+				answers.setString(4, question.answers().get(answer).player());
+				var value = question.answers().get(answer).answer();
+				answers.setString(5, value == null ? null : value.name());
+				answers.addBatch();
+			}
+		}
+	}
+
+	private static List<GameSnapshot.Player> readPlayers(Connection connection, long id, Map<Integer, String> askOrder)
+			throws SQLException {
+		var players = new ArrayList<GameSnapshot.Player>();
+		try (var statement = connection.prepareStatement("SELECT * FROM players WHERE game_id = ? ORDER BY seat")) {
+			statement.setLong(1, id);
+			try (var rows = statement.executeQuery()) {
+				while (rows.next()) {
+					var player = rows.getString("player_id");
+					var state = rows.getString("player_state");
+					var answer = rows.getString("answer_value");
+					players.add(new GameSnapshot.Player(player, rows.getString("player_name"), rows.getString("character_name"),
+							state == null ? null : PlayerState.valueOf(state), answer == null ? null : QuestionAnswer.valueOf(answer)));
+					int askSeat = rows.getInt("ask_seat");
+					if (!rows.wasNull()) {
+						askOrder.put(askSeat, player);
+					}
+				}
+			}
+		}
+		return players;
+	}
+
+	private static Map<String, String> readSuggestions(Connection connection, long id) throws SQLException {
+		var suggestions = new HashMap<String, String>();
+		try (var statement = connection.prepareStatement("SELECT author_id, character_name FROM suggestions WHERE game_id = ?")) {
+			statement.setLong(1, id);
+			try (var rows = statement.executeQuery()) {
+				while (rows.next()) {
+					suggestions.put(rows.getString(1), rows.getString(2));
+				}
+			}
+		}
+		return suggestions;
+	}
+
+	private static List<GameSnapshot.Question> readHistory(Connection connection, long id) throws SQLException {
+		var history = new ArrayList<GameSnapshot.Question>();
+		try (var statement = connection.prepareStatement("SELECT * FROM questions WHERE game_id = ? ORDER BY question_no")) {
+			statement.setLong(1, id);
+			try (var rows = statement.executeQuery()) {
+				while (rows.next()) {
+					history.add(new GameSnapshot.Question(rows.getString("player_id"), rows.getString("question_type"),
+							rows.getString("question_text"), new ArrayList<>()));
+				}
+			}
+		}
+		try (var statement = connection.prepareStatement("SELECT * FROM answers WHERE game_id = ? ORDER BY question_no, answer_no")) {
+			statement.setLong(1, id);
+			try (var rows = statement.executeQuery()) {
+				while (rows.next()) {
+					var answer = rows.getString("answer_value");
+					history.get(rows.getInt("question_no")).answers().add(new GameSnapshot.Answer(rows.getString("player_id"),
+							answer == null ? null : QuestionAnswer.valueOf(answer)));
+				}
+			}
+		}
+		return history;
+	}
+
+	private static void setDuration(PreparedStatement statement, int index, Duration duration) throws SQLException {
+		if (duration == null) {
+			statement.setNull(index, Types.BIGINT);
+		} else {
+			statement.setLong(index, duration.toNanos());
+		}
+	}
+
+	private static Duration duration(ResultSet row, String column) throws SQLException {
+		long nanos = row.getLong(column);
+		return row.wasNull() ? null : Duration.ofNanos(nanos);
+	}
+
+	private static void setInt(PreparedStatement statement, int index, Integer value) throws SQLException {
+		if (value == null) {
+			statement.setNull(index, Types.INTEGER);
+		} else {
+			statement.setInt(index, value);
+		}
+	}
+
+}
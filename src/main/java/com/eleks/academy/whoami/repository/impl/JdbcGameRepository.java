@@ -0,0 +1,428 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.eleks.academy.whoami.configuration.JdbcProperties;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.utils.Base62;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores games, players and history in a relational database through {@link GameTables},
+ * while a {@link GameInMemoryRepository} serves as the near-cache of the games in play.
+ * <p>
+ * Requests never wait for the database. A changed game is only marked dirty, a writer
+ * thread takes the dirty games every flush interval, snapshots them in their mailboxes
+ * and writes a batch of them in one transaction, so a game changed many times between
+ * two flushes is written once (write-behind). A failed write is retried with the next flush.
+ * <p>
+ * On start only the ids of the stored games and their players are read, so the one game
+ * per player rule holds right away. A stored game is loaded into the cache when it is
+ * requested by id or by player, the writer loads the rest in the background batch by batch.
+ * Counts cover loaded games and players of the games not loaded yet.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "game.repository", name = "type", havingValue = "jdbc")
+public class JdbcGameRepository implements GameRepository {
+
+	private static final Duration SNAPSHOT_TIMEOUT = Duration.ofSeconds(5);
+
+	private final GameInMemoryRepository cache = new GameInMemoryRepository();
+
+	/*
+	 * Stored games not loaded into the cache yet, with their players
+	 */
+	private final Set<Long> storedGames = ConcurrentHashMap.newKeySet();
+
+	private final Map<String, Long> storedPlayers = new ConcurrentHashMap<>();
+
+	private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+	private final Queue<Long> deleted = new ConcurrentLinkedQueue<>();
+
+	private final String url;
+
+	private final String username;
+
+	private final String password;
+
+	private final int batch;
+
+	private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(command -> {
+		var thread = new Thread(command, "game-jdbc-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/*
+	 * Connection of the writer thread, reopened after a failure
+	 */
+	private Connection connection;
+
+	/*
+	 * Connection of the cache misses, used under its own lock
+	 */
+	private Connection reader;
+
+	@Autowired
+	public JdbcGameRepository(JdbcProperties properties) {
+		this(properties.url(), properties.username(), properties.password(), properties.flushInterval(), properties.batch());
+	}
+
+	public JdbcGameRepository(String url, String username, String password, Duration flushInterval, int batch) {
+		this.url = url;
+		this.username = username;
+		this.password = password;
+		this.batch = batch;
+		try {
+			this.reader = this.connect();
+			GameTables.create(this.reader);
+			this.reader.commit();
+			GameTables.readIndex(this.reader, this.storedGames::add, this.storedPlayers::put);
+		} catch (SQLException e) {
+			throw new GameException("Games can't be read from " + url + ": " + e.getMessage());
+		}
+		log.info("Found {} stored games with {} players", this.storedGames.size(), this.storedPlayers.size());
+		long interval = flushInterval.toMillis();
+		this.writer.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+	}
+
+	/*
+	 * Writes the games changed so far and closes the database
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.writer.shutdown();
+		try {
+			this.writer.awaitTermination(SNAPSHOT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		while (this.flushBatch() > 0) {
+			// write everything left
+		}
+		close(this.connection);
+		synchronized (this.storedGames) {
+			close(this.reader);
+		}
+	}
+
+	/*
+	 * Writes the games changed so far, on the writer thread
+	 *
+	 * @return completed once the games are written
+	 */
+	public CompletableFuture<Void> flushAll() {
+		return CompletableFuture.runAsync(() -> {
+			while (this.flushBatch() > 0) {
+				// write everything changed
+			}
+		}, this.writer);
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllAvailable(String player) {
+		return this.cache.findAllAvailable(player);
+	}
+
+	@Override
+	public SynchronousGame save(SynchronousGame game) {
+		boolean known = this.cache.findGameById(game.getId()).isPresent();
+		var saved = this.cache.save(game);
+		if (!known) {
+			this.dirty.add(game.getNumericId());
+			this.observe(game);
+		}
+		return saved;
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameById(String id) {
+		var cached = this.cache.findGameById(id);
+		return cached.isPresent() ? cached : this.load(Base62.decode(id));
+	}
+
+	@Override
+	public Map<String, SynchronousGame> findAvailableQuickGames() {
+		return this.cache.findAvailableQuickGames();
+	}
+
+	@Override
+	public Optional<SynchronousGame> joinQuickGame(String player, int maxPlayers) {
+		this.ensureNotStored(player);
+		return this.cache.joinQuickGame(player, maxPlayers);
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> findPlayerById(String player) {
+		return this.findGameByPlayer(player)
+				.flatMap(game -> game.findPlayer(player));
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameByPlayer(String player) {
+		var cached = this.cache.findGameByPlayer(player);
+		if (cached.isPresent()) {
+			return cached;
+		}
+		var stored = this.storedPlayers.get(player);
+		return stored == null ? Optional.empty() : this.load(stored);
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllGames(String player) {
+		return this.cache.findAllGames(player);
+	}
+
+	@Override
+	public SynchronousPlayer enrollToGame(String id, String player) {
+		this.ensureNotStored(player);
+		this.findGameById(id);
+		return this.cache.enrollToGame(id, player);
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> leaveGame(String id, String player) {
+		var game = this.findGameById(id);
+		var leftPlayer = this.cache.leaveGame(id, player);
+		game.filter(left -> this.cache.findGameById(id).isEmpty())
+				.ifPresent(left -> this.deleted.add(left.getNumericId()));
+		return leftPlayer;
+	}
+
+	@Override
+	public Integer getAllPlayers() {
+		return this.cache.getAllPlayers() + this.storedPlayers.size();
+	}
+
+	@Override
+	public long countGames() {
+		return this.cache.countGames() + this.storedGames.size();
+	}
+
+	@Override
+	public long countGames(Class<? extends GameState> state) {
+		return this.cache.countGames(state);
+	}
+
+	@Override
+	public void disbandGame(String id) {
+		this.findGameById(id).ifPresent(game -> {
+			this.cache.disbandGame(id);
+			this.deleted.add(game.getNumericId());
+		});
+	}
+
+	@Override
+	public Reclaimed reapIdleGames(Predicate<SynchronousGame> idle, int batch) {
+		var reclaimed = Reclaimed.NONE;
+		for (var game : this.cache.nextIdleGames(idle, batch)) {
+			var reclaimedGame = this.cache.reclaim(game);
+			if (reclaimedGame.games() > 0) {
+				this.deleted.add(game.getNumericId());
+			}
+			reclaimed = reclaimed.plus(reclaimedGame);
+		}
+		return reclaimed;
+	}
+
+	@Override
+	public Reclaimed countReclaimed() {
+		return this.cache.countReclaimed();
+	}
+
+	/*
+	 * Marks the game dirty on every change, it is written with the next flush
+	 */
+	private void observe(SynchronousGame game) {
+		game.addStateListener((changed, previous, next) -> this.dirty.add(changed.getNumericId()));
+		game.addEventListener(event -> this.dirty.add(game.getNumericId()));
+	}
+
+	/*
+	 * @throw PlayerAlreadyInGameException if the player is seated in a stored game not loaded yet
+	 */
+	private void ensureNotStored(String player) {
+		if (this.storedPlayers.containsKey(player)) {
+			throw new PlayerAlreadyInGameException("ENROLL-TO-GAME: [" + player + "] already in other game.");
+		}
+	}
+
+	/*
+	 * Loads the stored game into the cache. Its players stay in the stored index
+	 * until the game is in the cache, so the player is always found in one of them
+	 *
+	 * @return loaded game, empty if there is no such stored game
+	 */
+	private Optional<SynchronousGame> load(long id) {
+		if (!this.storedGames.contains(id)) {
+			return Optional.empty();
+		}
+		synchronized (this.storedGames) {
+			var cached = this.cache.findGameById(Base62.encode(id));
+			if (cached.isPresent() || !this.storedGames.contains(id)) {
+				return cached;
+			}
+			Optional<GameSnapshot> snapshot;
+			try {
+				snapshot = GameTables.read(this.reader, id);
+				this.reader.commit();
+			} catch (SQLException e) {
+				throw new GameException("Game [" + Base62.encode(id) + "] can't be read: " + e.getMessage());
+			}
+			var game = snapshot.map(PersistentGame::restore)
+					.map(restored -> this.cache.save(restored));
+			game.ifPresent(this::observe);
+			this.storedGames.remove(id);
+			snapshot.ifPresent(stored -> stored.players().forEach(player -> this.storedPlayers.remove(player.id(), id)));
+			return game;
+		}
+	}
+
+	private void flush() {
+		try {
+			this.flushBatch();
+			this.loadBatch();
+		} catch (RuntimeException e) {
+			log.warn("Writing games to the database failed", e);
+		}
+	}
+
+	/*
+	 * Loads the next batch of stored games, so games nobody asked for
+	 * reach the cache and the reaper too
+	 */
+	private void loadBatch() {
+		Iterator<Long> stored = this.storedGames.iterator();
+		for (int i = 0; i < this.batch && stored.hasNext(); i++) {
+			this.load(stored.next());
+		}
+	}
+
+	/*
+	 * Writes up to a batch of dirty games and all deleted ones in one transaction,
+	 * the games are put back to dirty if the write fails
+	 *
+	 * @return number of written and deleted games
+	 */
+	private int flushBatch() {
+		var ids = new ArrayList<Long>();
+		for (Iterator<Long> dirty = this.dirty.iterator(); dirty.hasNext() && ids.size() < this.batch; ) {
+			ids.add(dirty.next());
+			dirty.remove();
+		}
+		var deleted = new ArrayList<Long>();
+		Long id;
+		while ((id = this.deleted.poll()) != null) {
+			deleted.add(id);
+		}
+		if (ids.isEmpty() && deleted.isEmpty()) {
+			return 0;
+		}
+
+		var snapshots = this.snapshot(ids);
+		try {
+			if (this.connection == null) {
+				this.connection = this.connect();
+			}
+			GameTables.write(this.connection, snapshots, deleted);
+			this.connection.commit();
+		} catch (SQLException e) {
+			log.warn("{} games can't be written, retrying with the next flush", snapshots.size() + deleted.size(), e);
+			rollback(this.connection);
+			close(this.connection);
+			this.connection = null;
+			this.dirty.addAll(ids);
+			this.deleted.addAll(deleted);
+			return 0;
+		}
+		return ids.size() + deleted.size();
+	}
+
+	/*
+	 * Takes the snapshots of the cached games, a game that doesn't answer in time stays dirty
+	 */
+	private List<GameSnapshot> snapshot(List<Long> ids) {
+		var taken = new LinkedHashMap<Long, CompletableFuture<GameSnapshot>>(ids.size());
+		for (long id : ids) {
+			this.cache.findGameById(Base62.encode(id))
+					.ifPresent(game -> taken.put(id, game.submit(game::snapshot)));
+		}
+		long deadline = System.nanoTime() + SNAPSHOT_TIMEOUT.toNanos();
+		var snapshots = new ArrayList<GameSnapshot>(taken.size());
+		taken.forEach((id, snapshot) -> {
+			try {
+				snapshots.add(snapshot.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS));
+			} catch (ExecutionException | TimeoutException e) {
+				this.dirty.add(id);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.dirty.add(id);
+			}
+		});
+		return snapshots;
+	}
+
+	private Connection connect() throws SQLException {
+		var connection = DriverManager.getConnection(this.url, this.username, this.password);
+		connection.setAutoCommit(false);
+		return connection;
+	}
+
+	private static void rollback(Connection connection) {
+		try {
+			if (connection != null) {
+				connection.rollback();
+			}
+		} catch (SQLException e) {
+			// the connection is closed right after
+		}
+	}
+
+	private static void close(Connection connection) {
+		try {
+			if (connection != null) {
+				connection.close();
+			}
+		} catch (SQLException e) {
+			log.warn("Database connection can't be closed", e);
+		}
+	}
+
+}
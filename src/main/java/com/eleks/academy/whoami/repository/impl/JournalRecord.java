@@ -0,0 +1,180 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32C;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+
+/**
+ * Single record of the {@link GameJournal}: a command a player sent to a game,
+ * a snapshot of a game or the end of a game.
+ * <p>
+ * On disk a record is its payload length, the CRC32C of the payload and the payload:
+ * type, game id, command, three nullable strings and the nullable snapshot bytes.
+ * A record that is cut short or doesn't match its checksum ends the journal.
+ *
+ * @param command  command of a COMMAND record
+ * @param player   player that sent the command
+ * @param first    first argument of the command: name, question, guess or answer
+ * @param second   second argument of the command: suggested character
+ * @param snapshot JSON of the GameSnapshot of a SNAPSHOT record
+ */
+record JournalRecord(Type type, long gameId, Command command, String player, String first, String second,
+					 byte[] snapshot) {
+
+	enum Type {
+
+		SNAPSHOT, COMMAND, DISBAND
+
+	}
+
+	enum Command {
+
+		ENROLL, LEAVE, START, SUGGEST, ASK, ANSWER, GUESS, ANSWER_GUESS
+
+	}
+
+	/*
+	 * Length and checksum in front of every record
+	 */
+	static final int HEADER = 2 * Integer.BYTES;
+
+	/*
+	 * Records above it can only be garbage of a torn write
+	 */
+	static final int MAX_PAYLOAD = 64 * 1024 * 1024;
+
+	private static final Type[] TYPES = Type.values();
+
+	private static final Command[] COMMANDS = Command.values();
+
+	static JournalRecord snapshot(long gameId, byte[] snapshot) {
+		return new JournalRecord(Type.SNAPSHOT, gameId, null, null, null, null, snapshot);
+	}
+
+	static JournalRecord disband(long gameId) {
+		return new JournalRecord(Type.DISBAND, gameId, null, null, null, null, null);
+	}
+
+	static JournalRecord command(long gameId, Command command, String player) {
+		return command(gameId, command, player, null, null);
+	}
+
+	static JournalRecord command(long gameId, Command command, String player, String first) {
+		return command(gameId, command, player, first, null);
+	}
+
+	static JournalRecord command(long gameId, Command command, String player, String first, String second) {
+		return new JournalRecord(Type.COMMAND, gameId, command, player, first, second, null);
+	}
+
+	/*
+	 * Replays the command on the game, the same way it ran when it was written
+	 */
+	void applyTo(SynchronousGame game) {
+		switch (this.command) {
+			case ENROLL -> game.enrollToGame(this.player);
+			case LEAVE -> game.leaveGame(this.player);
+			case START -> game.start();
+			case SUGGEST -> game.suggestCharacter(this.player, new CharacterSuggestion(this.first, this.second));
+			case ASK -> game.askQuestion(this.player, this.first);
+			case ANSWER -> game.answerQuestion(this.player, QuestionAnswer.valueOf(this.first));
+			case GUESS -> game.submitGuess(this.player, this.first);
+			case ANSWER_GUESS -> game.answerGuess(this.player, GuessAnswer.valueOf(this.first));
+		}
+	}
+
+	/*
+	 * @return header and payload, ready to be written
+	 */
+	ByteBuffer encode() {
+		var player = bytes(this.player);
+		var first = bytes(this.first);
+		var second = bytes(this.second);
+		int payload = Byte.BYTES + Long.BYTES + Byte.BYTES + 4 * Integer.BYTES
+				+ length(player) + length(first) + length(second) + length(this.snapshot);
+		var buffer = ByteBuffer.allocate(HEADER + payload)
+				.putInt(payload)
+				.putInt(0)
+				.put((byte) this.type.ordinal())
+				.putLong(this.gameId)
+				.put((byte) (this.command == null ? -1 : this.command.ordinal()));
+		put(buffer, player);
+		put(buffer, first);
+		put(buffer, second);
+		put(buffer, this.snapshot);
+		var checksum = new CRC32C();
+		checksum.update(buffer.array(), HEADER, payload);
+		return buffer.putInt(Integer.BYTES, (int) checksum.getValue()).flip();
+	}
+
+	/*
+	 * Reads the record at the position of the buffer and moves the position past it
+	 *
+	 * @return record, null if there is no whole valid record at the position
+	 */
+	static JournalRecord decode(ByteBuffer buffer) {
+		if (buffer.remaining() < HEADER) {
+			return null;
+		}
+		int start = buffer.position();
+		int payload = buffer.getInt(start);
+		if (payload <= 0 || payload > MAX_PAYLOAD || buffer.remaining() < HEADER + payload) {
+			return null;
+		}
+		var checksum = new CRC32C();
+		checksum.update(buffer.slice(start + HEADER, payload));
+		if ((int) checksum.getValue() != buffer.getInt(start + Integer.BYTES)) {
+			return null;
+		}
+		var record = buffer.slice(start + HEADER, payload);
+		try {
+			int type = record.get();
+			long gameId = record.getLong();
+			int command = record.get();
+			var decoded = new JournalRecord(TYPES[type], gameId, command < 0 ? null : COMMANDS[command],
+					string(record), string(record), string(record), get(record));
+			buffer.position(start + HEADER + payload);
+			return decoded;
+		} catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			return null;
+		}
+	}
+
+	private static byte[] bytes(String value) {
+		return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static int length(byte[] bytes) {
+		return bytes == null ? 0 : bytes.length;
+	}
+
+	private static void put(ByteBuffer buffer, byte[] bytes) {
+		if (bytes == null) {
+			buffer.putInt(-1);
+		} else {
+			buffer.putInt(bytes.length).put(bytes);
+		}
+	}
+
+	private static byte[] get(ByteBuffer buffer) {
+		int length = buffer.getInt();
+		if (length < 0) {
+			return null;
+		}
+		var bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static String string(ByteBuffer buffer) {
+		var bytes = get(buffer);
+		return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+	}
+
+}
@@ -0,0 +1,324 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import com.eleks.academy.whoami.core.GameStateListener;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.event.GameEventType;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.GameHistory;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import com.eleks.academy.whoami.model.response.TurnDetails;
+import com.eleks.academy.whoami.repository.impl.JournalRecord.Command;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Game that writes every command of its players to the {@link GameJournal} before
+ * running it, so the game can be rebuilt by running the same commands again.
+ * <p>
+ * Whatever the game decides on its own can't be replayed that way: characters are
+ * assigned at random and deadlines move the game on by time. So a snapshot of the
+ * game is written after every change of its state and after every change made
+ * outside of a command. A snapshot is also written once enough commands piled up
+ * after the last one, which bounds the commands replayed per game.
+ * <p>
+ * Commands and snapshots are written from the game mailbox, so the journal holds them
+ * in the order they ran. A command is written even if it fails, replaying it fails the
+ * same way.
+ */
+final class JournaledGame implements SynchronousGame {
+
+	private final SynchronousGame game;
+
+	private final GameJournal journal;
+
+	private final ObjectMapper objectMapper;
+
+	private final int snapshotEvery;
+
+	/*
+	 * Records written since the last snapshot
+	 */
+	private int records;
+
+	private long snapshotVersion = -1;
+
+	private boolean inCommand;
+
+	/*
+	 * The running command changed the state, its snapshot is written once the command is done
+	 */
+	private boolean changedInCommand;
+
+	private boolean disbanded;
+
+	JournaledGame(SynchronousGame game, GameJournal journal, ObjectMapper objectMapper, int snapshotEvery) {
+		this.game = game;
+		this.journal = journal;
+		this.objectMapper = objectMapper;
+		this.snapshotEvery = snapshotEvery;
+		game.addStateListener((changed, previous, next) -> {
+			if (this.inCommand) {
+				this.changedInCommand = true;
+			} else {
+				this.writeSnapshot(false);
+			}
+		});
+		game.addEventListener(event -> {
+			if (!this.inCommand && !event.type().isFinal()) {
+				this.writeSnapshot(false);
+			}
+		});
+	}
+
+	/*
+	 * Writes a snapshot of the game, even if nothing changed since the last one
+	 *
+	 * @return completed with the size of the snapshot once it is queued to the journal
+	 */
+	CompletableFuture<Integer> checkpoint() {
+		return this.game.submit(() -> this.writeSnapshot(true));
+	}
+
+	/*
+	 * Writes the end of the game, nothing is written after it. Doesn't wait for the
+	 * game mailbox, the game may be suspended while it is moved to other node
+	 */
+	synchronized void disbanded() {
+		if (!this.disbanded) {
+			this.journal.append(JournalRecord.disband(this.game.getNumericId()));
+			this.disbanded = true;
+		}
+	}
+
+	@Override
+	public String getId() {
+		return this.game.getId();
+	}
+
+	@Override
+	public long getNumericId() {
+		return this.game.getNumericId();
+	}
+
+	@Override
+	public GameState getState() {
+		return this.game.getState();
+	}
+
+	@Override
+	public long getVersion() {
+		return this.game.getVersion();
+	}
+
+	@Override
+	public boolean isStateChangedSince(long version) {
+		return this.game.isStateChangedSince(version);
+	}
+
+	@Override
+	public List<PlayerWithState> getPlayersChangedSince(long version) {
+		return this.game.getPlayersChangedSince(version);
+	}
+
+	@Override
+	public List<String> getPlayersLeftSince(long version) {
+		return this.game.getPlayersLeftSince(version);
+	}
+
+	@Override
+	public int getMaxPlayers() {
+		return this.game.getMaxPlayers();
+	}
+
+	@Override
+	public Duration getIdleTime() {
+		return this.game.getIdleTime();
+	}
+
+	@Override
+	public void addStateListener(GameStateListener listener) {
+		this.game.addStateListener((changed, previous, next) -> listener.onStateChanged(this, previous, next));
+	}
+
+	@Override
+	public void addEventListener(GameEventListener listener) {
+		this.game.addEventListener(listener);
+	}
+
+	@Override
+	public void removeEventListener(GameEventListener listener) {
+		this.game.removeEventListener(listener);
+	}
+
+	@Override
+	public <T> CompletableFuture<T> submit(Supplier<T> command) {
+		return this.game.submit(command);
+	}
+
+	@Override
+	public CompletableFuture<GameSnapshot> suspend() {
+		return this.game.suspend();
+	}
+
+	@Override
+	public GameSnapshot snapshot() {
+		return this.game.snapshot();
+	}
+
+	@Override
+	public void resume() {
+		this.game.resume();
+	}
+
+	@Override
+	public void moved(int node) {
+		this.game.moved(node);
+	}
+
+	@Override
+	public CompletableFuture<List<PlayerWithState>> disband() {
+		return this.game.disband();
+	}
+
+	@Override
+	public List<PlayerWithState> disbandNow() {
+		return this.game.disbandNow();
+	}
+
+	@Override
+	public List<PlayerWithState> getPlayersList() {
+		return this.game.getPlayersList();
+	}
+
+	@Override
+	public GameHistory getGameHistory() {
+		return this.game.getGameHistory();
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> findPlayer(String player) {
+		return this.game.findPlayer(player);
+	}
+
+	@Override
+	public TurnDetails findTurnInfo(String player) {
+		return this.game.findTurnInfo(player);
+	}
+
+	@Override
+	public SynchronousPlayer enrollToGame(String player) {
+		return this.journaled(JournalRecord.command(this.getNumericId(), Command.ENROLL, player),
+				() -> this.game.enrollToGame(player));
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> leaveGame(String player) {
+		return this.journaled(JournalRecord.command(this.getNumericId(), Command.LEAVE, player),
+				() -> this.game.leaveGame(player));
+	}
+
+	@Override
+	public SynchronousGame start() {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.START, null), this.game::start);
+		return this;
+	}
+
+	@Override
+	public void suggestCharacter(String player, CharacterSuggestion suggestion) {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.SUGGEST, player,
+				suggestion.getName(), suggestion.getCharacter()), () -> {
+			this.game.suggestCharacter(player, suggestion);
+			return null;
+		});
+	}
+
+	@Override
+	public void askQuestion(String player, String message) {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.ASK, player, message), () -> {
+			this.game.askQuestion(player, message);
+			return null;
+		});
+	}
+
+	@Override
+	public void answerQuestion(String player, QuestionAnswer answer) {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.ANSWER, player, answer.name()), () -> {
+			this.game.answerQuestion(player, answer);
+			return null;
+		});
+	}
+
+	@Override
+	public void submitGuess(String player, String guess) {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.GUESS, player, guess), () -> {
+			this.game.submitGuess(player, guess);
+			return null;
+		});
+	}
+
+	@Override
+	public void answerGuess(String player, GuessAnswer answer) {
+		this.journaled(JournalRecord.command(this.getNumericId(), Command.ANSWER_GUESS, player, answer.name()), () -> {
+			this.game.answerGuess(player, answer);
+			return null;
+		});
+	}
+
+	/*
+	 * Writes the command and runs it, called from the game mailbox
+	 */
+	private <T> T journaled(JournalRecord command, Supplier<T> action) {
+		this.append(command);
+		this.inCommand = true;
+		try {
+			return action.get();
+		} finally {
+			this.inCommand = false;
+			if (this.changedInCommand || this.records >= this.snapshotEvery) {
+				this.changedInCommand = false;
+				this.writeSnapshot(false);
+			}
+		}
+	}
+
+	private synchronized void append(JournalRecord record) {
+		if (!this.disbanded) {
+			this.journal.append(record);
+			this.records++;
+		}
+	}
+
+	/*
+	 * @return size of the written snapshot, zero if it is skipped
+	 */
+	private int writeSnapshot(boolean force) {
+		long version = this.game.getVersion();
+		if (!force && version == this.snapshotVersion) {
+			return 0;
+		}
+		byte[] snapshot;
+		try {
+			snapshot = this.objectMapper.writeValueAsBytes(this.game.snapshot());
+		} catch (JsonProcessingException e) {
+			throw new UncheckedIOException(e);
+		}
+		this.append(JournalRecord.snapshot(this.getNumericId(), snapshot));
+		this.records = 0;
+		this.snapshotVersion = version;
+		return snapshot.length;
+	}
+
+}
@@ -0,0 +1,309 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.eleks.academy.whoami.configuration.JournalProperties;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps games in memory like {@link GameInMemoryRepository} and writes every command
+ * of every game to a {@link GameJournal}, so games survive a restart of the node.
+ * <p>
+ * On start the games are rebuilt from the journal: every game from its newest snapshot,
+ * then the commands written after that snapshot are run again. Games run their commands
+ * in their own mailboxes, so games are rebuilt in parallel.
+ * <p>
+ * The journal doesn't grow forever. Once a segment is full the repository writes a fresh
+ * snapshot of every game to the next segment, after that older segments hold nothing
+ * needed to rebuild the games and are deleted. Segments are sized on top of the snapshots
+ * of the last checkpoint, and a segment filled while a checkpoint runs doesn't start one
+ * more, so the checkpoints don't keep rolling the journal themselves.
+ */
+@Slf4j
+@Repository
+@ConditionalOnProperty(prefix = "game.repository", name = "type", havingValue = "journal")
+public class JournaledGameRepository implements GameRepository {
+
+	private static final Duration CHECKPOINT_TIMEOUT = Duration.ofSeconds(30);
+
+	private final GameInMemoryRepository games = new GameInMemoryRepository();
+
+	private final ObjectMapper objectMapper;
+
+	private final int snapshotEvery;
+
+	private final ExecutorService checkpoints = Executors.newSingleThreadExecutor(command -> {
+		var thread = new Thread(command, "journal-checkpoint");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final GameJournal journal;
+
+	/*
+	 * Set while a checkpoint is queued or runs
+	 */
+	private final AtomicBoolean checkpointing = new AtomicBoolean();
+
+	@Autowired
+	public JournaledGameRepository(JournalProperties properties, ObjectMapper objectMapper) {
+		this(properties.directory(), properties.segmentSize().toBytes(), properties.snapshotEvery(), objectMapper);
+	}
+
+	public JournaledGameRepository(Path directory, long segmentSize, int snapshotEvery, ObjectMapper objectMapper) {
+		this.objectMapper = objectMapper;
+		this.snapshotEvery = snapshotEvery;
+		this.journal = new GameJournal(directory, segmentSize,
+				segment -> {
+					if (this.checkpointing.compareAndSet(false, true)) {
+						this.checkpoints.execute(() -> this.checkpoint(segment));
+					}
+				});
+		long started = System.nanoTime();
+		int recovered = this.recover();
+		this.checkpoint(this.journal.start());
+		log.info("Recovered {} games from the journal in {} ms", recovered,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+	}
+
+	/*
+	 * Writes and syncs the records written so far, no game is journaled after that
+	 */
+	@PreDestroy
+	public void shutdown() {
+		this.checkpoints.shutdownNow();
+		this.journal.close();
+	}
+
+	/*
+	 * @return completed once everything written so far is synced
+	 */
+	public CompletableFuture<Void> flush() {
+		return this.journal.flush();
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllAvailable(String player) {
+		return this.games.findAllAvailable(player);
+	}
+
+	/*
+	 * Saves the game and writes its first snapshot, commands run on the game afterwards are journaled
+	 */
+	@Override
+	public SynchronousGame save(SynchronousGame game) {
+		if (game instanceof JournaledGame) {
+			return this.games.save(game);
+		}
+		var journaled = new JournaledGame(game, this.journal, this.objectMapper, this.snapshotEvery);
+		this.games.save(journaled);
+		GameMailbox.await(journaled.checkpoint());
+		return journaled;
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameById(String id) {
+		return this.games.findGameById(id);
+	}
+
+	@Override
+	public Map<String, SynchronousGame> findAvailableQuickGames() {
+		return this.games.findAvailableQuickGames();
+	}
+
+	@Override
+	public Optional<SynchronousGame> joinQuickGame(String player, int maxPlayers) {
+		return this.games.joinQuickGame(player, maxPlayers);
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> findPlayerById(String player) {
+		return this.games.findPlayerById(player);
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameByPlayer(String player) {
+		return this.games.findGameByPlayer(player);
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllGames(String player) {
+		return this.games.findAllGames(player);
+	}
+
+	@Override
+	public SynchronousPlayer enrollToGame(String id, String player) {
+		return this.games.enrollToGame(id, player);
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> leaveGame(String id, String player) {
+		var game = this.games.findGameById(id);
+		var leftPlayer = this.games.leaveGame(id, player);
+		game.filter(left -> this.games.findGameById(id).isEmpty())
+				.ifPresent(left -> ((JournaledGame) left).disbanded());
+		return leftPlayer;
+	}
+
+	@Override
+	public Integer getAllPlayers() {
+		return this.games.getAllPlayers();
+	}
+
+	@Override
+	public long countGames() {
+		return this.games.countGames();
+	}
+
+	@Override
+	public long countGames(Class<? extends GameState> state) {
+		return this.games.countGames(state);
+	}
+
+	@Override
+	public void disbandGame(String id) {
+		this.games.findGameById(id).ifPresent(game -> {
+			this.games.disbandGame(id);
+			((JournaledGame) game).disbanded();
+		});
+	}
+
+	@Override
+	public Reclaimed reapIdleGames(Predicate<SynchronousGame> idle, int batch) {
+		var reclaimed = Reclaimed.NONE;
+		for (var game : this.games.nextIdleGames(idle, batch)) {
+			var reclaimedGame = this.games.reclaim(game);
+			if (reclaimedGame.games() > 0) {
+				((JournaledGame) game).disbanded();
+			}
+			reclaimed = reclaimed.plus(reclaimedGame);
+		}
+		return reclaimed;
+	}
+
+	@Override
+	public Reclaimed countReclaimed() {
+		return this.games.countReclaimed();
+	}
+
+	/*
+	 * Rebuilds the games of the journal, before anything new is written to it
+	 *
+	 * @return number of rebuilt games
+	 */
+	private int recover() {
+		var logs = new HashMap<Long, GameLog>();
+		this.journal.replay(record -> {
+			switch (record.type()) {
+				case SNAPSHOT -> logs.put(record.gameId(), new GameLog(record.snapshot()));
+				case COMMAND -> {
+					var gameLog = logs.get(record.gameId());
+					if (gameLog != null) {
+						gameLog.commands.add(record);
+					}
+				}
+				case DISBAND -> logs.remove(record.gameId());
+			}
+		});
+
+		var restored = new ArrayList<CompletableFuture<SynchronousGame>>(logs.size());
+		for (var gameLog : logs.values()) {
+			PersistentGame game;
+			try {
+				game = PersistentGame.restore(this.objectMapper.readValue(gameLog.snapshot, GameSnapshot.class));
+			} catch (IOException | RuntimeException e) {
+				log.warn("Game can't be rebuilt from its snapshot, the game is dropped", e);
+				continue;
+			}
+			restored.add(game.submit(() -> {
+				gameLog.commands.forEach(command -> replay(game, command));
+				return game;
+			}));
+		}
+		logs.clear();
+
+		for (var game : restored) {
+			this.games.save(new JournaledGame(GameMailbox.await(game), this.journal, this.objectMapper, this.snapshotEvery));
+		}
+		return restored.size();
+	}
+
+	private static void replay(SynchronousGame game, JournalRecord command) {
+		try {
+			command.applyTo(game);
+		} catch (RuntimeException e) {
+			// the command failed the same way when it was written
+		}
+	}
+
+	/*
+	 * Writes a snapshot of every game to the segments from the given one on,
+	 * then deletes older segments, nothing in them is needed to rebuild the games.
+	 * Older segments are kept if any game didn't take its snapshot in time
+	 */
+	private synchronized void checkpoint(long segment) {
+		var snapshots = this.games.findAllGames(null)
+				.map(game -> ((JournaledGame) game).checkpoint())
+				.toList();
+		try {
+			CompletableFuture.allOf(snapshots.toArray(CompletableFuture[]::new))
+					.get(CHECKPOINT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			this.journal.reserve(snapshots.stream().mapToLong(CompletableFuture::join).sum());
+			this.journal.flush().get(CHECKPOINT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+			this.journal.deleteBefore(segment);
+		} catch (ExecutionException | TimeoutException e) {
+			log.warn("Journal checkpoint at segment {} failed, older segments are kept", segment, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			this.checkpointing.set(false);
+		}
+	}
+
+	/*
+	 * Newest snapshot of a game and the commands written after it
+	 */
+	private static final class GameLog {
+
+		private final byte[] snapshot;
+
+		private final List<JournalRecord> commands = new ArrayList<>();
+
+		private GameLog(byte[] snapshot) {
+			this.snapshot = snapshot;
+		}
+
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+
+/**
+ * Matchmaking lobby of the rooms that are still waiting for players.
+ * <p>
+ * Open rooms are queued by their size and every seat in a room is claimed
+ * with a compare-and-set on the free seats counter, so concurrent requests
+ * can never over-fill a room. Full and closed rooms are dropped from the
+ * queues lazily, when a claim runs into them.
+ */
+class QuickMatchLobby {
+
+	private final Map<Integer, Queue<Room>> queues = new ConcurrentHashMap<>();
+
+	private final Map<String, Room> rooms = new ConcurrentHashMap<>();
+
+	/*
+	 * Puts the room into the lobby with all its currently free seats
+	 */
+	void open(SynchronousGame game) {
+		var room = new Room(game, game.getMaxPlayers() - game.getPlayersList().size());
+		if (this.rooms.putIfAbsent(game.getId(), room) == null && room.hasFreeSeats()) {
+			this.queueOf(game.getMaxPlayers()).offer(room);
+		}
+	}
+
+	/*
+	 * Removes the room from the lobby, its seats can not be claimed anymore
+	 */
+	void close(String id) {
+		var room = this.rooms.remove(id);
+		if (room != null) {
+			room.freeSeats.set(0);
+		}
+	}
+
+	/*
+	 * Claims a seat in the first open room of the requested size
+	 *
+	 * @return room with a seat claimed for the caller or empty if there is no open room
+	 */
+	Optional<SynchronousGame> claim(int maxPlayers) {
+		var queue = this.queues.get(maxPlayers);
+		if (queue == null) {
+			return Optional.empty();
+		}
+		Room room;
+		while ((room = queue.peek()) != null) {
+			if (room.tryClaim()) {
+				if (!room.hasFreeSeats()) {
+					queue.remove(room);
+				}
+				return Optional.of(room.game);
+			}
+			queue.remove(room);
+		}
+		return Optional.empty();
+	}
+
+	/*
+	 * Claims a seat in the room with the given id
+	 *
+	 * @return {@code true} if seat was claimed or {@code false} if room is full or not in the lobby
+	 */
+	boolean claim(String id) {
+		var room = this.rooms.get(id);
+		if (room == null || !room.tryClaim()) {
+			return false;
+		}
+		if (!room.hasFreeSeats()) {
+			this.queueOf(room.game.getMaxPlayers()).remove(room);
+		}
+		return true;
+	}
+
+	/*
+	 * Gives the seat back to the room, the room gets back to the queue
+	 * in case it was full before
+	 */
+	void release(String id) {
+		var room = this.rooms.get(id);
+		if (room != null && room.freeSeats.getAndIncrement() == 0) {
+			this.queueOf(room.game.getMaxPlayers()).offer(room);
+		}
+	}
+
+	Map<String, SynchronousGame> findOpenRooms() {
+		return this.rooms.values()
+				.stream()
+				.filter(Room::hasFreeSeats)
+				.collect(Collectors.toMap(room -> room.game.getId(), room -> room.game));
+	}
+
+	private Queue<Room> queueOf(int maxPlayers) {
+		return this.queues.computeIfAbsent(maxPlayers, size -> new ConcurrentLinkedQueue<>());
+	}
+
+	private static final class Room {
+
+		private final SynchronousGame game;
+
+		private final AtomicInteger freeSeats;
+
+		private Room(SynchronousGame game, int freeSeats) {
+			this.game = game;
+			this.freeSeats = new AtomicInteger(freeSeats);
+		}
+
+		private boolean hasFreeSeats() {
+			return this.freeSeats.get() > 0;
+		}
+
+		private boolean tryClaim() {
+			int seats;
+			do {
+				seats = this.freeSeats.get();
+				if (seats <= 0) {
+					return false;
+				}
+			} while (!this.freeSeats.compareAndSet(seats, seats - 1));
+			return true;
+		}
+
+	}
+
+}
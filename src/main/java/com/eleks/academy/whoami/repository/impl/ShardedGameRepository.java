@@ -0,0 +1,253 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import com.eleks.academy.whoami.configuration.RepositoryProperties;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.utils.Base62;
+import com.eleks.academy.whoami.utils.SymbolTable;
+
+/**
+ * Splits games into shards by game id hash, every shard is a
+ * {@link GameInMemoryRepository} with its own player index, lobby and counters.
+ * <p>
+ * The only structure shared between shards is the player -> shard map, it keeps
+ * the "one game per player" rule for games that live in different shards.
+ * Queries that need every game run on the shards in parallel.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "game.repository", name = "type", havingValue = "sharded")
+public class ShardedGameRepository implements GameRepository {
+
+	private final GameInMemoryRepository[] shards;
+
+	private final Map<String, Integer> playerShards = new ConcurrentHashMap<>();
+
+	private final ForkJoinPool pool;
+
+	public ShardedGameRepository(RepositoryProperties properties) {
+		this(properties.shards());
+	}
+
+	public ShardedGameRepository(int shards) {
+		this.shards = new GameInMemoryRepository[shards];
+		Arrays.setAll(this.shards, shard -> new GameInMemoryRepository());
+		this.pool = new ForkJoinPool(Math.min(shards, Runtime.getRuntime().availableProcessors()));
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.pool.shutdown();
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllAvailable(String player) {
+		return this.collectShards(shard -> shard.findAllAvailable(player));
+	}
+
+	@Override
+	public Stream<SynchronousGame> findAllGames(String player) {
+		return this.collectShards(shard -> shard.findAllGames(player));
+	}
+
+	@Override
+	public SynchronousGame save(SynchronousGame game) {
+		int shard = this.shardOf(game.getId());
+		game.getPlayersList()
+				.forEach(player -> this.playerShards.put(player.getPlayer().getId(), shard));
+		return this.shards[shard].save(game);
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameById(String id) {
+		return this.shards[this.shardOf(id)].findGameById(id);
+	}
+
+	@Override
+	public Map<String, SynchronousGame> findAvailableQuickGames() {
+		return this.pool.submit(() -> Arrays.stream(this.shards)
+						.parallel()
+						.flatMap(shard -> shard.findAvailableQuickGames().entrySet().stream())
+						.collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue)))
+				.join();
+	}
+
+	@Override
+	public Optional<SynchronousGame> joinQuickGame(String player, int maxPlayers) {
+		int first = ThreadLocalRandom.current().nextInt(this.shards.length);
+		for (int i = 0; i < this.shards.length; i++) {
+			int shard = (first + i) % this.shards.length;
+			this.claimPlayer(player, shard);
+			try {
+				var game = this.shards[shard].joinQuickGame(player, maxPlayers);
+				if (game.isPresent()) {
+					return game;
+				}
+			} catch (RuntimeException e) {
+				this.playerShards.remove(player, shard);
+				throw e;
+			}
+			this.playerShards.remove(player, shard);
+		}
+		return Optional.empty();
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> findPlayerById(String player) {
+		return this.shardOfPlayer(player)
+				.flatMap(shard -> shard.findPlayerById(player));
+	}
+
+	@Override
+	public Optional<SynchronousGame> findGameByPlayer(String player) {
+		return this.shardOfPlayer(player)
+				.flatMap(shard -> shard.findGameByPlayer(player));
+	}
+
+	@Override
+	public SynchronousPlayer enrollToGame(String id, String player) {
+		int shard = this.shardOf(id);
+		this.claimPlayer(player, shard);
+		try {
+			return this.shards[shard].enrollToGame(id, player);
+		} catch (RuntimeException e) {
+			this.playerShards.remove(player, shard);
+			throw e;
+		}
+	}
+
+	@Override
+	public Optional<SynchronousPlayer> leaveGame(String id, String player) {
+		int shard = this.shardOf(id);
+		var leftPlayer = this.shards[shard].leaveGame(id, player);
+		leftPlayer.ifPresent(left -> this.playerShards.remove(player, shard));
+		return leftPlayer;
+	}
+
+	@Override
+	public Integer getAllPlayers() {
+		return Arrays.stream(this.shards)
+				.mapToInt(GameInMemoryRepository::getAllPlayers)
+				.sum();
+	}
+
+	@Override
+	public long countGames() {
+		return Arrays.stream(this.shards)
+				.mapToLong(GameInMemoryRepository::countGames)
+				.sum();
+	}
+
+	@Override
+	public long countGames(Class<? extends GameState> state) {
+		return Arrays.stream(this.shards)
+				.mapToLong(shard -> shard.countGames(state))
+				.sum();
+	}
+
+	@Override
+	public void disbandGame(String id) {
+		int shard = this.shardOf(id);
+		this.shards[shard].findGameById(id)
+				.ifPresent(game -> {
+					var players = game.getPlayersList();
+					this.shards[shard].disbandGame(id);
+					this.unindex(game, players, shard);
+				});
+	}
+
+	/*
+	 * Splits the batch between the shards, so every shard is walked at the same pace
+	 */
+	@Override
+	public Reclaimed reapIdleGames(Predicate<SynchronousGame> idle, int batch) {
+		int perShard = Math.max(1, batch / this.shards.length);
+		var reclaimed = Reclaimed.NONE;
+		for (int shard = 0; shard < this.shards.length; shard++) {
+			for (var game : this.shards[shard].nextIdleGames(idle, perShard)) {
+				var players = game.getPlayersList();
+				var reclaimedGame = this.shards[shard].reclaim(game);
+				if (reclaimedGame.games() > 0) {
+					this.unindex(game, players, shard);
+				}
+				reclaimed = reclaimed.plus(reclaimedGame);
+			}
+		}
+		return reclaimed;
+	}
+
+	@Override
+	public Reclaimed countReclaimed() {
+		return Arrays.stream(this.shards)
+				.map(GameInMemoryRepository::countReclaimed)
+				.reduce(Reclaimed.NONE, Reclaimed::plus);
+	}
+
+	private void claimPlayer(String player, int shard) {
+		if (this.playerShards.putIfAbsent(SymbolTable.SHARED.intern(player), shard) != null) {
+			throw new PlayerAlreadyInGameException("ENROLL-TO-GAME: [" + player + "] already in other game.");
+		}
+	}
+
+	/*
+	 * Drops players of the disbanded game from the index. Players enrolled after the seated ones
+	 * were read are dropped once the disband runs in the game mailbox, the seated ones right away:
+	 * they may join other game of the shard before that
+	 */
+	private void unindex(SynchronousGame game, List<PlayerWithState> seated, int shard) {
+		var seatedIds = seated.stream()
+				.map(player -> player.getPlayer().getId())
+				.collect(Collectors.toSet());
+		seatedIds.forEach(player -> this.playerShards.remove(player, shard));
+		game.disband().thenAccept(players -> players.stream()
+				.map(player -> player.getPlayer().getId())
+				.filter(player -> !seatedIds.contains(player))
+				.forEach(player -> this.playerShards.remove(player, shard)));
+	}
+
+	private Optional<GameInMemoryRepository> shardOfPlayer(String player) {
+		return Optional.ofNullable(this.playerShards.get(player))
+				.map(shard -> this.shards[shard]);
+	}
+
+	/*
+	 * Shards by the numeric id, its sequence and node bits are mixed into the whole hash
+	 * so consecutive ids spread over the shards. Ids that are not base-62 longs can't be
+	 * found in any shard, they still get one to look in
+	 */
+	private int shardOf(String id) {
+		long numericId = Base62.decode(id);
+		int hash = numericId < 0 ? id.hashCode() : Long.hashCode(numericId * 0x9E3779B97F4A7C15L);
+		return Math.floorMod(hash ^ (hash >>> 16), this.shards.length);
+	}
+
+	private Stream<SynchronousGame> collectShards(Function<GameInMemoryRepository, Stream<SynchronousGame>> query) {
+		List<SynchronousGame> games = this.pool.submit(() -> Arrays.stream(this.shards)
+						.parallel()
+						.flatMap(query)
+						.collect(Collectors.toList()))
+				.join();
+		return games.stream();
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.eleks.academy.whoami.service;
+
+import com.eleks.academy.whoami.model.request.GameCommand;
+import com.eleks.academy.whoami.model.response.CommandResult;
+
+import java.util.List;
+
+public interface GameBatchService {
+
+	/*
+	 * Applies the commands, commands of the same game in the given order
+	 *
+	 * @return result of every command, in the order of the commands
+	 */
+	List<CommandResult> execute(List<GameCommand> commands);
+
+}
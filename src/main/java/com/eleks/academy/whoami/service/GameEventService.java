@@ -0,0 +1,18 @@
+package com.eleks.academy.whoami.service;
+
+import java.util.Optional;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface GameEventService {
+
+	/*
+	 * Subscribes to the events of the game
+	 *
+	 * @param player seated in the game, kept seen while the subscription is open, may be null
+	 * @return emitter the events of the game are pushed to,
+	 * empty if there is no game with such id
+	 */
+	Optional<SseEmitter> subscribe(String id, String player);
+
+}
@@ -14,16 +14,30 @@ public interface GameService {
 
 	Integer getAllPlayersCount();
 
+	GameStats getGameStats();
+
 	List<GameShortInfo> findAvailableGames(String player);
 
 	Optional<GameDetails> findByIdAndPlayer(String id, String player);
 
+	boolean isSeated(String id, String player);
+
+	Optional<GameDelta> findChangesByIdAndPlayer(String id, String player, long sinceVersion);
+
+	Optional<GameDetails> findByPlayer(String player);
+
 	List<AllFields> findAllGamesInfo(String player);
 
 	Optional<TurnDetails> findTurnInfo(String id, String player);
 
+	Optional<GameDelta> findTurnChanges(String id, String player, long sinceVersion);
+
 	Optional<GameHistory> findGameHistory(String id);
 
+	Optional<GameDelta> findGameHistoryChanges(String id, long sinceVersion);
+
+	Optional<HistoryPage> findGameHistoryPage(String id, int from, int limit);
+
 	Optional<GameDetails> createGame(String player, NewGameSize gameRequest);
 
 	SynchronousPlayer enrollToGame(String id, String player);
@@ -0,0 +1,133 @@
+package com.eleks.academy.whoami.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import com.eleks.academy.whoami.configuration.GameControllerAdvice;
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GameCommand;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.Message;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.CommandResult;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.service.GameBatchService;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Validates all commands up front, then looks every game up once and applies
+ * all its commands in a single mailbox run. Games are processed in parallel,
+ * a failed command doesn't stop the following ones.
+ */
+@Service
+@RequiredArgsConstructor
+public class GameBatchServiceImpl implements GameBatchService {
+
+	private final GameRepository gameRepository;
+
+	private final Validator validator;
+
+	private final PlayerPresence presence;
+
+	@Override
+	public List<CommandResult> execute(List<GameCommand> commands) {
+		var results = new CommandResult[commands.size()];
+		Map<String, List<Integer>> commandsByGame = new LinkedHashMap<>();
+		List<Consumer<SynchronousGame>> actions = new ArrayList<>(commands.size());
+
+		for (int i = 0; i < commands.size(); i++) {
+			var command = commands.get(i);
+			try {
+				actions.add(this.prepare(command));
+				commandsByGame.computeIfAbsent(command.getGameId(), id -> new ArrayList<>()).add(i);
+			} catch (RuntimeException e) {
+				actions.add(null);
+				results[i] = failed(e);
+			}
+		}
+
+		List<CompletableFuture<Void>> runs = new ArrayList<>(commandsByGame.size());
+		commandsByGame.forEach((id, indexes) -> this.gameRepository.findGameById(id)
+				.ifPresentOrElse(game -> runs.add(game.submit(() -> indexes.forEach(i -> results[i] = apply(game, actions.get(i))))),
+						() -> indexes.forEach(i -> results[i] = CommandResult.failed(HttpStatus.NOT_FOUND,
+								"Game with id[" + id + "] not found."))));
+		CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+
+		return Arrays.asList(results);
+	}
+
+	/*
+	 * @return action applying the command to its game
+	 * @throw ConstraintViolationException or IllegalArgumentException if the command is invalid
+	 */
+	private Consumer<SynchronousGame> prepare(GameCommand command) {
+		var player = command.getPlayer();
+		this.presence.seen(player);
+		return switch (command.getType()) {
+			case SUGGEST -> {
+				var suggestion = this.valid(new CharacterSuggestion(command.getName(), command.getCharacter()));
+				yield game -> game.suggestCharacter(player, suggestion);
+			}
+			case ASK -> {
+				var message = this.valid(new Message(command.getMessage())).getMessage();
+				yield game -> game.askQuestion(player, message);
+			}
+			case ANSWER -> {
+				var answer = QuestionAnswer.valueOf(String.valueOf(command.getAnswer()));
+				yield game -> game.answerQuestion(player, answer);
+			}
+			case GUESS -> {
+				var guess = this.valid(new Message(command.getMessage())).getMessage();
+				yield game -> game.submitGuess(player, guess);
+			}
+			case ANSWER_GUESS -> {
+				var answer = GuessAnswer.valueOf(String.valueOf(command.getAnswer()));
+				yield game -> game.answerGuess(player, answer);
+			}
+		};
+	}
+
+	private static CommandResult apply(SynchronousGame game, Consumer<SynchronousGame> action) {
+		try {
+			action.accept(game);
+			return CommandResult.ok();
+		} catch (RuntimeException e) {
+			return failed(e);
+		}
+	}
+
+	private static CommandResult failed(RuntimeException e) {
+		if (e instanceof ConstraintViolationException violation) {
+			return CommandResult.failed(HttpStatus.BAD_REQUEST, violation.getConstraintViolations().stream()
+					.map(ConstraintViolation::getMessage)
+					.sorted()
+					.collect(Collectors.joining(", ")));
+		}
+		return CommandResult.failed(GameControllerAdvice.statusOf(e), e.getMessage());
+	}
+
+	private <T> T valid(T request) {
+		var violations = this.validator.validate(request);
+		if (!violations.isEmpty()) {
+			throw new ConstraintViolationException(violations);
+		}
+		return request;
+	}
+
+}
@@ -0,0 +1,261 @@
+package com.eleks.academy.whoami.service.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.service.GameEventService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Pushes game events to Server-Sent Events subscribers.
+ * <p>
+ * Every game with at least one subscriber has a channel listening to the game.
+ * An event is serialized once per channel and queued to a bounded buffer of every
+ * subscriber, the buffers are written out by a small shared pool. Idle subscribers
+ * hold no thread: the servlet request stays in async mode until the emitter completes.
+ * A subscriber that falls behind by a full buffer loses the buffered events and gets
+ * a single "resync" event instead, it should reload the game and keep listening.
+ * Subscribers of a game moved to other node get the move event and are completed,
+ * they subscribe again and are routed to the new owner. Subscribers of a disbanded
+ * or reaped game get the disband event and are completed, the channel is dropped
+ * together with the game. A player seated in the game stays present while his
+ * subscription is open.
+ */
+@Service
+public class GameEventServiceImpl implements GameEventService {
+
+	private static final long SUBSCRIPTION_TIMEOUT = TimeUnit.MINUTES.toMillis(30);
+
+	private static final int BUFFER_SIZE = 32;
+
+	private static final String RESYNC = "resync";
+
+	private final GameRepository gameRepository;
+
+	private final ObjectMapper objectMapper;
+
+	private final PlayerPresence presence;
+
+	private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+
+	private final ExecutorService writers = Executors.newFixedThreadPool(
+			Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+				var thread = new Thread(runnable, "game-events");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	public GameEventServiceImpl(GameRepository gameRepository, ObjectMapper objectMapper, PlayerPresence presence) {
+		this.gameRepository = gameRepository;
+		this.objectMapper = objectMapper;
+		this.presence = presence;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		this.writers.shutdownNow();
+	}
+
+	@Override
+	public Optional<SseEmitter> subscribe(String id, String player) {
+		return this.gameRepository.findGameById(id)
+				.map(game -> this.subscribe(game, player));
+	}
+
+	private SseEmitter subscribe(SynchronousGame game, String player) {
+		var seated = player != null && game.findPlayer(player).isPresent();
+		var subscriber = new Subscriber(new SseEmitter(SUBSCRIPTION_TIMEOUT), seated ? player : null);
+		if (seated) {
+			this.presence.streamOpened(player);
+		}
+		subscriber.emitter.onCompletion(() -> this.unsubscribe(game, subscriber));
+		subscriber.emitter.onTimeout(() -> this.unsubscribe(game, subscriber));
+		subscriber.emitter.onError(e -> this.unsubscribe(game, subscriber));
+
+		// events are published from the mailbox, so none of them falls between the listener and the version
+		game.submit(() -> {
+			if (this.gameRepository.findGameById(game.getId()).isEmpty()) {
+				// disbanded or moved away before the subscriber got to the mailbox
+				subscriber.offer(new Frame(game.getVersion(), RESYNC, "{\"version\":" + game.getVersion() + "}", true));
+				return;
+			}
+			this.channels.compute(game.getId(), (key, channel) -> {
+				if (channel == null) {
+					channel = new Channel(key);
+					game.addEventListener(channel);
+				}
+				channel.subscribers.add(subscriber);
+				return channel;
+			});
+			subscriber.offer(new Frame(game.getVersion(), "subscribed",
+					"{\"version\":" + game.getVersion()
+							+ ",\"state\":\"" + game.getState().getClass().getSimpleName() + "\"}", false));
+		});
+		return subscriber.emitter;
+	}
+
+	private void unsubscribe(SynchronousGame game, Subscriber subscriber) {
+		if (subscriber.player != null && subscriber.closed.compareAndSet(false, true)) {
+			this.presence.streamClosed(subscriber.player);
+		}
+		this.channels.computeIfPresent(game.getId(), (key, channel) -> {
+			channel.subscribers.remove(subscriber);
+			if (channel.subscribers.isEmpty()) {
+				game.removeEventListener(channel);
+				return null;
+			}
+			return channel;
+		});
+	}
+
+	/*
+	 * @param last true if the emitter is completed once the frame is written
+	 */
+	private record Frame(long id, String name, String data, boolean last) {
+	}
+
+	/*
+	 * Subscribers of a single game
+	 */
+	private class Channel implements GameEventListener {
+
+		private final String gameId;
+
+		private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+		private Channel(String gameId) {
+			this.gameId = gameId;
+		}
+
+		@Override
+		public void onEvent(GameEvent event) {
+			Frame frame;
+			try {
+				frame = new Frame(event.version(), event.type().name(), objectMapper.writeValueAsString(event),
+						event.type().isFinal());
+			} catch (JsonProcessingException e) {
+				throw new IllegalStateException("Event of game [" + this.gameId + "] can't be serialized", e);
+			}
+			this.subscribers.forEach(subscriber -> subscriber.offer(frame));
+			if (frame.last()) {
+				channels.remove(this.gameId, this);
+			}
+		}
+
+	}
+
+	private class Subscriber {
+
+		private final SseEmitter emitter;
+
+		/*
+		 * Seated player kept present while the subscription is open, null if none
+		 */
+		private final String player;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private final Queue<Frame> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+
+		private final AtomicBoolean draining = new AtomicBoolean();
+
+		/*
+		 * Set when the buffer overflows, cleared once the buffer is written out.
+		 * A subscriber that overflows again before that is dropped
+		 */
+		private volatile boolean overflowed;
+
+		private Subscriber(SseEmitter emitter, String player) {
+			this.emitter = emitter;
+			this.player = player;
+		}
+
+		/*
+		 * Called from the game mailbox, so frames of one game are offered one at a time
+		 */
+		private void offer(Frame frame) {
+			if (!this.buffer.offer(frame)) {
+				this.buffer.clear();
+				if (frame.last()) {
+					this.buffer.offer(frame);
+				} else if (this.overflowed) {
+					this.emitter.complete();
+					return;
+				} else {
+					this.overflowed = true;
+					this.buffer.offer(new Frame(frame.id(), RESYNC, "{\"version\":" + frame.id() + "}", false));
+				}
+			}
+			this.schedule();
+		}
+
+		private void schedule() {
+			if (this.draining.compareAndSet(false, true)) {
+				writers.execute(this::drain);
+			}
+		}
+
+		/*
+		 * Writes the buffer out until it stays empty. A frame offered after the last poll
+		 * but before the flag is cleared can't schedule a drain of its own, so the buffer
+		 * is checked again once the flag is cleared and drained on by the same thread
+		 */
+		private void drain() {
+			do {
+				if (!this.writeBuffered()) {
+					return;
+				}
+				this.overflowed = false;
+				this.draining.set(false);
+			} while (!this.buffer.isEmpty() && this.draining.compareAndSet(false, true));
+		}
+
+		/*
+		 * @return false if the emitter is completed and nothing is written to it any more
+		 */
+		private boolean writeBuffered() {
+			Frame frame;
+			try {
+				while ((frame = this.buffer.poll()) != null) {
+					this.emitter.send(SseEmitter.event()
+							.id(Long.toString(frame.id()))
+							.name(frame.name())
+							.data(frame.data(), MediaType.APPLICATION_JSON));
+					if (frame.last()) {
+						this.buffer.clear();
+						this.emitter.complete();
+						return false;
+					}
+				}
+			} catch (IOException | IllegalStateException e) {
+				this.buffer.clear();
+				this.emitter.completeWithError(e);
+				return false;
+			}
+			return true;
+		}
+
+	}
+
+}
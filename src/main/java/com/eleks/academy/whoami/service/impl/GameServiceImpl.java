@@ -1,40 +1,71 @@
 package com.eleks.academy.whoami.service.impl;
 
+import com.eleks.academy.whoami.configuration.DeadlineProperties;
+import com.eleks.academy.whoami.configuration.LargeRoomProperties;
+import com.eleks.academy.whoami.core.GameIdGenerator;
 import com.eleks.academy.whoami.core.SynchronousGame;
 import com.eleks.academy.whoami.core.SynchronousPlayer;
 import com.eleks.academy.whoami.core.exception.GameException;
 import com.eleks.academy.whoami.core.exception.GameNotFoundException;
-import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
 import com.eleks.academy.whoami.core.exception.PlayerNotFoundException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
 import com.eleks.academy.whoami.model.request.GuessAnswer;
 import com.eleks.academy.whoami.model.request.QuestionAnswer;
 import com.eleks.academy.whoami.model.response.GameHistory;
 import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.GameRules;
+import com.eleks.academy.whoami.core.state.impl.GameFinished;
 import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
 import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
+import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
 import com.eleks.academy.whoami.model.request.CharacterSuggestion;
 import com.eleks.academy.whoami.model.request.NewGameSize;
 import com.eleks.academy.whoami.model.response.*;
+import com.eleks.academy.whoami.presence.PlayerPresence;
 import com.eleks.academy.whoami.repository.GameRepository;
 import com.eleks.academy.whoami.service.GameService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @Service
 @RequiredArgsConstructor
 public class GameServiceImpl implements GameService {
 
+	private static final int MAX_HISTORY_PAGE = 100;
+
 	private final GameRepository gameRepository;
 
+	private final LargeRoomProperties largeRoom;
+
+	private final DeadlineProperties deadlines;
+
+	private final GameIdGenerator gameIds;
+
+	private final PlayerPresence presence;
+
 	@Override
 	public Integer getAllPlayersCount() {
 		return this.gameRepository.getAllPlayers();
 	}
 
+	@Override
+	public GameStats getGameStats() {
+		var reclaimed = this.gameRepository.countReclaimed();
+		return GameStats.builder()
+				.players(this.gameRepository.getAllPlayers())
+				.games(this.gameRepository.countGames())
+				.waitingForPlayers(this.gameRepository.countGames(WaitingForPlayers.class))
+				.suggestingCharacters(this.gameRepository.countGames(SuggestingCharacters.class))
+				.processingQuestion(this.gameRepository.countGames(ProcessingQuestion.class))
+				.gameFinished(this.gameRepository.countGames(GameFinished.class))
+				.reclaimedGames(reclaimed.games())
+				.reclaimedPlayers(reclaimed.players())
+				.build();
+	}
+
 	@Override
 	public List<GameShortInfo> findAvailableGames(String player) {
 		return this.gameRepository.findAllAvailable(player)
@@ -49,6 +80,20 @@ public class GameServiceImpl implements GameService {
 				.map(GameDetails::of);
 	}
 
+	@Override
+	public boolean isSeated(String id, String player) {
+		return this.gameRepository.findGameById(id)
+				.filter(game -> game.findPlayer(player).isPresent())
+				.isPresent();
+	}
+
+	@Override
+	public Optional<GameDelta> findChangesByIdAndPlayer(String id, String player, long sinceVersion) {
+		return this.gameRepository.findGameById(id)
+				.filter(game -> game.findPlayer(player).isPresent())
+				.map(game -> GameDelta.of(game, sinceVersion));
+	}
+
 	@Override
 	public Optional<TurnDetails> findTurnInfo(String id, String player) {
 		var game = this.gameRepository.findGameById(id);
@@ -57,6 +102,15 @@ public class GameServiceImpl implements GameService {
 		} else throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
 	}
 
+	@Override
+	public Optional<GameDelta> findTurnChanges(String id, String player, long sinceVersion) {
+		var game = this.gameRepository.findGameById(id);
+		if (game.isPresent() && game.get().getState() instanceof ProcessingQuestion) {
+			return Optional.ofNullable(game.get().findTurnInfo(player))
+					.map(turn -> GameDelta.ofTurn(game.get(), turn, sinceVersion));
+		} else throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
+	}
+
 	@Override
 	public Optional<GameHistory> findGameHistory(String id) {
 		var game = this.gameRepository.findGameById(id);
@@ -66,35 +120,62 @@ public class GameServiceImpl implements GameService {
 	}
 
 	@Override
-	public List<AllFields> findAllGamesInfo(String player) {
-		return this.gameRepository.findAllGames(player).map(AllFields::of).toList();
+	public Optional<GameDelta> findGameHistoryChanges(String id, long sinceVersion) {
+		var game = this.gameRepository.findGameById(id);
+		if (game.isPresent()) {
+			return Optional.ofNullable(game.get().getGameHistory())
+					.map(history -> GameDelta.ofHistory(game.get(), history, sinceVersion));
+		} else throw new GameNotFoundException("findGameHistory: Game with id[" + id + "] not found.");
 	}
 
 	@Override
-	public Optional<GameDetails> createGame(String player, NewGameSize gameRequest) {
-
-		Map<String, SynchronousGame> games = gameRepository.findAvailableQuickGames();
+	public Optional<HistoryPage> findGameHistoryPage(String id, int from, int limit) {
+		var game = this.gameRepository.findGameById(id);
+		if (game.isPresent()) {
+			return Optional.ofNullable(game.get().getGameHistory())
+					.map(history -> history.getPage(Math.max(from, 0), Math.min(Math.max(limit, 1), MAX_HISTORY_PAGE)));
+		} else throw new GameNotFoundException("findGameHistory: Game with id[" + id + "] not found.");
+	}
 
-		if (games.isEmpty()) {
+	@Override
+	public Optional<GameDetails> findByPlayer(String player) {
+		return this.gameRepository.findGameByPlayer(player)
+				.map(GameDetails::of);
+	}
 
-			final SynchronousGame game = gameRepository.save(new PersistentGame(gameRequest.getMaxPlayers()));
-			enrollToGame(game.getId(), player);
+	@Override
+	public List<AllFields> findAllGamesInfo(String player) {
+		return this.gameRepository.findAllGames(player).map(AllFields::of).toList();
+	}
 
-			return gameRepository.findGameById(game.getId()).map(GameDetails::of);
+	@Override
+	public Optional<GameDetails> createGame(String player, NewGameSize gameRequest) {
+		Optional<SynchronousGame> game;
+		while ((game = this.gameRepository.joinQuickGame(player, gameRequest.getMaxPlayers())).isEmpty()) {
+			this.gameRepository.save(new PersistentGame(this.gameIds.next(),
+					gameRequest.getMaxPlayers(), this.rulesFor(gameRequest.getMaxPlayers())));
 		}
+		this.presence.track(player);
+		return game.map(GameDetails::of);
+	}
 
-		var FirstGame = games.keySet().stream().findFirst().get();
-		enrollToGame(games.get(FirstGame).getId(), player);
-
-		return gameRepository.findGameById(games.get(FirstGame).getId()).map(GameDetails::of);
+	/*
+	 * @return classic rules for up to 6 players, quorum voting with an answer timeout for larger rooms,
+	 * both with the configured turn deadlines
+	 */
+	private GameRules rulesFor(int maxPlayers) {
+		var deadlines = this.deadlines.toDeadlines();
+		return maxPlayers > GameRules.CLASSIC_MAX_PLAYERS
+				? GameRules.largeRoom(this.largeRoom.quorum(), this.largeRoom.answerTimeout())
+						.withDeadlines(deadlines.withAnswering(this.largeRoom.answerTimeout()))
+				: GameRules.classic().withDeadlines(deadlines);
 	}
 
 	@Override
 	public SynchronousPlayer enrollToGame(String id, String player) {
-		if (this.gameRepository.findPlayerById(player).isPresent()) {
-			throw new PlayerAlreadyInGameException("ENROLL-TO-GAME: [" + player + "] already in other game.");
-		}
-		return this.gameRepository.findGameById(id).get().enrollToGame(player);
+		var enrolled = this.gameRepository.enrollToGame(id, player);
+		this.presence.track(player);
+		return enrolled;
 	}
 
 	@Override
@@ -106,15 +187,12 @@ public class GameServiceImpl implements GameService {
 
 			if (game.isPresent()) {
 
-				var plToLeave = game.get()
-						.leaveGame(player)
+				var plToLeave = this.gameRepository
+						.leaveGame(id, player)
 						.orElseThrow(
 								() -> new PlayerNotFoundException("[" + player + "] in game with id[" + id + "] not found.")
 						);
-
-				if (String.valueOf(game.get().getPlayersList().size()).equals("0")) {
-					this.gameRepository.disbandGame(id);
-				}
+				this.presence.forget(player);
 
 				return Optional.of(LeaveDetails.of(plToLeave, id));
 
@@ -141,7 +219,7 @@ public class GameServiceImpl implements GameService {
 	public void suggestCharacter(String id, String player, CharacterSuggestion suggestion) {
 		this.gameRepository.findGameById(id)
 				.filter(game -> game.getState() instanceof SuggestingCharacters)
-				.ifPresentOrElse(game -> game.suggestCharacter(player, suggestion),
+				.ifPresentOrElse(game -> GameMailbox.await(game.submit(() -> game.suggestCharacter(player, suggestion))),
 						() -> {
 							throw new GameNotFoundException("SUGGESTING-CHARACTERS: Game with id[" + id + "] not found.");
 						}
@@ -152,7 +230,7 @@ public class GameServiceImpl implements GameService {
 	public void askQuestion(String id, String player, String message) {
 		this.gameRepository.findGameById(id)
 				.filter(game -> game.getState() instanceof ProcessingQuestion)
-				.ifPresentOrElse(game -> game.askQuestion(player, message),
+				.ifPresentOrElse(game -> GameMailbox.await(game.submit(() -> game.askQuestion(player, message))),
 						() -> {
 							throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
 						}
@@ -163,7 +241,7 @@ public class GameServiceImpl implements GameService {
 	public void answerQuestion(String id, String player, QuestionAnswer answer) {
 		this.gameRepository.findGameById(id)
 				.filter(game -> game.getState() instanceof ProcessingQuestion)
-				.ifPresentOrElse(game -> game.answerQuestion(player, answer),
+				.ifPresentOrElse(game -> GameMailbox.await(game.submit(() -> game.answerQuestion(player, answer))),
 						() -> {
 							throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
 						}
@@ -174,7 +252,7 @@ public class GameServiceImpl implements GameService {
 	public void submitGuess(String id, String player, String guess) {
 		this.gameRepository.findGameById(id)
 				.filter(game -> game.getState() instanceof ProcessingQuestion)
-				.ifPresentOrElse(game -> game.submitGuess(player, guess),
+				.ifPresentOrElse(game -> GameMailbox.await(game.submit(() -> game.submitGuess(player, guess))),
 						() -> {
 							throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
 						}
@@ -185,7 +263,7 @@ public class GameServiceImpl implements GameService {
 	public void answerGuess(String id, String player, GuessAnswer answer) {
 		this.gameRepository.findGameById(id)
 				.filter(game -> game.getState() instanceof ProcessingQuestion)
-				.ifPresentOrElse(game -> game.answerGuess(player, answer),
+				.ifPresentOrElse(game -> GameMailbox.await(game.submit(() -> game.answerGuess(player, answer))),
 						() -> {
 							throw new GameNotFoundException("PROCESSING-QUESTION: Game with id[" + id + "] not found.");
 						}
@@ -0,0 +1,61 @@
+package com.eleks.academy.whoami.utils;
+
+import java.util.Arrays;
+
+/**
+ * Encodes non-negative longs as short strings of digits and latin letters,
+ * at most 11 characters for any value
+ */
+public final class Base62 {
+
+	private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	private static final int RADIX = DIGITS.length;
+
+	private static final int MAX_LENGTH = 11;
+
+	private static final byte[] VALUES = new byte['z' + 1];
+
+	static {
+		Arrays.fill(VALUES, (byte) -1);
+		for (int i = 0; i < RADIX; i++) {
+			VALUES[DIGITS[i]] = (byte) i;
+		}
+	}
+
+	private Base62() {
+	}
+
+	public static String encode(long value) {
+		if (value < 0) {
+			throw new IllegalArgumentException(String.format("Value should not be negative, but provided %d", value));
+		}
+		var chars = new char[MAX_LENGTH];
+		int position = MAX_LENGTH;
+		do {
+			chars[--position] = DIGITS[(int) (value % RADIX)];
+			value /= RADIX;
+		} while (value > 0);
+		return new String(chars, position, MAX_LENGTH - position);
+	}
+
+	/*
+	 * @return decoded value, -1 if the text is not a base-62 encoded long
+	 */
+	public static long decode(String text) {
+		if (text == null || text.isEmpty() || text.length() > MAX_LENGTH) {
+			return -1;
+		}
+		long value = 0;
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			int digit = c < VALUES.length ? VALUES[c] : -1;
+			if (digit < 0 || value > (Long.MAX_VALUE - digit) / RADIX) {
+				return -1;
+			}
+			value = value * RADIX + digit;
+		}
+		return value;
+	}
+
+}
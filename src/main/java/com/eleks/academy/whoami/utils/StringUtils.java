@@ -6,6 +6,16 @@ public interface StringUtils {
 
 		String PLAYER = "X-Player";
 
+		/*
+		 * Comma separated ids of the nodes that forwarded the request
+		 */
+		String ROUTED_BY = "X-Routed-By";
+
+		/*
+		 * Shared secret of the cluster, required by the /cluster endpoints
+		 */
+		String CLUSTER_SECRET = "X-Cluster-Secret";
+
 	}
 
 }
@@ -0,0 +1,78 @@
+package com.eleks.academy.whoami.utils;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded interning table for player ids, character names and question texts.
+ * Every request brings its own copy of such strings, the table maps equal strings
+ * to one canonical instance, so games keep a single copy and comparisons of interned
+ * strings succeed on the identity check.
+ * <p>
+ * The table is a fixed array of weak references split into buckets of {@value #WAYS} slots,
+ * a string goes to the bucket of its hash. It never grows: a string whose bucket is full of
+ * strings still in use is not interned, strings in use are never replaced. Strings no game
+ * refers to any more are collected and their slots are taken again. Interning is a best effort,
+ * callers must still compare with equals.
+ */
+public final class SymbolTable {
+
+	/*
+	 * Sized for a few hundred thousand players seated at once
+	 */
+	public static final SymbolTable SHARED = new SymbolTable(1 << 19);
+
+	private static final int WAYS = 8;
+
+	private final AtomicReferenceArray<WeakReference<String>> slots;
+
+	private final int mask;
+
+	/*
+	 * @param capacity number of slots, rounded up to a power of two
+	 */
+	public SymbolTable(int capacity) {
+		int size = Math.max(Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1, WAYS);
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - WAYS;
+	}
+
+	/*
+	 * @return canonical instance equal to the value, the value itself if there is none yet
+	 */
+	public String intern(String value) {
+		if (value == null) {
+			return null;
+		}
+		// sequential ids have close hashes, mixed they spread over the buckets
+		int hash = value.hashCode() * 0x9E3779B9;
+		int bucket = (hash ^ (hash >>> 16)) & this.mask;
+		int free = -1;
+		WeakReference<String> collected = null;
+		for (int slot = bucket; slot < bucket + WAYS; slot++) {
+			var cached = this.slots.get(slot);
+			var canonical = cached == null ? null : cached.get();
+			if (canonical == null) {
+				if (free < 0) {
+					free = slot;
+					collected = cached;
+				}
+			} else if (value.equals(canonical)) {
+				return canonical;
+			}
+		}
+		// other thread may take the slot meanwhile, the value stays not interned then
+		if (free >= 0) {
+			this.slots.compareAndSet(free, collected, new WeakReference<>(value));
+		}
+		return value;
+	}
+
+	/*
+	 * @return number of slots
+	 */
+	public int capacity() {
+		return this.slots.length();
+	}
+
+}
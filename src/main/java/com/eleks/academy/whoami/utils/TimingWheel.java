@@ -0,0 +1,265 @@
+package com.eleks.academy.whoami.utils;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hashed timing wheel for a large number of coarse timers, e.g. deadlines of game turns.
+ * <p>
+ * Time is split into ticks and the wheel is a ring of buckets, one bucket per tick. A timer
+ * goes to the bucket of the tick it expires at, together with the number of full turns of
+ * the wheel left until then, so scheduling and cancelling are O(1) whatever the delay and
+ * the number of timers. A single thread advances the wheel once per tick and runs the timers
+ * of the current bucket, so tasks must be short: hand the real work to another executor.
+ * Timers fire up to one tick late, never early.
+ * <p>
+ * New and cancelled timers are passed to the wheel thread through lock-free queues,
+ * the buckets themselves are touched by the wheel thread only.
+ */
+@Slf4j
+public final class TimingWheel {
+
+	public interface Timeout {
+
+		/*
+		 * @return true if the timer was cancelled, false if it already fired or was cancelled
+		 */
+		boolean cancel();
+
+	}
+
+	private static final int PENDING = 0;
+
+	private static final int CANCELLED = 1;
+
+	private static final int EXPIRED = 2;
+
+	/*
+	 * Timers moved to the wheel per tick, so a burst of scheduling can't stall the wheel
+	 */
+	private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+	private final String name;
+
+	private final long tickNanos;
+
+	private final Bucket[] wheel;
+
+	private final int mask;
+
+	private final Queue<Timer> scheduled = new ConcurrentLinkedQueue<>();
+
+	private final Queue<Timer> cancelled = new ConcurrentLinkedQueue<>();
+
+	private final AtomicBoolean started = new AtomicBoolean();
+
+	private volatile long startNanos;
+
+	/*
+	 * Ticks passed since the wheel started, advanced by the wheel thread
+	 */
+	private long tick;
+
+	/*
+	 * @param name of the wheel thread
+	 * @param tick duration of one tick, the precision of the timers
+	 * @param buckets number of buckets, rounded up to a power of two
+	 */
+	public TimingWheel(String name, Duration tick, int buckets) {
+		if (tick.isNegative() || tick.isZero()) {
+			throw new IllegalArgumentException(String.format("Tick should be positive, but provided %s", tick));
+		}
+		int size = Integer.highestOneBit(Math.max(buckets - 1, 1)) << 1;
+		this.name = name;
+		this.tickNanos = tick.toNanos();
+		this.wheel = new Bucket[size];
+		for (int i = 0; i < size; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = size - 1;
+	}
+
+	/*
+	 * Runs the task on the wheel thread once the delay passes,
+	 * the wheel thread is started with the first timer
+	 *
+	 * @return handle to cancel the timer with
+	 */
+	public Timeout schedule(Runnable task, Duration delay) {
+		this.start();
+		var timer = new Timer(task, System.nanoTime() - this.startNanos + Math.max(delay.toNanos(), 0));
+		this.scheduled.offer(timer);
+		return timer;
+	}
+
+	/*
+	 * @return timers scheduled and not yet fired or cancelled, for monitoring only
+	 */
+	public int size() {
+		int size = this.scheduled.size();
+		for (var bucket : this.wheel) {
+			size += bucket.size.get();
+		}
+		return size;
+	}
+
+	private void start() {
+		if (this.started.compareAndSet(false, true)) {
+			this.startNanos = System.nanoTime();
+			var thread = new Thread(this::run, this.name);
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	private void run() {
+		while (!Thread.currentThread().isInterrupted()) {
+			this.awaitNextTick();
+			this.removeCancelled();
+			this.transferScheduled();
+			this.wheel[(int) (this.tick & this.mask)].expire();
+			this.tick++;
+		}
+	}
+
+	private void awaitNextTick() {
+		long deadline = this.tickNanos * (this.tick + 1);
+		long now;
+		while ((now = System.nanoTime() - this.startNanos) < deadline) {
+			LockSupport.parkNanos(this, deadline - now);
+		}
+	}
+
+	private void removeCancelled() {
+		Timer timer;
+		while ((timer = this.cancelled.poll()) != null) {
+			if (timer.bucket != null) {
+				timer.bucket.remove(timer);
+			}
+		}
+	}
+
+	private void transferScheduled() {
+		for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+			var timer = this.scheduled.poll();
+			if (timer == null) {
+				return;
+			}
+			if (timer.state.get() == CANCELLED) {
+				continue;
+			}
+			// a timer due already goes to the current bucket and fires on this tick
+			long expiresAt = Math.max(timer.deadline / this.tickNanos, this.tick);
+			timer.rounds = (expiresAt - this.tick) / this.wheel.length;
+			this.wheel[(int) (expiresAt & this.mask)].add(timer);
+		}
+	}
+
+	private final class Timer implements Timeout {
+
+		private final Runnable task;
+
+		/*
+		 * Nanos since the wheel started
+		 */
+		private final long deadline;
+
+		private final AtomicInteger state = new AtomicInteger(PENDING);
+
+		private long rounds;
+
+		private Bucket bucket;
+
+		private Timer next;
+
+		private Timer previous;
+
+		private Timer(Runnable task, long deadline) {
+			this.task = task;
+			this.deadline = deadline;
+		}
+
+		@Override
+		public boolean cancel() {
+			if (!this.state.compareAndSet(PENDING, CANCELLED)) {
+				return false;
+			}
+			cancelled.offer(this);
+			return true;
+		}
+
+		private void fire() {
+			if (this.state.compareAndSet(PENDING, EXPIRED)) {
+				try {
+					this.task.run();
+				} catch (RuntimeException e) {
+					log.warn("Timer of {} failed", name, e);
+				}
+			}
+		}
+
+	}
+
+	/*
+	 * Doubly linked list of timers, so any timer is unlinked in O(1)
+	 */
+	private static final class Bucket {
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private Timer head;
+
+		private Timer tail;
+
+		private void add(Timer timer) {
+			timer.bucket = this;
+			if (this.head == null) {
+				this.head = timer;
+			} else {
+				this.tail.next = timer;
+				timer.previous = this.tail;
+			}
+			this.tail = timer;
+			this.size.incrementAndGet();
+		}
+
+		private void remove(Timer timer) {
+			if (timer.previous != null) {
+				timer.previous.next = timer.next;
+			} else {
+				this.head = timer.next;
+			}
+			if (timer.next != null) {
+				timer.next.previous = timer.previous;
+			} else {
+				this.tail = timer.previous;
+			}
+			timer.next = null;
+			timer.previous = null;
+			timer.bucket = null;
+			this.size.decrementAndGet();
+		}
+
+		private void expire() {
+			var timer = this.head;
+			while (timer != null) {
+				var next = timer.next;
+				if (timer.rounds <= 0) {
+					this.remove(timer);
+					timer.fire();
+				} else {
+					timer.rounds--;
+				}
+				timer = next;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,161 @@
+package com.eleks.academy.whoami.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+import com.eleks.academy.whoami.WhoAmIApplication;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.NewGameSize;
+import com.eleks.academy.whoami.repository.GameRepository;
+import com.eleks.academy.whoami.service.GameService;
+import com.eleks.academy.whoami.utils.Base62;
+import com.eleks.academy.whoami.utils.StringUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Two nodes of a cluster in one JVM, each with its own context and port
+ */
+class GameMigrationTest {
+
+	private static final String SECRET = "cluster-secret";
+
+	private static final int[] PORTS = new int[2];
+
+	private static final ConfigurableApplicationContext[] NODES = new ConfigurableApplicationContext[2];
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.version(HttpClient.Version.HTTP_1_1)
+			.build();
+
+	@BeforeAll
+	static void startNodes() throws IOException {
+		for (int node = 0; node < PORTS.length; node++) {
+			try (var socket = new ServerSocket(0)) {
+				PORTS[node] = socket.getLocalPort();
+			}
+		}
+		for (int node = 0; node < NODES.length; node++) {
+			NODES[node] = SpringApplication.run(WhoAmIApplication.class,
+					"--server.port=" + PORTS[node],
+					"--game.protocol.enabled=false",
+					"--game.cluster.enabled=true",
+					"--game.cluster.secret=" + SECRET,
+					"--game.cluster.node-id=" + node,
+					"--game.cluster.nodes.0=http://localhost:" + PORTS[0],
+					"--game.cluster.nodes.1=http://localhost:" + PORTS[1],
+					"--game.cluster.rebalance-interval=0",
+					"--logging.level.root=WARN");
+		}
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		for (var node : NODES) {
+			if (node != null) {
+				node.close();
+			}
+		}
+	}
+
+	@Test
+	void migrate_MovesRunningGameToOtherNodeTest() throws Exception {
+		var service = NODES[0].getBean(GameService.class);
+		var id = service.createGame("player1", new NewGameSize(2)).orElseThrow().getId();
+		service.enrollToGame(id, "player2");
+		service.suggestCharacter(id, "player1", new CharacterSuggestion("Bob", "Batman"));
+		service.suggestCharacter(id, "player2", new CharacterSuggestion("Alice", "Superman"));
+		var source = NODES[0].getBean(GameRepository.class);
+		var asking = ((ProcessingQuestion) source.findGameById(id).orElseThrow().getState()).getCurrentPlayer();
+		var answering = asking.equals("player1") ? "player2" : "player1";
+		service.askQuestion(id, asking, "Am I a hero?");
+
+		var moved = NODES[0].getBean(GameMigration.class).migrate(id, 1);
+
+		var target = NODES[1].getBean(GameRepository.class);
+		assertThat(moved.id()).isEqualTo(1);
+		assertThat(source.findGameById(id)).isEmpty();
+		assertThat(target.findGameById(id)).hasValueSatisfying(game -> {
+			assertThat(game.getGameHistory().hasCurrentQuestion()).isTrue();
+			assertThat(game.findPlayer(asking)).isPresent();
+		});
+		assertThat(target.findGameByPlayer(answering)).isPresent();
+
+		var answer = this.http.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + PORTS[0] + "/games/" + id + "/question/answer?answer=NO"))
+				.header("X-Player", answering)
+				.POST(HttpRequest.BodyPublishers.noBody())
+				.build(), HttpResponse.BodyHandlers.ofString());
+
+		assertThat(answer.statusCode()).as(answer.body()).isEqualTo(200);
+		var game = target.findGameById(id).orElseThrow();
+		assertThat(game.getGameHistory().hasCurrentQuestion()).isFalse();
+		assertThat(((ProcessingQuestion) game.getState()).getCurrentPlayer()).isEqualTo(answering);
+	}
+
+	@Test
+	void restoreGame_AnswersRepeatedTransferWithoutRestoringAgainTest() throws Exception {
+		var snapshot = snapshotOfNewGame();
+
+		var first = this.transfer(snapshot, SECRET);
+		var repeated = this.transfer(snapshot, SECRET);
+
+		assertThat(first.statusCode()).as(first.body()).isEqualTo(201);
+		assertThat(repeated.statusCode()).as(repeated.body()).isEqualTo(200);
+		assertThat(NODES[1].getBean(GameMigration.class).confirm(snapshot.id(), snapshot.version())).isTrue();
+	}
+
+	@Test
+	void confirm_RefusesLateTransferOfGameNotTakenTest() throws Exception {
+		var snapshot = snapshotOfNewGame();
+
+		var taken = NODES[1].getBean(GameMigration.class).confirm(snapshot.id(), snapshot.version());
+		var late = this.transfer(snapshot, SECRET);
+
+		assertThat(taken).isFalse();
+		assertThat(late.statusCode()).isNotIn(200, 201);
+		assertThat(NODES[1].getBean(GameRepository.class).findGameById(Base62.encode(snapshot.id()))).isEmpty();
+	}
+
+	@Test
+	void restoreGame_ForbiddenWithoutClusterSecretTest() throws Exception {
+		var snapshot = snapshotOfNewGame();
+
+		var response = this.transfer(snapshot, "guess");
+
+		assertThat(response.statusCode()).isEqualTo(403);
+		assertThat(NODES[1].getBean(GameRepository.class).findGameById(Base62.encode(snapshot.id()))).isEmpty();
+	}
+
+	private static GameSnapshot snapshotOfNewGame() {
+		var game = new PersistentGame(4);
+		return GameMailbox.await(game.submit(game::snapshot));
+	}
+
+	private HttpResponse<String> transfer(GameSnapshot snapshot, String secret) throws Exception {
+		return this.http.send(HttpRequest.newBuilder()
+				.uri(URI.create("http://localhost:" + PORTS[1] + "/cluster/games"))
+				.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+				.header(StringUtils.Headers.CLUSTER_SECRET, secret)
+				.POST(HttpRequest.BodyPublishers.ofByteArray(NODES[0].getBean(ObjectMapper.class).writeValueAsBytes(snapshot)))
+				.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.eleks.academy.whoami.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+import com.eleks.academy.whoami.utils.Base62;
+
+class GameRouterTest {
+
+	private final ClusterLoads loads = mock(ClusterLoads.class);
+
+	@Test
+	void ownerOf_GameOfThisNodeIsServedLocallyTest() {
+		var router = router(0, 0, 1, 2);
+
+		assertThat(router.ownerOf(Base62.encode(SnowflakeIdGenerator.of(0).next()))).isEmpty();
+	}
+
+	@Test
+	void ownerOf_GameGoesToNodeThatCreatedItTest() {
+		var router = router(0, 0, 1, 2);
+
+		assertThat(router.ownerOf(Base62.encode(SnowflakeIdGenerator.of(2).next())))
+				.hasValueSatisfying(node -> assertThat(node.id()).isEqualTo(2));
+	}
+
+	@Test
+	void ownerOf_GameOfLeftNodeGoesToRingOwnerTest() {
+		var router = router(0, 0, 1);
+		var ring = new HashRing(HashRingTest.nodes(0, 1));
+		var generator = SnowflakeIdGenerator.of(5);
+
+		for (int i = 0; i < 100; i++) {
+			long id = generator.next();
+			int owner = ring.ownerOf(id).orElseThrow().id();
+			assertThat(router.ownerOf(Base62.encode(id)).map(ClusterNode::id).orElse(0)).isEqualTo(owner);
+		}
+	}
+
+	@Test
+	void ownerOf_NotGameIdIsServedLocallyTest() {
+		assertThat(router(0, 0, 1).ownerOf("not-a-game")).isEmpty();
+	}
+
+	@Test
+	void placeNewGame_PicksLessLoadedNodeTest() {
+		var router = router(0, 0, 1);
+		when(this.loads.loadOf(any())).thenAnswer(call -> call.<ClusterNode>getArgument(0).id() == 0 ? 10L : 1L);
+
+		var placed = router.placeNewGame();
+
+		assertThat(placed).hasValueSatisfying(node -> assertThat(node.id()).isEqualTo(1));
+		verify(this.loads).placed(placed.get());
+	}
+
+	@Test
+	void placeNewGame_KeepsGameLocallyOnEqualLoadTest() {
+		var router = router(0, 0, 1);
+		when(this.loads.loadOf(any())).thenReturn(3L);
+
+		assertThat(router.placeNewGame()).isEmpty();
+	}
+
+	@Test
+	void placeNewGame_SingleNodeIsServedLocallyTest() {
+		assertThat(router(0, 0).placeNewGame()).isEmpty();
+	}
+
+	private GameRouter router(int self, int... members) {
+		var properties = new ClusterProperties(self, true, HashRingTest.uris(members), null, "secret",
+				ClusterProperties.Routing.FORWARD, Duration.ofSeconds(10), Duration.ofSeconds(2), Duration.ZERO);
+		return new GameRouter(new ClusterMembership(properties), this.loads);
+	}
+
+}
@@ -0,0 +1,84 @@
+package com.eleks.academy.whoami.cluster;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.eleks.academy.whoami.configuration.ClusterProperties;
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+import com.eleks.academy.whoami.utils.Base62;
+import com.github.tomakehurst.wiremock.junit5.WireMockExtension;
+
+class GameRoutingFilterTest {
+
+	@RegisterExtension
+	static final WireMockExtension owner = WireMockExtension.newInstance()
+			.options(wireMockConfig().dynamicPort()).build();
+
+	private final String gameId = Base62.encode(SnowflakeIdGenerator.of(1).next());
+
+	private GameRoutingFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		var properties = new ClusterProperties(0, true,
+				Map.of(0, URI.create("http://localhost:1"), 1, URI.create(owner.baseUrl())), null, "secret",
+				ClusterProperties.Routing.FORWARD, Duration.ofSeconds(2), Duration.ofSeconds(2), Duration.ZERO);
+		var router = new GameRouter(new ClusterMembership(properties), mock(ClusterLoads.class));
+		filter = new GameRoutingFilter(router, properties);
+	}
+
+	@Test
+	void forward_SendsBackAnswerOfOwnerTest() throws Exception {
+		owner.stubFor(get(urlEqualTo("/games/" + gameId))
+				.willReturn(aResponse().withStatus(200).withBody("{\"id\":\"" + gameId + "\"}")));
+
+		var response = filter("/games/" + gameId);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getContentAsString()).contains(gameId);
+	}
+
+	@Test
+	void forward_AnswersGatewayTimeoutIfOwnerHangsTest() throws Exception {
+		owner.stubFor(get(urlEqualTo("/games/" + gameId))
+				.willReturn(aResponse().withStatus(200).withFixedDelay(10_000)));
+
+		long started = System.nanoTime();
+		var response = filter("/games/" + gameId);
+
+		assertThat(response.getStatus()).isEqualTo(504);
+		assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(8));
+	}
+
+	@Test
+	void events_AreRedirectedToOwnerTest() throws Exception {
+		var response = filter("/games/" + gameId + "/events");
+
+		assertThat(response.getStatus()).isEqualTo(307);
+		assertThat(response.getHeader(HttpHeaders.LOCATION)).isEqualTo(owner.baseUrl() + "/games/" + gameId + "/events");
+		assertThat(owner.getAllServeEvents()).isEmpty();
+	}
+
+	private MockHttpServletResponse filter(String uri) throws Exception {
+		var response = new MockHttpServletResponse();
+		filter.doFilter(new MockHttpServletRequest("GET", uri), response, new MockFilterChain());
+		return response;
+	}
+
+}
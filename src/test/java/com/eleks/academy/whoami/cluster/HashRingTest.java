@@ -0,0 +1,59 @@
+package com.eleks.academy.whoami.cluster;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+	private static final int KEYS = 30_000;
+
+	@Test
+	void ownerOf_SpreadsKeysEvenlyTest() {
+		var ring = new HashRing(nodes(0, 1, 2));
+		var owned = new HashMap<Integer, Integer>();
+		for (long key = 0; key < KEYS; key++) {
+			owned.merge(ring.ownerOf(key).orElseThrow().id(), 1, Integer::sum);
+		}
+
+		assertThat(owned).hasSize(3);
+		assertThat(owned.values()).allSatisfy(keys -> assertThat(keys).isBetween(KEYS / 3 * 7 / 10, KEYS / 3 * 13 / 10));
+	}
+
+	@Test
+	void ownerOf_RemovedNodeMovesOnlyItsKeysTest() {
+		var before = new HashRing(nodes(0, 1, 2));
+		var after = new HashRing(nodes(0, 2));
+
+		for (long key = 0; key < KEYS; key++) {
+			int owner = before.ownerOf(key).orElseThrow().id();
+			if (owner != 1) {
+				assertThat(after.ownerOf(key).orElseThrow().id()).isEqualTo(owner);
+			}
+		}
+	}
+
+	@Test
+	void ownerOf_EmptyRingTest() {
+		assertThat(new HashRing(List.of()).ownerOf(42)).isEmpty();
+	}
+
+	static List<ClusterNode> nodes(int... ids) {
+		return IntStream.of(ids)
+				.mapToObj(id -> new ClusterNode(id, URI.create("http://localhost:" + (8080 + id))))
+				.toList();
+	}
+
+	static Map<Integer, URI> uris(int... ids) {
+		var uris = new HashMap<Integer, URI>();
+		nodes(ids).forEach(node -> uris.put(node.id(), node.uri()));
+		return uris;
+	}
+
+}
@@ -0,0 +1,32 @@
+package com.eleks.academy.whoami.configuration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+class DeadlinePropertiesTest {
+
+	@Test
+	void validateDeadlines() {
+		IllegalArgumentException illegalArgumentException = assertThrows(IllegalArgumentException.class,
+				() -> new DeadlineProperties(Duration.ofSeconds(-1), Duration.ZERO, Duration.ZERO));
+		assertEquals("Suggesting deadline cannot be negative, but provided PT-1S", illegalArgumentException.getMessage());
+		illegalArgumentException = assertThrows(IllegalArgumentException.class,
+				() -> new DeadlineProperties(Duration.ZERO, Duration.ZERO, Duration.ofMillis(-500)));
+		assertEquals("Answering deadline cannot be negative, but provided PT-0.5S", illegalArgumentException.getMessage());
+	}
+
+	@Test
+	void zeroDeadlineWaitsForPlayers() {
+		var deadlines = new DeadlineProperties(Duration.ZERO, Duration.ofSeconds(60), Duration.ZERO).toDeadlines();
+
+		assertThat(deadlines.suggesting()).isNull();
+		assertThat(deadlines.asking()).isEqualTo(Duration.ofSeconds(60));
+		assertThat(deadlines.answering()).isNull();
+	}
+
+}
@@ -3,20 +3,28 @@ package com.eleks.academy.whoami.controller;
 import com.eleks.academy.whoami.configuration.GameControllerAdvice;
 import com.eleks.academy.whoami.core.impl.PersistentPlayer;
 import com.eleks.academy.whoami.model.request.NewGameSize;
+import com.eleks.academy.whoami.model.response.GameDelta;
 import com.eleks.academy.whoami.model.response.GameDetails;
 import com.eleks.academy.whoami.model.response.GameHistory;
+import com.eleks.academy.whoami.model.response.GameStats;
+import com.eleks.academy.whoami.model.response.HistoryPage;
 import com.eleks.academy.whoami.model.response.LeaveDetails;
 import com.eleks.academy.whoami.model.response.TurnDetails;
+import com.eleks.academy.whoami.model.response.CommandResult;
+import com.eleks.academy.whoami.service.GameBatchService;
+import com.eleks.academy.whoami.service.GameEventService;
 import com.eleks.academy.whoami.service.impl.GameServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Optional;
@@ -30,7 +38,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 class GameControllerTest {
 
     private final GameServiceImpl gameService = mock(GameServiceImpl.class);
-    private final GameController gameController = new GameController(gameService);
+    private final GameEventService gameEventService = mock(GameEventService.class);
+    private final GameBatchService gameBatchService = mock(GameBatchService.class);
+    private final GameController gameController = new GameController(gameService, gameEventService, gameBatchService);
     private final NewGameSize gameRequest = new NewGameSize();
     private MockMvc mockMvc;
 
@@ -132,6 +142,31 @@ class GameControllerTest {
         verify(gameService, times(1)).findByIdAndPlayer(anyString(), anyString());
     }
 
+    @Test
+    void findCurrentGameSuccessful() throws Exception {
+        GameDetails gameDetails = new GameDetails("151515", "WaitingForPlayers", List.of());
+
+        when(this.gameService.findByPlayer(eq("playerId"))).thenReturn(Optional.of(gameDetails));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/current")
+                        .header(PLAYER, "playerId"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("id").value(gameDetails.getId()));
+
+        verify(gameService, times(1)).findByPlayer(eq("playerId"));
+    }
+
+    @Test
+    void findCurrentGameNotFound() throws Exception {
+        when(this.gameService.findByPlayer(anyString())).thenReturn(Optional.empty());
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/current")
+                        .header(PLAYER, "playerId"))
+                .andExpect(status().isNotFound());
+
+        verify(gameService, never()).findByIdAndPlayer(anyString(), anyString());
+    }
+
     @Test
     void enrollToGameSuccessful() throws Exception {
         var player = new PersistentPlayer("1", "2");
@@ -320,6 +355,21 @@ class GameControllerTest {
         verify(this.gameService, times(1)).getAllPlayersCount();
     }
 
+    @Test
+    void getGameStatsTest() throws Exception {
+        var stats = GameStats.builder().players(4).games(1).suggestingCharacters(1).build();
+        when(this.gameService.getGameStats()).thenReturn(stats);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("players").value(4))
+                .andExpect(jsonPath("games").value(1))
+                .andExpect(jsonPath("suggestingCharacters").value(1))
+                .andExpect(jsonPath("waitingForPlayers").value(0));
+
+        verify(this.gameService, times(1)).getGameStats();
+    }
+
     @Test
     void getGameHistorySuccessful() throws Exception {
         var response = new GameHistory();
@@ -344,6 +394,161 @@ class GameControllerTest {
         verify(this.gameService, times(1)).findGameHistory(anyString());
     }
 
+    @Test
+    void executeBatchSuccessful() throws Exception {
+        when(this.gameBatchService.execute(anyList()))
+                .thenReturn(List.of(CommandResult.ok(),
+                        CommandResult.failed(HttpStatus.NOT_FOUND, "Game with id[2] not found.")));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/games/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "commands": [
+                                        {"type": "ASK", "gameId": "1", "player": "player", "message": "Am I a hero?"},
+                                        {"type": "ANSWER", "gameId": "2", "player": "player", "answer": "YES"}
+                                    ]
+                                }"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].error").doesNotExist())
+                .andExpect(jsonPath("$[1].status").value(404));
+
+        verify(this.gameBatchService, times(1)).execute(argThat(commands -> commands.size() == 2));
+    }
+
+    @Test
+    void executeBatchValidationFailed() throws Exception {
+        this.mockMvc.perform(MockMvcRequestBuilders.post("/games/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                    "commands": [
+                                        {"type": "ASK", "player": "player", "message": "Am I a hero?"}
+                                    ]
+                                }"""))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().json("""
+                        {
+                            "message": "Validation failed!",
+                            "details": ["Game id may not be blank"]
+                        }"""));
+
+        verifyNoInteractions(this.gameBatchService);
+    }
+
+    @Test
+    void findChangesByIdSuccessful() throws Exception {
+        var delta = GameDelta.builder()
+                .id("12345")
+                .version(7)
+                .status("SuggestingCharacters")
+                .build();
+
+        when(this.gameService.findChangesByIdAndPlayer("12345", "player", 3))
+                .thenReturn(Optional.of(delta));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}", "12345")
+                        .param("sinceVersion", "3")
+                        .header(PLAYER, "player"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(7))
+                .andExpect(jsonPath("$.status").value("SuggestingCharacters"))
+                .andExpect(jsonPath("$.players").doesNotExist());
+
+        verify(this.gameService, never()).findByIdAndPlayer(anyString(), anyString());
+    }
+
+    @Test
+    void findChangesByIdNotModified() throws Exception {
+        when(this.gameService.findChangesByIdAndPlayer("12345", "player", 7))
+                .thenReturn(Optional.of(GameDelta.builder().id("12345").version(7).build()));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}", "12345")
+                        .param("sinceVersion", "7")
+                        .header(PLAYER, "player"))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void getGameHistoryChangesNotFound() throws Exception {
+        when(this.gameService.findGameHistoryChanges("123", 1))
+                .thenReturn(Optional.empty());
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}/history", "123")
+                        .param("sinceVersion", "1"))
+                .andExpect(status().isNotFound());
+
+        verify(this.gameService, never()).findGameHistory(anyString());
+    }
+
+    @Test
+    void subscribeToEventsSuccessful() throws Exception {
+        when(this.gameEventService.subscribe("12345", "player"))
+                .thenReturn(Optional.of(new SseEmitter()));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}/events", "12345")
+                        .header(PLAYER, "player")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted());
+
+        verify(this.gameEventService, times(1)).subscribe("12345", "player");
+    }
+
+    @Test
+    void subscribeToEventsNotFound() throws Exception {
+        when(this.gameEventService.subscribe("123", null))
+                .thenReturn(Optional.empty());
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}/events", "123")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void heartbeatOfSeatedPlayer() throws Exception {
+        when(this.gameService.isSeated("12345", "player")).thenReturn(true);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.put("/games/{id}/heartbeat", "12345")
+                        .header(PLAYER, "player"))
+                .andExpect(status().isNoContent());
+    }
+
+    @Test
+    void heartbeatOfPlayerNotInGame() throws Exception {
+        when(this.gameService.isSeated("12345", "player")).thenReturn(false);
+
+        this.mockMvc.perform(MockMvcRequestBuilders.put("/games/{id}/heartbeat", "12345")
+                        .header(PLAYER, "player"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getGameHistoryPageCompleteIsImmutable() throws Exception {
+        when(this.gameService.findGameHistoryPage("12345", 0, 20))
+                .thenReturn(Optional.of(new HistoryPage(0, true, List.of())));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}/history", "12345")
+                        .param("from", "0"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=31536000, public, immutable"))
+                .andExpect(jsonPath("$.complete").value(true));
+    }
+
+    @Test
+    void getGameHistoryPageIncompleteIsNotCached() throws Exception {
+        when(this.gameService.findGameHistoryPage("12345", 20, 5))
+                .thenReturn(Optional.of(new HistoryPage(20, false, List.of())));
+
+        this.mockMvc.perform(MockMvcRequestBuilders.get("/games/{id}/history", "12345")
+                        .param("from", "20")
+                        .param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache"))
+                .andExpect(jsonPath("$.complete").value(false));
+    }
+
     @Test
     void leaveGameSuccessful() throws Exception {
         var response = new LeaveDetails("686863", "Test-Player");
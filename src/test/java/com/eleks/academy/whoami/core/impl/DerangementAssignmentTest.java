@@ -0,0 +1,55 @@
+package com.eleks.academy.whoami.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.exception.GameException;
+
+class DerangementAssignmentTest {
+
+	private static final int ROOM_SIZE = 500;
+
+	private final List<GameCharacter> characters = IntStream.range(0, ROOM_SIZE)
+			.mapToObj(i -> GameCharacter.of("character" + i, "player" + i))
+			.toList();
+
+	@Test
+	void assign_NobodyGetsOwnCharacterTest() {
+		var assignments = DerangementAssignment.random().assign(this.characters);
+
+		assertThat(assignments).hasSize(ROOM_SIZE);
+		assertThat(assignments.values()).doesNotHaveDuplicates();
+		assignments.forEach((player, character) ->
+				assertThat(character).isNotEqualTo(player.replace("player", "character")));
+	}
+
+	@Test
+	void assign_SameSeedSameAssignmentsTest() {
+		var first = DerangementAssignment.seeded(42).assign(this.characters);
+		var second = DerangementAssignment.seeded(42).assign(this.characters);
+		var other = DerangementAssignment.seeded(43).assign(this.characters);
+
+		assertThat(second).isEqualTo(first);
+		assertThat(other).isNotEqualTo(first);
+	}
+
+	@Test
+	void assign_TwoPlayersSwapCharactersTest() {
+		var assignments = DerangementAssignment.seeded(1)
+				.assign(List.of(GameCharacter.of("Batman", "player1"), GameCharacter.of("Joker", "player2")));
+
+		assertThat(assignments).containsEntry("player1", "Joker").containsEntry("player2", "Batman");
+	}
+
+	@Test
+	void assign_SingleSuggestionFailsTest() {
+		assertThatThrownBy(() -> DerangementAssignment.random().assign(List.of(GameCharacter.of("Batman", "player1"))))
+				.isInstanceOf(GameException.class);
+	}
+
+}
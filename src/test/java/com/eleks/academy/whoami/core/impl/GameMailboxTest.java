@@ -0,0 +1,81 @@
+package com.eleks.academy.whoami.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.exception.GameException;
+
+class GameMailboxTest {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final GameMailbox mailbox = new GameMailbox(executor);
+
+	@AfterEach
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	void submit_RunsCommandsInOrderOneAtATimeTest() {
+		var running = new AtomicInteger();
+		var overlaps = new AtomicInteger();
+		var order = new ArrayList<Integer>();
+
+		var results = IntStream.range(0, 1_000)
+				.mapToObj(i -> mailbox.submit(() -> {
+					if (running.incrementAndGet() > 1) {
+						overlaps.incrementAndGet();
+					}
+					order.add(i);
+					running.decrementAndGet();
+					return i;
+				}))
+				.toList();
+
+		CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).join();
+		assertThat(overlaps).hasValue(0);
+		assertThat(order).isEqualTo(IntStream.range(0, 1_000).boxed().toList());
+	}
+
+	@Test
+	void await_RethrowsCommandExceptionTest() {
+		CompletableFuture<Object> result = mailbox.submit(() -> {
+			throw new GameException("failed");
+		});
+
+		var exception = assertThrows(GameException.class, () -> GameMailbox.await(result));
+		assertThat(exception).hasMessage("failed");
+		assertThat(GameMailbox.await(mailbox.submit(() -> List.of(1)))).containsExactly(1);
+	}
+
+	@Test
+	void suspend_HoldsLaterCommandsUntilResumedTest() throws Exception {
+		var order = new ArrayList<Integer>();
+		mailbox.submit(() -> {
+			order.add(1);
+			mailbox.suspend();
+			return null;
+		}).join();
+		var held = mailbox.submit(() -> order.add(2));
+
+		Thread.sleep(50);
+		assertThat(held).isNotDone();
+
+		mailbox.resume();
+		held.join();
+		assertThat(order).containsExactly(1, 2);
+	}
+
+}
@@ -0,0 +1,402 @@
+package com.eleks.academy.whoami.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.SynchronousPlayer;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventListener;
+import com.eleks.academy.whoami.core.event.GameEventType;
+import com.eleks.academy.whoami.core.exception.GameMovedException;
+import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.GameRules;
+import com.eleks.academy.whoami.core.state.GameState;
+import com.eleks.academy.whoami.core.state.TurnDeadlines;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
+import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class PersistentGameTest {
+
+	private final PersistentGame game = new PersistentGame(2);
+
+	@Test
+	void enrollToGame_BumpsVersionOnEveryChangeTest() {
+		long initial = game.getVersion();
+
+		game.enrollToGame("player1");
+		long enrolled = game.getVersion();
+		game.enrollToGame("player2");
+
+		assertThat(enrolled).isGreaterThan(initial);
+		assertThat(game.getVersion()).isGreaterThan(enrolled);
+	}
+
+	@Test
+	void enrollToGame_NamesPlayersByFreeSeatTest() {
+		var room = new PersistentGame(6);
+
+		for (int i = 1; i <= 5; i++) {
+			room.enrollToGame("player" + i);
+		}
+		room.leaveGame("player2");
+		var joined = room.enrollToGame("player6");
+
+		assertThat(room.findPlayer("player5")).map(SynchronousPlayer::getName).contains("Player 5");
+		assertThat(joined.getName()).isEqualTo("Player 2");
+	}
+
+	@Test
+	void enrollToGame_SwitchesStateOnceAndNotifiesListenersTest() {
+		List<GameState> transitions = new ArrayList<>();
+		game.addStateListener((changed, previous, next) -> {
+			transitions.add(previous);
+			transitions.add(next);
+		});
+
+		game.enrollToGame("player1");
+		game.enrollToGame("player2");
+
+		assertThat(game.getState()).isInstanceOf(SuggestingCharacters.class);
+		assertThat(transitions).hasSize(2);
+		assertThat(transitions.get(0)).isInstanceOf(WaitingForPlayers.class);
+		assertThat(transitions.get(1)).isSameAs(game.getState());
+	}
+
+	@Test
+	void enrollToGame_PublishesEventsInOrderTest() {
+		List<GameEvent> events = new ArrayList<>();
+		game.addEventListener(events::add);
+
+		game.enrollToGame("player1");
+		game.enrollToGame("player2");
+
+		assertThat(events).extracting(GameEvent::type)
+				.containsExactly(GameEventType.PLAYER_JOINED, GameEventType.PLAYER_JOINED, GameEventType.STATE_CHANGED);
+		assertThat(events).extracting(GameEvent::version)
+				.isSorted()
+				.doesNotHaveDuplicates()
+				.endsWith(game.getVersion());
+		assertThat(events.get(2).payload()).isEqualTo(SuggestingCharacters.class.getSimpleName());
+	}
+
+	@Test
+	void removeEventListener_StopsPublishingTest() {
+		List<GameEvent> events = new ArrayList<>();
+		GameEventListener listener = events::add;
+		game.addEventListener(listener);
+
+		game.enrollToGame("player1");
+		game.removeEventListener(listener);
+		game.enrollToGame("player2");
+
+		assertThat(events).hasSize(1);
+	}
+
+	@Test
+	void getPlayersChangedSince_ReturnsOnlyChangedPlayersTest() {
+		game.enrollToGame("player1");
+		long since = game.getVersion();
+
+		game.enrollToGame("player2");
+
+		assertThat(game.getPlayersChangedSince(since))
+				.extracting(player -> player.getPlayer().getId())
+				.containsExactly("player2");
+		assertThat(game.isStateChangedSince(since)).isTrue();
+		assertThat(game.getPlayersChangedSince(game.getVersion())).isEmpty();
+		assertThat(game.isStateChangedSince(game.getVersion())).isFalse();
+	}
+
+	@Test
+	void answerQuestion_StampsAnsweringPlayerUntilQuestionResolvedTest() {
+		var bigGame = new PersistentGame(3);
+		bigGame.enrollToGame("player1");
+		bigGame.enrollToGame("player2");
+		bigGame.enrollToGame("player3");
+		bigGame.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		bigGame.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		bigGame.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) bigGame.getState()).getCurrentPlayer();
+		var answering = bigGame.getPlayersList().stream()
+				.map(player -> player.getPlayer().getId())
+				.filter(player -> !player.equals(asking))
+				.toList();
+		bigGame.askQuestion(asking, "Am I a hero?");
+		long asked = bigGame.getVersion();
+
+		bigGame.answerQuestion(answering.get(0), QuestionAnswer.YES);
+		var firstAnswer = bigGame.getPlayersChangedSince(asked);
+		long answered = bigGame.getVersion();
+		bigGame.answerQuestion(answering.get(1), QuestionAnswer.YES);
+
+		assertThat(firstAnswer)
+				.extracting(player -> player.getPlayer().getId())
+				.containsExactly(answering.get(0));
+		// the resolved question resets the asking and the first answering player, the last one ends as it began
+		assertThat(bigGame.getPlayersChangedSince(answered))
+				.extracting(player -> player.getPlayer().getId())
+				.containsExactlyInAnyOrder(asking, answering.get(0));
+	}
+
+	@Test
+	void getPlayersLeftSince_ReturnsLeftPlayersTest() {
+		var bigGame = new PersistentGame(3);
+		bigGame.enrollToGame("player1");
+		bigGame.enrollToGame("player2");
+		long since = bigGame.getVersion();
+
+		bigGame.leaveGame("player2");
+
+		assertThat(bigGame.getPlayersLeftSince(since)).containsExactly("player2");
+		assertThat(bigGame.getPlayersChangedSince(since)).isEmpty();
+		assertThat(bigGame.getPlayersLeftSince(bigGame.getVersion())).isEmpty();
+	}
+
+	@Test
+	void suggestCharacter_AssignsOtherPlayersCharactersTest() {
+		var seededGame = new PersistentGame(3, DerangementAssignment.seeded(7));
+		seededGame.enrollToGame("player1");
+		seededGame.enrollToGame("player2");
+		seededGame.enrollToGame("player3");
+
+		seededGame.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		seededGame.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		seededGame.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+
+		assertThat(seededGame.getState()).isInstanceOf(ProcessingQuestion.class);
+		assertThat(seededGame.getPlayersList())
+				.extracting(player -> player.getPlayer().getCharacter())
+				.containsExactlyInAnyOrder("Batman", "Superman", "Joker");
+		assertThat(seededGame.findPlayer("player1").orElseThrow().getCharacter()).isNotEqualTo("Batman");
+		assertThat(seededGame.findPlayer("player2").orElseThrow().getCharacter()).isNotEqualTo("Superman");
+		assertThat(seededGame.findPlayer("player3").orElseThrow().getCharacter()).isNotEqualTo("Joker");
+	}
+
+	@Test
+	void answeringDeadline_ResolvesQuestionTest() throws InterruptedException {
+		var largeRoom = new PersistentGame(3, GameRules.largeRoom(1.0, Duration.ofMillis(50)));
+		List<GameEvent> events = new CopyOnWriteArrayList<>();
+		largeRoom.enrollToGame("player1");
+		largeRoom.enrollToGame("player2");
+		largeRoom.enrollToGame("player3");
+		largeRoom.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		largeRoom.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		largeRoom.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) largeRoom.getState()).getCurrentPlayer();
+		largeRoom.addEventListener(events::add);
+
+		largeRoom.askQuestion(asking, "Am I a hero?");
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (largeRoom.getGameHistory().hasCurrentQuestion() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(largeRoom.getGameHistory().hasCurrentQuestion()).isFalse();
+		assertThat(events).extracting(GameEvent::type)
+				.containsExactly(GameEventType.QUESTION_ASKED, GameEventType.TURN_CHANGED);
+	}
+
+	@Test
+	void askingDeadline_SkipsIdleAskerTest() throws InterruptedException {
+		var timedGame = new PersistentGame(3, GameRules.classic()
+				.withDeadlines(new TurnDeadlines(null, Duration.ofMillis(50), null)));
+		timedGame.enrollToGame("player1");
+		timedGame.enrollToGame("player2");
+		timedGame.enrollToGame("player3");
+		timedGame.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		timedGame.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		timedGame.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) timedGame.getState()).getCurrentPlayer();
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (asking.equals(((ProcessingQuestion) timedGame.getState()).getCurrentPlayer())
+				&& System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(((ProcessingQuestion) timedGame.getState()).getCurrentPlayer()).isNotEqualTo(asking);
+	}
+
+	@Test
+	void suggestingDeadline_SuggestsSpareCharactersTest() throws InterruptedException {
+		var timedGame = new PersistentGame(3, GameRules.classic()
+				.withDeadlines(new TurnDeadlines(Duration.ofMillis(50), null, null)));
+		timedGame.enrollToGame("player1");
+		timedGame.enrollToGame("player2");
+		timedGame.enrollToGame("player3");
+		timedGame.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!(timedGame.getState() instanceof ProcessingQuestion) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(timedGame.getState()).isInstanceOf(ProcessingQuestion.class);
+		assertThat(timedGame.getPlayersList())
+				.extracting(player -> player.getPlayer().getCharacter())
+				.contains("Batman")
+				.doesNotHaveDuplicates();
+	}
+
+	@Test
+	void leaveGame_PlayerLeftAloneWaitsForPlayersTest() {
+		var room = new PersistentGame(3);
+		room.enrollToGame("player1");
+		room.enrollToGame("player2");
+		room.enrollToGame("player3");
+		room.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+
+		room.leaveGame("player2");
+		room.leaveGame("player3");
+
+		assertThat(room.getState()).isInstanceOf(WaitingForPlayers.class);
+		assertThat(room.findPlayer("player1")).isPresent();
+		assertThrows(GameNotFoundException.class,
+				() -> room.suggestCharacter("player1", new CharacterSuggestion("Alice", "Superman")));
+		room.enrollToGame("player4");
+		room.enrollToGame("player5");
+		assertThat(room.getState()).isInstanceOf(SuggestingCharacters.class);
+	}
+
+	@Test
+	void suggestCharacter_PlayerAloneIsNotAppliedTest() {
+		var alone = restoreAlone(new PersistentGame(2), "player1");
+
+		assertThrows(GameNotFoundException.class,
+				() -> alone.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman")));
+		assertThat(alone.getState()).isInstanceOf(WaitingForPlayers.class);
+		assertThat(alone.getPlayersList())
+				.extracting(PlayerWithState::getState)
+				.containsExactly(PlayerState.NOT_READY);
+	}
+
+	@Test
+	void suggestingDeadline_PlayerAloneWaitsForPlayersTest() throws InterruptedException {
+		var alone = restoreAlone(new PersistentGame(2, GameRules.classic()
+				.withDeadlines(new TurnDeadlines(Duration.ofMillis(50), null, null))), "player1");
+
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (!(alone.getState() instanceof WaitingForPlayers) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(alone.getState()).isInstanceOf(WaitingForPlayers.class);
+		assertThat(alone.findPlayer("player1")).isPresent();
+	}
+
+	@Test
+	void getGameHistory_TracksChangedQuestionsTest() {
+		game.enrollToGame("player1");
+		game.enrollToGame("player2");
+		game.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		game.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		var processingQuestion = (ProcessingQuestion) game.getState();
+		var asking = processingQuestion.getCurrentPlayer();
+		long since = game.getVersion();
+
+		game.askQuestion(asking, "Am I a hero?");
+
+		assertThat(game.getGameHistory().changedSince(since)).isZero();
+		assertThat(game.getGameHistory().changedSince(game.getVersion())).isEqualTo(1);
+		assertThat(game.getPlayersChangedSince(since))
+				.extracting(PlayerWithState::getState)
+				.hasSize(1);
+	}
+
+	@Test
+	void restore_ContinuesGameAtTheSameTurnTest() throws Exception {
+		var largeRoom = new PersistentGame(3, GameRules.largeRoom(1.0, Duration.ofMinutes(1)));
+		largeRoom.enrollToGame("player1");
+		largeRoom.enrollToGame("player2");
+		largeRoom.enrollToGame("player3");
+		largeRoom.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		largeRoom.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		largeRoom.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) largeRoom.getState()).getCurrentPlayer();
+		var answering = largeRoom.getPlayersList().stream()
+				.map(player -> player.getPlayer().getId())
+				.filter(player -> !player.equals(asking))
+				.toList();
+		largeRoom.askQuestion(asking, "Am I a hero?");
+		largeRoom.answerQuestion(answering.get(0), QuestionAnswer.NO);
+
+		var mapper = new ObjectMapper().findAndRegisterModules();
+		var snapshot = mapper.readValue(mapper.writeValueAsBytes(largeRoom.suspend().join()), GameSnapshot.class);
+		var restored = PersistentGame.restore(snapshot);
+
+		assertThat(restored.getId()).isEqualTo(largeRoom.getId());
+		assertThat(restored.getVersion()).isEqualTo(largeRoom.getVersion() + 1);
+		assertThat(((ProcessingQuestion) restored.getState()).getCurrentPlayer()).isEqualTo(asking);
+		assertThat(restored.getGameHistory().getQuestions()).isEqualTo(largeRoom.getGameHistory().getQuestions());
+		assertThat(restored.getPlayersList())
+				.extracting(player -> player.getPlayer().getCharacter())
+				.containsExactlyInAnyOrder("Batman", "Superman", "Joker");
+
+		restored.answerQuestion(answering.get(1), QuestionAnswer.NO);
+
+		assertThat(restored.getGameHistory().hasCurrentQuestion()).isFalse();
+		assertThat(((ProcessingQuestion) restored.getState()).getCurrentPlayer()).isNotEqualTo(asking);
+	}
+
+	@Test
+	void moved_FailsHeldCommandsTest() {
+		List<GameEvent> events = new CopyOnWriteArrayList<>();
+		game.enrollToGame("player1");
+		game.addEventListener(events::add);
+		game.suspend().join();
+		var held = game.submit(() -> game.enrollToGame("player2"));
+
+		game.moved(3);
+
+		assertThrows(GameMovedException.class, () -> GameMailbox.await(held));
+		assertThat(events).extracting(GameEvent::type).containsExactly(GameEventType.GAME_MOVED);
+		assertThat(events.get(0).payload()).isEqualTo("3");
+	}
+
+
+	@Test
+	void disband_PublishesLastEventAndCancelsDeadlineTest() throws InterruptedException {
+		List<GameEvent> events = new CopyOnWriteArrayList<>();
+		var timedGame = new PersistentGame(2, GameRules.classic()
+				.withDeadlines(new TurnDeadlines(null, Duration.ofMillis(50), null)));
+		timedGame.enrollToGame("player1");
+		timedGame.enrollToGame("player2");
+		timedGame.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		timedGame.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		var asking = ((ProcessingQuestion) timedGame.getState()).getCurrentPlayer();
+		timedGame.addEventListener(events::add);
+
+		timedGame.disband();
+		GameMailbox.await(timedGame.submit(() -> timedGame.snapshot()));
+		Thread.sleep(200);
+
+		assertThat(events).extracting(GameEvent::type).containsExactly(GameEventType.GAME_DISBANDED);
+		assertThat(((ProcessingQuestion) timedGame.getState()).getCurrentPlayer()).isEqualTo(asking);
+	}
+
+	/*
+	 * @return game restored at SuggestingCharacters state with the only player,
+	 * the way a game migrated right after the other players left comes back
+	 */
+	private static PersistentGame restoreAlone(PersistentGame game, String player) {
+		game.enrollToGame(player);
+		game.enrollToGame("other");
+		var snapshot = game.suspend().join();
+		return PersistentGame.restore(new GameSnapshot(snapshot.id(), snapshot.maxPlayers(), snapshot.version(),
+				snapshot.state(), snapshot.quorum(), snapshot.deadlines(),
+				snapshot.players().stream().filter(seated -> seated.id().equals(player)).toList(),
+				snapshot.suggestions(), snapshot.turn()));
+	}
+
+}
@@ -0,0 +1,54 @@
+package com.eleks.academy.whoami.core.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeIdGeneratorTest {
+
+	@Test
+	void next_UniqueAndGrowingWithinMillisecondTest() {
+		var generator = new SnowflakeIdGenerator(5, () -> 1_700_000_000_000L);
+		var ids = new ArrayList<Long>();
+
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(generator.next());
+		}
+
+		assertThat(ids).isSorted().doesNotHaveDuplicates();
+		assertThat(ids).allMatch(id -> id > 0 && SnowflakeIdGenerator.nodeOf(id) == 5);
+	}
+
+	@Test
+	void next_KeepsGrowingWhenClockStepsBackTest() {
+		var now = new long[] {1_700_000_000_000L};
+		var generator = new SnowflakeIdGenerator(1, () -> now[0]);
+
+		long before = generator.next();
+		now[0] -= 1_000;
+
+		assertThat(generator.next()).isGreaterThan(before);
+	}
+
+	@Test
+	void next_NodesNeverCollideTest() {
+		var ids = new HashSet<Long>();
+		for (int node = 0; node < 4; node++) {
+			var generator = new SnowflakeIdGenerator(node, () -> 1_700_000_000_000L);
+			for (int i = 0; i < 1_000; i++) {
+				assertThat(ids.add(generator.next())).isTrue();
+			}
+		}
+	}
+
+	@Test
+	void of_RejectsNodeOutOfRangeTest() {
+		assertThrows(IllegalArgumentException.class, () -> SnowflakeIdGenerator.of(SnowflakeIdGenerator.MAX_NODE + 1));
+		assertThat(SnowflakeIdGenerator.of(3)).isSameAs(SnowflakeIdGenerator.of(3));
+	}
+
+}
@@ -0,0 +1,162 @@
+package com.eleks.academy.whoami.core.state.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.impl.PersistentPlayer;
+import com.eleks.academy.whoami.core.snapshot.GameSnapshot;
+import com.eleks.academy.whoami.core.state.GameRules;
+import com.eleks.academy.whoami.model.request.GuessAnswer;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.model.response.PlayerState;
+import com.eleks.academy.whoami.model.response.PlayerWithState;
+
+class ProcessingQuestionTest {
+
+	private ProcessingQuestion processingQuestion;
+
+	private String asking;
+
+	private List<String> answering;
+
+	@BeforeEach
+	void setUp() {
+		this.start(List.of("player1", "player2", "player3"), GameRules.classic());
+	}
+
+	@Test
+	void answerQuestion_MajorityOfNoChangesTurnTest() {
+		this.processingQuestion.askQuestion(this.asking, "Am I a hero?");
+		this.processingQuestion.answerQuestion(this.answering.get(0), QuestionAnswer.NO);
+
+		assertThat(this.processingQuestion.getGameHistory().hasCurrentQuestion()).isTrue();
+
+		this.processingQuestion.answerQuestion(this.answering.get(1), QuestionAnswer.NO);
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isNotEqualTo(this.asking);
+		assertThat(this.processingQuestion.getGameHistory().hasCurrentQuestion()).isFalse();
+	}
+
+	@Test
+	void answerQuestion_TieKeepsTurnAndResetsVotesTest() {
+		this.processingQuestion.askQuestion(this.asking, "Am I a hero?");
+		this.processingQuestion.answerQuestion(this.answering.get(0), QuestionAnswer.NO);
+		this.processingQuestion.answerQuestion(this.answering.get(1), QuestionAnswer.NOT_SURE);
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isEqualTo(this.asking);
+		assertThat(this.processingQuestion.getPlayersList())
+				.allMatch(player -> player.getAnswer() == null);
+
+		this.processingQuestion.askQuestion(this.asking, "Am I a villain?");
+		this.processingQuestion.answerQuestion(this.answering.get(0), QuestionAnswer.NO);
+		this.processingQuestion.answerQuestion(this.answering.get(1), QuestionAnswer.NO);
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isNotEqualTo(this.asking);
+	}
+
+	@Test
+	void answerGuess_MajorityOfYesFinishesPlayerTest() {
+		this.processingQuestion.submitGuess(this.asking, "Batman");
+		this.processingQuestion.answerGuess(this.answering.get(0), GuessAnswer.YES);
+		this.processingQuestion.answerGuess(this.answering.get(1), GuessAnswer.YES);
+
+		assertThat(this.processingQuestion.getPlayersList())
+				.filteredOn(player -> player.getPlayer().getId().equals(this.asking))
+				.extracting(PlayerWithState::getState)
+				.containsExactly(PlayerState.FINISHED);
+		assertThat(this.processingQuestion.getCurrentPlayer()).isNotEqualTo(this.asking);
+	}
+
+	@Test
+	void answerQuestion_LargeRoomResolvesAtQuorumTest() {
+		var ids = new ArrayList<String>();
+		for (int i = 0; i < 301; i++) {
+			ids.add("player" + i);
+		}
+		this.start(ids, GameRules.largeRoom(0.1, Duration.ofSeconds(30)));
+
+		this.processingQuestion.askQuestion(this.asking, "Am I a hero?");
+		for (int i = 0; i < 29; i++) {
+			this.processingQuestion.answerQuestion(this.answering.get(i), QuestionAnswer.NO);
+		}
+
+		assertThat(this.processingQuestion.getGameHistory().hasCurrentQuestion()).isTrue();
+
+		this.processingQuestion.answerQuestion(this.answering.get(29), QuestionAnswer.NO);
+
+		assertThat(this.processingQuestion.getGameHistory().hasCurrentQuestion()).isFalse();
+		assertThat(this.processingQuestion.getCurrentPlayer()).isNotEqualTo(this.asking);
+	}
+
+	@Test
+	void answerMissing_CountsMissingAnswersAsNotSureTest() {
+		this.start(List.of("player1", "player2", "player3", "player4"), GameRules.largeRoom(1.0, Duration.ofSeconds(30)));
+
+		this.processingQuestion.submitGuess(this.asking, "Batman");
+		this.processingQuestion.answerGuess(this.answering.get(0), GuessAnswer.YES);
+
+		assertThat(this.processingQuestion.answerMissing()).isEqualTo(2);
+		assertThat(this.processingQuestion.getGameHistory().hasCurrentQuestion()).isFalse();
+		assertThat(this.processingQuestion.getGameHistory().snapshot().get(0).answers())
+				.extracting(GameSnapshot.Answer::answer)
+				.containsExactlyInAnyOrder(QuestionAnswer.YES, QuestionAnswer.NOT_SURE, QuestionAnswer.NOT_SURE);
+		assertThat(this.processingQuestion.getPlayersList())
+				.filteredOn(player -> player.getPlayer().getId().equals(this.asking))
+				.extracting(PlayerWithState::getState)
+				.containsExactly(PlayerState.FINISHED);
+	}
+
+	@Test
+	void skipTurn_PassesTurnOfIdleAskerTest() {
+		this.start(List.of("player1", "player2", "player3"), GameRules.classic());
+
+		this.processingQuestion.skipTurn();
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isEqualTo("player2");
+		assertThat(this.processingQuestion.getPlayersList())
+				.filteredOn(player -> player.getPlayer().getId().equals("player1"))
+				.extracting(PlayerWithState::getState)
+				.containsExactly(PlayerState.ANSWERING);
+
+		this.processingQuestion.askQuestion("player2", "Am I a hero?");
+		this.processingQuestion.skipTurn();
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isEqualTo("player2");
+	}
+
+	@Test
+	void leave_CurrentPlayerPassesTurnToNextInOrderTest() {
+		this.start(List.of("player1", "player2", "player3", "player4"), GameRules.classic());
+
+		this.processingQuestion.leave("player1");
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isEqualTo("player2");
+
+		this.processingQuestion.leave("player3");
+		this.processingQuestion.submitGuess("player2", "Batman");
+		this.processingQuestion.answerGuess("player4", GuessAnswer.NO);
+
+		assertThat(this.processingQuestion.getCurrentPlayer()).isEqualTo("player4");
+	}
+
+	private void start(List<String> ids, GameRules rules) {
+		Map<String, PlayerWithState> players = new LinkedHashMap<>();
+		for (var id : ids) {
+			players.put(id, new PlayerWithState(new PersistentPlayer(id, id), null, PlayerState.READY));
+		}
+		this.processingQuestion = new ProcessingQuestion(players, rules);
+		this.asking = this.processingQuestion.getCurrentPlayer();
+		this.answering = players.keySet().stream()
+				.filter(id -> !id.equals(this.asking))
+				.toList();
+	}
+
+}
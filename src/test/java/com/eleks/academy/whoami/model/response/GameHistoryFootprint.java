@@ -0,0 +1,73 @@
+package com.eleks.academy.whoami.model.response;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import com.eleks.academy.whoami.core.chat.QuestionsHistory;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+
+/**
+ * Retained size of a {@value #TURNS}-turn game history: a plain list of
+ * {@link QuestionsHistory} against the encoded {@link GameHistory}. Not a unit test, run it manually:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.eleks.academy.whoami.model.response.GameHistoryFootprint
+ * </pre>
+ */
+public class GameHistoryFootprint {
+
+	private static final int TURNS = 100;
+
+	private static final int PLAYERS = 4;
+
+	/*
+	 * Players tend to ask the same questions, a game sees only a few dozen distinct ones
+	 */
+	private static final int DISTINCT_QUESTIONS = 30;
+
+	public static void main(String[] args) {
+		var players = new ArrayList<String>();
+		for (int i = 0; i < PLAYERS; i++) {
+			players.add(UUID.randomUUID().toString());
+		}
+		var texts = new ArrayList<String>();
+		for (int i = 0; i < DISTINCT_QUESTIONS; i++) {
+			texts.add("Am I a character number " + i + "?");
+		}
+
+		var plain = new ArrayList<QuestionsHistory>();
+		var encoded = new GameHistory();
+		for (int turn = 0; turn < TURNS; turn++) {
+			var asking = players.get(turn % PLAYERS);
+			// a fresh copy of the text, as it arrives with every request
+			var text = new String(texts.get(turn % DISTINCT_QUESTIONS));
+			var question = new QuestionsHistory(asking, GameHistory.QUESTION, text);
+			encoded.addQuestion(asking, GameHistory.QUESTION, text);
+			for (var player : players) {
+				if (!player.equals(asking)) {
+					var answer = QuestionAnswer.values()[Math.floorMod(turn + player.hashCode(), 3)];
+					question.addAnswer(player, answer.toString());
+					encoded.addAnswer(player, answer);
+				}
+			}
+			plain.add(question);
+			encoded.resolveCurrentQuestion();
+		}
+
+		long plainSize = GraphLayout.parseInstance(plain).totalSize();
+		// player ids are owned by the game, count them for both layouts alike
+		long encodedSize = GraphLayout.parseInstance(encoded, players).totalSize();
+		System.out.printf("%-10s %12s %12s%n", "layout", "bytes", "per turn");
+		print("plain", plainSize);
+		print("encoded", encodedSize);
+		System.out.println(GraphLayout.parseInstance(encoded).toFootprint());
+		System.out.printf("decodes to the same questions: %b%n", encoded.getQuestions().equals(plain));
+	}
+
+	private static void print(String layout, long bytes) {
+		System.out.printf("%-10s %12d %12d%n", layout, bytes, bytes / TURNS);
+	}
+
+}
@@ -0,0 +1,82 @@
+package com.eleks.academy.whoami.model.response;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import org.junit.jupiter.api.Test;
+
+class GameHistoryTest {
+
+	private final GameHistory history = new GameHistory();
+
+	@Test
+	void addAnswer_AttachesToCurrentQuestionTest() {
+		this.history.addQuestion("player1", "question", "Am I a hero?");
+		this.history.addQuestion("player1", "question", "Am I a villain?");
+
+		this.history.addAnswer("player2", QuestionAnswer.YES);
+
+		assertThat(this.history.getQuestions().get(0).getAnswers()).isEmpty();
+		assertThat(this.history.getQuestions().get(1).getAnswers()).hasSize(1);
+	}
+
+	@Test
+	void getQuestions_DecodesEncodedQuestionsTest() {
+		this.history.addQuestion("player1", GameHistory.QUESTION, "Am I a hero?");
+		this.history.addAnswer("player2", QuestionAnswer.NOT_SURE);
+		this.history.addAnswer("player3", QuestionAnswer.NO);
+		this.history.addQuestion("player2", GameHistory.GUESS, "Batman");
+		this.history.addAnswer("player1", QuestionAnswer.YES);
+		this.history.resolveCurrentQuestion();
+		this.history.addQuestion("player3", GameHistory.QUESTION, "Am I a hero?");
+
+		var questions = this.history.getQuestions();
+
+		assertThat(questions).extracting("player", "type", "question")
+				.containsExactly(tuple("player1", "question", "Am I a hero?"),
+						tuple("player2", "guess", "Batman"),
+						tuple("player3", "question", "Am I a hero?"));
+		assertThat(questions.get(0).getAnswers()).extracting("player", "answer")
+				.containsExactly(tuple("player2", "NOT_SURE"), tuple("player3", "NO"));
+		assertThat(questions.get(1).getAnswers()).extracting("player", "answer")
+				.containsExactly(tuple("player1", "YES"));
+		assertThat(questions.get(2).getAnswers()).isEmpty();
+		assertThat(this.history.isCurrentQuestion(GameHistory.QUESTION)).isTrue();
+		assertThat(this.history.getCurrentQuestion()).isEqualTo(questions.get(2));
+	}
+
+	@Test
+	void getPage_BuildsCompletePageOnceTest() {
+		this.addQuestions(GameHistory.PAGE_SIZE + 1);
+
+		var first = this.history.getPage(0, GameHistory.PAGE_SIZE);
+		var last = this.history.getPage(GameHistory.PAGE_SIZE, GameHistory.PAGE_SIZE);
+
+		assertThat(first.isComplete()).isTrue();
+		assertThat(first.getQuestions()).hasSize(GameHistory.PAGE_SIZE);
+		assertThat(this.history.getPage(0, GameHistory.PAGE_SIZE)).isSameAs(first);
+		assertThat(last.isComplete()).isFalse();
+		assertThat(last.getQuestions()).hasSize(1);
+	}
+
+	@Test
+	void getPage_PageWithCurrentQuestionIsNotCompleteTest() {
+		this.addQuestions(GameHistory.PAGE_SIZE);
+
+		assertThat(this.history.getPage(0, GameHistory.PAGE_SIZE).isComplete()).isFalse();
+
+		this.history.resolveCurrentQuestion();
+
+		assertThat(this.history.getPage(0, GameHistory.PAGE_SIZE).isComplete()).isTrue();
+		assertThat(this.history.getPage(5, 5).isComplete()).isTrue();
+		assertThat(this.history.getPage(50, 5).getQuestions()).isEmpty();
+	}
+
+	private void addQuestions(int count) {
+		for (int i = 0; i < count; i++) {
+			this.history.addQuestion("player1", "question", "Question " + i);
+		}
+	}
+
+}
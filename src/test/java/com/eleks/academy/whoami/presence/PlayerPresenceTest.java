@@ -0,0 +1,55 @@
+package com.eleks.academy.whoami.presence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class PlayerPresenceTest {
+
+	private final PlayerPresence presence = new PlayerPresence();
+
+	@Test
+	void findAbsent_ReturnsPlayersNotSeenSinceTimeoutTest() throws InterruptedException {
+		this.presence.track("player1");
+		this.presence.track("player2");
+		Thread.sleep(50);
+
+		this.presence.seen("player2");
+		this.presence.seen("stranger");
+
+		assertThat(this.presence.findAbsent(Duration.ofMillis(40))).containsExactly("player1");
+		assertThat(this.presence.size()).isEqualTo(2);
+	}
+
+	@Test
+	void streamOpened_KeepsPlayerPresentUntilStreamClosedTest() throws InterruptedException {
+		this.presence.track("player1");
+		this.presence.streamOpened("player1");
+		this.presence.streamOpened("player1");
+		Thread.sleep(5);
+
+		assertThat(this.presence.findAbsent(Duration.ZERO)).isEmpty();
+		this.presence.streamClosed("player1");
+		assertThat(this.presence.findAbsent(Duration.ZERO)).isEmpty();
+		this.presence.streamClosed("player1");
+		Thread.sleep(5);
+		assertThat(this.presence.findAbsent(Duration.ZERO)).containsExactly("player1");
+	}
+
+	@Test
+	void forget_ReusesSlotsTest() throws InterruptedException {
+		IntStream.range(0, 5_000).forEach(i -> this.presence.track("player" + i));
+		IntStream.range(0, 5_000).forEach(i -> this.presence.forget("player" + i));
+		IntStream.range(0, 5_000).forEach(i -> this.presence.track("other" + i));
+		Thread.sleep(5);
+
+		assertThat(this.presence.size()).isEqualTo(5_000);
+		assertThat(this.presence.findAbsent(Duration.ZERO))
+				.hasSize(5_000)
+				.allMatch(player -> player.startsWith("other"));
+	}
+
+}
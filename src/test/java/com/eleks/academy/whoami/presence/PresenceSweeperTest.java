@@ -0,0 +1,59 @@
+package com.eleks.academy.whoami.presence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.configuration.DeadlineProperties;
+import com.eleks.academy.whoami.configuration.LargeRoomProperties;
+import com.eleks.academy.whoami.configuration.PresenceProperties;
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+import com.eleks.academy.whoami.model.request.NewGameSize;
+import com.eleks.academy.whoami.repository.impl.GameInMemoryRepository;
+import com.eleks.academy.whoami.service.impl.GameServiceImpl;
+
+class PresenceSweeperTest {
+
+	private final GameInMemoryRepository repository = new GameInMemoryRepository();
+
+	private final PlayerPresence presence = new PlayerPresence();
+
+	private final GameServiceImpl gameService = new GameServiceImpl(this.repository,
+			new LargeRoomProperties(0.5, Duration.ofSeconds(30)),
+			new DeadlineProperties(Duration.ZERO, Duration.ZERO, Duration.ZERO), SnowflakeIdGenerator.local(), this.presence);
+
+	private final PresenceSweeper sweeper = new PresenceSweeper(this.presence, this.repository, this.gameService,
+			new PresenceProperties(Duration.ofMillis(40), Duration.ZERO));
+
+	@AfterEach
+	void shutdown() {
+		this.sweeper.shutdown();
+	}
+
+	@Test
+	void sweep_AbsentPlayerLeavesGameTest() throws InterruptedException {
+		var id = this.gameService.createGame("player1", new NewGameSize(3)).orElseThrow().getId();
+		this.gameService.enrollToGame(id, "player2");
+		Thread.sleep(50);
+		this.presence.seen("player2");
+
+		assertThat(this.sweeper.sweep()).isEqualTo(1);
+		assertThat(this.repository.findGameByPlayer("player1")).isEmpty();
+		assertThat(this.repository.findGameById(id).orElseThrow().getPlayersList()).hasSize(1);
+		assertThat(this.presence.size()).isEqualTo(1);
+	}
+
+	@Test
+	void sweep_ForgetsPlayersOfDisbandedGamesTest() throws InterruptedException {
+		var id = this.gameService.createGame("player1", new NewGameSize(3)).orElseThrow().getId();
+		this.repository.disbandGame(id);
+		Thread.sleep(50);
+
+		assertThat(this.sweeper.sweep()).isZero();
+		assertThat(this.presence.size()).isZero();
+	}
+
+}
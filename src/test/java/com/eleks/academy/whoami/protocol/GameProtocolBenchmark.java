@@ -0,0 +1,103 @@
+package com.eleks.academy.whoami.protocol;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.SpringApplication;
+
+import com.eleks.academy.whoami.WhoAmIApplication;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+
+/**
+ * Throughput of the turn info request over REST against the binary game protocol,
+ * both served by the same application. Not a unit test, run it manually:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.eleks.academy.whoami.protocol.GameProtocolBenchmark
+ * </pre>
+ */
+public class GameProtocolBenchmark {
+
+	private static final int HTTP_PORT = 18080;
+
+	private static final int GAME_PORT = 12000;
+
+	private static final long WARMUP_MILLIS = 2_000;
+
+	private static final long MEASURE_MILLIS = 5_000;
+
+	private static final int THREADS = 4;
+
+	public static void main(String[] args) throws Exception {
+		var context = SpringApplication.run(WhoAmIApplication.class,
+				"--server.port=" + HTTP_PORT, "--game.port=" + GAME_PORT, "--logging.level.root=WARN");
+
+		try (var client = GameProtocolClient.connect("localhost", GAME_PORT)) {
+			var game = client.createGame("player1", 2);
+			client.enrollToGame(game.getId(), "player2");
+			client.suggestCharacter(game.getId(), "player1", new CharacterSuggestion("Bob", "Batman"));
+			client.suggestCharacter(game.getId(), "player2", new CharacterSuggestion("Alice", "Superman"));
+
+			var http = HttpClient.newBuilder()
+					.version(HttpClient.Version.HTTP_1_1)
+					.build();
+			var turnRequest = HttpRequest.newBuilder()
+					.uri(URI.create("http://localhost:" + HTTP_PORT + "/api/v1/games/" + game.getId() + "/turn"))
+					.header("X-Player", "player1")
+					.GET()
+					.build();
+
+			double rest = run(() -> {
+				var response = http.send(turnRequest, HttpResponse.BodyHandlers.ofByteArray());
+				if (response.statusCode() != 200) {
+					throw new IllegalStateException("REST answered " + response.statusCode());
+				}
+			});
+			double protocol = run(() -> client.findTurnInfo(game.getId(), "player1"));
+
+			System.out.printf("threads: %d, cores: %d%n", THREADS, Runtime.getRuntime().availableProcessors());
+			System.out.printf("%-10s %15s%n", "transport", "requests/s");
+			System.out.printf("%-10s %15.0f%n", "REST", rest);
+			System.out.printf("%-10s %15.0f%n", "protocol", protocol);
+		} finally {
+			context.close();
+		}
+	}
+
+	private static double run(Request request) throws InterruptedException {
+		var requests = new LongAdder();
+		var done = new CountDownLatch(THREADS);
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS + MEASURE_MILLIS);
+		for (int t = 0; t < THREADS; t++) {
+			new Thread(() -> {
+				try {
+					while (System.nanoTime() < deadline) {
+						request.execute();
+						requests.increment();
+					}
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				} finally {
+					done.countDown();
+				}
+			}).start();
+		}
+		Thread.sleep(WARMUP_MILLIS);
+		requests.reset();
+		done.await();
+		return requests.sum() * 1000.0 / MEASURE_MILLIS;
+	}
+
+	@FunctionalInterface
+	private interface Request {
+
+		void execute() throws Exception;
+
+	}
+
+}
@@ -0,0 +1,197 @@
+package com.eleks.academy.whoami.protocol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.configuration.DeadlineProperties;
+import com.eleks.academy.whoami.configuration.LargeRoomProperties;
+import com.eleks.academy.whoami.core.event.GameEvent;
+import com.eleks.academy.whoami.core.event.GameEventType;
+import com.eleks.academy.whoami.core.impl.SnowflakeIdGenerator;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.impl.GameInMemoryRepository;
+import com.eleks.academy.whoami.service.impl.GameServiceImpl;
+
+class GameProtocolServerTest {
+
+	private GameProtocolServer server;
+
+	private GameProtocolClient client;
+
+	private PlayerPresence presence;
+
+	@BeforeEach
+	void start() {
+		var repository = new GameInMemoryRepository();
+		var presence = this.presence = new PlayerPresence();
+		var gameService = new GameServiceImpl(repository,
+				new LargeRoomProperties(0.5, Duration.ofSeconds(30)),
+				new DeadlineProperties(Duration.ZERO, Duration.ZERO, Duration.ZERO), SnowflakeIdGenerator.local(), presence);
+		var handler = new GameProtocolHandler(gameService, repository,
+				Validation.buildDefaultValidatorFactory().getValidator(), presence);
+		this.server = new GameProtocolServer(0, handler);
+		this.server.start();
+		this.client = GameProtocolClient.connect("localhost", this.server.getPort());
+	}
+
+	@AfterEach
+	void stop() {
+		this.client.close();
+		this.server.stop();
+	}
+
+	@Test
+	void playGame_PushesEventsToSubscriberTest() throws InterruptedException {
+		var game = this.client.createGame("player1", 2);
+		BlockingQueue<GameEvent> events = new LinkedBlockingQueue<>();
+		long version = this.client.subscribe(game.getId(), "player1", events::add);
+
+		var enrolled = this.client.enrollToGame(game.getId(), "player2");
+		this.client.suggestCharacter(game.getId(), "player1", new CharacterSuggestion("Bob", "Batman"));
+		this.client.suggestCharacter(game.getId(), "player2", new CharacterSuggestion("Alice", "Superman"));
+		var turn = this.client.findTurnInfo(game.getId(), "player1");
+
+		assertThat(game.getPlayers()).hasSize(1);
+		assertThat(enrolled.getId()).isEqualTo("player2");
+		assertThat(turn.getPlayers()).hasSize(2);
+		assertThat(turn.getCurrentPlayer().getId()).isIn("player1", "player2");
+
+		var joined = events.poll(5, TimeUnit.SECONDS);
+		assertThat(joined.type()).isEqualTo(GameEventType.PLAYER_JOINED);
+		assertThat(joined.version()).isGreaterThan(version);
+		GameEvent event;
+		do {
+			event = events.poll(5, TimeUnit.SECONDS);
+		} while (event != null && event.type() != GameEventType.TURN_CHANGED);
+		assertThat(event).isNotNull();
+		assertThat(event.player()).isEqualTo(turn.getCurrentPlayer().getId());
+		assertThat(this.presence.findAbsent(Duration.ZERO)).doesNotContain("player1");
+	}
+
+	@Test
+	void subscribe_RepeatedSubscribePushesEventsOnceTest() throws InterruptedException {
+		var game = this.client.createGame("player1", 4);
+		BlockingQueue<GameEvent> events = new LinkedBlockingQueue<>();
+		long version = this.client.subscribe(game.getId(), "player1", events::add);
+		long repeated = this.client.subscribe(game.getId(), "player1", event -> {
+		});
+
+		this.client.enrollToGame(game.getId(), "player2");
+
+		assertThat(repeated).isEqualTo(version);
+		assertThat(events.poll(5, TimeUnit.SECONDS).type()).isEqualTo(GameEventType.PLAYER_JOINED);
+		assertThat(events.poll(200, TimeUnit.MILLISECONDS)).isNull();
+	}
+
+	@Test
+	void createGame_AnswersSameStatusAsRestTest() {
+		this.client.createGame("player1", 2);
+
+		var alreadyInGame = assertThrows(GameProtocolException.class, () -> this.client.createGame("player1", 2));
+		var invalidSize = assertThrows(GameProtocolException.class, () -> this.client.createGame("player2", 501));
+		var unknownGame = assertThrows(GameProtocolException.class, () -> this.client.leaveGame("unknown", "player1"));
+
+		assertThat(alreadyInGame.getStatus()).isEqualTo(403);
+		assertThat(invalidSize.getStatus()).isEqualTo(400);
+		assertThat(unknownGame.getStatus()).isEqualTo(404);
+	}
+
+	@Test
+	void findTurnInfo_LargeRoomTest() {
+		int players = 300;
+		var game = this.client.createGame("player0", players);
+		for (int p = 1; p < players; p++) {
+			this.client.enrollToGame(game.getId(), "player" + p);
+		}
+		for (int p = 0; p < players; p++) {
+			this.client.suggestCharacter(game.getId(), "player" + p, new CharacterSuggestion("Bob", "Hero " + (char) ('a' + p / 26) + (char) ('a' + p % 26)));
+		}
+
+		var turn = this.client.findTurnInfo(game.getId(), "player0");
+
+		assertThat(turn.getPlayers()).hasSize(players);
+		assertThat(turn.getPlayers().get(players - 1).getPlayer().getId()).startsWith("player");
+	}
+
+	@Test
+	void leaveGame_AnswersEveryRequestPipelinedAtOnceTest() throws IOException {
+		int requests = 1_000;
+		var batch = ByteBuffer.allocate(requests * 64);
+		for (int id = 1; id <= requests; id++) {
+			batch.put(new FrameWriter(GameProtocol.LEAVE, id).putString("player").putString("unknown").build());
+		}
+
+		var answered = new HashSet<Integer>();
+		try (var channel = SocketChannel.open(new InetSocketAddress("localhost", this.server.getPort()))) {
+			batch.flip();
+			while (batch.hasRemaining()) {
+				channel.write(batch);
+			}
+			var header = ByteBuffer.allocate(Integer.BYTES);
+			while (answered.size() < requests) {
+				readFully(channel, header.clear());
+				var frame = ByteBuffer.allocate(header.flip().getInt());
+				readFully(channel, frame);
+				var response = new FrameReader(frame.flip());
+				assertThat(response.opcode()).isEqualTo(GameProtocol.ERROR);
+				answered.add(response.requestId());
+			}
+		}
+
+		assertThat(answered).hasSize(requests);
+	}
+
+	@Test
+	void findTurnInfo_PipelinedFromManyThreadsTest() throws InterruptedException {
+		var game = this.client.createGame("player1", 2);
+		this.client.enrollToGame(game.getId(), "player2");
+		this.client.suggestCharacter(game.getId(), "player1", new CharacterSuggestion("Bob", "Batman"));
+		this.client.suggestCharacter(game.getId(), "player2", new CharacterSuggestion("Alice", "Superman"));
+
+		var failures = new LinkedBlockingQueue<Throwable>();
+		var threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(() -> {
+				try {
+					for (int i = 0; i < 100; i++) {
+						assertThat(this.client.findTurnInfo(game.getId(), "player2").getPlayers()).hasSize(2);
+					}
+				} catch (Throwable e) {
+					failures.add(e);
+				}
+			});
+			threads[t].start();
+		}
+		for (var thread : threads) {
+			thread.join();
+		}
+
+		assertThat(failures).isEmpty();
+	}
+
+	private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("End of stream");
+			}
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+
+/**
+ * Time {@link GameDump} takes to save and load 100k games, half of them waiting for
+ * players and half processing questions with a few questions in their history.
+ * Not a unit test, run it manually:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.eleks.academy.whoami.repository.impl.GameDumpBenchmark
+ * </pre>
+ */
+public class GameDumpBenchmark {
+
+	private static final int GAMES = 100_000;
+
+	private static final int ROOM_SIZE = 4;
+
+	private static final int QUESTIONS = 4;
+
+	public static void main(String[] args) throws Exception {
+		var file = Files.createTempDirectory("game-dump").resolve("games.dump");
+		var gameRepository = new GameInMemoryRepository();
+		for (int i = 0; i < GAMES; i++) {
+			gameRepository.save(i % 2 == 0 ? waitingGame(i) : playedGame(i));
+		}
+		System.out.printf("games: %d, players: %d%n", gameRepository.countGames(), gameRepository.getAllPlayers());
+
+		for (int run = 0; run < 3; run++) {
+			var dump = new GameDump(gameRepository, new PlayerPresence(), file);
+			long started = System.nanoTime();
+			dump.save();
+			long saved = System.nanoTime() - started;
+			long size = Files.size(file);
+
+			var restartedRepository = new GameInMemoryRepository();
+			started = System.nanoTime();
+			new GameDump(restartedRepository, new PlayerPresence(), file);
+			long loaded = System.nanoTime() - started;
+
+			System.out.printf("save: %d ms, load: %d ms, file: %d MB, restored: %d games%n",
+					TimeUnit.NANOSECONDS.toMillis(saved), TimeUnit.NANOSECONDS.toMillis(loaded),
+					size / (1024 * 1024), restartedRepository.countGames());
+		}
+		System.exit(0);
+	}
+
+	private static PersistentGame waitingGame(int game) {
+		var waiting = new PersistentGame(ROOM_SIZE);
+		waiting.enrollToGame("w-" + game + "-0");
+		waiting.enrollToGame("w-" + game + "-1");
+		return waiting;
+	}
+
+	private static PersistentGame playedGame(int game) {
+		var played = new PersistentGame(ROOM_SIZE);
+		for (int p = 0; p < ROOM_SIZE; p++) {
+			played.enrollToGame("p-" + game + "-" + p);
+		}
+		for (int p = 0; p < ROOM_SIZE; p++) {
+			played.suggestCharacter("p-" + game + "-" + p, new CharacterSuggestion("Player", "Character " + p));
+		}
+		for (int q = 0; q < QUESTIONS; q++) {
+			var asking = ((ProcessingQuestion) played.getState()).getCurrentPlayer();
+			played.askQuestion(asking, "Am I a fictional character number " + q + "?");
+			for (var player : played.getPlayersList()) {
+				if (!player.getPlayer().getId().equals(asking)) {
+					played.answerQuestion(player.getPlayer().getId(), QuestionAnswer.YES);
+				}
+			}
+		}
+		return played;
+	}
+
+}
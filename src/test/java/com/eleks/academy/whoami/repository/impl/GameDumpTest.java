@@ -0,0 +1,79 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+
+class GameDumpTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void load_RestoresGamesSavedOnShutdownTest() {
+		var file = directory.resolve("games.dump");
+		var gameRepository = new GameInMemoryRepository();
+		var waiting = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(waiting.getId(), "player4");
+		var game = new PersistentGame(3);
+		game.enrollToGame("player1");
+		game.enrollToGame("player2");
+		game.enrollToGame("player3");
+		game.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		game.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		game.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) game.getState()).getCurrentPlayer();
+		game.askQuestion(asking, "Am I a hero?");
+		game.answerQuestion(asking.equals("player1") ? "player2" : "player1", QuestionAnswer.NOT_SURE);
+		gameRepository.save(game);
+		var before = game.snapshot();
+
+		new GameDump(gameRepository, new PlayerPresence(), file).shutdown();
+		var restartedRepository = new GameInMemoryRepository();
+		var presence = new PlayerPresence();
+		new GameDump(restartedRepository, presence, file);
+
+		assertThat(file).doesNotExist();
+		assertThat(restartedRepository.countGames()).isEqualTo(2);
+		assertThat(restartedRepository.getAllPlayers()).isEqualTo(4);
+		assertThat(restartedRepository.findGameByPlayer("player4")).map(SynchronousGame::getId).contains(waiting.getId());
+		assertThat(presence.size()).isEqualTo(4);
+		var restored = restartedRepository.findGameById(game.getId()).orElseThrow();
+		var after = GameMailbox.await(restored.submit(restored::snapshot));
+		assertThat(after.players()).isEqualTo(before.players());
+		assertThat(after.turn()).isEqualTo(before.turn());
+		assertThat(after.deadlines()).isEqualTo(before.deadlines());
+		assertThat(after.version()).isEqualTo(before.version() + 1);
+	}
+
+	@Test
+	void load_IgnoresDamagedFileTest() throws IOException {
+		var file = directory.resolve("games.dump");
+		var gameRepository = new GameInMemoryRepository();
+		gameRepository.enrollToGame(gameRepository.save(new PersistentGame(4)).getId(), "player1");
+		new GameDump(gameRepository, new PlayerPresence(), file).shutdown();
+		var bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(file, bytes);
+
+		var restartedRepository = new GameInMemoryRepository();
+		new GameDump(restartedRepository, new PlayerPresence(), file);
+
+		assertThat(restartedRepository.countGames()).isZero();
+		assertThat(file).doesNotExist();
+	}
+
+}
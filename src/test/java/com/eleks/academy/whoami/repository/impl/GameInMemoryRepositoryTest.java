@@ -1,10 +1,24 @@
 package com.eleks.academy.whoami.repository.impl;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.Test;
 
+import com.eleks.academy.whoami.core.exception.GameException;
+import com.eleks.academy.whoami.core.exception.GameNotFoundException;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
 import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.GameRules;
+import com.eleks.academy.whoami.core.state.impl.SuggestingCharacters;
+import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
 import com.eleks.academy.whoami.repository.GameRepository;
 
 class GameInMemoryRepositoryTest {
@@ -23,4 +37,187 @@ class GameInMemoryRepositoryTest {
 		assertThat(gameRepository.findAvailableQuickGames()).isNotNull().isNotEmpty();
 	}
 
+	@Test
+	void save_RejectsOtherGameWithSameIdTest() {
+		var game = gameRepository.save(new PersistentGame(1L, 4, GameRules.classic()));
+
+		assertThat(gameRepository.save(game)).isSameAs(game);
+		assertThrows(GameException.class, () -> gameRepository.save(new PersistentGame(1L, 4, GameRules.classic())));
+		assertThat(gameRepository.findGameById(game.getId())).containsSame(game);
+		assertThat(gameRepository.findGameById("1652345678901-123")).isEmpty();
+	}
+
+	@Test
+	void enrollToGame_IndexesPlayerTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+
+		gameRepository.enrollToGame(game.getId(), "player");
+
+		assertThat(gameRepository.findGameByPlayer("player")).containsSame(game);
+		assertThat(gameRepository.findPlayerById("player")).isPresent();
+	}
+
+	@Test
+	void enrollToGame_PlayerAlreadyInOtherGameTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		var other = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+
+		assertThrows(PlayerAlreadyInGameException.class, () -> gameRepository.enrollToGame(other.getId(), "player"));
+		assertThat(gameRepository.findGameByPlayer("player")).containsSame(game);
+	}
+
+	@Test
+	void leaveGame_RemovesPlayerFromIndexTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+
+		assertThat(gameRepository.leaveGame(game.getId(), "player")).isPresent();
+		assertThat(gameRepository.findGameByPlayer("player")).isEmpty();
+	}
+
+	@Test
+	void leaveGame_LastPlayerDisbandsGameTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+
+		gameRepository.leaveGame(game.getId(), "player");
+
+		assertThat(gameRepository.findGameById(game.getId())).isEmpty();
+		assertThat(gameRepository.countGames()).isZero();
+		assertThat(gameRepository.findAvailableQuickGames()).isEmpty();
+		assertThrows(GameNotFoundException.class, () -> game.enrollToGame("late"));
+	}
+
+	@Test
+	void enrollToGame_QueuedAfterLastPlayerLeftLeavesPlayerFreeTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+		game.suspend().get(5, TimeUnit.SECONDS);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+
+		var left = executor.submit(() -> gameRepository.leaveGame(game.getId(), "player"));
+		Thread.sleep(50);
+		var late = executor.submit(() -> gameRepository.enrollToGame(game.getId(), "late"));
+		Thread.sleep(50);
+		game.resume();
+		executor.shutdown();
+
+		assertThat(left.get(5, TimeUnit.SECONDS)).isPresent();
+		var enrolled = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+		assertThat(enrolled).hasCauseInstanceOf(GameNotFoundException.class);
+		assertThat(gameRepository.findGameByPlayer("late")).isEmpty();
+		var other = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(other.getId(), "late");
+		assertThat(gameRepository.findGameByPlayer("late")).containsSame(other);
+	}
+
+	@Test
+	void disbandGame_RemovesPlayersFromIndexTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+
+		gameRepository.disbandGame(game.getId());
+
+		assertThat(gameRepository.findGameByPlayer("player")).isEmpty();
+		assertThat(gameRepository.findPlayerById("player")).isEmpty();
+	}
+
+	@Test
+	void joinQuickGame_NoRoomOfSuchSizeTest() {
+		gameRepository.save(new PersistentGame(3));
+
+		assertThat(gameRepository.joinQuickGame("player", 4)).isEmpty();
+	}
+
+	@Test
+	void joinQuickGame_LeavesLobbyWhenFullTest() {
+		var game = gameRepository.save(new PersistentGame(3));
+
+		IntStream.range(0, 3).forEach(i -> assertThat(gameRepository.joinQuickGame("player" + i, 3)).containsSame(game));
+
+		assertThat(game.getState()).isInstanceOf(SuggestingCharacters.class);
+		assertThat(gameRepository.findAvailableQuickGames()).isEmpty();
+		assertThat(gameRepository.joinQuickGame("player", 3)).isEmpty();
+	}
+
+	@Test
+	void joinQuickGame_NeverOverfillsRoomTest() throws InterruptedException {
+		var game = gameRepository.save(new PersistentGame(4));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+
+		IntStream.range(0, 64).forEach(i -> executor.execute(() -> gameRepository.joinQuickGame("player" + i, 4)));
+		executor.shutdown();
+		assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(game.getPlayersList()).hasSize(4);
+		assertThat(game.getState()).isInstanceOf(SuggestingCharacters.class);
+	}
+
+	@Test
+	void counters_FollowEnrollLeaveTransitionAndDisbandTest() {
+		var game = gameRepository.save(new PersistentGame(3));
+		var other = gameRepository.save(new PersistentGame(4));
+		IntStream.range(0, 3).forEach(i -> gameRepository.enrollToGame(game.getId(), "player" + i));
+		gameRepository.enrollToGame(other.getId(), "other");
+
+		assertThat(gameRepository.getAllPlayers()).isEqualTo(4);
+		assertThat(gameRepository.countGames()).isEqualTo(2);
+		assertThat(gameRepository.countGames(WaitingForPlayers.class)).isEqualTo(1);
+		assertThat(gameRepository.countGames(SuggestingCharacters.class)).isEqualTo(1);
+
+		gameRepository.leaveGame(game.getId(), "player0");
+		gameRepository.disbandGame(other.getId());
+		GameMailbox.await(other.submit(() -> null));
+
+		assertThat(gameRepository.getAllPlayers()).isEqualTo(2);
+		assertThat(gameRepository.countGames()).isEqualTo(1);
+		assertThat(gameRepository.countGames(WaitingForPlayers.class)).isZero();
+	}
+
+	@Test
+	void counters_DisbandQueuedAfterTransitionTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(3));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		gameRepository.enrollToGame(game.getId(), "player2");
+		game.suspend().get(5, TimeUnit.SECONDS);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		var enrolled = executor.submit(() -> gameRepository.enrollToGame(game.getId(), "player3"));
+		Thread.sleep(50);
+		gameRepository.disbandGame(game.getId());
+		game.resume();
+		executor.shutdown();
+
+		assertThat(enrolled.get(5, TimeUnit.SECONDS)).isNotNull();
+		GameMailbox.await(game.submit(() -> null));
+		assertThat(gameRepository.countGames()).isZero();
+		assertThat(gameRepository.countGames(WaitingForPlayers.class)).isZero();
+		assertThat(gameRepository.countGames(SuggestingCharacters.class)).isZero();
+		assertThat(gameRepository.getAllPlayers()).isZero();
+		assertThat(gameRepository.findGameByPlayer("player3")).isEmpty();
+	}
+
+	@Test
+	void reapIdleGames_ReclaimsIdleGamesBatchByBatchTest() {
+		var idle = gameRepository.save(new PersistentGame(4));
+		var busy = gameRepository.save(new PersistentGame(4));
+		var other = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(idle.getId(), "player1");
+		gameRepository.enrollToGame(idle.getId(), "player2");
+		gameRepository.enrollToGame(other.getId(), "other");
+
+		var first = gameRepository.reapIdleGames(game -> game != busy, 2);
+		var second = gameRepository.reapIdleGames(game -> game != busy, 2);
+		GameMailbox.await(idle.submit(() -> null));
+		GameMailbox.await(other.submit(() -> null));
+
+		assertThat(first.plus(second)).isEqualTo(new GameRepository.Reclaimed(2, 3));
+		assertThat(gameRepository.countReclaimed()).isEqualTo(new GameRepository.Reclaimed(2, 3));
+		assertThat(gameRepository.findGameById(busy.getId())).containsSame(busy);
+		assertThat(gameRepository.findGameByPlayer("player1")).isEmpty();
+		assertThat(gameRepository.countGames()).isEqualTo(1);
+		assertThat(gameRepository.getAllPlayers()).isZero();
+	}
+
 }
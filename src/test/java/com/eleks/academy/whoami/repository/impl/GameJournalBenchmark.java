@@ -0,0 +1,99 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write throughput of {@link JournaledGameRepository} and the time it takes to rebuild
+ * 100k games from its journal. Not a unit test, run it manually:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.eleks.academy.whoami.repository.impl.GameJournalBenchmark
+ * </pre>
+ */
+public class GameJournalBenchmark {
+
+	private static final int GAMES = 100_000;
+
+	private static final int ROOM_SIZE = 4;
+
+	private static final int PLAYERS_PER_GAME = 3;
+
+	private static final long SEGMENT_SIZE = 64L * 1024 * 1024;
+
+	public static void main(String[] args) throws Exception {
+		var directory = Files.createTempDirectory("game-journal");
+		var objectMapper = new ObjectMapper().findAndRegisterModules();
+		int threads = Math.max(Runtime.getRuntime().availableProcessors(), 4);
+		System.out.printf("games: %d, threads: %d%n", GAMES, threads);
+
+		var repository = new JournaledGameRepository(directory, SEGMENT_SIZE, 256, objectMapper);
+		var games = new ArrayList<SynchronousGame>(GAMES);
+		for (int i = 0; i < GAMES; i++) {
+			games.add(repository.save(new PersistentGame(ROOM_SIZE)));
+		}
+		repository.flush().join();
+
+		long started = System.nanoTime();
+		var workers = new ArrayList<Thread>();
+		for (int t = 0; t < threads; t++) {
+			int worker = t;
+			var thread = new Thread(() -> {
+				for (int i = worker; i < GAMES; i += threads) {
+					for (int p = 0; p < PLAYERS_PER_GAME; p++) {
+						repository.enrollToGame(games.get(i).getId(), "p-" + i + "-" + p);
+					}
+				}
+			});
+			thread.start();
+			workers.add(thread);
+		}
+		join(workers);
+		repository.flush().join();
+		long elapsed = System.nanoTime() - started;
+		long commands = (long) GAMES * PLAYERS_PER_GAME;
+		System.out.printf("journaled commands/s: %.0f (%d commands in %d ms)%n",
+				commands * 1e9 / elapsed, commands, TimeUnit.NANOSECONDS.toMillis(elapsed));
+		System.out.printf("journal size: %d MB%n", size(directory) / (1024 * 1024));
+		repository.shutdown();
+
+		started = System.nanoTime();
+		var recovered = new JournaledGameRepository(directory, SEGMENT_SIZE, 256, objectMapper);
+		elapsed = System.nanoTime() - started;
+		System.out.printf("recovered %d games with %d players in %d ms%n",
+				recovered.countGames(), recovered.getAllPlayers(), TimeUnit.NANOSECONDS.toMillis(elapsed));
+		recovered.shutdown();
+
+		delete(directory);
+		System.exit(0);
+	}
+
+	private static void join(List<Thread> workers) throws InterruptedException {
+		for (var worker : workers) {
+			worker.join();
+		}
+	}
+
+	private static long size(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.mapToLong(path -> path.toFile().length()).sum();
+		}
+	}
+
+	private static void delete(Path directory) throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+}
@@ -0,0 +1,43 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GameJournalTest {
+
+	@TempDir
+	Path directory;
+
+	private GameJournal journal;
+
+	@AfterEach
+	void close() {
+		journal.close();
+	}
+
+	@Test
+	void flush_FailsOnceNextSegmentCantBeOpenedTest() throws Exception {
+		journal = new GameJournal(directory, 1, segment -> {
+		});
+		journal.start();
+		// the next segment path is taken, so the writer can't roll to it
+		Files.createDirectory(directory.resolve(String.format("journal-%020d.log", 1)));
+
+		journal.append(JournalRecord.disband(1));
+		journal.flush().handle((flushed, e) -> flushed).get(5, TimeUnit.SECONDS);
+
+		var failed = journal.flush();
+		assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+		assertThat(journal.flush()).isCompletedExceptionally();
+	}
+
+}
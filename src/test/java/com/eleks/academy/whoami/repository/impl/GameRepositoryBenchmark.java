@@ -0,0 +1,108 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.repository.GameRepository;
+
+/**
+ * Throughput of {@link GameInMemoryRepository} against {@link ShardedGameRepository}
+ * for 1..N threads. Not a unit test, run it manually:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.eleks.academy.whoami.repository.impl.GameRepositoryBenchmark
+ * </pre>
+ */
+public class GameRepositoryBenchmark {
+
+	private static final long WARMUP_MILLIS = 1_000;
+
+	private static final long MEASURE_MILLIS = 3_000;
+
+	private static final int ROOM_SIZE = 4;
+
+	public static void main(String[] args) throws InterruptedException {
+		int cores = Runtime.getRuntime().availableProcessors();
+		System.out.printf("cores: %d%n", cores);
+		System.out.printf("%-8s %20s %20s%n", "threads", "in-memory ops/s", "sharded ops/s");
+		for (int threads = 1; threads <= Math.max(cores, 4); threads *= 2) {
+			double inMemory = run(threads, GameInMemoryRepository::new);
+			double sharded = run(threads, () -> new ShardedGameRepository(Math.max(cores, 4) * 4));
+			System.out.printf("%-8d %20.0f %20.0f%n", threads, inMemory, sharded);
+		}
+		System.exit(0);
+	}
+
+	private static double run(int threads, Supplier<GameRepository> repositories) throws InterruptedException {
+		var repository = repositories.get();
+		var ops = new LongAdder();
+		var start = new CountDownLatch(1);
+		var workers = new ArrayList<Thread>();
+		var deadline = new long[1];
+
+		for (int t = 0; t < threads; t++) {
+			int worker = t;
+			var thread = new Thread(() -> {
+				try {
+					start.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				long round = 0;
+				while (System.nanoTime() < deadline[0]) {
+					try {
+						round(repository, "p-" + worker + "-" + round++);
+						ops.add(8);
+					} catch (RuntimeException e) {
+						// concurrent sessions may collide on a room, only throughput is measured here
+					}
+				}
+			});
+			thread.start();
+			workers.add(thread);
+		}
+
+		deadline[0] = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WARMUP_MILLIS + MEASURE_MILLIS);
+		start.countDown();
+		Thread.sleep(WARMUP_MILLIS);
+		ops.reset();
+		join(workers);
+		long measured = ops.sum();
+
+		if (repository instanceof ShardedGameRepository sharded) {
+			sharded.shutdown();
+		}
+		return measured * 1000.0 / MEASURE_MILLIS;
+	}
+
+	/*
+	 * One player session: quick game, a few lookups and leave, 8 repository operations
+	 */
+	private static void round(GameRepository repository, String player) {
+		var game = repository.joinQuickGame(player, ROOM_SIZE);
+		while (game.isEmpty()) {
+			repository.save(new PersistentGame(ROOM_SIZE));
+			game = repository.joinQuickGame(player, ROOM_SIZE);
+		}
+		String id = game.get().getId();
+		repository.findPlayerById(player);
+		repository.findGameByPlayer(player);
+		repository.findGameById(id);
+		repository.getAllPlayers();
+		repository.countGames();
+		repository.leaveGame(id, player);
+	}
+
+	private static void join(List<Thread> workers) throws InterruptedException {
+		for (var worker : workers) {
+			worker.join();
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+
+class JdbcGameRepositoryTest {
+
+	private String url;
+
+	private JdbcGameRepository gameRepository;
+
+	@BeforeEach
+	void setUp() {
+		url = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+		gameRepository = repository();
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		gameRepository.shutdown();
+		try (var connection = DriverManager.getConnection(url, "sa", "")) {
+			connection.createStatement().execute("SHUTDOWN");
+		}
+	}
+
+	@Test
+	void findGameById_LoadsStoredGameTest() {
+		var game = new PersistentGame(3);
+		game.enrollToGame("player1");
+		game.enrollToGame("player2");
+		game.enrollToGame("player3");
+		game.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		game.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		game.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker"));
+		var asking = ((ProcessingQuestion) game.getState()).getCurrentPlayer();
+		game.askQuestion(asking, "Am I a hero?");
+		game.answerQuestion(asking.equals("player1") ? "player2" : "player1", QuestionAnswer.NOT_SURE);
+		gameRepository.save(game);
+		var before = game.snapshot();
+
+		var restartedRepository = restart();
+
+		assertThat(restartedRepository.countGames()).isEqualTo(1);
+		assertThat(restartedRepository.getAllPlayers()).isEqualTo(3);
+		var restored = restartedRepository.findGameById(game.getId()).orElseThrow();
+		var after = GameMailbox.await(restored.submit(restored::snapshot));
+		assertThat(after.players()).isEqualTo(before.players());
+		assertThat(after.turn()).isEqualTo(before.turn());
+		assertThat(restartedRepository.countGames()).isEqualTo(1);
+	}
+
+	@Test
+	void findGameByPlayer_LoadsStoredGameOfPlayerTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player1");
+
+		var restartedRepository = restart();
+
+		assertThat(restartedRepository.findGameByPlayer("player1")).map(SynchronousGame::getId).contains(game.getId());
+		assertThat(restartedRepository.findPlayerById("player1")).isPresent();
+		assertThat(restartedRepository.findGameByPlayer("player2")).isEmpty();
+	}
+
+	@Test
+	void enrollToGame_RejectsPlayerOfStoredGameTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		var other = gameRepository.save(new PersistentGame(4));
+
+		var restartedRepository = restart();
+
+		assertThrows(PlayerAlreadyInGameException.class,
+				() -> restartedRepository.enrollToGame(other.getId(), "player1"));
+	}
+
+	@Test
+	void disbandGame_DeletesStoredGameTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		gameRepository.flushAll().join();
+
+		gameRepository.disbandGame(game.getId());
+		var restartedRepository = restart();
+
+		assertThat(restartedRepository.countGames()).isZero();
+		assertThat(restartedRepository.findGameById(game.getId())).isEmpty();
+		assertThat(restartedRepository.findGameByPlayer("player1")).isEmpty();
+	}
+
+	private JdbcGameRepository repository() {
+		return new JdbcGameRepository(url, "sa", "", Duration.ofHours(1), 512);
+	}
+
+	private JdbcGameRepository restart() {
+		gameRepository.shutdown();
+		gameRepository = repository();
+		return gameRepository;
+	}
+
+}
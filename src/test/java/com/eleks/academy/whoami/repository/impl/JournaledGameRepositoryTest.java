@@ -0,0 +1,170 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.QuestionAnswer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JournaledGameRepositoryTest {
+
+	private static final long SEGMENT_SIZE = 1024 * 1024;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+	@TempDir
+	Path directory;
+
+	private JournaledGameRepository gameRepository;
+
+	@AfterEach
+	void shutdown() {
+		gameRepository.shutdown();
+	}
+
+	@Test
+	void restart_RebuildsGamesAtTheSameTurnTest() {
+		gameRepository = open();
+		var game = gameRepository.save(new PersistentGame(3));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		gameRepository.enrollToGame(game.getId(), "player2");
+		gameRepository.enrollToGame(game.getId(), "player3");
+		run(game, () -> game.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman")));
+		run(game, () -> game.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman")));
+		run(game, () -> game.suggestCharacter("player3", new CharacterSuggestion("Eve", "Joker")));
+		var asking = ((ProcessingQuestion) game.getState()).getCurrentPlayer();
+		var answering = game.getPlayersList().stream()
+				.map(player -> player.getPlayer().getId())
+				.filter(player -> !player.equals(asking))
+				.toList();
+		run(game, () -> game.askQuestion(asking, "Am I a hero?"));
+		run(game, () -> game.answerQuestion(answering.get(0), QuestionAnswer.YES));
+		var before = call(game, game::snapshot);
+
+		restart();
+
+		var restored = gameRepository.findGameById(game.getId()).orElseThrow();
+		var after = call(restored, restored::snapshot);
+		assertThat(after.state()).isEqualTo(ProcessingQuestion.class.getSimpleName());
+		assertThat(after.players()).containsExactlyInAnyOrderElementsOf(before.players());
+		assertThat(after.turn()).isEqualTo(before.turn());
+		assertThat(gameRepository.findGameByPlayer("player1")).containsSame(restored);
+		assertThat(gameRepository.getAllPlayers()).isEqualTo(3);
+
+		run(restored, () -> restored.answerQuestion(answering.get(1), QuestionAnswer.YES));
+
+		assertThat(restored.getGameHistory().hasCurrentQuestion()).isFalse();
+	}
+
+	@Test
+	void restart_SkipsDisbandedGamesTest() {
+		gameRepository = open();
+		var kept = gameRepository.save(new PersistentGame(4));
+		var disbanded = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(kept.getId(), "player1");
+		gameRepository.enrollToGame(disbanded.getId(), "player2");
+		gameRepository.disbandGame(disbanded.getId());
+
+		restart();
+
+		assertThat(gameRepository.findGameById(kept.getId())).isPresent();
+		assertThat(gameRepository.findGameById(disbanded.getId())).isEmpty();
+		assertThat(gameRepository.findGameByPlayer("player1")).isPresent();
+		assertThat(gameRepository.findGameByPlayer("player2")).isEmpty();
+	}
+
+	@Test
+	void restart_IgnoresTornRecordTest() throws IOException {
+		gameRepository = open();
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		gameRepository.shutdown();
+		var torn = JournalRecord.command(game.getNumericId(), JournalRecord.Command.ENROLL, "player2").encode();
+		torn.limit(torn.limit() - 3);
+		try (var channel = Files.newByteChannel(lastSegment(), StandardOpenOption.APPEND)) {
+			channel.write(torn);
+		}
+
+		gameRepository = open();
+
+		var restored = gameRepository.findGameById(game.getId()).orElseThrow();
+		assertThat(restored.getPlayersList()).extracting(player -> player.getPlayer().getId())
+				.containsExactly("player1");
+	}
+
+	@Test
+	void restart_DeletesSegmentsCoveredBySnapshotsTest() throws IOException {
+		gameRepository = open();
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player1");
+
+		restart();
+		restart();
+
+		assertThat(segments()).hasSize(1);
+		assertThat(gameRepository.findGameByPlayer("player1")).isPresent();
+	}
+
+	@Test
+	void checkpoint_StopsRollingOnceSnapshotsOutgrowSegmentTest() throws Exception {
+		gameRepository = new JournaledGameRepository(directory, 1024, 16, objectMapper);
+		for (int i = 0; i < 32; i++) {
+			var game = gameRepository.save(new PersistentGame(4));
+			gameRepository.enrollToGame(game.getId(), "player" + i);
+		}
+		gameRepository.flush().get(5, TimeUnit.SECONDS);
+		Thread.sleep(500);
+
+		var settled = lastSegment();
+		Thread.sleep(500);
+
+		assertThat(lastSegment()).isEqualTo(settled);
+	}
+
+	private JournaledGameRepository open() {
+		return new JournaledGameRepository(directory, SEGMENT_SIZE, 16, objectMapper);
+	}
+
+	private void restart() {
+		gameRepository.shutdown();
+		gameRepository = open();
+	}
+
+	private List<Path> segments() throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.sorted(Comparator.naturalOrder()).toList();
+		}
+	}
+
+	private Path lastSegment() throws IOException {
+		var segments = segments();
+		return segments.get(segments.size() - 1);
+	}
+
+	private static void run(SynchronousGame game, Runnable command) {
+		GameMailbox.await(game.submit(command));
+	}
+
+	private static <T> T call(SynchronousGame game, Supplier<T> command) {
+		return GameMailbox.await(game.submit(command));
+	}
+
+}
@@ -0,0 +1,95 @@
+package com.eleks.academy.whoami.repository.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.exception.PlayerAlreadyInGameException;
+import com.eleks.academy.whoami.core.impl.GameMailbox;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.WaitingForPlayers;
+
+class ShardedGameRepositoryTest {
+
+	private final ShardedGameRepository gameRepository = new ShardedGameRepository(4);
+
+	@AfterEach
+	void shutdown() {
+		gameRepository.shutdown();
+	}
+
+	@Test
+	void findAllGames_CollectsEveryShardTest() {
+		saveGames(32);
+
+		assertThat(gameRepository.findAllGames("player")).hasSize(32);
+		assertThat(gameRepository.findAllAvailable("player")).hasSize(32);
+		assertThat(gameRepository.countGames(WaitingForPlayers.class)).isEqualTo(32);
+	}
+
+	@Test
+	void enrollToGame_PlayerAlreadyInGameOfOtherShardTest() {
+		var games = saveGames(32);
+		gameRepository.enrollToGame(games.get(0).getId(), "player");
+
+		games.stream()
+				.skip(1)
+				.forEach(game -> assertThrows(PlayerAlreadyInGameException.class,
+						() -> gameRepository.enrollToGame(game.getId(), "player")));
+		assertThat(gameRepository.findGameByPlayer("player")).containsSame(games.get(0));
+		assertThat(gameRepository.getAllPlayers()).isEqualTo(1);
+	}
+
+	@Test
+	void joinQuickGame_FindsRoomInAnyShardTest() {
+		var game = gameRepository.save(new PersistentGame(3));
+
+		assertThat(gameRepository.joinQuickGame("player", 3)).containsSame(game);
+		assertThat(gameRepository.joinQuickGame("other", 4)).isEmpty();
+		assertThat(gameRepository.findPlayerById("other")).isEmpty();
+	}
+
+	@Test
+	void leaveGame_RemovesPlayerFromIndexTest() {
+		var game = gameRepository.save(new PersistentGame(4));
+		gameRepository.enrollToGame(game.getId(), "player");
+		gameRepository.enrollToGame(game.getId(), "other");
+
+		gameRepository.leaveGame(game.getId(), "player");
+
+		assertThat(gameRepository.findGameByPlayer("player")).isEmpty();
+		assertThat(gameRepository.joinQuickGame("player", 4)).containsSame(game);
+	}
+
+	@Test
+	void reapIdleGames_WalksEveryShardTest() {
+		var games = saveGames(32);
+		gameRepository.enrollToGame(games.get(0).getId(), "player");
+
+		long reclaimed = 0;
+		for (int run = 0; run < 32 && reclaimed < 32; run++) {
+			reclaimed += gameRepository.reapIdleGames(game -> true, 8).games();
+		}
+
+		games.forEach(game -> GameMailbox.await(game.submit(() -> null)));
+
+		assertThat(reclaimed).isEqualTo(32);
+		assertThat(gameRepository.countReclaimed().players()).isEqualTo(1);
+		assertThat(gameRepository.findGameByPlayer("player")).isEmpty();
+		assertThat(gameRepository.enrollToGame(gameRepository.save(new PersistentGame(4)).getId(), "player")).isNotNull();
+	}
+
+	private List<SynchronousGame> saveGames(int count) {
+		return Stream.generate(() -> new PersistentGame(4))
+				.limit(count)
+				.map(gameRepository::save)
+				.toList();
+	}
+
+}
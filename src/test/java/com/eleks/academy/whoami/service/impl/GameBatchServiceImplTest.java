@@ -0,0 +1,74 @@
+package com.eleks.academy.whoami.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import javax.validation.Validation;
+
+import org.junit.jupiter.api.Test;
+
+import com.eleks.academy.whoami.core.SynchronousGame;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.core.state.impl.ProcessingQuestion;
+import com.eleks.academy.whoami.model.request.CharacterSuggestion;
+import com.eleks.academy.whoami.model.request.GameCommand;
+import com.eleks.academy.whoami.model.response.CommandResult;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.impl.GameInMemoryRepository;
+
+class GameBatchServiceImplTest {
+
+	private final GameInMemoryRepository repository = new GameInMemoryRepository();
+
+	private final GameBatchServiceImpl batchService = new GameBatchServiceImpl(this.repository,
+			Validation.buildDefaultValidatorFactory().getValidator(), new PlayerPresence());
+
+	@Test
+	void execute_AppliesCommandsOfGameInOrderTest() {
+		var game = this.startedGame();
+		var asking = ((ProcessingQuestion) game.getState()).getCurrentPlayer();
+		var answering = asking.equals("player1") ? "player2" : "player1";
+
+		var results = this.batchService.execute(List.of(
+				command(GameCommand.Type.ASK, game.getId(), asking).message("Am I a hero?").build(),
+				command(GameCommand.Type.ANSWER, game.getId(), answering).answer("NO").build(),
+				command(GameCommand.Type.ASK, game.getId(), answering).message("Am I a villain?").build()));
+
+		assertThat(results).extracting(CommandResult::getStatus).containsExactly(200, 200, 200);
+		assertThat(game.getGameHistory().getQuestions()).hasSize(2);
+	}
+
+	@Test
+	void execute_ReportsErrorPerCommandTest() {
+		var game = this.startedGame();
+		var asking = ((ProcessingQuestion) game.getState()).getCurrentPlayer();
+
+		var results = this.batchService.execute(List.of(
+				command(GameCommand.Type.ANSWER, game.getId(), asking).answer("MAYBE").build(),
+				command(GameCommand.Type.ASK, game.getId(), asking).message("?").build(),
+				command(GameCommand.Type.ASK, "unknown", asking).message("Am I a hero?").build(),
+				command(GameCommand.Type.ANSWER, game.getId(), asking).answer("YES").build(),
+				command(GameCommand.Type.ASK, game.getId(), asking).message("Am I a hero?").build()));
+
+		assertThat(results).extracting(CommandResult::getStatus).containsExactly(400, 400, 404, 404, 200);
+		assertThat(results.get(1).getError()).isEqualTo("Message must be between 2 and 256 characters long.");
+	}
+
+	private SynchronousGame startedGame() {
+		var game = this.repository.save(new PersistentGame(2));
+		this.repository.enrollToGame(game.getId(), "player1");
+		this.repository.enrollToGame(game.getId(), "player2");
+		game.suggestCharacter("player1", new CharacterSuggestion("Bob", "Batman"));
+		game.suggestCharacter("player2", new CharacterSuggestion("Alice", "Superman"));
+		return game;
+	}
+
+	private static GameCommand.GameCommandBuilder command(GameCommand.Type type, String gameId, String player) {
+		return GameCommand.builder()
+				.type(type)
+				.gameId(gameId)
+				.player(player);
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.eleks.academy.whoami.service.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.eleks.academy.whoami.controller.GameController;
+import com.eleks.academy.whoami.core.impl.PersistentGame;
+import com.eleks.academy.whoami.presence.PlayerPresence;
+import com.eleks.academy.whoami.repository.impl.GameInMemoryRepository;
+import com.eleks.academy.whoami.service.GameBatchService;
+import com.eleks.academy.whoami.utils.StringUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class GameEventServiceImplTest {
+
+	private final GameInMemoryRepository gameRepository = new GameInMemoryRepository();
+
+	private final PlayerPresence presence = new PlayerPresence();
+
+	private final GameEventServiceImpl gameEventService = new GameEventServiceImpl(gameRepository,
+			new ObjectMapper().findAndRegisterModules(), presence);
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setMockMvc() {
+		mockMvc = MockMvcBuilders
+				.standaloneSetup(new GameController(mock(GameServiceImpl.class), gameEventService,
+						mock(GameBatchService.class)))
+				.build();
+	}
+
+	@AfterEach
+	void shutdown() {
+		gameEventService.shutdown();
+	}
+
+	@Test
+	void subscribe_SendsVersionBeforeEventsTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(3));
+		gameRepository.enrollToGame(game.getId(), "player1");
+
+		var response = subscribe(game.getId()).getResponse();
+		gameRepository.enrollToGame(game.getId(), "player2");
+
+		var events = awaitContent(response, "PLAYER_JOINED");
+		assertThat(events).startsWith("id:" + (game.getVersion() - 1) + "\nevent:subscribed\n");
+		assertThat(events).contains("id:" + game.getVersion() + "\nevent:PLAYER_JOINED\n");
+	}
+
+	@Test
+	void disbandGame_CompletesSubscribersTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(3));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		var subscribed = subscribe(game.getId());
+		awaitContent(subscribed.getResponse(), "subscribed");
+
+		gameRepository.disbandGame(game.getId());
+
+		subscribed.getAsyncResult(5_000);
+		assertThat(subscribed.getResponse().getContentAsString()).contains("event:GAME_DISBANDED\n");
+	}
+
+	@Test
+	void reapIdleGames_CompletesSubscribersTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(3));
+		var subscribed = subscribe(game.getId());
+		awaitContent(subscribed.getResponse(), "subscribed");
+
+		gameRepository.reapIdleGames(idle -> true, 10);
+
+		subscribed.getAsyncResult(5_000);
+		assertThat(subscribed.getResponse().getContentAsString()).contains("event:GAME_DISBANDED\n");
+	}
+
+	@Test
+	void subscribe_KeepsSeatedPlayerPresentTest() throws Exception {
+		var game = gameRepository.save(new PersistentGame(3));
+		gameRepository.enrollToGame(game.getId(), "player1");
+		presence.track("player1");
+		presence.track("player2");
+
+		var subscribed = subscribe(game.getId(), "player1");
+		subscribe(game.getId(), "player2");
+		awaitContent(subscribed.getResponse(), "subscribed");
+		Thread.sleep(5);
+
+		assertThat(presence.findAbsent(Duration.ZERO)).containsExactly("player2");
+	}
+
+	private MvcResult subscribe(String id) throws Exception {
+		return subscribe(id, null);
+	}
+
+	private MvcResult subscribe(String id, String player) throws Exception {
+		var request = MockMvcRequestBuilders.get("/games/{id}/events", id)
+				.accept(MediaType.TEXT_EVENT_STREAM);
+		if (player != null) {
+			request.header(StringUtils.Headers.PLAYER, player);
+		}
+		return mockMvc.perform(request)
+				.andExpect(request().asyncStarted())
+				.andReturn();
+	}
+
+	private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		var content = response.getContentAsString();
+		while (!content.contains(expected) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+			content = response.getContentAsString();
+		}
+		return content;
+	}
+
+}
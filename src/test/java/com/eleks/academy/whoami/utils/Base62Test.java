@@ -0,0 +1,25 @@
+package com.eleks.academy.whoami.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class Base62Test {
+
+	@Test
+	void encode_DecodesBackTest() {
+		for (long value : new long[] {0, 61, 62, 1_700_000_000_000L, Long.MAX_VALUE}) {
+			assertThat(Base62.decode(Base62.encode(value))).isEqualTo(value);
+		}
+		assertThat(Base62.encode(Long.MAX_VALUE)).hasSize(11);
+	}
+
+	@Test
+	void decode_RejectsForeignIdsTest() {
+		assertThat(Base62.decode("1652345678901-123")).isEqualTo(-1);
+		assertThat(Base62.decode("zzzzzzzzzzz")).isEqualTo(-1);
+		assertThat(Base62.decode("")).isEqualTo(-1);
+		assertThat(Base62.decode(null)).isEqualTo(-1);
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.eleks.academy.whoami.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+	@Test
+	void intern_ReturnsCanonicalInstanceTest() {
+		var table = new SymbolTable(16);
+		var first = new String("player1");
+		var second = new String("player1");
+
+		assertThat(table.intern(first)).isSameAs(first);
+		assertThat(table.intern(second)).isSameAs(first);
+		assertThat(table.intern(null)).isNull();
+	}
+
+	@Test
+	void intern_StaysBoundedTest() {
+		var table = new SymbolTable(10);
+
+		for (int i = 0; i < 1_000; i++) {
+			var value = "player" + i;
+			assertThat(table.intern(value)).isEqualTo(value);
+		}
+
+		assertThat(table.capacity()).isEqualTo(16);
+	}
+
+	@Test
+	void intern_KeepsPlayersInUseAmongMoreDistinctIdsThanSlotsTest() {
+		var table = new SymbolTable(1024);
+		var seated = new ArrayList<String>();
+		var passing = new ArrayList<String>();
+		for (int i = 0; i < 512; i++) {
+			seated.add(table.intern(new String("player" + i)));
+		}
+
+		int hits = 0;
+		for (int i = 0; i < 4 * table.capacity(); i++) {
+			passing.add(table.intern("visitor" + i));
+			var player = seated.get(i % seated.size());
+			if (table.intern(new String(player)) == player) {
+				hits++;
+			}
+		}
+
+		assertThat(passing).hasSize(4 * table.capacity());
+		assertThat((double) hits / (4 * table.capacity())).isGreaterThan(0.9);
+	}
+
+}
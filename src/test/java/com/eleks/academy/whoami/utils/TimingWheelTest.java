@@ -0,0 +1,65 @@
+package com.eleks.academy.whoami.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+	private final TimingWheel wheel = new TimingWheel("test-wheel", Duration.ofMillis(10), 8);
+
+	@Test
+	void schedule_FiresNotBeforeDelayTest() throws InterruptedException {
+		var fired = new CountDownLatch(1);
+		long start = System.nanoTime();
+
+		this.wheel.schedule(fired::countDown, Duration.ofMillis(50));
+
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(50).toNanos());
+	}
+
+	@Test
+	void schedule_FiresAfterSeveralRoundsTest() throws InterruptedException {
+		var fired = new CountDownLatch(1);
+		long start = System.nanoTime();
+
+		// 8 buckets of 10ms make a round of 80ms
+		this.wheel.schedule(fired::countDown, Duration.ofMillis(250));
+
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(250).toNanos());
+	}
+
+	@Test
+	void cancel_PreventsFiringTest() throws InterruptedException {
+		var cancelled = new AtomicBoolean();
+		var fired = new CountDownLatch(1);
+
+		var timeout = this.wheel.schedule(() -> cancelled.set(true), Duration.ofMillis(30));
+		this.wheel.schedule(fired::countDown, Duration.ofMillis(100));
+
+		assertThat(timeout.cancel()).isTrue();
+		assertThat(timeout.cancel()).isFalse();
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(cancelled).isFalse();
+	}
+
+	@Test
+	void schedule_FiresManyTimersTest() throws InterruptedException {
+		var fired = new CountDownLatch(10_000);
+
+		for (int i = 0; i < 10_000; i++) {
+			this.wheel.schedule(fired::countDown, Duration.ofMillis(i % 200));
+		}
+
+		assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.wheel.size()).isZero();
+	}
+
+}